@@ -4,7 +4,11 @@ import com.ledgerly.api.dto.MerchantCreateRequest;
 import com.ledgerly.api.dto.OutcomeRequest;
 import com.ledgerly.api.dto.TransactionCreateRequest;
 import com.ledgerly.domain.DomainService;
+import com.ledgerly.domain.NewTransaction;
 import com.ledgerly.domain.TransactionState;
+import com.ledgerly.engine.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,7 +18,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -23,9 +29,11 @@ import java.util.Map;
 public class DomainController {
 
     private final DomainService domain;
+    private final ObjectMapper objectMapper;
 
-    public DomainController(DomainService domain) {
+    public DomainController(DomainService domain, ObjectMapper objectMapper) {
         this.domain = domain;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/merchants")
@@ -40,6 +48,14 @@ public class DomainController {
         return m == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(m);
     }
 
+    @GetMapping("/merchants/{id}/totals")
+    public ResponseEntity<List<Map<String, Object>>> merchantTotals(@PathVariable String id) {
+        if (domain.getMerchant(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(domain.merchantTotals(id));
+    }
+
     @PostMapping("/transactions")
     public ResponseEntity<Void> createTransaction(@RequestBody TransactionCreateRequest req) {
         domain.createTransaction(
@@ -52,6 +68,23 @@ public class DomainController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Creates every transaction of the array or, when any of them is rejected, none.
+     */
+    @PostMapping("/transactions:batch")
+    public Map<String, Object> createTransactions(@RequestBody List<TransactionCreateRequest> reqs) {
+        List<NewTransaction> transactions = reqs.stream()
+                .map(req -> new NewTransaction(
+                        req.getId(),
+                        req.getMerchantId(),
+                        req.getAmount(),
+                        req.getCurrency(),
+                        parseInstant(req.getExpiresAt()),
+                        req.getMetadata()))
+                .toList();
+        return Map.of("created", domain.createTransactions(transactions));
+    }
+
     @GetMapping("/transactions/{id}")
     public ResponseEntity<Map<String, Object>> getTransaction(@PathVariable String id) {
         Map<String, Object> tx = domain.getTransaction(id);
@@ -59,10 +92,40 @@ public class DomainController {
     }
 
     @GetMapping("/transactions")
-    public List<Map<String, Object>> listTransactions(@RequestParam(name = "merchant_id", required = false) String merchantId,
-                                                      @RequestParam(name = "state", required = false) String state) {
+    public ResponseEntity<List<Map<String, Object>>> listTransactions(@RequestParam(name = "merchant_id", required = false) String merchantId,
+                                                                      @RequestParam(name = "state", required = false) String state,
+                                                                      @RequestParam(name = "limit", required = false) Integer limit,
+                                                                      @RequestParam(name = "offset", required = false) Integer offset,
+                                                                      @RequestParam(name = "cursor", required = false) String cursor) {
+        TransactionState s = state == null ? null : TransactionState.valueOf(state.toUpperCase());
+        Page page = DtoMapper.toPage(offset, limit, cursor);
+        if (page == null) {
+            return ResponseEntity.ok(domain.listTransactions(merchantId, s));
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Long next = domain.listTransactions(merchantId, s, page, rows::add);
+        return TableController.withCursor(rows, next);
+    }
+
+    @GetMapping(value = "/transactions", params = "stream=true")
+    public void streamTransactions(@RequestParam(name = "merchant_id", required = false) String merchantId,
+                                   @RequestParam(name = "state", required = false) String state,
+                                   @RequestParam(name = "limit", required = false) Integer limit,
+                                   @RequestParam(name = "offset", required = false) Integer offset,
+                                   @RequestParam(name = "cursor", required = false) String cursor,
+                                   HttpServletResponse response) throws IOException {
+        TransactionState s = state == null ? null : TransactionState.valueOf(state.toUpperCase());
+        Page page = DtoMapper.toPage(offset, limit, cursor);
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, response)) {
+            domain.listTransactions(merchantId, s, page == null ? Page.ALL : page, writer);
+        }
+    }
+
+    @GetMapping("/transactions/summary")
+    public List<Map<String, Object>> summarizeTransactions(@RequestParam(name = "merchant_id", required = false) String merchantId,
+                                                           @RequestParam(name = "state", required = false) String state) {
         TransactionState s = state == null ? null : TransactionState.valueOf(state.toUpperCase());
-        return domain.listTransactions(merchantId, s);
+        return domain.summarizeTransactions(merchantId, s);
     }
 
     @PostMapping("/transactions/{id}/outcome")
@@ -78,6 +141,11 @@ public class DomainController {
         return Map.of("expired", updated);
     }
 
+    @GetMapping("/transactions/expiry")
+    public Map<String, Object> expiryStats() {
+        return domain.expiryStats();
+    }
+
     private Instant parseInstant(String maybe) {
         if (maybe == null || maybe.isBlank()) return null;
         return Instant.parse(maybe);
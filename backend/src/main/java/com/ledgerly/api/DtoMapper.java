@@ -1,12 +1,22 @@
 package com.ledgerly.api;
 
+import com.ledgerly.api.dto.AggregateDto;
 import com.ledgerly.api.dto.ColumnDto;
 import com.ledgerly.api.dto.ConditionDto;
+import com.ledgerly.api.dto.OrderByDto;
+import com.ledgerly.engine.Aggregate;
+import com.ledgerly.engine.AggregateFunction;
 import com.ledgerly.engine.ColumnDefinition;
 import com.ledgerly.engine.Condition;
 import com.ledgerly.engine.ConditionOperator;
 import com.ledgerly.engine.DataType;
+import com.ledgerly.engine.IndexDefinition;
+import com.ledgerly.engine.IndexType;
+import com.ledgerly.engine.OrderBy;
+import com.ledgerly.engine.Page;
 import com.ledgerly.engine.RowPredicate;
+import com.ledgerly.engine.ScanMode;
+import com.ledgerly.engine.SortDirection;
 import com.ledgerly.engine.TableSchema;
 
 import java.util.List;
@@ -37,6 +47,101 @@ public final class DtoMapper {
         return new RowPredicate(conditions);
     }
 
+    public static List<Aggregate> toAggregates(List<AggregateDto> aggregates) {
+        if (aggregates == null) {
+            return List.of();
+        }
+        return aggregates.stream()
+                .map(a -> new Aggregate(toAggregateFunction(a.getFunction()), blankToNull(a.getColumn()), a.getAlias()))
+                .toList();
+    }
+
+    /**
+     * Sort keys of a query, or null when it has none and rows come back in row order.
+     */
+    public static List<OrderBy> toOrderBy(List<OrderByDto> orderBy) {
+        if (orderBy == null || orderBy.isEmpty()) {
+            return null;
+        }
+        return orderBy.stream()
+                .map(o -> new OrderBy(o.getColumn(), toDirection(o.getDirection())))
+                .toList();
+    }
+
+    /**
+     * Index definition; non-empty {@code where} filters make it a partial index.
+     */
+    public static IndexDefinition toIndex(String name, List<String> columns, String type, List<ConditionDto> where) {
+        RowPredicate filter = toPredicate(where);
+        return new IndexDefinition(name, columns, toIndexType(type), filter == null ? List.of() : filter.conditions());
+    }
+
+    private static IndexType toIndexType(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return IndexType.HASH;
+        }
+        try {
+            return IndexType.valueOf(raw.toUpperCase(Locale.ROOT));
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Unsupported index type: " + raw);
+        }
+    }
+
+    /**
+     * Page for the given paging parameters, or null when none is set and the full result is wanted.
+     */
+    public static Page toPage(Integer offset, Integer limit, String cursor) {
+        if (offset == null && limit == null && (cursor == null || cursor.isBlank())) {
+            return null;
+        }
+        Long after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                after = Long.parseLong(cursor);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+        return new Page(offset == null ? 0 : offset, limit, after);
+    }
+
+    public static ScanMode toScanMode(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return ScanMode.AUTO;
+        }
+        try {
+            return ScanMode.valueOf(raw.toUpperCase(Locale.ROOT));
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Unsupported scan mode: " + raw);
+        }
+    }
+
+    private static SortDirection toDirection(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return SortDirection.ASC;
+        }
+        try {
+            return SortDirection.valueOf(raw.toUpperCase(Locale.ROOT));
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Unsupported sort direction: " + raw);
+        }
+    }
+
+    private static AggregateFunction toAggregateFunction(String raw) {
+        if (raw == null) {
+            throw new IllegalArgumentException("Aggregate function is required");
+        }
+        try {
+            return AggregateFunction.valueOf(raw.toUpperCase(Locale.ROOT));
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Unsupported aggregate function: " + raw);
+        }
+    }
+
+    private static String blankToNull(String raw) {
+        return raw == null || raw.isBlank() || raw.equals("*") ? null : raw;
+    }
+
     private static ColumnDefinition toColumn(ColumnDto dto) {
         return new ColumnDefinition(dto.getName(), toType(dto.getType()), dto.isNullable());
     }
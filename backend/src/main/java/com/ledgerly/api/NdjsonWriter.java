@@ -0,0 +1,56 @@
+package com.ledgerly.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Writes rows to the response as newline-delimited JSON while the engine produces them, so a
+ * large result is never held in memory. The response is left alone until the first row, so a
+ * query rejected before it produces anything still gets the regular JSON error body.
+ */
+final class NdjsonWriter implements Consumer<Map<String, Object>>, Closeable {
+    static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final ObjectWriter writer;
+    private final HttpServletResponse response;
+    private JsonGenerator generator;
+
+    NdjsonWriter(ObjectMapper mapper, HttpServletResponse response) {
+        // the servlet container flushes whenever its buffer fills; a flush per row would cost a chunk per row
+        this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.response = response;
+    }
+
+    @Override
+    public void accept(Map<String, Object> row) {
+        try {
+            if (generator == null) {
+                response.setContentType(MEDIA_TYPE);
+                generator = writer.createGenerator(response.getOutputStream());
+                generator.setRootValueSeparator(null);
+            }
+            writer.writeValue(generator, row);
+            generator.writeRaw('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator == null) {
+            response.setContentType(MEDIA_TYPE);
+            return;
+        }
+        generator.close();
+    }
+}
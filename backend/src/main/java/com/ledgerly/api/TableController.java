@@ -1,14 +1,27 @@
 package com.ledgerly.api;
 
+import com.ledgerly.api.dto.AggregateRequest;
+import com.ledgerly.api.dto.BatchInsertRequest;
+import com.ledgerly.api.dto.CreateIndexRequest;
 import com.ledgerly.api.dto.CreateTableRequest;
+import com.ledgerly.api.dto.CreateViewRequest;
 import com.ledgerly.api.dto.DeleteRequest;
 import com.ledgerly.api.dto.InsertRequest;
 import com.ledgerly.api.dto.JoinRequest;
 import com.ledgerly.api.dto.QueryRequest;
 import com.ledgerly.api.dto.UpdateRequest;
+import com.ledgerly.engine.ImportFormat;
+import com.ledgerly.engine.IndexDefinition;
 import com.ledgerly.engine.LedgerEngine;
+import com.ledgerly.engine.MaterializedViewDefinition;
+import com.ledgerly.engine.OrderBy;
+import com.ledgerly.engine.Page;
 import com.ledgerly.engine.RowPredicate;
 import com.ledgerly.engine.TableSchema;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,8 +30,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -26,10 +45,14 @@ import java.util.Map;
 @RequestMapping("/tables")
 public class TableController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final LedgerEngine engine;
+    private final ObjectMapper objectMapper;
 
-    public TableController(LedgerEngine engine) {
+    public TableController(LedgerEngine engine, ObjectMapper objectMapper) {
         this.engine = engine;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
@@ -48,12 +71,73 @@ public class TableController {
         return ResponseEntity.ok().build();
     }
 
+    @GetMapping("/{table}/indexes")
+    public List<IndexDefinition> listIndexes(@PathVariable String table) {
+        return engine.listIndexes(table);
+    }
+
+    @PostMapping("/{table}/indexes")
+    public ResponseEntity<Void> createIndex(@PathVariable String table, @RequestBody CreateIndexRequest request) {
+        engine.createIndex(table, DtoMapper.toIndex(request.getName(), request.getColumns(), request.getType(),
+                request.getWhere()));
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/{table}/views")
+    public List<MaterializedViewDefinition> listViews(@PathVariable String table) {
+        return engine.listViews(table);
+    }
+
+    @PostMapping("/{table}/views")
+    public ResponseEntity<Void> createView(@PathVariable String table, @RequestBody CreateViewRequest request) {
+        engine.createView(table, new MaterializedViewDefinition(
+                request.getName(), request.getGroupBy(), DtoMapper.toAggregates(request.getAggregates())));
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Groups of a materialized view; query parameters filter on grouping columns.
+     */
+    @GetMapping("/{table}/views/{view}")
+    public List<Map<String, Object>> queryView(@PathVariable String table, @PathVariable String view,
+                                               @RequestParam Map<String, String> filter) {
+        return engine.queryView(table, view, Map.copyOf(filter));
+    }
+
     @PostMapping("/{table}/rows")
     public ResponseEntity<Void> insert(@PathVariable String table, @RequestBody InsertRequest request) {
         engine.insert(table, request.getValues());
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Inserts every row or, when any of them is invalid or violates a constraint, none.
+     */
+    @PostMapping("/{table}/rows:batch")
+    public Map<String, Object> insertBatch(@PathVariable String table, @RequestBody BatchInsertRequest request) {
+        List<Map<String, Object>> rows = request.getRows() == null ? List.of() : request.getRows();
+        engine.insertAll(table, rows);
+        return Map.of("inserted", rows.size());
+    }
+
+    /**
+     * Bulk loads the request body as CSV or NDJSON, chosen by {@code format} or else the content type,
+     * reading it as a stream.
+     */
+    @PostMapping("/{table}/rows:load")
+    public Map<String, Object> load(@PathVariable String table, @RequestParam(required = false) String format,
+                                    HttpServletRequest request) throws IOException {
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE)) {
+            // the servlet container has already consumed a form body as parameters
+            throw new IllegalArgumentException("Send the rows as text/csv or application/x-ndjson");
+        }
+        ImportFormat importFormat = ImportFormat.resolve(format, contentType);
+        try (Reader in = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)) {
+            return Map.of("loaded", engine.load(table, importFormat, in));
+        }
+    }
+
     @PutMapping("/{table}/rows")
     public Map<String, Object> update(@PathVariable String table, @RequestBody UpdateRequest request) {
         RowPredicate predicate = DtoMapper.toPredicate(request.getFilters());
@@ -68,13 +152,74 @@ public class TableController {
         return Map.of("deleted", count);
     }
 
+    /**
+     * With {@code limit}, {@code offset} or {@code cursor} set, returns one page and, when more rows
+     * match, the cursor for the next one in the {@value #NEXT_CURSOR_HEADER} header. With
+     * {@code orderBy}, rows are sorted and paged by {@code offset} and {@code limit} only.
+     */
     @PostMapping("/{table}/query")
-    public List<Map<String, Object>> query(@PathVariable String table, @RequestBody QueryRequest request) {
+    public ResponseEntity<List<Map<String, Object>>> query(@PathVariable String table, @RequestBody QueryRequest request) {
+        RowPredicate predicate = DtoMapper.toPredicate(request.getFilters());
+        List<String> columns = columns(request);
+        Page page = DtoMapper.toPage(request.getOffset(), request.getLimit(), request.getCursor());
+        List<OrderBy> orderBy = DtoMapper.toOrderBy(request.getOrderBy());
+        if (orderBy != null) {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            engine.select(table, columns, predicate, orderBy, page == null ? Page.ALL : page,
+                    DtoMapper.toScanMode(request.getScanMode()), rows::add);
+            return ResponseEntity.ok(rows);
+        }
+        if (page == null) {
+            return ResponseEntity.ok(engine.select(table, columns, predicate, DtoMapper.toScanMode(request.getScanMode())));
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Long next = engine.select(table, columns, predicate, page, rows::add);
+        return withCursor(rows, next);
+    }
+
+    /**
+     * Same query, written as newline-delimited JSON while the table is scanned. Paging parameters
+     * apply, but no next cursor is returned: headers are sent before the scan finishes.
+     */
+    @PostMapping(value = "/{table}/query", params = "stream=true")
+    public void streamQuery(@PathVariable String table, @RequestBody QueryRequest request,
+                            HttpServletResponse response) throws IOException {
         RowPredicate predicate = DtoMapper.toPredicate(request.getFilters());
-        List<String> columns = request.getColumns() == null || request.getColumns().isEmpty()
-                ? null
-                : request.getColumns();
-        return engine.select(table, columns, predicate);
+        Page page = DtoMapper.toPage(request.getOffset(), request.getLimit(), request.getCursor());
+        List<OrderBy> orderBy = DtoMapper.toOrderBy(request.getOrderBy());
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, response)) {
+            if (orderBy != null) {
+                engine.select(table, columns(request), predicate, orderBy, page == null ? Page.ALL : page,
+                        DtoMapper.toScanMode(request.getScanMode()), writer);
+            } else {
+                engine.select(table, columns(request), predicate, page == null ? Page.ALL : page, writer);
+            }
+        }
+    }
+
+    static ResponseEntity<List<Map<String, Object>>> withCursor(List<Map<String, Object>> rows, Long next) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (next != null) {
+            ok.header(NEXT_CURSOR_HEADER, next.toString());
+        }
+        return ok.body(rows);
+    }
+
+    private static List<String> columns(QueryRequest request) {
+        return request.getColumns() == null || request.getColumns().isEmpty() ? null : request.getColumns();
+    }
+
+    /**
+     * Grouped COUNT/SUM/MIN/MAX/AVG over the rows matching the filters; only the groups are returned.
+     */
+    @PostMapping("/{table}/aggregate")
+    public List<Map<String, Object>> aggregate(@PathVariable String table, @RequestBody AggregateRequest request) {
+        return engine.aggregate(
+                table,
+                request.getGroupBy(),
+                DtoMapper.toAggregates(request.getAggregates()),
+                DtoMapper.toPredicate(request.getFilters()),
+                DtoMapper.toScanMode(request.getScanMode()));
     }
 
     @PostMapping("/join")
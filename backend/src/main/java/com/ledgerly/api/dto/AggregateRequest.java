@@ -0,0 +1,42 @@
+package com.ledgerly.api.dto;
+
+import java.util.List;
+
+public class AggregateRequest {
+    private List<String> groupBy = List.of();
+    private List<AggregateDto> aggregates = List.of();
+    private List<ConditionDto> filters = List.of();
+    private String scanMode;
+
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(List<String> groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public List<AggregateDto> getAggregates() {
+        return aggregates;
+    }
+
+    public void setAggregates(List<AggregateDto> aggregates) {
+        this.aggregates = aggregates;
+    }
+
+    public List<ConditionDto> getFilters() {
+        return filters;
+    }
+
+    public void setFilters(List<ConditionDto> filters) {
+        this.filters = filters;
+    }
+
+    public String getScanMode() {
+        return scanMode;
+    }
+
+    public void setScanMode(String scanMode) {
+        this.scanMode = scanMode;
+    }
+}
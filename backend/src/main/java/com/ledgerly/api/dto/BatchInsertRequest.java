@@ -0,0 +1,16 @@
+package com.ledgerly.api.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class BatchInsertRequest {
+    private List<Map<String, Object>> rows;
+
+    public List<Map<String, Object>> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<Map<String, Object>> rows) {
+        this.rows = rows;
+    }
+}
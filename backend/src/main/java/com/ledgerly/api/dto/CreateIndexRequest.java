@@ -0,0 +1,42 @@
+package com.ledgerly.api.dto;
+
+import java.util.List;
+
+public class CreateIndexRequest {
+    private String name;
+    private List<String> columns = List.of();
+    private String type;
+    private List<ConditionDto> where = List.of();
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public List<ConditionDto> getWhere() {
+        return where;
+    }
+
+    public void setWhere(List<ConditionDto> where) {
+        this.where = where;
+    }
+}
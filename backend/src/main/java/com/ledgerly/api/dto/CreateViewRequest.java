@@ -0,0 +1,33 @@
+package com.ledgerly.api.dto;
+
+import java.util.List;
+
+public class CreateViewRequest {
+    private String name;
+    private List<String> groupBy = List.of();
+    private List<AggregateDto> aggregates = List.of();
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(List<String> groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public List<AggregateDto> getAggregates() {
+        return aggregates;
+    }
+
+    public void setAggregates(List<AggregateDto> aggregates) {
+        this.aggregates = aggregates;
+    }
+}
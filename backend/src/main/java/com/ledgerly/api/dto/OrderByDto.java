@@ -0,0 +1,22 @@
+package com.ledgerly.api.dto;
+
+public class OrderByDto {
+    private String column;
+    private String direction;
+
+    public String getColumn() {
+        return column;
+    }
+
+    public void setColumn(String column) {
+        this.column = column;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public void setDirection(String direction) {
+        this.direction = direction;
+    }
+}
@@ -5,6 +5,11 @@ import java.util.List;
 public class QueryRequest {
     private List<String> columns = List.of();
     private List<ConditionDto> filters = List.of();
+    private String scanMode;
+    private Integer limit;
+    private Integer offset;
+    private String cursor;
+    private List<OrderByDto> orderBy = List.of();
 
     public List<String> getColumns() {
         return columns;
@@ -21,4 +26,44 @@ public class QueryRequest {
     public void setFilters(List<ConditionDto> filters) {
         this.filters = filters;
     }
+
+    public String getScanMode() {
+        return scanMode;
+    }
+
+    public void setScanMode(String scanMode) {
+        this.scanMode = scanMode;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public Integer getOffset() {
+        return offset;
+    }
+
+    public void setOffset(Integer offset) {
+        this.offset = offset;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public List<OrderByDto> getOrderBy() {
+        return orderBy;
+    }
+
+    public void setOrderBy(List<OrderByDto> orderBy) {
+        this.orderBy = orderBy;
+    }
 }
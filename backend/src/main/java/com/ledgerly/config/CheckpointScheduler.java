@@ -0,0 +1,46 @@
+package com.ledgerly.config;
+
+import com.ledgerly.engine.LedgerEngine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class CheckpointScheduler {
+    private static final Logger log = LoggerFactory.getLogger(CheckpointScheduler.class);
+
+    private final ScheduledExecutorService executor;
+
+    public CheckpointScheduler(LedgerEngine engine,
+                               @Value("${ledgerly.checkpoint.interval-seconds:300}") long intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            this.executor = null;
+            return;
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ledgerly-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                engine.checkpoint();
+            } catch (RuntimeException ex) {
+                log.error("Checkpoint failed", ex);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.ledgerly.config;
 
 import com.ledgerly.domain.DomainService;
 import com.ledgerly.engine.LedgerEngine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,7 +10,9 @@ import org.springframework.context.annotation.Configuration;
 public class DomainConfig {
 
     @Bean
-    public DomainService domainService(LedgerEngine engine) {
-        return new DomainService(engine);
+    public DomainService domainService(LedgerEngine engine,
+                                       @Value("${ledgerly.expiry.tick-ms:1000}") long expiryTickMillis,
+                                       @Value("${ledgerly.expiry.sweep-seconds:60}") long sweepSeconds) {
+        return new DomainService(engine, expiryTickMillis, sweepSeconds * 1000);
     }
 }
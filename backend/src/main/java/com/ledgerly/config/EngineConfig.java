@@ -1,8 +1,15 @@
 package com.ledgerly.config;
 
 import com.ledgerly.engine.LedgerEngine;
+import com.ledgerly.engine.persistence.BinaryFilePersistence;
 import com.ledgerly.engine.persistence.FilePersistence;
+import com.ledgerly.engine.persistence.FsyncPolicy;
+import com.ledgerly.engine.persistence.LogFormat;
 import com.ledgerly.engine.persistence.Persistence;
+import com.ledgerly.engine.persistence.WalConverter;
+import com.ledgerly.engine.persistence.WalRecordMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,14 +18,28 @@ import java.nio.file.Path;
 
 @Configuration
 public class EngineConfig {
+    private static final Logger log = LoggerFactory.getLogger(EngineConfig.class);
 
     @Bean
-    public Persistence persistence(@Value("${ledgerly.data-dir:data}") String dataDir) {
-        return new FilePersistence(Path.of(dataDir));
+    public Persistence persistence(@Value("${ledgerly.data-dir:data}") String dataDir,
+                                   @Value("${ledgerly.wal.fsync-policy:INTERVAL}") FsyncPolicy fsyncPolicy,
+                                   @Value("${ledgerly.wal.fsync-interval-ms:100}") long fsyncIntervalMillis,
+                                   @Value("${ledgerly.wal.format:JSON}") LogFormat format) {
+        Path dir = Path.of(dataDir);
+        if (format == LogFormat.JSON) {
+            return new FilePersistence(dir, fsyncPolicy, fsyncIntervalMillis);
+        }
+        if (WalConverter.needsConversion(dir)) {
+            long events = WalConverter.jsonToBinary(dir);
+            log.info("Converted {} JSONL WAL events to the binary log", events);
+        }
+        return new BinaryFilePersistence(dir, fsyncPolicy, fsyncIntervalMillis);
     }
 
     @Bean
-    public LedgerEngine ledgerEngine(Persistence persistence) {
-        return new LedgerEngine(persistence);
+    public LedgerEngine ledgerEngine(Persistence persistence,
+                                     @Value("${ledgerly.query.parallel-scan-threshold:100000}") int parallelScanThreshold,
+                                     @Value("${ledgerly.wal.records:LOGICAL}") WalRecordMode recordMode) {
+        return new LedgerEngine(persistence, parallelScanThreshold, recordMode);
     }
 }
@@ -0,0 +1,62 @@
+package com.ledgerly.config;
+
+import com.ledgerly.domain.DomainService;
+import com.ledgerly.domain.PendingExpiriesTracked;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class ExpiryScheduler {
+    private static final Logger log = LoggerFactory.getLogger(ExpiryScheduler.class);
+
+    private final DomainService domain;
+    private final long tickMillis;
+    private final boolean enabled;
+    private ScheduledExecutorService executor;
+
+    public ExpiryScheduler(DomainService domain,
+                           @Value("${ledgerly.expiry.tick-ms:1000}") long tickMillis,
+                           @Value("${ledgerly.expiry.enabled:true}") boolean enabled) {
+        this.domain = domain;
+        this.tickMillis = tickMillis;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts the expiry ticks once the pending transactions are tracked, so the first tick cannot
+     * run against an empty wheel.
+     */
+    @EventListener(PendingExpiriesTracked.class)
+    public synchronized void start() {
+        if (!enabled || executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ledgerly-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                domain.expirePending();
+            } catch (RuntimeException ex) {
+                log.error("Expiry failed", ex);
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
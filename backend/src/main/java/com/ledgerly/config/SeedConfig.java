@@ -64,7 +64,10 @@ public class SeedConfig {
     }
 
     private boolean hasExistingData() {
-        Path wal = Path.of(dataDir).resolve("ledgerly-wal.jsonl");
-        return Files.exists(wal);
+        // the active WAL may be absent right after a checkpoint, so also ask the engine
+        Path dir = Path.of(dataDir);
+        return Files.exists(dir.resolve("ledgerly-wal.jsonl"))
+                || Files.exists(dir.resolve("ledgerly-wal.bin"))
+                || !engine.listTables().isEmpty();
     }
 }
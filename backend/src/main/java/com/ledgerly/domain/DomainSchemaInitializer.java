@@ -1,11 +1,19 @@
 package com.ledgerly.domain;
 
 import com.ledgerly.engine.ColumnDefinition;
+import com.ledgerly.engine.Aggregate;
+import com.ledgerly.engine.AggregateFunction;
+import com.ledgerly.engine.Condition;
+import com.ledgerly.engine.ConditionOperator;
 import com.ledgerly.engine.DataType;
+import com.ledgerly.engine.IndexDefinition;
+import com.ledgerly.engine.IndexType;
 import com.ledgerly.engine.LedgerEngine;
+import com.ledgerly.engine.MaterializedViewDefinition;
 import com.ledgerly.engine.TableSchema;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
@@ -17,11 +25,17 @@ import java.util.Map;
 public class DomainSchemaInitializer {
 
     private final LedgerEngine engine;
+    private final DomainService domain;
+    private final ApplicationEventPublisher events;
     private final boolean seedDomain;
 
     public DomainSchemaInitializer(LedgerEngine engine,
+                                   DomainService domain,
+                                   ApplicationEventPublisher events,
                                    @Value("${ledgerly.seed.domain-enabled:true}") boolean seedDomain) {
         this.engine = engine;
+        this.domain = domain;
+        this.events = events;
         this.seedDomain = seedDomain;
     }
 
@@ -30,9 +44,21 @@ public class DomainSchemaInitializer {
         ensureMerchants();
         ensureTransactions();
         ensureOutcomes();
+        ensureIndex("transactions", "tx_merchant_id", List.of("merchant_id"), IndexType.HASH);
+        ensureIndex("transactions", "tx_state", List.of("state"), IndexType.HASH);
+        ensureIndex("transactions", "tx_expires_at", List.of("expires_at"), IndexType.ORDERED);
+        ensureIndex("transactions", "tx_created_at", List.of("created_at"), IndexType.ORDERED);
+        // pending transactions are a small, hot slice of the table: a merchant's pending list reads only them
+        ensureIndex("transactions", "tx_pending_merchant", List.of("merchant_id"), IndexType.HASH,
+                List.of(new Condition("state", ConditionOperator.EQ, TransactionState.PENDING.name())));
+        ensureView("transactions", new MaterializedViewDefinition(DomainService.MERCHANT_TOTALS_VIEW,
+                List.of("merchant_id", "state"),
+                List.of(new Aggregate(AggregateFunction.COUNT, null), new Aggregate(AggregateFunction.SUM, "amount"))));
         if (seedDomain) {
             seed();
         }
+        domain.trackPendingExpiries();
+        events.publishEvent(new PendingExpiriesTracked());
     }
 
     private void ensureMerchants() {
@@ -88,6 +114,24 @@ public class DomainSchemaInitializer {
         engine.createTable(schema);
     }
 
+    private void ensureIndex(String table, String name, List<String> columns, IndexType type) {
+        ensureIndex(table, name, columns, type, List.of());
+    }
+
+    private void ensureIndex(String table, String name, List<String> columns, IndexType type, List<Condition> where) {
+        boolean exists = engine.listIndexes(table).stream()
+                .anyMatch(index -> index.getName().equals(name));
+        if (exists) return;
+        engine.createIndex(table, new IndexDefinition(name, columns, type, where));
+    }
+
+    private void ensureView(String table, MaterializedViewDefinition definition) {
+        boolean exists = engine.listViews(table).stream()
+                .anyMatch(view -> view.getName().equals(definition.getName()));
+        if (exists) return;
+        engine.createView(table, definition);
+    }
+
     private void seed() {
         if (!isEmpty("merchants")) {
             return;
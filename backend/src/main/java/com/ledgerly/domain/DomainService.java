@@ -1,23 +1,72 @@
 package com.ledgerly.domain;
 
+import com.ledgerly.engine.Aggregate;
+import com.ledgerly.engine.AggregateFunction;
+import com.ledgerly.engine.CompareAndSetResult;
 import com.ledgerly.engine.Condition;
 import com.ledgerly.engine.ConditionOperator;
+import com.ledgerly.engine.DataType;
+import com.ledgerly.engine.EngineTransaction;
 import com.ledgerly.engine.LedgerEngine;
+import com.ledgerly.engine.Page;
 import com.ledgerly.engine.RowPredicate;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class DomainService {
 
+    static final String MERCHANT_TOTALS_VIEW = "tx_merchant_totals";
+    // expiry ticks covered by the wheel before deadlines go to its overflow
+    private static final int EXPIRY_WHEEL_SLOTS = 4096;
+    // transactions expired per engine transaction and WAL record
+    private static final int EXPIRY_BATCH = 500;
+
     private final LedgerEngine engine;
+    private final ExpiryWheel expiries;
+    private final long sweepMillis;
+    // guarded by this
+    private long lastSweepMillis;
+    private long expiredTotal;
+    private long expiryRuns;
+    private long lastRunExpired;
+    private long lastRunMaxLagMillis;
+    private long maxLagMillis;
+    private long lagMillisTotal;
+    private long sweptTotal;
 
     public DomainService(LedgerEngine engine) {
+        this(engine, 1000);
+    }
+
+    /**
+     * @param expiryTickMillis granularity of the expiry wheel; a transaction expires on the first
+     *                         {@link #expirePending()} after its deadline
+     */
+    public DomainService(LedgerEngine engine, long expiryTickMillis) {
+        this(engine, expiryTickMillis, 60_000);
+    }
+
+    /**
+     * @param sweepMillis how often {@link #expirePending()} also looks up overdue PENDING rows the
+     *                    wheel was never told about, e.g. written through the table API, the REPL
+     *                    or a bulk load; 0 or less never does
+     */
+    public DomainService(LedgerEngine engine, long expiryTickMillis, long sweepMillis) {
         this.engine = engine;
+        long now = System.currentTimeMillis();
+        this.expiries = new ExpiryWheel(expiryTickMillis, EXPIRY_WHEEL_SLOTS, now);
+        this.sweepMillis = sweepMillis;
+        this.lastSweepMillis = now;
     }
 
     public void createMerchant(String id, String name, String status) {
@@ -26,7 +75,7 @@ public class DomainService {
         if (status == null || status.isBlank()) {
             status = "ACTIVE";
         }
-        ensureAbsent("merchants", "id", id, "Merchant already exists");
+        ensureAbsent("merchants", id, "Merchant already exists");
         engine.insert("merchants", Map.of(
                 "id", id,
                 "name", name,
@@ -36,7 +85,7 @@ public class DomainService {
     }
 
     public Map<String, Object> getMerchant(String id) {
-        return singleOrNull(selectOne("merchants", id, "id"));
+        return findById("merchants", id);
     }
 
     public void createTransaction(String id,
@@ -48,9 +97,43 @@ public class DomainService {
         Objects.requireNonNull(id, "id");
         Objects.requireNonNull(merchantId, "merchantId");
         Objects.requireNonNull(currency, "currency");
-        ensureExists("merchants", "id", merchantId, "Merchant not found");
-        ensureAbsent("transactions", "id", id, "Transaction already exists");
+        ensureExists("merchants", merchantId, "Merchant not found");
+        ensureAbsent("transactions", id, "Transaction already exists");
+        Map<String, Object> row = transactionRow(id, merchantId, amount, currency, expiresAt, metadata, Instant.now());
+        engine.insert("transactions", row);
+        trackExpiry(row);
+    }
+
+    /**
+     * Creates all of {@code transactions} or none: each is checked like a single create, then the
+     * rows are inserted as one engine batch, which also rejects ids repeated within it.
+     */
+    public int createTransactions(List<NewTransaction> transactions) {
+        Set<String> knownMerchants = new HashSet<>();
         Instant now = Instant.now();
+        List<Map<String, Object>> rows = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            NewTransaction tx = transactions.get(i);
+            try {
+                if (tx.id() == null || tx.merchantId() == null || tx.currency() == null) {
+                    throw new IllegalArgumentException("id, merchantId and currency are required");
+                }
+                if (knownMerchants.add(tx.merchantId())) {
+                    ensureExists("merchants", tx.merchantId(), "Merchant not found");
+                }
+                ensureAbsent("transactions", tx.id(), "Transaction already exists");
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Transaction " + i + ": " + ex.getMessage(), ex);
+            }
+            rows.add(transactionRow(tx.id(), tx.merchantId(), tx.amount(), tx.currency(), tx.expiresAt(), tx.metadata(), now));
+        }
+        engine.insertAll("transactions", rows);
+        rows.forEach(this::trackExpiry);
+        return rows.size();
+    }
+
+    private static Map<String, Object> transactionRow(String id, String merchantId, long amount, String currency,
+                                                      Instant expiresAt, String metadata, Instant now) {
         Instant expiry = expiresAt != null ? expiresAt : now.plusSeconds(3600);
         Map<String, Object> values = new HashMap<>();
         values.put("id", id);
@@ -61,14 +144,51 @@ public class DomainService {
         values.put("created_at", now.toString());
         values.put("expires_at", expiry.toString());
         values.put("metadata", metadata);
-        engine.insert("transactions", values);
+        return values;
     }
 
     public Map<String, Object> getTransaction(String id) {
-        return singleOrNull(selectOne("transactions", id, "id"));
+        return findById("transactions", id);
     }
 
     public List<Map<String, Object>> listTransactions(String merchantId, TransactionState state) {
+        return engine.select("transactions", null, transactionFilter(merchantId, state));
+    }
+
+    /**
+     * Streams one page of transactions to {@code sink} and returns the cursor for the next page,
+     * or null when there is none.
+     */
+    public Long listTransactions(String merchantId, TransactionState state, Page page,
+                                 Consumer<Map<String, Object>> sink) {
+        return engine.select("transactions", null, transactionFilter(merchantId, state), page, sink);
+    }
+
+    /**
+     * Transaction count and amount totals per state and currency, computed by the engine.
+     */
+    public List<Map<String, Object>> summarizeTransactions(String merchantId, TransactionState state) {
+        return engine.aggregate("transactions", List.of("state", "currency"), List.of(
+                new Aggregate(AggregateFunction.COUNT, null),
+                new Aggregate(AggregateFunction.SUM, "amount"),
+                new Aggregate(AggregateFunction.MIN, "amount"),
+                new Aggregate(AggregateFunction.MAX, "amount")), transactionFilter(merchantId, state));
+    }
+
+    /**
+     * Count and amount total of a merchant's transactions per state, read from the maintained
+     * {@value #MERCHANT_TOTALS_VIEW} view: one lookup per state however many transactions there are.
+     */
+    public List<Map<String, Object>> merchantTotals(String merchantId) {
+        List<Map<String, Object>> totals = new ArrayList<>();
+        for (TransactionState state : TransactionState.values()) {
+            totals.addAll(engine.queryView("transactions", MERCHANT_TOTALS_VIEW,
+                    Map.of("merchant_id", merchantId, "state", state.name())));
+        }
+        return totals;
+    }
+
+    private RowPredicate transactionFilter(String merchantId, TransactionState state) {
         List<Condition> conditions = new ArrayList<>();
         if (merchantId != null) {
             conditions.add(new Condition("merchant_id", ConditionOperator.EQ, merchantId));
@@ -76,8 +196,7 @@ public class DomainService {
         if (state != null) {
             conditions.add(new Condition("state", ConditionOperator.EQ, state.name()));
         }
-        RowPredicate predicate = conditions.isEmpty() ? null : new RowPredicate(conditions);
-        return engine.select("transactions", null, predicate);
+        return conditions.isEmpty() ? null : new RowPredicate(conditions);
     }
 
     public void assertOutcome(String txId,
@@ -85,65 +204,167 @@ public class DomainService {
                               String externalRef,
                               Instant reportedAt,
                               String metadata) {
-        Map<String, Object> tx = getTransaction(txId);
-        if (tx == null) {
-            throw new IllegalArgumentException("Transaction not found");
-        }
-        String currentState = (String) tx.get("state");
-        if (!TransactionState.PENDING.name().equals(currentState)) {
-            throw new IllegalArgumentException("Transaction not pending");
-        }
         Instant when = reportedAt != null ? reportedAt : Instant.now();
+        // external reference and metadata are optional, so these maps may hold nulls
+        Map<String, Object> outcome = new HashMap<>();
+        outcome.put("status", outcomeState.name());
+        outcome.put("external_reference", externalRef);
+        outcome.put("reported_at", when.toString());
+        outcome.put("metadata", metadata);
 
-        // Upsert outcome row
-        RowPredicate pred = new RowPredicate(List.of(new Condition("tx_id", ConditionOperator.EQ, txId)));
-        int updated = engine.update("outcomes", pred, Map.of(
-                "status", outcomeState.name(),
-                "external_reference", externalRef,
-                "reported_at", when.toString(),
-                "metadata", metadata
-        ));
-        if (updated == 0) {
-            engine.insert("outcomes", Map.of(
-                    "tx_id", txId,
-                    "status", outcomeState.name(),
-                    "external_reference", externalRef,
-                    "reported_at", when.toString(),
-                    "metadata", metadata
-            ));
-        }
+        // the state transition and outcome upsert commit and log as one unit
+        engine.inTransaction(List.of("outcomes", "transactions"), tx -> {
+            CompareAndSetResult transition = tx.compareAndSet("transactions", Map.of("id", txId),
+                    Map.of("state", TransactionState.PENDING.name()), Map.of("state", outcomeState.name()));
+            if (!transition.isMatched()) {
+                throw new IllegalArgumentException(transition.getRow() == null
+                        ? "Transaction not found" : "Transaction not pending");
+            }
+            RowPredicate pred = new RowPredicate(List.of(new Condition("tx_id", ConditionOperator.EQ, txId)));
+            if (tx.update("outcomes", pred, outcome) == 0) {
+                Map<String, Object> row = new HashMap<>(outcome);
+                row.put("tx_id", txId);
+                tx.insert("outcomes", row);
+            }
+            return null;
+        });
+    }
 
-        engine.update("transactions", pred, Map.of("state", outcomeState.name()));
+    /**
+     * Loads the deadlines of every PENDING transaction into the expiry wheel, replacing what it
+     * held. Called once the transactions table is replayed; creates through this service keep the
+     * wheel current afterwards.
+     */
+    public void trackPendingExpiries() {
+        expiries.clear();
+        RowPredicate pending = new RowPredicate(List.of(
+                new Condition("state", ConditionOperator.EQ, TransactionState.PENDING.name())));
+        for (Map<String, Object> row : engine.select("transactions", List.of("id", "expires_at"), pending)) {
+            trackExpiry(row);
+        }
     }
 
+    /**
+     * Expires the transactions whose deadline has passed. Only the due entries of the expiry
+     * wheel are visited; each moves PENDING to EXPIRED by compare-and-set on its id and deadline,
+     * in engine transactions of {@value #EXPIRY_BATCH}. One settled or re-timed since it was
+     * tracked is skipped, or tracked again under its new deadline if still pending. Every
+     * sweep interval, overdue PENDING rows that were written around this service are added first.
+     */
     public int expirePending() {
-        Instant now = Instant.now();
-        List<Condition> conditions = List.of(
+        long now = System.currentTimeMillis();
+        if (sweepDue(now)) {
+            sweepOverdue(now);
+        }
+        List<ExpiryWheel.Entry> due = expiries.pollDue(now);
+        int expired = 0;
+        long runMaxLag = 0;
+        for (int from = 0; from < due.size(); from += EXPIRY_BATCH) {
+            List<ExpiryWheel.Entry> batch = due.subList(from, Math.min(from + EXPIRY_BATCH, due.size()));
+            List<Map<String, Object>> retimed = new ArrayList<>();
+            long[] lags;
+            try {
+                lags = engine.inTransaction(List.of("transactions"), tx -> expireBatch(tx, batch, retimed));
+            } catch (RuntimeException ex) {
+                // keep tracking what this run did not get to
+                due.subList(from, due.size()).forEach(entry -> expiries.add(entry.txId(), entry.deadline()));
+                throw ex;
+            }
+            // only once the batch committed: a rolled-back one is re-added whole above
+            retimed.forEach(this::trackExpiry);
+            synchronized (this) {
+                for (long lag : lags) {
+                    lagMillisTotal += lag;
+                    runMaxLag = Math.max(runMaxLag, lag);
+                }
+                expiredTotal += lags.length;
+            }
+            expired += lags.length;
+        }
+        synchronized (this) {
+            expiryRuns++;
+            lastRunExpired = expired;
+            lastRunMaxLagMillis = runMaxLag;
+            maxLagMillis = Math.max(maxLagMillis, runMaxLag);
+        }
+        return expired;
+    }
+
+    /**
+     * Counters of the expiry subsystem. Lag is how long after its deadline a transaction was
+     * actually expired.
+     */
+    public synchronized Map<String, Object> expiryStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tracked", expiries.size());
+        stats.put("expired_total", expiredTotal);
+        stats.put("runs", expiryRuns);
+        stats.put("last_run_expired", lastRunExpired);
+        stats.put("last_run_max_lag_ms", lastRunMaxLagMillis);
+        stats.put("max_lag_ms", maxLagMillis);
+        stats.put("mean_lag_ms", expiredTotal == 0 ? 0 : lagMillisTotal / expiredTotal);
+        stats.put("swept_total", sweptTotal);
+        return stats;
+    }
+
+    private synchronized boolean sweepDue(long now) {
+        if (sweepMillis <= 0 || now - lastSweepMillis < sweepMillis) {
+            return false;
+        }
+        lastSweepMillis = now;
+        return true;
+    }
+
+    /**
+     * Adds every PENDING row past its deadline to the wheel. One the wheel already holds is then
+     * polled twice, and the second compare-and-set finds it expired and skips it.
+     */
+    private void sweepOverdue(long now) {
+        RowPredicate overdue = new RowPredicate(List.of(
                 new Condition("state", ConditionOperator.EQ, TransactionState.PENDING.name()),
-                new Condition("expires_at", ConditionOperator.LT, now.toEpochMilli())
-        );
-        RowPredicate predicate = new RowPredicate(conditions);
-        return engine.update("transactions", predicate, Map.of("state", TransactionState.EXPIRED.name()));
+                new Condition("expires_at", ConditionOperator.LTE, now)));
+        List<Map<String, Object>> rows = engine.select("transactions", List.of("id", "expires_at"), overdue);
+        rows.forEach(this::trackExpiry);
+        synchronized (this) {
+            sweptTotal += rows.size();
+        }
     }
 
-    private void ensureExists(String table, String col, Object value, String message) {
-        if (selectOne(table, value, col).isEmpty()) {
-            throw new IllegalArgumentException(message);
+    // lags of the transactions expired; still pending ones with a new deadline go to {@code retimed}
+    private long[] expireBatch(EngineTransaction tx, List<ExpiryWheel.Entry> batch, List<Map<String, Object>> retimed) {
+        long now = System.currentTimeMillis();
+        long[] lags = new long[batch.size()];
+        int n = 0;
+        for (ExpiryWheel.Entry entry : batch) {
+            CompareAndSetResult result = tx.compareAndSet("transactions", Map.of("id", entry.txId()),
+                    Map.of("state", TransactionState.PENDING.name(), "expires_at", entry.deadline()),
+                    Map.of("state", TransactionState.EXPIRED.name()));
+            if (result.isMatched()) {
+                lags[n++] = Math.max(0, now - entry.deadline());
+            } else if (result.getRow() != null && TransactionState.PENDING.name().equals(result.getRow().get("state"))) {
+                retimed.add(result.getRow());
+            }
         }
+        return Arrays.copyOf(lags, n);
+    }
+
+    private void trackExpiry(Map<String, Object> row) {
+        expiries.add((String) row.get("id"), (Long) DataType.TIMESTAMP.coerce(row.get("expires_at")));
     }
 
-    private void ensureAbsent(String table, String col, Object value, String message) {
-        if (!selectOne(table, value, col).isEmpty()) {
+    private void ensureExists(String table, Object id, String message) {
+        if (findById(table, id) == null) {
             throw new IllegalArgumentException(message);
         }
     }
 
-    private Map<String, Object> singleOrNull(List<Map<String, Object>> rows) {
-        return rows.isEmpty() ? null : rows.get(0);
+    private void ensureAbsent(String table, Object id, String message) {
+        if (findById(table, id) != null) {
+            throw new IllegalArgumentException(message);
+        }
     }
 
-    private List<Map<String, Object>> selectOne(String table, Object value, String col) {
-        RowPredicate predicate = new RowPredicate(List.of(new Condition(col, ConditionOperator.EQ, value)));
-        return engine.select(table, null, predicate);
+    private Map<String, Object> findById(String table, Object id) {
+        return engine.getByKey(table, Map.of("id", id)).orElse(null);
     }
 }
@@ -0,0 +1,102 @@
+package com.ledgerly.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Hashed timing wheel of pending transaction deadlines: one bucket per {@code tickMillis} for
+ * the next {@code wheelSize} ticks, with later deadlines parked in an overflow map by tick and
+ * moved into the wheel once they come within its span. Polling touches only the buckets that
+ * elapsed and the entries that are due, independent of how many transactions exist.
+ */
+final class ExpiryWheel {
+
+    record Entry(String txId, long deadline) {
+    }
+
+    private final long tickMillis;
+    private final List<List<Entry>> slots;
+    private final TreeMap<Long, List<Entry>> overflow = new TreeMap<>();
+    // earliest tick whose bucket may still hold entries; each bucket holds a single tick of the window
+    private long currentTick;
+    private int size;
+
+    ExpiryWheel(long tickMillis, int wheelSize, long nowMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Expiry wheel needs a positive tick and size");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    synchronized void add(String txId, long deadline) {
+        // deadlines already passed land in the current bucket and are due on the next poll
+        long tick = Math.max(deadline / tickMillis, currentTick);
+        Entry entry = new Entry(txId, deadline);
+        if (tick - currentTick < slots.size()) {
+            slot(tick).add(entry);
+        } else {
+            overflow.computeIfAbsent(tick, t -> new ArrayList<>()).add(entry);
+        }
+        size++;
+    }
+
+    /**
+     * Removes and returns every entry whose deadline is at or before {@code nowMillis}.
+     */
+    synchronized List<Entry> pollDue(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        List<Entry> due = new ArrayList<>();
+        if (nowTick - currentTick >= slots.size()) {
+            // idle for longer than the wheel spans: everything in it and the overflow before now is due
+            for (List<Entry> slot : slots) {
+                due.addAll(slot);
+                slot.clear();
+            }
+            SortedMap<Long, List<Entry>> passed = overflow.headMap(nowTick);
+            passed.values().forEach(due::addAll);
+            passed.clear();
+            currentTick = nowTick;
+            refill();
+        }
+        while (currentTick < nowTick) {
+            List<Entry> slot = slot(currentTick);
+            due.addAll(slot);
+            slot.clear();
+            currentTick++;
+            refill();
+        }
+        slot(nowTick).removeIf(entry -> entry.deadline() <= nowMillis && due.add(entry));
+        size -= due.size();
+        return due;
+    }
+
+    synchronized void clear() {
+        slots.forEach(List::clear);
+        overflow.clear();
+        size = 0;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // moves overflow ticks that entered the window into their buckets
+    private void refill() {
+        while (!overflow.isEmpty() && overflow.firstKey() < currentTick + slots.size()) {
+            Map.Entry<Long, List<Entry>> next = overflow.pollFirstEntry();
+            slot(next.getKey()).addAll(next.getValue());
+        }
+    }
+
+    private List<Entry> slot(long tick) {
+        return slots.get((int) Math.floorMod(tick, (long) slots.size()));
+    }
+}
@@ -0,0 +1,14 @@
+package com.ledgerly.domain;
+
+import java.time.Instant;
+
+/**
+ * One transaction of a batch create; a null expiry defaults to an hour after creation.
+ */
+public record NewTransaction(String id,
+                             String merchantId,
+                             long amount,
+                             String currency,
+                             Instant expiresAt,
+                             String metadata) {
+}
@@ -0,0 +1,8 @@
+package com.ledgerly.domain;
+
+/**
+ * Published once the deadlines of the replayed PENDING transactions are in the expiry wheel, so
+ * expiry can start without polling a wheel that is still empty.
+ */
+public record PendingExpiriesTracked() {
+}
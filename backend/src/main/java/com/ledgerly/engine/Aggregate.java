@@ -0,0 +1,52 @@
+package com.ledgerly.engine;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * One aggregate of a grouped query, such as {@code SUM(amount)}. A COUNT without a column counts
+ * rows. The result is reported under the alias, or {@code count} / {@code <function>_<column>}.
+ */
+public class Aggregate {
+    private final AggregateFunction function;
+    private final String column;
+    private final String alias;
+
+    public Aggregate(AggregateFunction function, String column) {
+        this(function, column, null);
+    }
+
+    @JsonCreator
+    public Aggregate(@JsonProperty("function") AggregateFunction function,
+                     @JsonProperty("column") String column,
+                     @JsonProperty("alias") String alias) {
+        this.function = Objects.requireNonNull(function, "function");
+        this.column = column;
+        this.alias = alias;
+    }
+
+    public AggregateFunction getFunction() {
+        return function;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    @JsonIgnore
+    public String getName() {
+        if (alias != null && !alias.isBlank()) {
+            return alias;
+        }
+        String function = this.function.name().toLowerCase(Locale.ROOT);
+        return column == null ? function : function + "_" + column;
+    }
+}
@@ -0,0 +1,11 @@
+package com.ledgerly.engine;
+
+public enum AggregateFunction {
+    // rows, or non-null values when given a column
+    COUNT,
+    // SUM, MIN, MAX and AVG take an INT or TIMESTAMP column and skip nulls
+    SUM,
+    MIN,
+    MAX,
+    AVG
+}
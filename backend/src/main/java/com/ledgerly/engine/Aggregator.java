@@ -0,0 +1,297 @@
+package com.ledgerly.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grouped aggregates bound to one table's column store. Grouping columns and aggregate inputs are
+ * resolved to vectors once per query; each group then keeps its running state in a {@code long[]}
+ * (a count and a sum/min/max per aggregate), fed slot by slot straight from the column vectors.
+ * Grouping by a single dictionary-encoded column indexes the groups by code instead of hashing values.
+ */
+final class Aggregator {
+    private static final Object NO_GROUP = new Object();
+
+    private final String[] groupNames;
+    private final ColumnStore.Vector[] groupVectors;
+    // set when grouping by exactly one dictionary-encoded column
+    private final ColumnStore.Dictionary groupCodes;
+    private final String[] names;
+    private final AggregateFunction[] functions;
+    // null for a COUNT of rows
+    private final ColumnStore.Vector[] inputs;
+
+    private Aggregator(String[] groupNames, ColumnStore.Vector[] groupVectors, String[] names,
+                       AggregateFunction[] functions, ColumnStore.Vector[] inputs) {
+        this.groupNames = groupNames;
+        this.groupVectors = groupVectors;
+        this.groupCodes = groupVectors.length == 1 && groupVectors[0] instanceof ColumnStore.Dictionary dictionary
+                ? dictionary
+                : null;
+        this.names = names;
+        this.functions = functions;
+        this.inputs = inputs;
+    }
+
+    /**
+     * Binds the grouping columns and aggregates to {@code store}, rejecting unknown columns and
+     * aggregates that do not fit their column before any row is read. Must be called with a read
+     * view open, so that the captured vectors hold every slot the view can see.
+     */
+    static Aggregator compile(List<String> groupBy, List<Aggregate> aggregates, ColumnStore store) {
+        if (aggregates == null || aggregates.isEmpty()) {
+            throw new IllegalArgumentException("At least one aggregate is required");
+        }
+        List<String> groups = groupBy == null ? List.of() : groupBy;
+        List<String> outputs = new ArrayList<>();
+        ColumnStore.Vector[] groupVectors = new ColumnStore.Vector[groups.size()];
+        for (int i = 0; i < groups.size(); i++) {
+            groupVectors[i] = store.vector(ordinal(store, groups.get(i)));
+            outputs.add(groups.get(i));
+        }
+        AggregateFunction[] functions = new AggregateFunction[aggregates.size()];
+        ColumnStore.Vector[] inputs = new ColumnStore.Vector[aggregates.size()];
+        for (int i = 0; i < aggregates.size(); i++) {
+            Aggregate aggregate = aggregates.get(i);
+            functions[i] = aggregate.getFunction();
+            String column = aggregate.getColumn();
+            if (column == null) {
+                if (functions[i] != AggregateFunction.COUNT) {
+                    throw new IllegalArgumentException(functions[i] + " requires a column");
+                }
+            } else {
+                int ordinal = ordinal(store, column);
+                if (functions[i] != AggregateFunction.COUNT && store.type(ordinal) == DataType.STRING) {
+                    throw new IllegalArgumentException(functions[i] + " requires an INT or TIMESTAMP column: " + column);
+                }
+                inputs[i] = store.vector(ordinal);
+            }
+            outputs.add(aggregate.getName());
+        }
+        for (int i = 0; i < outputs.size(); i++) {
+            if (outputs.indexOf(outputs.get(i)) != i) {
+                throw new IllegalArgumentException("Duplicate output column: " + outputs.get(i));
+            }
+        }
+        List<String> names = outputs.subList(groups.size(), outputs.size());
+        return new Aggregator(groups.toArray(new String[0]), groupVectors, names.toArray(new String[0]),
+                functions, inputs);
+    }
+
+    Groups newGroups() {
+        return new Groups();
+    }
+
+    private static int ordinal(ColumnStore store, String column) {
+        int ordinal = column == null ? -1 : store.ordinal(column);
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Unknown column: " + column);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Running aggregates per group. Not thread-safe: parallel scans fill one per range and merge them.
+     */
+    final class Groups {
+        private final Map<Object, long[]> byKey = new HashMap<>();
+        // indexed by dictionary code + 1, so that null groups land in 0
+        private final long[][] byCode;
+
+        private Groups() {
+            // sized once the view is open, so every code it can see fits
+            byCode = groupCodes == null ? null : new long[groupCodes.size() + 1][];
+        }
+
+        void add(int slot) {
+            long[] state;
+            if (byCode != null) {
+                int index = groupCodes.codeAt(slot) + 1;
+                state = byCode[index];
+                if (state == null) {
+                    state = new long[functions.length * 2];
+                    byCode[index] = state;
+                }
+            } else {
+                state = byKey.computeIfAbsent(key(slot), k -> new long[functions.length * 2]);
+            }
+            accumulate(state, slot);
+        }
+
+        void merge(Groups other) {
+            if (byCode != null) {
+                for (int i = 0; i < byCode.length; i++) {
+                    byCode[i] = combine(byCode[i], other.byCode[i]);
+                }
+            } else {
+                other.byKey.forEach((key, state) -> byKey.merge(key, state, this::combine));
+            }
+        }
+
+        /**
+         * One row per group ordered by the grouping columns, nulls first. Without grouping columns
+         * there is always exactly one row, even when nothing matched.
+         */
+        List<Map<String, Object>> results() {
+            List<Object[]> keys = new ArrayList<>();
+            List<long[]> states = new ArrayList<>();
+            if (byCode != null) {
+                for (int i = 0; i < byCode.length; i++) {
+                    if (byCode[i] != null) {
+                        keys.add(new Object[]{i == 0 ? null : groupCodes.value(i - 1)});
+                        states.add(byCode[i]);
+                    }
+                }
+            } else {
+                byKey.forEach((key, state) -> {
+                    keys.add(groupValues(key));
+                    states.add(state);
+                });
+                if (groupNames.length == 0 && states.isEmpty()) {
+                    keys.add(new Object[0]);
+                    states.add(new long[functions.length * 2]);
+                }
+            }
+            Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> compareKeys(keys.get(a), keys.get(b)));
+            List<Map<String, Object>> out = new ArrayList<>(order.length);
+            for (int i : order) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                Object[] key = keys.get(i);
+                for (int g = 0; g < groupNames.length; g++) {
+                    row.put(groupNames[g], key[g]);
+                }
+                long[] state = states.get(i);
+                for (int a = 0; a < functions.length; a++) {
+                    row.put(names[a], result(functions[a], state[2 * a], state[2 * a + 1]));
+                }
+                out.add(row);
+            }
+            return out;
+        }
+
+        private long[] combine(long[] into, long[] from) {
+            if (into == null || from == null) {
+                return into == null ? from : into;
+            }
+            for (int a = 0; a < functions.length; a++) {
+                int c = 2 * a;
+                if (from[c] == 0) {
+                    continue;
+                }
+                if (into[c] == 0) {
+                    into[c + 1] = from[c + 1];
+                } else {
+                    into[c + 1] = switch (functions[a]) {
+                        case COUNT -> 0;
+                        case SUM, AVG -> sum(a, into[c + 1], from[c + 1]);
+                        case MIN -> Math.min(into[c + 1], from[c + 1]);
+                        case MAX -> Math.max(into[c + 1], from[c + 1]);
+                    };
+                }
+                into[c] += from[c];
+            }
+            return into;
+        }
+    }
+
+    private Object key(int slot) {
+        if (groupVectors.length == 0) {
+            return NO_GROUP;
+        }
+        if (groupVectors.length == 1) {
+            return groupVectors[0].get(slot);
+        }
+        // Arrays.asList: equal and hashed by content, and unlike List.of it takes nulls
+        Object[] values = new Object[groupVectors.length];
+        for (int g = 0; g < values.length; g++) {
+            values[g] = groupVectors[g].get(slot);
+        }
+        return Arrays.asList(values);
+    }
+
+    private Object[] groupValues(Object key) {
+        if (groupVectors.length == 0) {
+            return new Object[0];
+        }
+        if (groupVectors.length == 1) {
+            return new Object[]{key};
+        }
+        return ((List<?>) key).toArray();
+    }
+
+    private void accumulate(long[] state, int slot) {
+        for (int a = 0; a < functions.length; a++) {
+            ColumnStore.Vector input = inputs[a];
+            int c = 2 * a;
+            if (input == null) {
+                state[c]++;
+                continue;
+            }
+            if (!(input instanceof ColumnStore.LongVector longs)) {
+                // COUNT of a STRING column
+                if (input.get(slot) != null) {
+                    state[c]++;
+                }
+                continue;
+            }
+            if (longs.isNull(slot)) {
+                continue;
+            }
+            long v = longs.longAt(slot);
+            state[c + 1] = switch (functions[a]) {
+                case COUNT -> 0;
+                case SUM, AVG -> sum(a, state[c + 1], v);
+                case MIN -> state[c] == 0 ? v : Math.min(state[c + 1], v);
+                case MAX -> state[c] == 0 ? v : Math.max(state[c + 1], v);
+            };
+            state[c]++;
+        }
+    }
+
+    private long sum(int aggregate, long sum, long v) {
+        try {
+            return Math.addExact(sum, v);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException(functions[aggregate] + " overflows for " + names[aggregate], ex);
+        }
+    }
+
+    // aggregates over no values are null, except COUNT
+    private static Object result(AggregateFunction function, long count, long value) {
+        if (function == AggregateFunction.COUNT) {
+            return count;
+        }
+        if (count == 0) {
+            return null;
+        }
+        if (function == AggregateFunction.AVG) {
+            return (double) value / count;
+        }
+        return value;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(Object[] a, Object[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                continue;
+            }
+            if (a[i] == null || b[i] == null) {
+                return a[i] == null ? -1 : 1;
+            }
+            int c = ((Comparable) a[i]).compareTo(b[i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+}
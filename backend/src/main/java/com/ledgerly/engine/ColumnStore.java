@@ -0,0 +1,307 @@
+package com.ledgerly.engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Column-wise storage for the row versions of one table. Every version occupies a slot; INT and
+ * TIMESTAMP columns are {@code long[]} with a null bitmap. STRING columns start out dictionary-encoded
+ * as {@code int[]} codes and fall back to {@code String[]} once they hold too many distinct values.
+ * Slots of collected versions are recycled. Only the table lock holder writes; readers pick up
+ * slots published before their snapshot through the table's commit timestamp.
+ */
+final class ColumnStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    static final int MAX_DICTIONARY_SIZE = 1024;
+
+    private final String[] names;
+    private final DataType[] types;
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Vector[] vectors;
+    private int capacity = INITIAL_CAPACITY;
+    private int used;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    ColumnStore(TableSchema schema) {
+        List<ColumnDefinition> columns = List.copyOf(schema.getColumns().values());
+        names = new String[columns.size()];
+        types = new DataType[columns.size()];
+        vectors = new Vector[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnDefinition col = columns.get(i);
+            names[i] = col.getName();
+            types[i] = col.getType();
+            ordinals.put(col.getName(), i);
+            vectors[i] = col.getType() == DataType.STRING
+                    ? new Dictionary(capacity)
+                    : new LongVector(capacity);
+        }
+    }
+
+    int width() {
+        return names.length;
+    }
+
+    String name(int ordinal) {
+        return names[ordinal];
+    }
+
+    DataType type(int ordinal) {
+        return types[ordinal];
+    }
+
+    /**
+     * Ordinal of {@code column}, or -1 if the table has no such column.
+     */
+    int ordinal(String column) {
+        Integer ordinal = ordinals.get(column);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    Object value(int slot, int ordinal) {
+        return vectors[ordinal].get(slot);
+    }
+
+    /**
+     * Current vector of column {@code ordinal}: a {@link LongVector} for INT/TIMESTAMP columns, a
+     * {@link Dictionary} or plain string vector for STRING columns. Like a dictionary, a vector
+     * captured once keeps answering for every slot it held.
+     */
+    Vector vector(int ordinal) {
+        return vectors[ordinal];
+    }
+
+    /**
+     * Current dictionary of column {@code ordinal}, or null if the column is not dictionary-encoded.
+     * A dictionary that is later replaced by plain strings still answers for every slot it held.
+     */
+    Dictionary dictionary(int ordinal) {
+        return vectors[ordinal] instanceof Dictionary dictionary ? dictionary : null;
+    }
+
+    /**
+     * Stores a row given by ordinal in a fresh or recycled slot.
+     */
+    int insert(Object[] row) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (used == capacity) {
+                capacity *= 2;
+                for (Vector vector : vectors) {
+                    vector.grow(capacity);
+                }
+            }
+            slot = used++;
+        }
+        for (int i = 0; i < vectors.length; i++) {
+            Vector vector = vectors[i];
+            if (vector instanceof Dictionary dictionary && !dictionary.accepts(row[i])) {
+                // too many distinct values for codes to pay off; store plain strings from now on
+                vector = dictionary.decode(capacity);
+                vectors[i] = vector;
+            }
+            vector.set(slot, row[i]);
+        }
+        return slot;
+    }
+
+    Object[] read(int slot) {
+        Object[] row = new Object[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            row[i] = vectors[i].get(slot);
+        }
+        return row;
+    }
+
+    void free(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    Object[] toArray(Map<String, Object> values) {
+        Object[] row = new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            row[i] = values.get(names[i]);
+        }
+        return row;
+    }
+
+    Map<String, Object> toMap(Object[] row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            values.put(names[i], row[i]);
+        }
+        return values;
+    }
+
+    interface Vector {
+        Object get(int slot);
+
+        void set(int slot, Object value);
+
+        void grow(int capacity);
+    }
+
+    static final class LongVector implements Vector {
+        // arrays are replaced on growth; a reader holding the old ones still finds every slot it can see
+        private volatile long[] values;
+        private volatile int[] nulls;
+
+        LongVector(int capacity) {
+            values = new long[capacity];
+            nulls = new int[(capacity + 31) >>> 5];
+        }
+
+        boolean isNull(int slot) {
+            return (nulls[slot >>> 5] & (1 << slot)) != 0;
+        }
+
+        long longAt(int slot) {
+            return values[slot];
+        }
+
+        @Override
+        public Object get(int slot) {
+            return isNull(slot) ? null : values[slot];
+        }
+
+        @Override
+        public void set(int slot, Object value) {
+            int[] bits = nulls;
+            if (value == null) {
+                bits[slot >>> 5] |= 1 << slot;
+            } else {
+                values[slot] = (Long) value;
+                bits[slot >>> 5] &= ~(1 << slot);
+            }
+        }
+
+        @Override
+        public void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            nulls = Arrays.copyOf(nulls, (capacity + 31) >>> 5);
+        }
+    }
+
+    private static final class StringVector implements Vector {
+        private volatile String[] values;
+
+        StringVector(String[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Object get(int slot) {
+            return values[slot];
+        }
+
+        @Override
+        public void set(int slot, Object value) {
+            values[slot] = (String) value;
+        }
+
+        @Override
+        public void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * Dictionary-encoded STRING column: one int code per slot (-1 for null) into an append-only
+     * table of distinct values. Values are never dropped, so a code stays valid for as long as
+     * the dictionary is reachable.
+     */
+    static final class Dictionary implements Vector {
+        static final int NULL_CODE = -1;
+
+        private volatile int[] codes;
+        private volatile String[] values = new String[16];
+        private final Map<String, Integer> codesByValue = new ConcurrentHashMap<>();
+        private volatile int size;
+
+        private Dictionary(int capacity) {
+            codes = new int[capacity];
+        }
+
+        /**
+         * Number of codes assigned so far; every code a reader can find in a slot is below it.
+         */
+        int size() {
+            return size;
+        }
+
+        String value(int code) {
+            return values[code];
+        }
+
+        /**
+         * Code of {@code value}, or {@link #NULL_CODE} if no row ever held it.
+         */
+        int code(String value) {
+            Integer code = codesByValue.get(value);
+            return code == null ? NULL_CODE : code;
+        }
+
+        int codeAt(int slot) {
+            return codes[slot];
+        }
+
+        @Override
+        public Object get(int slot) {
+            int code = codes[slot];
+            return code == NULL_CODE ? null : values[code];
+        }
+
+        @Override
+        public void set(int slot, Object value) {
+            codes[slot] = value == null ? NULL_CODE : encode((String) value);
+        }
+
+        @Override
+        public void grow(int capacity) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        private boolean accepts(Object value) {
+            return value == null || size < MAX_DICTIONARY_SIZE || codesByValue.containsKey(value);
+        }
+
+        private int encode(String value) {
+            Integer code = codesByValue.get(value);
+            if (code != null) {
+                return code;
+            }
+            int next = size;
+            String[] table = values;
+            if (next == table.length) {
+                table = Arrays.copyOf(table, next * 2);
+            }
+            table[next] = value;
+            values = table;
+            // the value is in place before its code can be looked up or stored
+            codesByValue.put(value, next);
+            size = next + 1;
+            return next;
+        }
+
+        private StringVector decode(int capacity) {
+            int[] current = codes;
+            String[] table = values;
+            String[] plain = new String[capacity];
+            for (int slot = 0; slot < current.length; slot++) {
+                plain[slot] = current[slot] == NULL_CODE ? null : table[current[slot]];
+            }
+            // fully populated before it is published, so a racing reader sees every slot
+            return new StringVector(plain);
+        }
+    }
+}
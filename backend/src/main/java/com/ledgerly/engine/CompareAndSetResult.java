@@ -0,0 +1,25 @@
+package com.ledgerly.engine;
+
+import java.util.Map;
+
+/**
+ * Outcome of a keyed compare-and-set: whether the row matched and was updated, and the row as it
+ * stands afterwards (its new values when matched, its current ones otherwise, null if absent).
+ */
+public class CompareAndSetResult {
+    private final boolean matched;
+    private final Map<String, Object> row;
+
+    public CompareAndSetResult(boolean matched, Map<String, Object> row) {
+        this.matched = matched;
+        this.row = row;
+    }
+
+    public boolean isMatched() {
+        return matched;
+    }
+
+    public Map<String, Object> getRow() {
+        return row;
+    }
+}
@@ -0,0 +1,162 @@
+package com.ledgerly.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link RowPredicate} bound to one table's column store. Columns are resolved to ordinals and
+ * values coerced to the column type once per query, and every condition becomes a typed test on a
+ * storage slot: {@code long} comparisons for INT/TIMESTAMP, code comparisons for EQ/NEQ on
+ * dictionary-encoded STRING columns and {@code String} comparisons otherwise. Unknown columns and
+ * values that do not fit the column are rejected while compiling, before any row is read.
+ */
+final class CompiledPredicate {
+    private static final CompiledPredicate ALL = new CompiledPredicate(new SlotTest[0], List.of(), false);
+
+    private final SlotTest[] tests;
+    private final List<Condition> conditions;
+    private final boolean matchesNothing;
+
+    @FunctionalInterface
+    private interface SlotTest {
+        boolean test(int slot);
+    }
+
+    private CompiledPredicate(SlotTest[] tests, List<Condition> conditions, boolean matchesNothing) {
+        this.tests = tests;
+        this.conditions = conditions;
+        this.matchesNothing = matchesNothing;
+    }
+
+    /**
+     * Binds {@code predicate} to {@code store}; a null predicate matches every row.
+     */
+    static CompiledPredicate compile(RowPredicate predicate, ColumnStore store) {
+        if (predicate == null) {
+            return ALL;
+        }
+        List<SlotTest> tests = new ArrayList<>(predicate.conditions().size());
+        List<Condition> conditions = new ArrayList<>(predicate.conditions().size());
+        boolean matchesNothing = false;
+        for (Condition condition : predicate.conditions()) {
+            int ordinal = store.ordinal(condition.getColumn());
+            if (ordinal < 0) {
+                throw new IllegalArgumentException("Unknown column: " + condition.getColumn());
+            }
+            ConditionOperator op = condition.getOperator();
+            ColumnStore.Vector vector = store.vector(ordinal);
+            if (op == ConditionOperator.IS_NULL || op == ConditionOperator.IS_NOT_NULL) {
+                tests.add(nullTest(vector, op == ConditionOperator.IS_NULL));
+                conditions.add(condition);
+                continue;
+            }
+            if (condition.getValue() == null) {
+                throw new IllegalArgumentException("Cannot compare null values");
+            }
+            Object value = coerce(store.type(ordinal), condition);
+            conditions.add(new Condition(condition.getColumn(), op, value));
+            if (vector instanceof ColumnStore.LongVector longs) {
+                tests.add(longTest(longs, op, (Long) value));
+            } else if (vector instanceof ColumnStore.Dictionary dictionary
+                    && (op == ConditionOperator.EQ || op == ConditionOperator.NEQ)) {
+                int code = dictionary.code((String) value);
+                // a value no row has ever held cannot be equal to anything
+                matchesNothing |= op == ConditionOperator.EQ && code == ColumnStore.Dictionary.NULL_CODE;
+                tests.add(codeTest(dictionary, op, code));
+            } else {
+                tests.add(stringTest(vector, op, (String) value));
+            }
+        }
+        return new CompiledPredicate(tests.toArray(new SlotTest[0]), List.copyOf(conditions), matchesNothing);
+    }
+
+    boolean test(int slot) {
+        for (SlotTest test : tests) {
+            if (!test.test(slot)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether no row can match, so the caller need not look at any.
+     */
+    boolean matchesNothing() {
+        return matchesNothing;
+    }
+
+    /**
+     * The conditions with their values coerced to the column types, for index selection.
+     */
+    List<Condition> conditions() {
+        return conditions;
+    }
+
+    private static Object coerce(DataType type, Condition condition) {
+        try {
+            return type.coerce(condition.getValue());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid " + type + " value for column " + condition.getColumn()
+                    + ": " + condition.getValue(), ex);
+        }
+    }
+
+    private static SlotTest nullTest(ColumnStore.Vector vector, boolean isNull) {
+        if (vector instanceof ColumnStore.LongVector longs) {
+            return isNull ? longs::isNull : slot -> !longs.isNull(slot);
+        }
+        return isNull ? slot -> vector.get(slot) == null : slot -> vector.get(slot) != null;
+    }
+
+    // comparisons against a null column value never match
+
+    private static SlotTest longTest(ColumnStore.LongVector col, ConditionOperator op, long v) {
+        return switch (op) {
+            case EQ -> slot -> !col.isNull(slot) && col.longAt(slot) == v;
+            case NEQ -> slot -> !col.isNull(slot) && col.longAt(slot) != v;
+            case LT -> slot -> !col.isNull(slot) && col.longAt(slot) < v;
+            case LTE -> slot -> !col.isNull(slot) && col.longAt(slot) <= v;
+            case GT -> slot -> !col.isNull(slot) && col.longAt(slot) > v;
+            case GTE -> slot -> !col.isNull(slot) && col.longAt(slot) >= v;
+            case IS_NULL, IS_NOT_NULL -> throw new IllegalStateException("Not a comparison: " + op);
+        };
+    }
+
+    private static SlotTest codeTest(ColumnStore.Dictionary col, ConditionOperator op, int code) {
+        if (op == ConditionOperator.EQ) {
+            return code == ColumnStore.Dictionary.NULL_CODE ? slot -> false : slot -> col.codeAt(slot) == code;
+        }
+        return slot -> {
+            int c = col.codeAt(slot);
+            return c != ColumnStore.Dictionary.NULL_CODE && c != code;
+        };
+    }
+
+    private static SlotTest stringTest(ColumnStore.Vector col, ConditionOperator op, String v) {
+        return switch (op) {
+            case EQ -> slot -> v.equals(col.get(slot));
+            case NEQ -> slot -> {
+                Object s = col.get(slot);
+                return s != null && !v.equals(s);
+            };
+            case LT -> slot -> {
+                Object s = col.get(slot);
+                return s != null && ((String) s).compareTo(v) < 0;
+            };
+            case LTE -> slot -> {
+                Object s = col.get(slot);
+                return s != null && ((String) s).compareTo(v) <= 0;
+            };
+            case GT -> slot -> {
+                Object s = col.get(slot);
+                return s != null && ((String) s).compareTo(v) > 0;
+            };
+            case GTE -> slot -> {
+                Object s = col.get(slot);
+                return s != null && ((String) s).compareTo(v) >= 0;
+            };
+            case IS_NULL, IS_NOT_NULL -> throw new IllegalStateException("Not a comparison: " + op);
+        };
+    }
+}
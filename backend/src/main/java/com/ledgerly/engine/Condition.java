@@ -1,5 +1,8 @@
 package com.ledgerly.engine;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.Objects;
 
 public class Condition {
@@ -7,7 +10,10 @@ public class Condition {
     private final ConditionOperator operator;
     private final Object value;
 
-    public Condition(String column, ConditionOperator operator, Object value) {
+    @JsonCreator
+    public Condition(@JsonProperty("column") String column,
+                     @JsonProperty("operator") ConditionOperator operator,
+                     @JsonProperty("value") Object value) {
         this.column = Objects.requireNonNull(column, "column");
         this.operator = Objects.requireNonNull(operator, "operator");
         this.value = value;
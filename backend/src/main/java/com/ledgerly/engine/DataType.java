@@ -1,5 +1,6 @@
 package com.ledgerly.engine;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 
@@ -13,12 +14,53 @@ public enum DataType {
             return null;
         }
         return switch (this) {
-            case INT -> Long.parseLong(raw);
+            case INT -> parseInt(raw);
             case STRING -> raw;
             case TIMESTAMP -> parseTimestamp(raw);
         };
     }
 
+    /**
+     * Converts a bound or JSON-decoded value to the column's storage representation: a
+     * {@code String} for STRING and a {@code Long} otherwise.
+     */
+    public Object coerce(Object raw) {
+        if (raw == null) {
+            return null;
+        }
+        if (raw instanceof String s) {
+            return parse(s);
+        }
+        if (this == STRING) {
+            return raw.toString();
+        }
+        if (raw instanceof Long || raw instanceof Integer || raw instanceof Short || raw instanceof Byte) {
+            // JSON binding yields Integer for small numbers; keep index keys consistently Long
+            return ((Number) raw).longValue();
+        }
+        if (raw instanceof Number n) {
+            return exactLong(n);
+        }
+        throw new IllegalArgumentException("Invalid " + this + ": " + raw);
+    }
+
+    // fractional or out-of-range values are rejected rather than truncated, e.g. an amount of 12.99
+    private long exactLong(Number n) {
+        try {
+            return new BigDecimal(n.toString()).longValueExact();
+        } catch (NumberFormatException | ArithmeticException ex) {
+            throw new IllegalArgumentException("Invalid " + this + ": " + n, ex);
+        }
+    }
+
+    private long parseInt(String raw) {
+        try {
+            return Long.parseLong(raw);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid INT: " + raw, ex);
+        }
+    }
+
     private long parseTimestamp(String raw) {
         try {
             return Instant.parse(raw).toEpochMilli();
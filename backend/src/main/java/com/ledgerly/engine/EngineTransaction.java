@@ -0,0 +1,155 @@
+package com.ledgerly.engine;
+
+import com.ledgerly.engine.persistence.PersistenceEvent;
+import com.ledgerly.engine.persistence.WalRecordMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Statements of one {@link LedgerEngine#inTransaction} call, run with the write locks of every
+ * declared table held. Each statement applies right away, so reads through the transaction see
+ * its own changes, but all of them are stamped with one commit timestamp that is published only
+ * when the transaction commits: lock-free readers see either none of it or all of it. A rollback
+ * discards what was staged, and the WAL only ever holds committed transactions.
+ */
+public final class EngineTransaction {
+    private final Map<String, Table> tables;
+    private final WalRecordMode recordMode;
+    private final List<PersistenceEvent> statements = new ArrayList<>();
+    private final List<Table> staged = new ArrayList<>();
+    // a failed statement may have discarded view changes staged before it, so nothing can commit
+    private RuntimeException failure;
+    private boolean finished;
+
+    EngineTransaction(Map<String, Table> tables, WalRecordMode recordMode) {
+        this.tables = tables;
+        this.recordMode = recordMode;
+    }
+
+    /**
+     * Starts staging on every table; their write locks must already be held.
+     */
+    void begin() {
+        for (Table table : tables.values()) {
+            table.beginStaging();
+            staged.add(table);
+        }
+    }
+
+    public void insert(String tableName, Map<String, Object> values) {
+        Table table = table(tableName);
+        apply(() -> {
+            table.insert(values);
+            return null;
+        });
+        statements.add(PersistenceEvent.insert(tableName, values));
+    }
+
+    public int update(String tableName, RowPredicate predicate, Map<String, Object> newValues) {
+        Table table = table(tableName);
+        List<Map<String, Object>> before = new ArrayList<>();
+        List<Map<String, Object>> after = new ArrayList<>();
+        int count = apply(() -> table.update(predicate, newValues, (oldRow, newRow) -> {
+            before.add(oldRow);
+            after.add(newRow);
+        }));
+        if (count == 0) {
+            return 0;
+        }
+        statements.add(recordMode == WalRecordMode.LOGICAL
+                ? PersistenceEvent.update(tableName, predicate, newValues)
+                : PersistenceEvent.updateRows(tableName, before.stream().map(table::primaryKey).toList(), after));
+        return count;
+    }
+
+    public CompareAndSetResult compareAndSet(String tableName, Map<String, Object> key, Map<String, Object> expected,
+                                             Map<String, Object> newValues) {
+        Table table = table(tableName);
+        return apply(() -> table.compareAndSet(key, expected, newValues, (before, after) ->
+                statements.add(LedgerEngine.compareAndSetEvent(recordMode, table, tableName, key, expected, newValues,
+                        before, after))));
+    }
+
+    public int delete(String tableName, RowPredicate predicate) {
+        Table table = table(tableName);
+        List<Map<String, Object>> deleted = new ArrayList<>();
+        int count = apply(() -> table.delete(predicate, deleted::add));
+        if (count == 0) {
+            return 0;
+        }
+        statements.add(recordMode == WalRecordMode.LOGICAL
+                ? PersistenceEvent.delete(tableName, predicate)
+                : PersistenceEvent.deleteRows(tableName, deleted.stream().map(table::primaryKey).toList()));
+        return count;
+    }
+
+    public List<Map<String, Object>> select(String tableName, List<String> columns, RowPredicate predicate) {
+        try (Table.ReadView view = table(tableName).stagedView()) {
+            return view.select(columns, predicate, ScanMode.AUTO);
+        }
+    }
+
+    public Map<String, Object> getByKey(String tableName, Map<String, Object> key) {
+        try (Table.ReadView view = table(tableName).stagedView()) {
+            return view.getByKey(key);
+        }
+    }
+
+    /**
+     * The statements to log, in order. Fails if any statement failed, even if the caller went on.
+     */
+    List<PersistenceEvent> statements() {
+        if (failure != null) {
+            throw new IllegalStateException("Transaction cannot commit after a failed statement", failure);
+        }
+        return statements;
+    }
+
+    /**
+     * Ends the transaction, publishing its statements on every table.
+     */
+    void commit() {
+        finished = true;
+        staged.forEach(Table::commitStaged);
+    }
+
+    /**
+     * Ends the transaction, discarding its statements. Failures to do so are added to {@code cause}.
+     */
+    void rollback(Throwable cause) {
+        finished = true;
+        for (Table table : staged) {
+            try {
+                table.rollbackStaged();
+            } catch (RuntimeException ex) {
+                cause.addSuppressed(ex);
+            }
+        }
+    }
+
+    private <R> R apply(Supplier<R> statement) {
+        if (failure != null) {
+            throw new IllegalStateException("Transaction has a failed statement", failure);
+        }
+        try {
+            return statement.get();
+        } catch (RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        }
+    }
+
+    private Table table(String name) {
+        if (finished) {
+            throw new IllegalStateException("Transaction already finished");
+        }
+        Table table = tables.get(name);
+        if (table == null) {
+            throw new IllegalArgumentException("Table " + name + " is not part of this transaction");
+        }
+        return table;
+    }
+}
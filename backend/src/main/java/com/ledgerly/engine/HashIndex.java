@@ -0,0 +1,66 @@
+package com.ledgerly.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Non-unique secondary index mapping a (possibly composite) column key to the ids of rows holding it.
+ * Mutated by the table's writer only; snapshot readers look up buckets concurrently.
+ */
+class HashIndex implements SecondaryIndex {
+    private final IndexDefinition definition;
+    private final Map<List<Object>, Set<Long>> entries = new ConcurrentHashMap<>();
+
+    HashIndex(IndexDefinition definition) {
+        this.definition = definition;
+    }
+
+    @Override
+    public IndexDefinition definition() {
+        return definition;
+    }
+
+    @Override
+    public boolean isPointLookup() {
+        return true;
+    }
+
+    @Override
+    public void add(long id, Map<String, Object> row) {
+        entries.computeIfAbsent(keyOf(row), k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    @Override
+    public void remove(long id, Map<String, Object> row) {
+        List<Object> key = keyOf(row);
+        Set<Long> ids = entries.get(key);
+        if (ids == null) {
+            return;
+        }
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            entries.remove(key);
+        }
+    }
+
+    @Override
+    public Collection<Long> candidates(Map<String, Object> equalities, Map<String, KeyRange> ranges, int limit) {
+        if (!equalities.keySet().containsAll(columns())) {
+            return null;
+        }
+        Set<Long> ids = entries.getOrDefault(keyOf(equalities), Set.of());
+        return ids.size() > limit ? null : ids;
+    }
+
+    private List<Object> keyOf(Map<String, Object> row) {
+        List<Object> key = new ArrayList<>(columns().size());
+        for (String col : columns()) {
+            key.add(row.get(col));
+        }
+        return key;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ledgerly.engine;
+
+import java.util.Locale;
+
+public enum ImportFormat {
+    // header line of column names, then one row per line; an empty unquoted field is null
+    CSV,
+    // one JSON object per line
+    NDJSON;
+
+    /**
+     * Resolves a format name, or else guesses from a content type or file name, defaulting to CSV.
+     */
+    public static ImportFormat resolve(String name, String hint) {
+        if (name != null && !name.isBlank()) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unsupported import format: " + name);
+            }
+        }
+        String lower = hint == null ? "" : hint.toLowerCase(Locale.ROOT);
+        return lower.contains("ndjson") || lower.contains("json") ? NDJSON : CSV;
+    }
+}
@@ -0,0 +1,65 @@
+package com.ledgerly.engine;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Objects;
+
+public class IndexDefinition {
+    private final String name;
+    private final List<String> columns;
+    private final IndexType type;
+    private final List<Condition> where;
+
+    public IndexDefinition(String name, List<String> columns) {
+        this(name, columns, IndexType.HASH);
+    }
+
+    public IndexDefinition(String name, List<String> columns, IndexType type) {
+        this(name, columns, type, null);
+    }
+
+    /**
+     * @param where conditions a row must satisfy to be indexed, making this a partial index;
+     *              null or empty indexes every row
+     */
+    @JsonCreator
+    public IndexDefinition(@JsonProperty("name") String name,
+                           @JsonProperty("columns") List<String> columns,
+                           @JsonProperty("type") IndexType type,
+                           @JsonProperty("where") List<Condition> where) {
+        this.name = Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(columns, "columns");
+        if (name.isBlank()) {
+            throw new IllegalArgumentException("Index name required");
+        }
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("Index must have at least one column");
+        }
+        this.columns = List.copyOf(columns);
+        // a null type means a hash index
+        this.type = type == null ? IndexType.HASH : type;
+        if (this.type == IndexType.ORDERED && this.columns.size() != 1) {
+            throw new IllegalArgumentException("Ordered index must have exactly one column");
+        }
+        // a null filter means a full index over every row
+        this.where = where == null ? List.of() : List.copyOf(where);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public IndexType getType() {
+        return type;
+    }
+
+    public List<Condition> getWhere() {
+        return where;
+    }
+}
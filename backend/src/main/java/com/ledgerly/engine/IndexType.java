@@ -0,0 +1,8 @@
+package com.ledgerly.engine;
+
+public enum IndexType {
+    // equality lookups on one or more columns
+    HASH,
+    // equality and range lookups on a single INT or TIMESTAMP column
+    ORDERED
+}
@@ -0,0 +1,190 @@
+package com.ledgerly.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Equi-join of two tables on one column each. Probes an existing PK/unique/hash index on
+ * either side when there is one (index nested loop), otherwise builds a hash table over the
+ * smaller side once and streams the larger side against it. Null keys never match, and neither
+ * do keys of a STRING column and an INT/TIMESTAMP column, whichever plan runs. Both sides are
+ * read through snapshot views, so the join runs without blocking writers.
+ */
+final class JoinOperator {
+    private static final int UNTRANSLATED = -2;
+
+    private final Table.ReadView left;
+    private final Table.ReadView right;
+    private final String leftName;
+    private final String rightName;
+    private final String leftColumn;
+    private final String rightColumn;
+    private final List<String> projection;
+    // whether the two columns store keys the same way (String vs Long), so equal values can exist
+    private final boolean comparableKeys;
+
+    JoinOperator(Table.ReadView left, String leftName, String leftColumn,
+                 Table.ReadView right, String rightName, String rightColumn,
+                 List<String> projection) {
+        requireColumn(left, leftColumn);
+        requireColumn(right, rightColumn);
+        this.left = left;
+        this.right = right;
+        this.leftName = leftName;
+        this.rightName = rightName;
+        this.leftColumn = leftColumn;
+        this.rightColumn = rightColumn;
+        this.projection = projection == null || projection.isEmpty() ? null : projection;
+        this.comparableKeys = isString(left, leftColumn) == isString(right, rightColumn);
+    }
+
+    void run(Consumer<Map<String, Object>> sink) {
+        if (!comparableKeys) {
+            // an index probe would coerce the key to the other column's type and match or fail on it
+            return;
+        }
+        if (right.hasEqualityIndex(rightColumn)) {
+            left.forEachRow(l -> probe(l, leftColumn, right, rightColumn, matches -> {
+                for (RowRecord r : matches) {
+                    sink.accept(merge(l, r));
+                }
+            }));
+        } else if (left.hasEqualityIndex(leftColumn)) {
+            right.forEachRow(r -> probe(r, rightColumn, left, leftColumn, matches -> {
+                for (RowRecord l : matches) {
+                    sink.accept(merge(l, r));
+                }
+            }));
+        } else if (right.size() <= left.size()) {
+            hashJoin(right, rightColumn, left, leftColumn, (l, r) -> sink.accept(merge(l, r)));
+        } else {
+            hashJoin(left, leftColumn, right, rightColumn, (r, l) -> sink.accept(merge(l, r)));
+        }
+    }
+
+    /**
+     * Builds a hash table over {@code build} and streams {@code probe} against it, passing each
+     * (probe row, build row) match to {@code onMatch}. When both columns are dictionary-encoded the
+     * table is an array indexed by build code, and each probe code is translated into a build code
+     * once per distinct value instead of hashing a string per row.
+     */
+    private static void hashJoin(Table.ReadView build, String buildColumn, Table.ReadView probe, String probeColumn,
+                                 BiConsumer<RowRecord, RowRecord> onMatch) {
+        ColumnStore.Dictionary buildCodes = build.dictionary(buildColumn);
+        ColumnStore.Dictionary probeCodes = probe.dictionary(probeColumn);
+        if (buildCodes != null && probeCodes != null) {
+            codedHashJoin(build, buildCodes, probe, probeCodes, onMatch);
+            return;
+        }
+        Map<Object, List<RowRecord>> built = build(build, buildColumn);
+        probe.forEachRow(p -> {
+            List<RowRecord> matches = built.get(p.getValues().get(probeColumn));
+            if (matches != null) {
+                for (RowRecord b : matches) {
+                    onMatch.accept(p, b);
+                }
+            }
+        });
+    }
+
+    private static void codedHashJoin(Table.ReadView build, ColumnStore.Dictionary buildCodes,
+                                      Table.ReadView probe, ColumnStore.Dictionary probeCodes,
+                                      BiConsumer<RowRecord, RowRecord> onMatch) {
+        // sized after the views were opened, so every code they can see fits
+        List<List<RowRecord>> buckets = new ArrayList<>(Collections.nCopies(buildCodes.size(), null));
+        build.forEachRow(buildCodes, (b, code) -> {
+            if (code != ColumnStore.Dictionary.NULL_CODE) {
+                List<RowRecord> bucket = buckets.get(code);
+                if (bucket == null) {
+                    bucket = new ArrayList<>(1);
+                    buckets.set(code, bucket);
+                }
+                bucket.add(b);
+            }
+        });
+        int[] translated = new int[probeCodes.size()];
+        Arrays.fill(translated, UNTRANSLATED);
+        probe.forEachRow(probeCodes, (p, code) -> {
+            if (code == ColumnStore.Dictionary.NULL_CODE) {
+                return;
+            }
+            int buildCode = translated[code];
+            if (buildCode == UNTRANSLATED) {
+                buildCode = buildCodes.code(probeCodes.value(code));
+                translated[code] = buildCode;
+            }
+            // codes handed out after the build side was read have no rows in it
+            List<RowRecord> bucket = buildCode == ColumnStore.Dictionary.NULL_CODE || buildCode >= buckets.size()
+                    ? null : buckets.get(buildCode);
+            if (bucket == null) {
+                return;
+            }
+            for (RowRecord b : bucket) {
+                onMatch.accept(p, b);
+            }
+        });
+    }
+
+    private static void probe(RowRecord outer, String outerColumn, Table.ReadView inner, String innerColumn,
+                              Consumer<List<RowRecord>> onMatches) {
+        Object key = outer.getValues().get(outerColumn);
+        if (key != null) {
+            onMatches.accept(inner.rowsWithValue(innerColumn, key));
+        }
+    }
+
+    private static Map<Object, List<RowRecord>> build(Table.ReadView table, String column) {
+        Map<Object, List<RowRecord>> built = new HashMap<>();
+        table.forEachRow(r -> {
+            Object key = r.getValues().get(column);
+            if (key != null) {
+                built.computeIfAbsent(key, k -> new ArrayList<>(1)).add(r);
+            }
+        });
+        return built;
+    }
+
+    private Map<String, Object> merge(RowRecord l, RowRecord r) {
+        if (projection != null) {
+            Map<String, Object> out = new LinkedHashMap<>();
+            for (String p : projection) {
+                out.put(p, projected(p, l, r));
+            }
+            return out;
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        l.getValues().forEach((k, v) -> out.put(leftName + "." + k, v));
+        r.getValues().forEach((k, v) -> out.put(rightName + "." + k, v));
+        return out;
+    }
+
+    private Object projected(String qualified, RowRecord l, RowRecord r) {
+        // right wins on a self-join, matching the old merged-map behaviour
+        String rightPrefix = rightName + ".";
+        if (qualified.startsWith(rightPrefix)) {
+            return r.getValues().get(qualified.substring(rightPrefix.length()));
+        }
+        String leftPrefix = leftName + ".";
+        if (qualified.startsWith(leftPrefix)) {
+            return l.getValues().get(qualified.substring(leftPrefix.length()));
+        }
+        return null;
+    }
+
+    private static boolean isString(Table.ReadView table, String column) {
+        return table.getSchema().getColumns().get(column).getType() == DataType.STRING;
+    }
+
+    private static void requireColumn(Table.ReadView table, String column) {
+        if (column == null || !table.getSchema().getColumns().containsKey(column)) {
+            throw new IllegalArgumentException("Unknown join column: " + table.getSchema().getName() + "." + column);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.ledgerly.engine;
+
+/**
+ * Bounds on a single INT/TIMESTAMP column collected from a predicate. A null bound is open.
+ */
+record KeyRange(Long lower, boolean lowerInclusive, Long upper, boolean upperInclusive) {
+
+    static final KeyRange ALL = new KeyRange(null, false, null, false);
+
+    KeyRange withLower(long value, boolean inclusive) {
+        if (lower != null && (lower > value || (lower == value && !lowerInclusive))) {
+            return this;
+        }
+        return new KeyRange(value, inclusive, upper, upperInclusive);
+    }
+
+    KeyRange withUpper(long value, boolean inclusive) {
+        if (upper != null && (upper < value || (upper == value && !upperInclusive))) {
+            return this;
+        }
+        return new KeyRange(lower, lowerInclusive, value, inclusive);
+    }
+
+    boolean isEmpty() {
+        if (lower == null || upper == null) {
+            return false;
+        }
+        return lower > upper || (lower.equals(upper) && !(lowerInclusive && upperInclusive));
+    }
+}
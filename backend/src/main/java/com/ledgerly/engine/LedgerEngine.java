@@ -2,103 +2,465 @@ package com.ledgerly.engine;
 
 import com.ledgerly.engine.persistence.Persistence;
 import com.ledgerly.engine.persistence.PersistenceEvent;
+import com.ledgerly.engine.persistence.Snapshot;
+import com.ledgerly.engine.persistence.WalRecordMode;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Reads run against multi-version snapshots of a table and take no locks. Each mutation holds
+ * its table's write lock across apply and WAL append, so writes to one table never wait on
+ * another. Whenever several table locks are needed they are taken in table-name order.
+ */
 public class LedgerEngine {
+    // rows per commit and WAL record of a bulk load
+    private static final int LOAD_BATCH_ROWS = 10_000;
 
-    private final Map<String, Table> tables = new HashMap<>();
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
     private final Persistence persistence;
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    // serializes table creation against the checkpoint cut
+    private final Object catalogLock = new Object();
+    private final AtomicLong eventsSinceCheckpoint = new AtomicLong();
+    private final int parallelScanThreshold;
+    private final WalRecordMode recordMode;
 
     public LedgerEngine(Persistence persistence) {
+        this(persistence, 0);
+    }
+
+    /**
+     * @param parallelScanThreshold live row count from which {@link ScanMode#AUTO} full scans
+     *                              (selects, and the row matching of updates and deletes) run in
+     *                              parallel; 0 or less keeps them sequential
+     */
+    public LedgerEngine(Persistence persistence, int parallelScanThreshold) {
+        this(persistence, parallelScanThreshold, WalRecordMode.LOGICAL);
+    }
+
+    /**
+     * @param recordMode how updates and deletes are written to the WAL; logs written in either
+     *                   mode, or a mix of both, replay the same way
+     */
+    public LedgerEngine(Persistence persistence, int parallelScanThreshold, WalRecordMode recordMode) {
         this.persistence = Objects.requireNonNull(persistence, "persistence");
-        for (PersistenceEvent event : persistence.loadEvents()) {
+        this.parallelScanThreshold = parallelScanThreshold;
+        this.recordMode = Objects.requireNonNull(recordMode, "recordMode");
+        persistence.loadSnapshot().ifPresent(this::restore);
+        persistence.replay(event -> {
             applyEvent(event, false);
+            eventsSinceCheckpoint.incrementAndGet();
+        });
+    }
+
+    /**
+     * Writes a snapshot of every table and drops the WAL it covers, bounding the replay needed on
+     * the next start. Writers are held off only while the WAL is sealed and a read view is pinned
+     * on every table; rows are then read from those views and serialized without any lock.
+     *
+     * @return false when there was nothing new to checkpoint or a checkpoint is already running
+     */
+    public boolean checkpoint() {
+        if (!checkpointLock.tryLock()) {
+            return false;
+        }
+        try {
+            long checkpointId;
+            List<CapturedTable> captured = new ArrayList<>();
+            synchronized (catalogLock) {
+                List<Table> all = new ArrayList<>(tables.values());
+                all.sort(Comparator.comparing(t -> t.getSchema().getName()));
+                List<Lock> held = new ArrayList<>(all.size());
+                try {
+                    for (Table table : all) {
+                        Lock lock = table.writeLock();
+                        lock.lock();
+                        held.add(lock);
+                    }
+                    if (eventsSinceCheckpoint.get() == 0) {
+                        return false;
+                    }
+                    checkpointId = persistence.sealSegment();
+                    for (Table table : all) {
+                        captured.add(new CapturedTable(table.getSchema(), table.indexes(), table.views(), table.nextRowId(),
+                                table.openView()));
+                    }
+                    eventsSinceCheckpoint.set(0);
+                } finally {
+                    held.forEach(Lock::unlock);
+                }
+            }
+            try {
+                List<Snapshot.TableState> states = new ArrayList<>(captured.size());
+                for (CapturedTable t : captured) {
+                    List<Snapshot.Row> rows = new ArrayList<>(t.view().size());
+                    t.view().forEachRow(record -> rows.add(new Snapshot.Row(record.getId(), record.getValues())));
+                    states.add(new Snapshot.TableState(t.schema(), t.indexes(), t.nextRowId(), rows, t.views()));
+                }
+                persistence.writeSnapshot(new Snapshot(checkpointId, states));
+                return true;
+            } finally {
+                captured.forEach(t -> t.view().close());
+            }
+        } finally {
+            checkpointLock.unlock();
         }
     }
 
-    public synchronized void createTable(TableSchema schema) {
+    public void createTable(TableSchema schema) {
         String name = schema.getName();
-        if (tables.containsKey(name)) {
-            throw new IllegalArgumentException("Table already exists: " + name);
+        Table table = new Table(schema, parallelScanThreshold);
+        synchronized (catalogLock) {
+            // hold the new table until CREATE_TABLE is logged so no write to it can be logged first
+            table.writeLock().lock();
+            try {
+                if (tables.putIfAbsent(name, table) != null) {
+                    throw new IllegalArgumentException("Table already exists: " + name);
+                }
+                log(PersistenceEvent.createTable(schema));
+            } finally {
+                table.writeLock().unlock();
+            }
         }
-        Table table = new Table(schema);
-        tables.put(name, table);
-        persistence.appendEvent(PersistenceEvent.createTable(schema));
     }
 
-    public synchronized void insert(String tableName, Map<String, Object> values) {
+    public void createIndex(String tableName, IndexDefinition definition) {
         Table table = getTable(tableName);
-        table.insert(values);
-        persistence.appendEvent(PersistenceEvent.insert(tableName, values));
+        lockForStatement(table);
+        try {
+            table.createIndex(definition);
+            log(PersistenceEvent.createIndex(tableName, definition));
+        } finally {
+            table.writeLock().unlock();
+        }
+    }
+
+    public List<IndexDefinition> listIndexes(String tableName) {
+        return getTable(tableName).indexes();
     }
 
-    public synchronized int update(String tableName, RowPredicate predicate, Map<String, Object> newValues) {
+    public void createView(String tableName, MaterializedViewDefinition definition) {
         Table table = getTable(tableName);
-        int count = table.update(predicate, newValues);
-        if (count > 0) {
-            persistence.appendEvent(PersistenceEvent.update(tableName, predicate, newValues));
+        lockForStatement(table);
+        try {
+            table.createView(definition);
+            log(PersistenceEvent.createView(tableName, definition));
+        } finally {
+            table.writeLock().unlock();
         }
-        return count;
     }
 
-    public synchronized int delete(String tableName, RowPredicate predicate) {
+    public List<MaterializedViewDefinition> listViews(String tableName) {
+        return getTable(tableName).views();
+    }
+
+    /**
+     * Current groups of a materialized view whose grouping values equal {@code filter}. With every
+     * grouping column bound this is a single lookup, independent of the table size.
+     */
+    public List<Map<String, Object>> queryView(String tableName, String viewName, Map<String, Object> filter) {
+        return getTable(tableName).queryView(viewName, filter);
+    }
+
+    public void insert(String tableName, Map<String, Object> values) {
         Table table = getTable(tableName);
-        int count = table.delete(predicate);
-        if (count > 0) {
-            persistence.appendEvent(PersistenceEvent.delete(tableName, predicate));
+        lockForStatement(table);
+        try {
+            table.insert(values);
+            log(PersistenceEvent.insert(tableName, values));
+        } finally {
+            table.writeLock().unlock();
         }
-        return count;
     }
 
-    public synchronized List<Map<String, Object>> select(String tableName, List<String> columns, RowPredicate predicate) {
+    /**
+     * Inserts {@code rows} all or nothing under a single acquisition of the table lock, logged as
+     * one WAL record: a constraint violation in any row rejects the whole batch.
+     */
+    public void insertAll(String tableName, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        insertBatch(getTable(tableName), tableName, rows, 0);
+    }
+
+    /**
+     * Streams CSV or NDJSON rows from {@code in} into {@code tableName} and returns how many were
+     * loaded. Rows go in as batches of {@value #LOAD_BATCH_ROWS}, each validated, committed and
+     * logged as one unit like {@link #insertAll}, so neither the input nor the WAL grows with
+     * every row. The first bad row stops the load; the batches before its own stay committed.
+     */
+    public long load(String tableName, ImportFormat format, Reader in) {
         Table table = getTable(tableName);
-        return table.select(columns, predicate);
+        RowReader reader = RowReader.open(format, in);
+        long loaded = 0;
+        try {
+            List<Map<String, Object>> batch = new ArrayList<>();
+            for (Map<String, Object> row = reader.next(); row != null; row = reader.next()) {
+                batch.add(row);
+                if (batch.size() == LOAD_BATCH_ROWS) {
+                    insertBatch(table, tableName, batch, loaded);
+                    loaded += batch.size();
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                insertBatch(table, tableName, batch, loaded);
+                loaded += batch.size();
+            }
+            return loaded;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to read rows for " + tableName + " after " + loaded + " rows", ex);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(ex.getMessage() + " (" + loaded + " rows loaded before it)", ex);
+        }
     }
 
-    public synchronized List<Map<String, Object>> join(String leftTableName,
-                                                       String rightTableName,
-                                                       String leftColumn,
-                                                       String rightColumn,
-                                                       List<String> projection) {
-        Table left = getTable(leftTableName);
-        Table right = getTable(rightTableName);
+    private void insertBatch(Table table, String tableName, List<Map<String, Object>> rows, long firstRow) {
+        lockForStatement(table);
+        try {
+            table.insertAll(rows, firstRow);
+            log(PersistenceEvent.insertBatch(tableName, rows));
+        } finally {
+            table.writeLock().unlock();
+        }
+    }
 
-        List<Map<String, Object>> results = new ArrayList<>();
-        for (RowRecord leftRow : left.rowsSnapshot()) {
-            Object leftKey = leftRow.getValues().get(leftColumn);
-            for (RowRecord rightRow : right.rowsSnapshot()) {
-                Object rightKey = rightRow.getValues().get(rightColumn);
-                if (Objects.equals(leftKey, rightKey)) {
-                    Map<String, Object> merged = new HashMap<>();
-                    merged.putAll(prefixMap(leftTableName, leftRow.getValues()));
-                    merged.putAll(prefixMap(rightTableName, rightRow.getValues()));
-                    if (projection != null && !projection.isEmpty()) {
-                        Map<String, Object> filtered = new HashMap<>();
-                        for (String p : projection) {
-                            filtered.put(p, merged.get(p));
-                        }
-                        results.add(filtered);
-                    } else {
-                        results.add(merged);
-                    }
+    public int update(String tableName, RowPredicate predicate, Map<String, Object> newValues) {
+        Table table = getTable(tableName);
+        lockForStatement(table);
+        try {
+            if (recordMode == WalRecordMode.LOGICAL) {
+                int count = table.update(predicate, newValues);
+                if (count > 0) {
+                    log(PersistenceEvent.update(tableName, predicate, newValues));
+                }
+                return count;
+            }
+            List<List<Object>> keys = new ArrayList<>();
+            List<Map<String, Object>> afterImages = new ArrayList<>();
+            int count = table.update(predicate, newValues, (before, after) -> {
+                keys.add(table.primaryKey(before));
+                afterImages.add(after);
+            });
+            if (count > 0) {
+                log(PersistenceEvent.updateRows(tableName, keys, afterImages));
+            }
+            return count;
+        } finally {
+            table.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates the row with primary key {@code key} to {@code newValues} only if its columns equal
+     * every value in {@code expected}, checked and applied as one step under the table lock.
+     */
+    public CompareAndSetResult compareAndSet(String tableName, Map<String, Object> key, Map<String, Object> expected,
+                                             Map<String, Object> newValues) {
+        Table table = getTable(tableName);
+        lockForStatement(table);
+        try {
+            List<PersistenceEvent> logged = new ArrayList<>(1);
+            CompareAndSetResult result = table.compareAndSet(key, expected, newValues,
+                    (before, after) -> logged.add(compareAndSetEvent(recordMode, table, tableName, key, expected, newValues,
+                            before, after)));
+            logged.forEach(this::log);
+            return result;
+        } finally {
+            table.writeLock().unlock();
+        }
+    }
+
+    // a logical record replays the swap as an update of the key whose predicate repeats the expectations
+    static PersistenceEvent compareAndSetEvent(WalRecordMode recordMode, Table table, String tableName,
+                                               Map<String, Object> key, Map<String, Object> expected,
+                                               Map<String, Object> newValues, Map<String, Object> before,
+                                               Map<String, Object> after) {
+        if (recordMode == WalRecordMode.PHYSICAL) {
+            return PersistenceEvent.updateRows(tableName, List.of(table.primaryKey(before)), List.of(after));
+        }
+        List<Condition> conditions = new ArrayList<>();
+        key.forEach((column, value) -> conditions.add(new Condition(column, ConditionOperator.EQ, value)));
+        expected.forEach((column, value) -> conditions.add(value == null
+                ? new Condition(column, ConditionOperator.IS_NULL, null)
+                : new Condition(column, ConditionOperator.EQ, value)));
+        return PersistenceEvent.update(tableName, new RowPredicate(conditions), newValues);
+    }
+
+    public int delete(String tableName, RowPredicate predicate) {
+        Table table = getTable(tableName);
+        lockForStatement(table);
+        try {
+            if (recordMode == WalRecordMode.LOGICAL) {
+                int count = table.delete(predicate);
+                if (count > 0) {
+                    log(PersistenceEvent.delete(tableName, predicate));
                 }
+                return count;
             }
+            List<List<Object>> keys = new ArrayList<>();
+            int count = table.delete(predicate, row -> keys.add(table.primaryKey(row)));
+            if (count > 0) {
+                log(PersistenceEvent.deleteRows(tableName, keys));
+            }
+            return count;
+        } finally {
+            table.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@code work} as one transaction over {@code tableNames}, whose write locks are taken in
+     * table-name order and held throughout. Its statements become visible to readers together, at
+     * commit, and are logged as a single WAL record, so replay applies all of them or none; if
+     * {@code work} throws, or the record cannot be logged, they are discarded.
+     */
+    public <T> T inTransaction(Collection<String> tableNames, Function<EngineTransaction, T> work) {
+        Map<String, Table> locked = new TreeMap<>();
+        for (String name : tableNames) {
+            locked.put(name, getTable(name));
         }
+        List<Lock> held = new ArrayList<>(locked.size());
+        try {
+            for (Table table : locked.values()) {
+                Lock lock = table.writeLock();
+                lock.lock();
+                held.add(lock);
+            }
+            EngineTransaction tx = new EngineTransaction(locked, recordMode);
+            T result;
+            try {
+                tx.begin();
+                result = work.apply(tx);
+                List<PersistenceEvent> statements = tx.statements();
+                if (statements.size() == 1) {
+                    log(statements.get(0));
+                } else if (!statements.isEmpty()) {
+                    log(PersistenceEvent.transaction(statements));
+                }
+            } catch (RuntimeException | Error ex) {
+                tx.rollback(ex);
+                throw ex;
+            }
+            tx.commit();
+            return result;
+        } finally {
+            held.forEach(Lock::unlock);
+        }
+    }
+
+    public List<Map<String, Object>> select(String tableName, List<String> columns, RowPredicate predicate) {
+        return select(tableName, columns, predicate, ScanMode.AUTO);
+    }
+
+    public List<Map<String, Object>> select(String tableName, List<String> columns, RowPredicate predicate,
+                                            ScanMode mode) {
+        Table table = getTable(tableName);
+        return table.select(columns, predicate, mode);
+    }
+
+    /**
+     * Streams one page of matching rows to {@code sink} in row order as they are found, stopping the
+     * scan once the page is full. Returns the cursor to pass as the next page's {@code after}, or
+     * null when no matching row follows.
+     */
+    public Long select(String tableName, List<String> columns, RowPredicate predicate, Page page,
+                       Consumer<Map<String, Object>> sink) {
+        Table table = getTable(tableName);
+        return table.select(columns, predicate, page, sink);
+    }
+
+    public List<Map<String, Object>> aggregate(String tableName, List<String> groupBy, List<Aggregate> aggregates,
+                                               RowPredicate predicate) {
+        return aggregate(tableName, groupBy, aggregates, predicate, ScanMode.AUTO);
+    }
+
+    /**
+     * Computes {@code aggregates} over the rows matching {@code predicate}, one result row per
+     * distinct combination of {@code groupBy} values, without materializing the matching rows.
+     */
+    public List<Map<String, Object>> aggregate(String tableName, List<String> groupBy, List<Aggregate> aggregates,
+                                               RowPredicate predicate, ScanMode mode) {
+        Table table = getTable(tableName);
+        return table.aggregate(groupBy, aggregates, predicate, mode);
+    }
+
+    public List<Map<String, Object>> select(String tableName, List<String> columns, RowPredicate predicate,
+                                            List<OrderBy> orderBy, Page page) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        select(tableName, columns, predicate, orderBy, page, ScanMode.AUTO, rows::add);
+        return rows;
+    }
+
+    /**
+     * Streams the page of matching rows sorted by {@code orderBy} to {@code sink}. With a limit,
+     * only offset + limit rows are ever held, and an ordered index on the leading sort column is
+     * read in order when no index serves the filters.
+     */
+    public void select(String tableName, List<String> columns, RowPredicate predicate, List<OrderBy> orderBy,
+                       Page page, ScanMode mode, Consumer<Map<String, Object>> sink) {
+        Table table = getTable(tableName);
+        table.select(columns, predicate, orderBy, page, mode, sink);
+    }
+
+    /**
+     * Constant-time lookup of a single row by its full primary key.
+     */
+    public Optional<Map<String, Object>> getByKey(String tableName, Map<String, Object> key) {
+        Table table = getTable(tableName);
+        return Optional.ofNullable(table.getByKey(key));
+    }
+
+    public List<Map<String, Object>> join(String leftTableName,
+                                          String rightTableName,
+                                          String leftColumn,
+                                          String rightColumn,
+                                          List<String> projection) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        join(leftTableName, rightTableName, leftColumn, rightColumn, projection, results::add);
         return results;
     }
 
-    public synchronized Optional<TableSchema> describe(String tableName) {
+    /**
+     * Streams joined rows to {@code sink} as they are produced instead of collecting them.
+     */
+    public void join(String leftTableName,
+                     String rightTableName,
+                     String leftColumn,
+                     String rightColumn,
+                     List<String> projection,
+                     Consumer<Map<String, Object>> sink) {
+        Table leftTable = getTable(leftTableName);
+        Table rightTable = getTable(rightTableName);
+        try (Table.ReadView left = leftTable.openView();
+             Table.ReadView right = rightTable.openView()) {
+            new JoinOperator(left, leftTableName, leftColumn, right, rightTableName, rightColumn, projection)
+                    .run(sink);
+        }
+    }
+
+    public Optional<TableSchema> describe(String tableName) {
         Table table = tables.get(tableName);
         return table == null ? Optional.empty() : Optional.of(table.getSchema());
     }
 
-    public synchronized List<String> listTables() {
+    public List<String> listTables() {
         return new ArrayList<>(tables.keySet());
     }
 
@@ -114,27 +476,86 @@ public class LedgerEngine {
         return tables;
     }
 
-    private Map<String, Object> prefixMap(String tableName, Map<String, Object> values) {
-        Map<String, Object> out = new HashMap<>();
-        values.forEach((k, v) -> out.put(tableName + "." + k, v));
-        return out;
+    /**
+     * Takes the write lock of {@code table} for a statement of its own. The lock is reentrant, so a
+     * transaction's thread could otherwise write around it to a table the transaction staged.
+     */
+    private static void lockForStatement(Table table) {
+        table.writeLock().lock();
+        if (table.isStaging()) {
+            table.writeLock().unlock();
+            throw new IllegalStateException("Table " + table.getSchema().getName()
+                    + " is in a transaction on this thread; write through the transaction");
+        }
+    }
+
+    private void log(PersistenceEvent event) {
+        persistence.appendEvent(event);
+        eventsSinceCheckpoint.incrementAndGet();
+    }
+
+    private void restore(Snapshot snapshot) {
+        for (Snapshot.TableState state : snapshot.tables()) {
+            Table table = new Table(state.schema(), parallelScanThreshold);
+            for (Snapshot.Row row : state.rows()) {
+                table.restoreRow(row.id(), row.values());
+            }
+            table.restoreNextRowId(state.nextRowId());
+            for (IndexDefinition index : state.indexes()) {
+                table.createIndex(index);
+            }
+            // snapshots keep view definitions only; their totals are rebuilt from the restored rows
+            if (state.views() != null) {
+                state.views().forEach(table::createView);
+            }
+            tables.put(state.schema().getName(), table);
+        }
     }
 
+    private record CapturedTable(TableSchema schema,
+                                 List<IndexDefinition> indexes,
+                                 List<MaterializedViewDefinition> views,
+                                 long nextRowId,
+                                 Table.ReadView view) {}
+
     private void applyEvent(PersistenceEvent event, boolean log) {
         RowPredicate predicate = toPredicate(event.predicate());
         switch (event.type()) {
             case CREATE_TABLE -> applyCreate(event.schema());
             case INSERT -> applyInsert(event.tableName(), event.values());
+            case INSERT_BATCH -> getTable(event.tableName()).insertAll(event.rows());
             case UPDATE -> applyUpdate(event.tableName(), predicate, event.values());
             case DELETE -> applyDelete(event.tableName(), predicate);
+            case UPDATE_ROWS -> getTable(event.tableName()).updateByKeys(event.keys(), event.rows());
+            case DELETE_ROWS -> getTable(event.tableName()).deleteByKeys(event.keys());
+            case TRANSACTION -> applyTransaction(event.statements());
+            case CREATE_INDEX -> getTable(event.tableName()).createIndex(event.index());
+            case CREATE_VIEW -> getTable(event.tableName()).createView(event.view());
         }
         if (log) {
             persistence.appendEvent(event);
         }
     }
 
+    // staged like the original transaction, so a statement that fails to replay leaves none applied
+    private void applyTransaction(List<PersistenceEvent> statements) {
+        Map<String, Table> involved = new TreeMap<>();
+        for (PersistenceEvent statement : statements) {
+            involved.put(statement.tableName(), getTable(statement.tableName()));
+        }
+        EngineTransaction tx = new EngineTransaction(involved, recordMode);
+        try {
+            tx.begin();
+            statements.forEach(statement -> applyEvent(statement, false));
+        } catch (RuntimeException ex) {
+            tx.rollback(ex);
+            throw ex;
+        }
+        tx.commit();
+    }
+
     private void applyCreate(TableSchema schema) {
-        tables.put(schema.getName(), new Table(schema));
+        tables.put(schema.getName(), new Table(schema, parallelScanThreshold));
     }
 
     private void applyInsert(String tableName, Map<String, Object> values) {
@@ -0,0 +1,264 @@
+package com.ledgerly.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incrementally maintained aggregates of one table. Every group holds a chain of states stamped
+ * with the commit that produced them, just like row versions, so a read view sees the totals as
+ * of its own snapshot. A group's state is {@code [rows, count_0, sum_0, count_1, sum_1, ...]}.
+ * Writers stage the net change of a statement against the latest state while holding the table
+ * lock and publish it right before the commit becomes visible.
+ */
+final class MaterializedView {
+    private final MaterializedViewDefinition definition;
+    private final int[] groupOrdinals;
+    private final DataType[] groupTypes;
+    private final AggregateFunction[] functions;
+    // -1 for a COUNT of rows
+    private final int[] inputOrdinals;
+    private final String[] names;
+    private final Map<List<Object>, GroupVersion> groups = new ConcurrentHashMap<>();
+    // next states of the groups the running statement touches, guarded by the table lock
+    private final Map<List<Object>, long[]> staged = new HashMap<>();
+    // groups with a superseded state, in commit order, guarded by the table lock
+    private final Deque<Superseded> superseded = new ArrayDeque<>();
+
+    private static final class GroupVersion {
+        final long ts;
+        final long[] state;
+        volatile GroupVersion previous;
+
+        GroupVersion(long ts, long[] state, GroupVersion previous) {
+            this.ts = ts;
+            this.state = state;
+            this.previous = previous;
+        }
+
+        GroupVersion visibleAt(long ts) {
+            GroupVersion v = this;
+            while (v != null && v.ts > ts) {
+                v = v.previous;
+            }
+            return v;
+        }
+    }
+
+    private record Superseded(long ts, List<Object> key) {}
+
+    /**
+     * Validates {@code definition} against {@code store} the way an aggregate query would be.
+     */
+    MaterializedView(MaterializedViewDefinition definition, ColumnStore store) {
+        Aggregator.compile(definition.getGroupBy(), definition.getAggregates(), store);
+        this.definition = definition;
+        List<String> groupBy = definition.getGroupBy();
+        groupOrdinals = new int[groupBy.size()];
+        groupTypes = new DataType[groupBy.size()];
+        for (int i = 0; i < groupOrdinals.length; i++) {
+            groupOrdinals[i] = store.ordinal(groupBy.get(i));
+            groupTypes[i] = store.type(groupOrdinals[i]);
+        }
+        List<Aggregate> aggregates = definition.getAggregates();
+        functions = new AggregateFunction[aggregates.size()];
+        inputOrdinals = new int[aggregates.size()];
+        names = new String[aggregates.size()];
+        for (int i = 0; i < functions.length; i++) {
+            Aggregate aggregate = aggregates.get(i);
+            functions[i] = aggregate.getFunction();
+            inputOrdinals[i] = aggregate.getColumn() == null ? -1 : store.ordinal(aggregate.getColumn());
+            names[i] = aggregate.getName();
+        }
+    }
+
+    MaterializedViewDefinition definition() {
+        return definition;
+    }
+
+    /**
+     * Stages the change of one row: {@code before} is removed from its group and {@code after}
+     * added to its own; either may be null for inserts and deletes. A total that would overflow
+     * fails the statement before anything is applied; the caller then discards what was staged.
+     */
+    void stage(Object[] before, Object[] after) {
+        if (before != null) {
+            accumulate(stateFor(before), before, -1);
+        }
+        if (after != null) {
+            accumulate(stateFor(after), after, 1);
+        }
+    }
+
+    void discard() {
+        staged.clear();
+    }
+
+    /**
+     * Makes the staged states the ones visible from {@code ts} on. Called before the commit
+     * timestamp is advanced, so no reader can see {@code ts} without them.
+     */
+    void publish(long ts) {
+        if (staged.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<List<Object>, long[]> entry : staged.entrySet()) {
+            GroupVersion head = groups.get(entry.getKey());
+            groups.put(entry.getKey(), new GroupVersion(ts, entry.getValue(), head));
+            if (head != null) {
+                superseded.add(new Superseded(ts, entry.getKey()));
+            }
+        }
+        staged.clear();
+    }
+
+    /**
+     * Drops group states superseded at or before {@code horizon}, and groups left without rows
+     * that no open view can still see. Runs under the table lock.
+     */
+    void collectGarbage(long horizon) {
+        while (!superseded.isEmpty() && superseded.peekFirst().ts() <= horizon) {
+            List<Object> key = superseded.pollFirst().key();
+            GroupVersion head = groups.get(key);
+            GroupVersion oldest = head == null ? null : head.visibleAt(horizon);
+            if (oldest == null) {
+                continue;
+            }
+            oldest.previous = null;
+            if (oldest == head && head.state[0] == 0) {
+                groups.remove(key, head);
+            }
+        }
+    }
+
+    /**
+     * Groups as of {@code ts} whose grouping values equal {@code filter}, ordered by those values.
+     * A filter binding every grouping column is a single hash lookup.
+     */
+    List<Map<String, Object>> query(Map<String, Object> filter, long ts) {
+        List<String> groupBy = definition.getGroupBy();
+        Object[] bound = new Object[groupBy.size()];
+        int boundCount = 0;
+        for (Map.Entry<String, Object> entry : filter.entrySet()) {
+            int g = groupBy.indexOf(entry.getKey());
+            if (g < 0) {
+                throw new IllegalArgumentException("Not a grouping column of view " + definition.getName() + ": " + entry.getKey());
+            }
+            bound[g] = coerce(g, entry.getValue());
+            boundCount++;
+        }
+        if (boundCount == groupBy.size()) {
+            List<Object> key = Arrays.asList(bound);
+            Map<String, Object> row = row(key, groups.get(key), ts);
+            return row == null ? List.of() : List.of(row);
+        }
+        List<Map.Entry<List<Object>, Map<String, Object>>> matches = new ArrayList<>();
+        groups.forEach((key, head) -> {
+            for (int g = 0; g < bound.length; g++) {
+                if (filter.containsKey(groupBy.get(g)) && !Objects.equals(bound[g], key.get(g))) {
+                    return;
+                }
+            }
+            Map<String, Object> row = row(key, head, ts);
+            if (row != null) {
+                matches.add(Map.entry(key, row));
+            }
+        });
+        matches.sort((a, b) -> compareKeys(a.getKey(), b.getKey()));
+        List<Map<String, Object>> out = new ArrayList<>(matches.size());
+        for (Map.Entry<List<Object>, Map<String, Object>> match : matches) {
+            out.add(match.getValue());
+        }
+        return out;
+    }
+
+    private Object coerce(int group, Object raw) {
+        try {
+            return groupTypes[group].coerce(raw);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid " + groupTypes[group] + " value for column "
+                    + definition.getGroupBy().get(group) + ": " + raw, ex);
+        }
+    }
+
+    private Map<String, Object> row(List<Object> key, GroupVersion head, long ts) {
+        GroupVersion v = head == null ? null : head.visibleAt(ts);
+        if (v == null || v.state[0] == 0) {
+            return null;
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int g = 0; g < groupOrdinals.length; g++) {
+            row.put(definition.getGroupBy().get(g), key.get(g));
+        }
+        for (int a = 0; a < functions.length; a++) {
+            long count = inputOrdinals[a] < 0 ? v.state[0] : v.state[1 + 2 * a];
+            long sum = v.state[2 + 2 * a];
+            row.put(names[a], switch (functions[a]) {
+                case COUNT -> count;
+                case SUM -> count == 0 ? null : (Object) sum;
+                case AVG -> count == 0 ? null : (Object) ((double) sum / count);
+                case MIN, MAX -> throw new IllegalStateException("Not maintainable: " + functions[a]);
+            });
+        }
+        return row;
+    }
+
+    private long[] stateFor(Object[] row) {
+        Object[] values = new Object[groupOrdinals.length];
+        for (int g = 0; g < values.length; g++) {
+            values[g] = row[groupOrdinals[g]];
+        }
+        return staged.computeIfAbsent(Arrays.asList(values), key -> {
+            GroupVersion head = groups.get(key);
+            return head == null ? new long[1 + 2 * functions.length] : head.state.clone();
+        });
+    }
+
+    private void accumulate(long[] state, Object[] row, int sign) {
+        state[0] += sign;
+        for (int a = 0; a < functions.length; a++) {
+            if (inputOrdinals[a] < 0) {
+                continue;
+            }
+            Object value = row[inputOrdinals[a]];
+            if (value == null) {
+                continue;
+            }
+            state[1 + 2 * a] += sign;
+            if (functions[a] != AggregateFunction.COUNT) {
+                long v = (Long) value;
+                try {
+                    state[2 + 2 * a] = sign > 0 ? Math.addExact(state[2 + 2 * a], v) : Math.subtractExact(state[2 + 2 * a], v);
+                } catch (ArithmeticException ex) {
+                    throw new IllegalArgumentException(functions[a] + " of view " + definition.getName() + " overflows", ex);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(List<Object> a, List<Object> b) {
+        for (int i = 0; i < a.size(); i++) {
+            Object x = a.get(i);
+            Object y = b.get(i);
+            if (x == y) {
+                continue;
+            }
+            if (x == null || y == null) {
+                return x == null ? -1 : 1;
+            }
+            int c = ((Comparable) x).compareTo(y);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+}
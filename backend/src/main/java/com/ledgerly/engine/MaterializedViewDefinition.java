@@ -0,0 +1,50 @@
+package com.ledgerly.engine;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Aggregates of a table kept per group and maintained as rows change. Only aggregates that can be
+ * updated from a row's old and new values are allowed: COUNT, SUM and AVG.
+ */
+public class MaterializedViewDefinition {
+    private final String name;
+    private final List<String> groupBy;
+    private final List<Aggregate> aggregates;
+
+    @JsonCreator
+    public MaterializedViewDefinition(@JsonProperty("name") String name,
+                                      @JsonProperty("groupBy") List<String> groupBy,
+                                      @JsonProperty("aggregates") List<Aggregate> aggregates) {
+        this.name = Objects.requireNonNull(name, "name");
+        if (name.isBlank()) {
+            throw new IllegalArgumentException("View name required");
+        }
+        if (aggregates == null || aggregates.isEmpty()) {
+            throw new IllegalArgumentException("At least one aggregate is required");
+        }
+        for (Aggregate aggregate : aggregates) {
+            AggregateFunction function = aggregate.getFunction();
+            if (function == AggregateFunction.MIN || function == AggregateFunction.MAX) {
+                throw new IllegalArgumentException(function + " cannot be maintained incrementally; use COUNT, SUM or AVG");
+            }
+        }
+        this.groupBy = groupBy == null ? List.of() : List.copyOf(groupBy);
+        this.aggregates = List.copyOf(aggregates);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    public List<Aggregate> getAggregates() {
+        return aggregates;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ledgerly.engine;
+
+import java.util.Objects;
+
+public class OrderBy {
+    private final String column;
+    private final SortDirection direction;
+
+    public OrderBy(String column, SortDirection direction) {
+        this.column = Objects.requireNonNull(column, "column");
+        this.direction = direction == null ? SortDirection.ASC : direction;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public SortDirection getDirection() {
+        return direction;
+    }
+}
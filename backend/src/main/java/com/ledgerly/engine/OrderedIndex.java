@@ -0,0 +1,154 @@
+package com.ledgerly.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted secondary index over one INT or TIMESTAMP column. Range conditions seek to their
+ * bounds instead of scanning, so the cost follows the number of matching rows. Null values
+ * are not indexed since they never satisfy a comparison. Like {@link HashIndex} it has a single
+ * writer and lock-free readers; buckets are tiny for these columns, so each is an id array that
+ * the writer replaces instead of mutating.
+ */
+class OrderedIndex implements SecondaryIndex {
+    private final IndexDefinition definition;
+    private final String column;
+    private final NavigableMap<Long, long[]> entries = new ConcurrentSkipListMap<>();
+
+    OrderedIndex(IndexDefinition definition) {
+        this.definition = definition;
+        this.column = definition.getColumns().get(0);
+    }
+
+    @Override
+    public IndexDefinition definition() {
+        return definition;
+    }
+
+    @Override
+    public boolean isPointLookup() {
+        return false;
+    }
+
+    @Override
+    public void add(long id, Map<String, Object> row) {
+        Long key = keyOf(row);
+        if (key == null) {
+            return;
+        }
+        long[] ids = entries.get(key);
+        if (ids == null) {
+            entries.put(key, new long[]{id});
+        } else if (indexOf(ids, id) < 0) {
+            long[] grown = Arrays.copyOf(ids, ids.length + 1);
+            grown[ids.length] = id;
+            entries.put(key, grown);
+        }
+    }
+
+    /**
+     * Groups the ids by key first, so each bucket is replaced once per batch rather than once per row.
+     */
+    @Override
+    public void addAll(long[] ids, List<? extends Map<String, Object>> rows) {
+        Map<Long, List<Long>> grouped = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            Long key = keyOf(rows.get(i));
+            if (key != null) {
+                grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(ids[i]);
+            }
+        }
+        grouped.forEach((key, added) -> {
+            long[] existing = entries.getOrDefault(key, new long[0]);
+            long[] merged = Arrays.copyOf(existing, existing.length + added.size());
+            int n = existing.length;
+            for (long id : added) {
+                merged[n++] = id;
+            }
+            entries.put(key, merged);
+        });
+    }
+
+    @Override
+    public void remove(long id, Map<String, Object> row) {
+        Long key = keyOf(row);
+        if (key == null) {
+            return;
+        }
+        long[] ids = entries.get(key);
+        int at = ids == null ? -1 : indexOf(ids, id);
+        if (at < 0) {
+            return;
+        }
+        if (ids.length == 1) {
+            entries.remove(key);
+            return;
+        }
+        long[] shrunk = new long[ids.length - 1];
+        System.arraycopy(ids, 0, shrunk, 0, at);
+        System.arraycopy(ids, at + 1, shrunk, at, ids.length - at - 1);
+        entries.put(key, shrunk);
+    }
+
+    @Override
+    public Collection<Long> candidates(Map<String, Object> equalities, Map<String, KeyRange> ranges, int limit) {
+        KeyRange range = ranges.get(column);
+        if (range == null) {
+            return null;
+        }
+        if (range.isEmpty()) {
+            return List.of();
+        }
+        // a row whose key changed can sit in two buckets until its old version is collected;
+        // the table de-duplicates
+        List<Long> ids = new ArrayList<>();
+        for (long[] bucket : slice(range).values()) {
+            for (long id : bucket) {
+                ids.add(id);
+            }
+            if (ids.size() > limit) {
+                return null;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Buckets in ascending or descending key order. Like candidates, a bucket may still list rows
+     * whose visible version holds another key.
+     */
+    Iterable<Map.Entry<Long, long[]>> buckets(boolean descending) {
+        return (descending ? entries.descendingMap() : entries).entrySet();
+    }
+
+    private NavigableMap<Long, long[]> slice(KeyRange range) {
+        NavigableMap<Long, long[]> view = entries;
+        if (range.lower() != null) {
+            view = view.tailMap(range.lower(), range.lowerInclusive());
+        }
+        if (range.upper() != null) {
+            view = view.headMap(range.upper(), range.upperInclusive());
+        }
+        return view;
+    }
+
+    private static int indexOf(long[] ids, long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Long keyOf(Map<String, Object> row) {
+        Object value = row.get(column);
+        return value instanceof Number n ? n.longValue() : null;
+    }
+}
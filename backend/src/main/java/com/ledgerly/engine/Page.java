@@ -0,0 +1,41 @@
+package com.ledgerly.engine;
+
+/**
+ * Window over the rows a query matches, in row order: rows up to and including the {@code after}
+ * cursor are passed over, then {@code offset} matches are skipped and at most {@code limit}
+ * returned. A null limit or cursor is unbounded.
+ */
+public class Page {
+    public static final Page ALL = new Page(0, null, null);
+
+    private final int offset;
+    private final Integer limit;
+    private final Long after;
+
+    public Page(int offset, Integer limit, Long after) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.offset = offset;
+        this.limit = limit;
+        this.after = after;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    /**
+     * Cursor returned with the previous page: the row id the scan resumes after.
+     */
+    public Long getAfter() {
+        return after;
+    }
+}
@@ -0,0 +1,132 @@
+package com.ledgerly.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Secondary index holding only the rows that satisfy its definition's filter. Rows outside the
+ * filter are never added, so the index stays as small as the subset it serves. A lookup is only
+ * answered when the query's own conditions imply the filter; otherwise matching rows may be
+ * missing from it and the planner falls back to other indexes or a scan.
+ */
+final class PartialIndex implements SecondaryIndex {
+    private final SecondaryIndex inner;
+    // filter values coerced to their column types, so they compare with stored values directly
+    private final List<Condition> filter;
+
+    PartialIndex(SecondaryIndex inner, List<Condition> filter) {
+        this.inner = inner;
+        this.filter = filter;
+    }
+
+    @Override
+    public IndexDefinition definition() {
+        return inner.definition();
+    }
+
+    @Override
+    public boolean isPointLookup() {
+        return inner.isPointLookup();
+    }
+
+    @Override
+    public boolean covers(Map<String, Object> row) {
+        for (Condition condition : filter) {
+            if (!test(condition, row.get(condition.getColumn()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void add(long id, Map<String, Object> row) {
+        if (covers(row)) {
+            inner.add(id, row);
+        }
+    }
+
+    @Override
+    public void addAll(long[] ids, List<? extends Map<String, Object>> rows) {
+        long[] kept = new long[ids.length];
+        List<Map<String, Object>> keptRows = new ArrayList<>(rows.size());
+        for (int i = 0; i < ids.length; i++) {
+            if (covers(rows.get(i))) {
+                kept[keptRows.size()] = ids[i];
+                keptRows.add(rows.get(i));
+            }
+        }
+        if (!keptRows.isEmpty()) {
+            inner.addAll(Arrays.copyOf(kept, keptRows.size()), keptRows);
+        }
+    }
+
+    @Override
+    public void remove(long id, Map<String, Object> row) {
+        inner.remove(id, row);
+    }
+
+    @Override
+    public Collection<Long> candidates(Map<String, Object> equalities, Map<String, KeyRange> ranges, int limit) {
+        for (Condition condition : filter) {
+            if (!implied(condition, equalities.get(condition.getColumn()), ranges.get(condition.getColumn()))) {
+                return null;
+            }
+        }
+        return inner.candidates(equalities, ranges, limit);
+    }
+
+    /**
+     * Whether every row satisfying an equality {@code bound} or {@code range} on the condition's
+     * column also satisfies the condition.
+     */
+    private static boolean implied(Condition condition, Object bound, KeyRange range) {
+        if (bound != null) {
+            return test(condition, bound);
+        }
+        if (range == null) {
+            return false;
+        }
+        if (range.isEmpty()) {
+            return true;
+        }
+        if (!(condition.getValue() instanceof Long v)) {
+            return condition.getOperator() == ConditionOperator.IS_NOT_NULL;
+        }
+        Long lower = range.lower();
+        Long upper = range.upper();
+        return switch (condition.getOperator()) {
+            case GT -> lower != null && (lower > v || (lower == v.longValue() && !range.lowerInclusive()));
+            case GTE -> lower != null && lower >= v;
+            case LT -> upper != null && (upper < v || (upper == v.longValue() && !range.upperInclusive()));
+            case LTE -> upper != null && upper <= v;
+            case NEQ -> (lower != null && (lower > v || (lower == v.longValue() && !range.lowerInclusive())))
+                    || (upper != null && (upper < v || (upper == v.longValue() && !range.upperInclusive())));
+            default -> false;
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean test(Condition condition, Object value) {
+        ConditionOperator op = condition.getOperator();
+        if (op == ConditionOperator.IS_NOT_NULL) {
+            return value != null;
+        }
+        if (value == null) {
+            return false;
+        }
+        int cmp = ((Comparable) value).compareTo(condition.getValue());
+        return switch (op) {
+            case EQ -> cmp == 0;
+            case NEQ -> cmp != 0;
+            case LT -> cmp < 0;
+            case LTE -> cmp <= 0;
+            case GT -> cmp > 0;
+            case GTE -> cmp >= 0;
+            default -> false;
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package com.ledgerly.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * An ORDER BY bound to one table's column store, comparing row versions by their storage slots:
+ * {@code long} comparisons for INT/TIMESTAMP columns, precomputed ranks of the codes for
+ * dictionary-encoded STRING columns and {@code String} comparisons otherwise. Nulls sort first in
+ * ascending and last in descending order; rows that tie on every key keep their row order.
+ */
+final class RowOrdering {
+    private final SlotComparator[] keys;
+    private final List<OrderBy> orderBy;
+    private final Comparator<RowVersion> comparator;
+
+    @FunctionalInterface
+    private interface SlotComparator {
+        int compare(int a, int b);
+    }
+
+    private RowOrdering(SlotComparator[] keys, List<OrderBy> orderBy) {
+        this.keys = keys;
+        this.orderBy = orderBy;
+        this.comparator = (a, b) -> {
+            for (SlotComparator key : this.keys) {
+                int c = key.compare(a.slot, b.slot);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return Long.compare(a.rowId, b.rowId);
+        };
+    }
+
+    /**
+     * Binds {@code orderBy} to {@code store}, rejecting unknown columns. Must be called with a read
+     * view open, so that the captured vectors and dictionary ranks cover every slot the view can see.
+     */
+    static RowOrdering compile(List<OrderBy> orderBy, ColumnStore store) {
+        SlotComparator[] keys = new SlotComparator[orderBy.size()];
+        for (int i = 0; i < keys.length; i++) {
+            OrderBy key = orderBy.get(i);
+            int ordinal = store.ordinal(key.getColumn());
+            if (ordinal < 0) {
+                throw new IllegalArgumentException("Unknown column: " + key.getColumn());
+            }
+            SlotComparator ascending = ascending(store.vector(ordinal));
+            keys[i] = key.getDirection() == SortDirection.DESC ? (a, b) -> ascending.compare(b, a) : ascending;
+        }
+        return new RowOrdering(keys, List.copyOf(orderBy));
+    }
+
+    Comparator<RowVersion> comparator() {
+        return comparator;
+    }
+
+    /**
+     * The first sort key, or null when there is none and rows stay in row order.
+     */
+    OrderBy leadingKey() {
+        return orderBy.isEmpty() ? null : orderBy.get(0);
+    }
+
+    /**
+     * Collector of the first {@code k} versions in this order; unbounded when {@code k} is null.
+     */
+    TopK topK(Integer k) {
+        return new TopK(k);
+    }
+
+    /**
+     * Keeps the best {@code k} versions offered so far in a heap whose root is the worst of them,
+     * so a scan of n rows costs O(n log k) and holds k versions instead of sorting all n.
+     */
+    final class TopK {
+        private final Integer k;
+        private final PriorityQueue<RowVersion> heap;
+        private final List<RowVersion> all;
+
+        private TopK(Integer k) {
+            this.k = k;
+            this.heap = k == null ? null : new PriorityQueue<>(Math.min(k, 1024) + 1, comparator.reversed());
+            this.all = k == null ? new ArrayList<>() : null;
+        }
+
+        void offer(RowVersion version) {
+            if (heap == null) {
+                all.add(version);
+            } else if (heap.size() < k) {
+                heap.add(version);
+            } else if (comparator.compare(version, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(version);
+            }
+        }
+
+        void addAll(TopK other) {
+            for (RowVersion version : other.heap == null ? other.all : other.heap) {
+                offer(version);
+            }
+        }
+
+        List<RowVersion> sorted() {
+            List<RowVersion> out = heap == null ? all : new ArrayList<>(heap);
+            out.sort(comparator);
+            return out;
+        }
+    }
+
+    private static SlotComparator ascending(ColumnStore.Vector vector) {
+        if (vector instanceof ColumnStore.LongVector longs) {
+            return (a, b) -> {
+                boolean nullA = longs.isNull(a);
+                boolean nullB = longs.isNull(b);
+                if (nullA || nullB) {
+                    return nullA == nullB ? 0 : nullA ? -1 : 1;
+                }
+                return Long.compare(longs.longAt(a), longs.longAt(b));
+            };
+        }
+        if (vector instanceof ColumnStore.Dictionary dictionary) {
+            int[] rank = ranks(dictionary);
+            return (a, b) -> {
+                int codeA = dictionary.codeAt(a);
+                int codeB = dictionary.codeAt(b);
+                // NULL_CODE is -1, below every rank
+                return Integer.compare(codeA < 0 ? -1 : rank[codeA], codeB < 0 ? -1 : rank[codeB]);
+            };
+        }
+        return (a, b) -> {
+            String valueA = (String) vector.get(a);
+            String valueB = (String) vector.get(b);
+            if (valueA == null || valueB == null) {
+                return valueA == valueB ? 0 : valueA == null ? -1 : 1;
+            }
+            return valueA.compareTo(valueB);
+        };
+    }
+
+    // position of each code's value in sorted order, so codes compare like their strings
+    private static int[] ranks(ColumnStore.Dictionary dictionary) {
+        int size = dictionary.size();
+        Integer[] codes = new Integer[size];
+        for (int code = 0; code < size; code++) {
+            codes[code] = code;
+        }
+        Arrays.sort(codes, Comparator.comparing(dictionary::value));
+        int[] rank = new int[size];
+        for (int i = 0; i < size; i++) {
+            rank[codes[i]] = i;
+        }
+        return rank;
+    }
+}
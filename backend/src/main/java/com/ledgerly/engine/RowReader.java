@@ -0,0 +1,181 @@
+package com.ledgerly.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rows of a bulk import one at a time without holding the input in memory. Values come
+ * back raw, as CSV text or decoded JSON, and are coerced by the table like those of any insert.
+ */
+abstract class RowReader {
+    protected final BufferedReader in;
+    protected long line;
+
+    private RowReader(Reader in) {
+        this.in = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in, 1 << 16);
+    }
+
+    static RowReader open(ImportFormat format, Reader in) {
+        return switch (format) {
+            case CSV -> new Csv(in);
+            case NDJSON -> new Ndjson(in);
+        };
+    }
+
+    /**
+     * The next row, or null at the end of the input.
+     */
+    abstract Map<String, Object> next() throws IOException;
+
+    protected IllegalArgumentException malformed(String message) {
+        return new IllegalArgumentException("Line " + line + ": " + message);
+    }
+
+    private static final class Csv extends RowReader {
+        // read in chunks: a BufferedReader takes a lock on every single-character read
+        private final char[] buffer = new char[1 << 16];
+        private int position;
+        private int limit;
+        private List<String> header;
+
+        Csv(Reader in) {
+            super(in);
+        }
+
+        @Override
+        Map<String, Object> next() throws IOException {
+            if (header == null) {
+                List<String> names = record();
+                if (names == null) {
+                    return null;
+                }
+                header = names.stream().map(name -> name == null ? "" : name.trim()).toList();
+            }
+            List<String> fields = record();
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() != header.size()) {
+                throw malformed("expected " + header.size() + " fields but found " + fields.size());
+            }
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                row.put(header.get(i), fields.get(i));
+            }
+            return row;
+        }
+
+        /**
+         * Fields of the next non-blank record as in RFC 4180: quoted fields may hold commas, line
+         * breaks and doubled quotes. An empty unquoted field is null, an empty quoted one "".
+         */
+        private List<String> record() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            line++;
+            int c = read();
+            while (c == '\n' || c == '\r') {
+                line += c == '\n' ? 1 : 0;
+                c = read();
+            }
+            if (c == -1) {
+                return null;
+            }
+            while (true) {
+                if (c == '"' && field.isEmpty() && !quoted) {
+                    quoted = true;
+                    c = readQuoted(field);
+                    if (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                        throw malformed("unexpected character after closing quote");
+                    }
+                    continue;
+                }
+                if (c == ',' || c == '\n' || c == -1) {
+                    fields.add(!quoted && field.isEmpty() ? null : field.toString());
+                    if (c != ',') {
+                        return fields;
+                    }
+                    field.setLength(0);
+                    quoted = false;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        // reads up to the closing quote and returns the character after it
+        private int readQuoted(StringBuilder field) throws IOException {
+            long opened = line;
+            while (true) {
+                int c = read();
+                if (c == -1) {
+                    // point at the line the field opened on, not the end of the input
+                    line = opened;
+                    throw malformed("unterminated quoted field");
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next != '"') {
+                        return next;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            }
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+
+    private static final class Ndjson extends RowReader {
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+
+        Ndjson(Reader in) {
+            super(in);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Map<String, Object> next() throws IOException {
+            String text;
+            do {
+                text = in.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            Object value;
+            try {
+                value = MAPPER.readValue(text, Object.class);
+            } catch (JsonProcessingException ex) {
+                throw malformed("invalid JSON: " + ex.getOriginalMessage());
+            }
+            if (!(value instanceof Map)) {
+                throw malformed("expected a JSON object");
+            }
+            return (Map<String, Object>) value;
+        }
+    }
+}
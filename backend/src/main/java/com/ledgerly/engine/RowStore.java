@@ -0,0 +1,115 @@
+package com.ledgerly.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Newest row version per row id, held in fixed-size pages addressed by id. Ids are handed out in
+ * insertion order, so walking the pages yields rows in row order, and a lookup is two array reads.
+ * There is a single writer (the table lock holder); readers never block.
+ */
+final class RowStore {
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private volatile AtomicReferenceArray<RowVersion>[] pages = newDirectory(0);
+    private volatile int usedPages;
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<RowVersion>[] newDirectory(int length) {
+        return (AtomicReferenceArray<RowVersion>[]) new AtomicReferenceArray<?>[length];
+    }
+
+    RowVersion get(long id) {
+        AtomicReferenceArray<RowVersion>[] current = pages;
+        int page = (int) (id >>> PAGE_BITS);
+        if (id < 0 || page >= current.length || current[page] == null) {
+            return null;
+        }
+        return current[page].get((int) (id & (PAGE_SIZE - 1)));
+    }
+
+    void put(long id, RowVersion version) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Row id must not be negative: " + id);
+        }
+        int page = (int) (id >>> PAGE_BITS);
+        AtomicReferenceArray<RowVersion>[] current = pages;
+        if (page >= current.length) {
+            current = Arrays.copyOf(current, Math.max(page + 1, current.length * 2));
+        }
+        if (current[page] == null) {
+            current[page] = new AtomicReferenceArray<>(PAGE_SIZE);
+        }
+        current[page].set((int) (id & (PAGE_SIZE - 1)), version);
+        // publish a grown directory or new page
+        pages = current;
+        if (page >= usedPages) {
+            usedPages = page + 1;
+        }
+    }
+
+    /**
+     * Clears the slot if it still holds {@code expected}.
+     */
+    void remove(long id, RowVersion expected) {
+        AtomicReferenceArray<RowVersion>[] current = pages;
+        int page = (int) (id >>> PAGE_BITS);
+        if (page < current.length && current[page] != null) {
+            current[page].compareAndSet((int) (id & (PAGE_SIZE - 1)), expected, null);
+        }
+    }
+
+    void forEach(Consumer<RowVersion> action) {
+        forEach(0, Integer.MAX_VALUE, action);
+    }
+
+    /**
+     * Visits the rows with ids above {@code afterId} in row order until {@code action} returns false.
+     */
+    void forEachAfter(long afterId, Predicate<RowVersion> action) {
+        long from = Math.max(afterId + 1, 0);
+        AtomicReferenceArray<RowVersion>[] current = pages;
+        for (int p = (int) (from >>> PAGE_BITS); p < current.length; p++) {
+            AtomicReferenceArray<RowVersion> page = current[p];
+            if (page == null) {
+                continue;
+            }
+            int start = p == (int) (from >>> PAGE_BITS) ? (int) (from & (PAGE_SIZE - 1)) : 0;
+            for (int i = start; i < PAGE_SIZE; i++) {
+                RowVersion version = page.get(i);
+                if (version != null && !action.test(version)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Pages up to the highest one holding a row, for splitting the store into page ranges.
+     */
+    int pageCount() {
+        return usedPages;
+    }
+
+    /**
+     * Like {@link #forEach(Consumer)}, restricted to the rows held in pages {@code [fromPage, toPage)}.
+     */
+    void forEach(int fromPage, int toPage, Consumer<RowVersion> action) {
+        AtomicReferenceArray<RowVersion>[] current = pages;
+        for (int p = fromPage; p < Math.min(toPage, current.length); p++) {
+            AtomicReferenceArray<RowVersion> page = current[p];
+            if (page == null) {
+                continue;
+            }
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                RowVersion version = page.get(i);
+                if (version != null) {
+                    action.accept(version);
+                }
+            }
+        }
+    }
+}
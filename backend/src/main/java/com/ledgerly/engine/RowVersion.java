@@ -0,0 +1,39 @@
+package com.ledgerly.engine;
+
+/**
+ * One committed state of a row, stored in a {@link ColumnStore} slot. Versions form a
+ * newest-first chain through {@code previous}; a version without a slot marks the row as deleted
+ * from {@code commitTs} on.
+ */
+final class RowVersion {
+    static final int DELETED = -1;
+
+    final long rowId;
+    final int slot;
+    final long commitTs;
+    // cut by garbage collection once no reader can reach older versions
+    volatile RowVersion previous;
+
+    RowVersion(long rowId, int slot, long commitTs, RowVersion previous) {
+        this.rowId = rowId;
+        this.slot = slot;
+        this.commitTs = commitTs;
+        this.previous = previous;
+    }
+
+    boolean isDeleted() {
+        return slot == DELETED;
+    }
+
+    /**
+     * The newest version committed at or before {@code ts}, or null if the row did not exist yet.
+     */
+    RowVersion visibleAt(long ts) {
+        for (RowVersion v = this; v != null; v = v.previous) {
+            if (v.commitTs <= ts) {
+                return v;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.ledgerly.engine;
+
+/**
+ * How a query walks a table when no index can answer its filters.
+ */
+public enum ScanMode {
+    // parallel once the table reaches the engine's parallel scan threshold and more than one core is available
+    AUTO,
+    SEQUENTIAL,
+    // row ranges scanned on the common fork-join pool regardless of table size
+    PARALLEL
+}
@@ -0,0 +1,58 @@
+package com.ledgerly.engine;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+interface SecondaryIndex {
+
+    IndexDefinition definition();
+
+    default List<String> columns() {
+        return definition().getColumns();
+    }
+
+    /**
+     * Whether {@code row} belongs in this index; false only for rows outside a partial index's filter.
+     */
+    default boolean covers(Map<String, Object> row) {
+        return true;
+    }
+
+    void add(long id, Map<String, Object> row);
+
+    /**
+     * Adds the rows of one bulk insert, {@code rows.get(i)} under {@code ids[i]}. The ids are new
+     * to the index, so implementations need not check for them already being present.
+     */
+    default void addAll(long[] ids, List<? extends Map<String, Object>> rows) {
+        for (int i = 0; i < ids.length; i++) {
+            add(ids[i], rows.get(i));
+        }
+    }
+
+    void remove(long id, Map<String, Object> row);
+
+    /**
+     * Whether candidate lookups cost O(1) regardless of how many ids they return.
+     */
+    boolean isPointLookup();
+
+    /**
+     * Returns the ids of rows that may satisfy the given equality bindings and column ranges,
+     * or null when this index cannot serve them or would yield more than {@code limit} ids.
+     */
+    Collection<Long> candidates(Map<String, Object> equalities, Map<String, KeyRange> ranges, int limit);
+
+    /**
+     * Creates the index for {@code definition}, restricted to rows matching {@code filter} unless it is empty.
+     * Filter values must already be coerced to their column types.
+     */
+    static SecondaryIndex create(IndexDefinition definition, List<Condition> filter) {
+        SecondaryIndex index = switch (definition.getType()) {
+            case HASH -> new HashIndex(definition);
+            case ORDERED -> new OrderedIndex(definition);
+        };
+        return filter.isEmpty() ? index : new PartialIndex(index, filter);
+    }
+}
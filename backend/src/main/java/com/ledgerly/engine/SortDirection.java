@@ -0,0 +1,8 @@
+package com.ledgerly.engine;
+
+public enum SortDirection {
+    // nulls first
+    ASC,
+    // nulls last
+    DESC
+}
@@ -0,0 +1,86 @@
+package com.ledgerly.engine;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Read-only map view of one stored row version, in column order. Only valid while the snapshot
+ * that found it is open; anything handed out beyond that is copied with {@link #copy()}.
+ */
+final class StoredRow extends AbstractMap<String, Object> {
+    private final ColumnStore store;
+    private final int slot;
+
+    StoredRow(ColumnStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int ordinal = key instanceof String column ? store.ordinal(column) : -1;
+        return ordinal < 0 ? null : store.value(slot, ordinal);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String column && store.ordinal(column) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return store.width();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        for (int i = 0; i < store.width(); i++) {
+            action.accept(store.name(i), store.value(slot, i));
+        }
+    }
+
+    Map<String, Object> copy() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (int i = 0; i < store.width(); i++) {
+            out.put(store.name(i), store.value(slot, i));
+        }
+        return out;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < store.width();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (next >= store.width()) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = next++;
+                        return new SimpleImmutableEntry<>(store.name(i), store.value(slot, i));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return store.width();
+            }
+        };
+    }
+}
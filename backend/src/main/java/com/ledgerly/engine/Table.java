@@ -1,28 +1,102 @@
 package com.ledgerly.engine;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
+/**
+ * Multi-version table. Writers are serialized by the table lock and stamp every version they
+ * create with the next commit timestamp, which becomes visible to readers only once the whole
+ * statement has been applied. Readers pin the latest commit timestamp in a {@link ReadView} and
+ * never lock: superseded row versions and the index entries pointing at them are kept until no
+ * open view can see them.
+ */
 public class Table {
     private final TableSchema schema;
     private final AtomicLong idSeq = new AtomicLong(1);
-    private final Map<Long, RowRecord> rows = new LinkedHashMap<>();
+    private final RowStore rows = new RowStore();
+    private final ColumnStore store;
     private final Map<String, Map<List<Object>, Long>> uniqueIndexes = new HashMap<>();
+    private volatile Map<String, LiveIndex> secondaryIndexes = Map.of();
+    private volatile Map<String, MaterializedView> views = Map.of();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int parallelScanThreshold;
+
+    private volatile long committedTs;
+    private volatile int liveRows;
+    // a unique key was re-pointed at another row; older views can no longer trust unique lookups
+    private volatile long uniqueReassignedTs;
+    // open views by snapshot timestamp -> count, guarded by itself
+    private final TreeMap<Long, Integer> openViews = new TreeMap<>();
+    // superseded versions in commit order, guarded by lock
+    private final Deque<Garbage> garbage = new ArrayDeque<>();
+    // open transaction whose statements are applied but not yet committed, guarded by lock
+    private Staging staging;
+
+    private record LiveIndex(SecondaryIndex index, long createdTs) {}
+
+    private record Garbage(long ts, long rowId, RowVersion superseded) {}
+
+    private record UniqueUndo(String indexName, List<Object> key, long id, Long previous) {}
+
+    /**
+     * State of the table before a transaction, and the unique index changes it made since.
+     */
+    private static final class Staging {
+        final long ts;
+        final long idSeq;
+        final int liveRows;
+        final long uniqueReassignedTs;
+        final Deque<UniqueUndo> uniqueUndo = new ArrayDeque<>();
+
+        Staging(long ts, long idSeq, int liveRows, long uniqueReassignedTs) {
+            this.ts = ts;
+            this.idSeq = idSeq;
+            this.liveRows = liveRows;
+            this.uniqueReassignedTs = uniqueReassignedTs;
+        }
+    }
 
     public Table(TableSchema schema) {
+        this(schema, 0);
+    }
+
+    /**
+     * @param parallelScanThreshold live row count from which {@link ScanMode#AUTO} scans run in
+     *                              parallel; 0 or less keeps them sequential
+     */
+    public Table(TableSchema schema, int parallelScanThreshold) {
         this.schema = Objects.requireNonNull(schema, "schema");
+        this.store = new ColumnStore(schema);
+        this.parallelScanThreshold = parallelScanThreshold;
         // create index for primary key
-        uniqueIndexes.put("pk", new HashMap<>());
+        uniqueIndexes.put("pk", new ConcurrentHashMap<>());
         // unique constraints indexes
         int idx = 0;
         for (List<String> uniqueCols : schema.getUniqueConstraints()) {
-            uniqueIndexes.put("u" + idx++, new HashMap<>());
+            uniqueIndexes.put("u" + idx++, new ConcurrentHashMap<>());
         }
     }
 
@@ -30,8 +104,287 @@ public class Table {
         return schema;
     }
 
-    public synchronized void insert(Map<String, Object> values) {
-        Map<String, Object> coerced = coerceAndValidate(values, true);
+    /**
+     * Held by the engine around a mutation and its WAL append so that log order matches apply order.
+     */
+    Lock writeLock() {
+        return lock;
+    }
+
+    /**
+     * Pins the latest committed state of the table until the view is closed.
+     */
+    ReadView openView() {
+        return new ReadView();
+    }
+
+    /**
+     * Starts a transaction on this table. Until {@link #commitStaged()} or {@link #rollbackStaged()}
+     * every statement stamps its versions with the same commit timestamp without publishing it, so
+     * readers keep seeing the table as it was before the transaction. Called with the lock held,
+     * which the caller keeps until the transaction ends.
+     */
+    void beginStaging() {
+        if (staging != null) {
+            throw new IllegalStateException("Table " + schema.getName() + " is already in a transaction");
+        }
+        staging = new Staging(committedTs + 1, idSeq.get(), liveRows, uniqueReassignedTs);
+    }
+
+    boolean isStaging() {
+        return staging != null;
+    }
+
+    /**
+     * Reads as of the open transaction, its own statements included. Only for the thread running it.
+     */
+    ReadView stagedView() {
+        return new ReadView(requireStaging().ts);
+    }
+
+    /**
+     * Publishes every statement of the transaction at once.
+     */
+    void commitStaged() {
+        Staging s = requireStaging();
+        staging = null;
+        commit(s.ts);
+    }
+
+    /**
+     * Drops every version, index entry and view change the transaction staged, and restores the
+     * row id sequence, so the table is exactly as it was when {@link #beginStaging()} was called.
+     */
+    void rollbackStaged() {
+        Staging s = requireStaging();
+        staging = null;
+        views.values().forEach(MaterializedView::discard);
+        Set<Long> touched = new HashSet<>();
+        while (!garbage.isEmpty() && garbage.peekLast().ts() == s.ts) {
+            touched.add(garbage.pollLast().rowId());
+        }
+        for (long id = s.idSeq; id < idSeq.get(); id++) {
+            touched.add(id);
+        }
+        for (long id : touched) {
+            RowVersion head = rows.get(id);
+            RowVersion kept = head;
+            while (kept != null && kept.commitTs == s.ts) {
+                kept = kept.previous;
+            }
+            if (kept == null) {
+                rows.remove(id, head);
+            } else {
+                rows.put(id, kept);
+            }
+            for (RowVersion v = head; v != kept; v = v.previous) {
+                if (!v.isDeleted()) {
+                    StoredRow staged = new StoredRow(store, v.slot);
+                    for (LiveIndex live : secondaryIndexes.values()) {
+                        SecondaryIndex index = live.index();
+                        if (index.covers(staged) && !holdsKey(kept, index, staged)) {
+                            index.remove(id, staged);
+                        }
+                    }
+                    store.free(v.slot);
+                }
+            }
+        }
+        while (!s.uniqueUndo.isEmpty()) {
+            UniqueUndo undo = s.uniqueUndo.pollLast();
+            Map<List<Object>, Long> index = uniqueIndexes.get(undo.indexName());
+            if (undo.previous() == null) {
+                index.remove(undo.key(), undo.id());
+            } else {
+                index.put(undo.key(), undo.previous());
+            }
+        }
+        idSeq.set(s.idSeq);
+        liveRows = s.liveRows;
+        uniqueReassignedTs = s.uniqueReassignedTs;
+    }
+
+    private Staging requireStaging() {
+        if (staging == null) {
+            throw new IllegalStateException("Table " + schema.getName() + " is not in a transaction");
+        }
+        return staging;
+    }
+
+    private void requireNotStaging() {
+        if (staging != null) {
+            throw new IllegalStateException("Table " + schema.getName() + " has a transaction in progress");
+        }
+    }
+
+    public void createIndex(IndexDefinition definition) {
+        lock.lock();
+        try {
+            requireNotStaging();
+            if (secondaryIndexes.containsKey(definition.getName())) {
+                throw new IllegalArgumentException("Index already exists: " + definition.getName());
+            }
+            for (String col : definition.getColumns()) {
+                ColumnDefinition colDef = schema.getColumns().get(col);
+                if (colDef == null) {
+                    throw new IllegalArgumentException("Index references missing column: " + col);
+                }
+                if (definition.getType() == IndexType.ORDERED && colDef.getType() == DataType.STRING) {
+                    throw new IllegalArgumentException("Ordered index requires an INT or TIMESTAMP column: " + col);
+                }
+            }
+            List<Condition> filter = new ArrayList<>(definition.getWhere().size());
+            for (Condition condition : definition.getWhere()) {
+                ColumnDefinition colDef = schema.getColumns().get(condition.getColumn());
+                if (colDef == null) {
+                    throw new IllegalArgumentException("Index filter references missing column: " + condition.getColumn());
+                }
+                if (condition.getOperator() == ConditionOperator.IS_NULL) {
+                    throw new IllegalArgumentException("Partial index filters cannot use IS_NULL");
+                }
+                if (condition.getOperator() == ConditionOperator.IS_NOT_NULL) {
+                    filter.add(condition);
+                    continue;
+                }
+                if (condition.getValue() == null) {
+                    throw new IllegalArgumentException("Cannot compare null values");
+                }
+                filter.add(new Condition(condition.getColumn(), condition.getOperator(),
+                        colDef.getType().coerce(condition.getValue())));
+            }
+            SecondaryIndex index = SecondaryIndex.create(definition, filter);
+            rows.forEach(head -> {
+                if (!head.isDeleted()) {
+                    index.add(head.rowId, new StoredRow(store, head.slot));
+                }
+            });
+            // views older than this commit may see versions the index was never told about
+            long ts = committedTs + 1;
+            Map<String, LiveIndex> copy = new LinkedHashMap<>(secondaryIndexes);
+            copy.put(definition.getName(), new LiveIndex(index, ts));
+            secondaryIndexes = Collections.unmodifiableMap(copy);
+            committedTs = ts;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Declares a materialized view and builds it from the current rows. From then on every
+     * statement updates it as part of its commit.
+     */
+    public void createView(MaterializedViewDefinition definition) {
+        lock.lock();
+        try {
+            requireNotStaging();
+            if (views.containsKey(definition.getName())) {
+                throw new IllegalArgumentException("View already exists: " + definition.getName());
+            }
+            MaterializedView view = new MaterializedView(definition, store);
+            try {
+                rows.forEach(head -> {
+                    if (!head.isDeleted()) {
+                        view.stage(null, store.read(head.slot));
+                    }
+                });
+            } catch (RuntimeException ex) {
+                view.discard();
+                throw ex;
+            }
+            long ts = committedTs + 1;
+            view.publish(ts);
+            Map<String, MaterializedView> copy = new LinkedHashMap<>(views);
+            copy.put(definition.getName(), view);
+            views = Collections.unmodifiableMap(copy);
+            committedTs = ts;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<MaterializedViewDefinition> views() {
+        return views.values().stream()
+                .map(MaterializedView::definition)
+                .toList();
+    }
+
+    public List<IndexDefinition> indexes() {
+        return secondaryIndexes.values().stream()
+                .map(live -> live.index().definition())
+                .toList();
+    }
+
+    public void insert(Map<String, Object> values) {
+        lock.lock();
+        try {
+            long ts = committedTs + 1;
+            Object[] row = checkNewRow(coerceAndValidate(values, true));
+            // the id is taken only once the row is accepted, so replay hands out the same ids
+            addRow(idSeq.getAndIncrement(), row, ts);
+            statementDone(ts);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Re-creates a row from a checkpoint snapshot under its original id.
+     */
+    void restoreRow(long id, Map<String, Object> values) {
+        lock.lock();
+        try {
+            requireNotStaging();
+            long ts = committedTs + 1;
+            addRow(id, checkNewRow(coerceAndValidate(values, true)), ts);
+            if (id >= idSeq.get()) {
+                idSeq.set(id + 1);
+            }
+            commit(ts);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long nextRowId() {
+        return idSeq.get();
+    }
+
+    /**
+     * Superseded versions still kept for open views, waiting for garbage collection.
+     */
+    int retainedVersions() {
+        lock.lock();
+        try {
+            return garbage.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Length of row {@code id}'s version chain, deletion markers included; 0 once the row is gone.
+     */
+    int versionCount(long id) {
+        int count = 0;
+        for (RowVersion v = rows.get(id); v != null; v = v.previous) {
+            count++;
+        }
+        return count;
+    }
+
+    void restoreNextRowId(long nextRowId) {
+        lock.lock();
+        try {
+            idSeq.set(Math.max(idSeq.get(), nextRowId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks the unique keys of a new row and stages it in the views; everything that can reject it.
+     */
+    private Object[] checkNewRow(Map<String, Object> coerced) {
         List<Object> pkKey = buildKey(schema.getPrimaryKey(), coerced);
         ensureUnique("pk", schema.getPrimaryKey(), pkKey, null);
 
@@ -42,91 +395,744 @@ public class Table {
             uIndex++;
         }
 
-        long id = idSeq.getAndIncrement();
-        RowRecord record = new RowRecord(id, coerced);
-        rows.put(id, record);
-        uniqueIndexes.get("pk").put(pkKey, id);
+        Object[] row = store.toArray(coerced);
+        stageViews(null, row);
+        return row;
+    }
+
+    private void addRow(long id, Object[] row, long ts) {
+        StoredRow stored = putNewRow(id, row, ts);
+        for (LiveIndex live : secondaryIndexes.values()) {
+            live.index().add(id, stored);
+        }
+    }
+
+    /**
+     * Inserts {@code batch} as one statement: every row is coerced and checked, unique keys also
+     * against each other, before any is added, and all of them become visible in a single commit.
+     */
+    public void insertAll(List<Map<String, Object>> batch) {
+        insertAll(batch, 0);
+    }
+
+    /**
+     * Like {@link #insertAll(List)}, numbering rows in errors from {@code firstRow}.
+     */
+    void insertAll(List<Map<String, Object>> batch, long firstRow) {
+        lock.lock();
+        try {
+            List<Object[]> added = new ArrayList<>(batch.size());
+            Map<String, Set<List<Object>>> claimed = new HashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    Object[] row = store.toArray(coerceAndValidate(batch.get(i), true));
+                    checkUnique("pk", schema.getPrimaryKey(), row, null, claimed);
+                    int uIndex = 0;
+                    for (List<String> unique : schema.getUniqueConstraints()) {
+                        checkUnique("u" + uIndex, unique, row, null, claimed);
+                        uIndex++;
+                    }
+                    added.add(row);
+                } catch (IllegalArgumentException ex) {
+                    throw new IllegalArgumentException("Row " + (firstRow + i) + ": " + ex.getMessage(), ex);
+                }
+            }
+            if (!views.isEmpty()) {
+                for (Object[] row : added) {
+                    stageViews(null, row);
+                }
+            }
+            long ts = committedTs + 1;
+            // every row passed its checks, so the batch takes its ids in one block and a rejected batch none
+            long firstId = idSeq.getAndAdd(added.size());
+            long[] ids = new long[added.size()];
+            List<StoredRow> stored = new ArrayList<>(added.size());
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = firstId + i;
+                stored.add(putNewRow(ids[i], added.get(i), ts));
+            }
+            for (LiveIndex live : secondaryIndexes.values()) {
+                live.index().addAll(ids, stored);
+            }
+            statementDone(ts);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private StoredRow putNewRow(long id, Object[] row, long ts) {
+        int slot = store.insert(row);
+        rows.put(id, new RowVersion(id, slot, ts, null));
+        liveRows++;
+        putUnique("pk", buildKey(schema.getPrimaryKey(), row), id, ts);
 
-        uIndex = 0;
+        int uIndex = 0;
         for (List<String> unique : schema.getUniqueConstraints()) {
-            List<Object> key = buildKey(unique, coerced);
-            uniqueIndexes.get("u" + uIndex).put(key, id);
+            putUnique("u" + uIndex, buildKey(unique, row), id, ts);
             uIndex++;
         }
+        return new StoredRow(store, slot);
     }
 
-    public synchronized int update(RowPredicate predicate, Map<String, Object> newValues) {
-        Map<String, Object> coercedUpdates = coerceAndValidate(newValues, false);
-        List<Long> matched = findMatchingIds(predicate);
+    /**
+     * Sets the columns in {@code newValues} on every matching row. Columns left out keep their
+     * value; an explicit null clears a nullable column.
+     */
+    public int update(RowPredicate predicate, Map<String, Object> newValues) {
+        return update(predicate, newValues, null);
+    }
 
-        int count = 0;
-        for (Long id : matched) {
-            RowRecord current = rows.get(id);
-            Map<String, Object> merged = new HashMap<>(current.getValues());
-            merged.putAll(coercedUpdates);
-            validateNullability(merged);
+    /**
+     * Like {@link #update(RowPredicate, Map)}, also handing the full before- and after-image of
+     * each changed row to {@code changes}, when given.
+     */
+    int update(RowPredicate predicate, Map<String, Object> newValues,
+               BiConsumer<Map<String, Object>, Map<String, Object>> changes) {
+        lock.lock();
+        try {
+            Map<String, Object> coercedUpdates = coerceAndValidate(newValues, false);
+            int[] updatedOrdinals = new int[coercedUpdates.size()];
+            Object[] updatedValues = new Object[coercedUpdates.size()];
+            int n = 0;
+            for (Map.Entry<String, Object> entry : coercedUpdates.entrySet()) {
+                updatedOrdinals[n] = store.ordinal(entry.getKey());
+                updatedValues[n++] = entry.getValue();
+            }
+            List<RowVersion> matched = findMatching(predicate);
 
-            List<Object> pkKey = buildKey(schema.getPrimaryKey(), merged);
-            ensureUnique("pk", schema.getPrimaryKey(), pkKey, id);
+            // validate every row before touching any, so a failing statement changes nothing
+            List<Object[]> updated = new ArrayList<>(matched.size());
+            Map<String, Set<List<Object>>> claimed = new HashMap<>();
+            for (RowVersion current : matched) {
+                updated.add(merge(current, updatedOrdinals, updatedValues, claimed));
+            }
+            if (changes != null) {
+                for (int i = 0; i < matched.size(); i++) {
+                    changes.accept(store.toMap(store.read(matched.get(i).slot)), store.toMap(updated.get(i)));
+                }
+            }
+            applyUpdates(matched, updated);
+            return updated.size();
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            int uIndex = 0;
-            for (List<String> unique : schema.getUniqueConstraints()) {
-                List<Object> key = buildKey(unique, merged);
-                ensureUnique("u" + uIndex, unique, key, id);
-                uIndex++;
+    /**
+     * Applies {@code newValues} to the live row with primary key {@code key} only if its columns
+     * currently equal every value in {@code expected}, as one locked step. {@code changes} receives
+     * the before- and after-image when the row is updated.
+     */
+    CompareAndSetResult compareAndSet(Map<String, Object> key, Map<String, Object> expected,
+                                      Map<String, Object> newValues,
+                                      BiConsumer<Map<String, Object>, Map<String, Object>> changes) {
+        lock.lock();
+        try {
+            List<String> pk = schema.getPrimaryKey();
+            if (key.size() != pk.size() || !key.keySet().containsAll(pk)) {
+                throw new IllegalArgumentException("Key must bind primary key columns " + pk);
+            }
+            Map<String, Object> coercedUpdates = coerceAndValidate(newValues, false);
+            Map<String, Object> coercedExpected = new HashMap<>();
+            for (Map.Entry<String, Object> entry : expected.entrySet()) {
+                ColumnDefinition column = schema.getColumns().get(entry.getKey());
+                if (column == null) {
+                    throw new IllegalArgumentException("Unknown column: " + entry.getKey());
+                }
+                coercedExpected.put(entry.getKey(), column.getType().coerce(entry.getValue()));
             }
+            RowVersion current = findByKey(buildKey(pk, key));
+            if (current == null) {
+                return new CompareAndSetResult(false, null);
+            }
+            Object[] row = store.read(current.slot);
+            for (Map.Entry<String, Object> entry : coercedExpected.entrySet()) {
+                if (!Objects.equals(row[store.ordinal(entry.getKey())], entry.getValue())) {
+                    return new CompareAndSetResult(false, store.toMap(row));
+                }
+            }
+            int[] updatedOrdinals = new int[coercedUpdates.size()];
+            Object[] updatedValues = new Object[coercedUpdates.size()];
+            int n = 0;
+            for (Map.Entry<String, Object> entry : coercedUpdates.entrySet()) {
+                updatedOrdinals[n] = store.ordinal(entry.getKey());
+                updatedValues[n++] = entry.getValue();
+            }
+            Object[] merged = merge(current, updatedOrdinals, updatedValues, new HashMap<>());
+            Map<String, Object> after = store.toMap(merged);
+            if (changes != null) {
+                changes.accept(store.toMap(row), after);
+            }
+            applyUpdates(List.of(current), Collections.singletonList(merged));
+            return new CompareAndSetResult(true, after);
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            RowRecord updated = new RowRecord(id, merged);
-            rows.put(id, updated);
-            uniqueIndexes.get("pk").put(pkKey, id);
+    // the latest image of {@code current} with the updated columns replaced, checked against constraints
+    private Object[] merge(RowVersion current, int[] updatedOrdinals, Object[] updatedValues,
+                           Map<String, Set<List<Object>>> claimed) {
+        Object[] merged = store.read(current.slot);
+        for (int i = 0; i < updatedOrdinals.length; i++) {
+            merged[updatedOrdinals[i]] = updatedValues[i];
+        }
+        validateNullability(merged);
+        checkUnique("pk", schema.getPrimaryKey(), merged, current.rowId, claimed);
+        int uIndex = 0;
+        for (List<String> unique : schema.getUniqueConstraints()) {
+            checkUnique("u" + uIndex, unique, merged, current.rowId, claimed);
+            uIndex++;
+        }
+        return merged;
+    }
 
-            uIndex = 0;
-            for (List<String> unique : schema.getUniqueConstraints()) {
-                List<Object> key = buildKey(unique, merged);
-                uniqueIndexes.get("u" + uIndex).put(key, id);
-                uIndex++;
+    /**
+     * Replays logged after-images: each row is found by its primary key before the change and
+     * replaced by its image, without scanning or re-checking constraints the original statement
+     * already enforced.
+     */
+    void updateByKeys(List<List<Object>> keys, List<Map<String, Object>> afterImages) {
+        lock.lock();
+        try {
+            List<RowVersion> matched = new ArrayList<>(keys.size());
+            List<Object[]> updated = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                matched.add(requireByKey(keys.get(i)));
+                updated.add(store.toArray(coerceAndValidate(afterImages.get(i), true)));
             }
-            count++;
+            applyUpdates(matched, updated);
+        } finally {
+            lock.unlock();
         }
-        return count;
     }
 
-    public synchronized int delete(RowPredicate predicate) {
-        List<Long> matched = findMatchingIds(predicate);
-        for (Long id : matched) {
-            RowRecord rec = rows.remove(id);
-            List<Object> pkKey = buildKey(schema.getPrimaryKey(), rec.getValues());
-            uniqueIndexes.get("pk").remove(pkKey);
+    private void applyUpdates(List<RowVersion> matched, List<Object[]> updated) {
+        if (!views.isEmpty()) {
+            for (int i = 0; i < matched.size(); i++) {
+                stageViews(store.read(matched.get(i).slot), updated.get(i));
+            }
+        }
+
+        long ts = committedTs + 1;
+        for (int i = 0; i < updated.size(); i++) {
+            RowVersion current = matched.get(i);
+            Object[] next = updated.get(i);
+            long id = current.rowId;
+            int slot = store.insert(next);
+            rows.put(id, new RowVersion(id, slot, ts, rows.get(id)));
+            putUnique("pk", buildKey(schema.getPrimaryKey(), next), id, ts);
             int uIndex = 0;
             for (List<String> unique : schema.getUniqueConstraints()) {
-                List<Object> key = buildKey(unique, rec.getValues());
-                uniqueIndexes.get("u" + uIndex).remove(key);
+                putUnique("u" + uIndex, buildKey(unique, next), id, ts);
                 uIndex++;
             }
+            // entries for the old values stay until the old version is collected
+            StoredRow stored = new StoredRow(store, slot);
+            for (LiveIndex live : secondaryIndexes.values()) {
+                live.index().add(id, stored);
+            }
+            garbage.add(new Garbage(ts, id, current));
+        }
+        statementDone(ts);
+    }
+
+    public int delete(RowPredicate predicate) {
+        return delete(predicate, null);
+    }
+
+    /**
+     * Like {@link #delete(RowPredicate)}, also handing the full image of each deleted row to
+     * {@code deletedRows}, when given.
+     */
+    int delete(RowPredicate predicate, Consumer<Map<String, Object>> deletedRows) {
+        lock.lock();
+        try {
+            List<RowVersion> matched = findMatching(predicate);
+            if (deletedRows != null) {
+                for (RowVersion current : matched) {
+                    deletedRows.accept(store.toMap(store.read(current.slot)));
+                }
+            }
+            applyDeletes(matched);
+            return matched.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replays logged key tombstones: each row is found by its primary key and deleted.
+     */
+    void deleteByKeys(List<List<Object>> keys) {
+        lock.lock();
+        try {
+            List<RowVersion> matched = new ArrayList<>(keys.size());
+            for (List<Object> key : keys) {
+                matched.add(requireByKey(key));
+            }
+            applyDeletes(matched);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void applyDeletes(List<RowVersion> matched) {
+        if (!views.isEmpty()) {
+            for (RowVersion current : matched) {
+                stageViews(store.read(current.slot), null);
+            }
+        }
+        long ts = committedTs + 1;
+        for (RowVersion current : matched) {
+            rows.put(current.rowId, new RowVersion(current.rowId, RowVersion.DELETED, ts, rows.get(current.rowId)));
+            liveRows--;
+            garbage.add(new Garbage(ts, current.rowId, current));
+        }
+        statementDone(ts);
+    }
+
+    /**
+     * Primary key values of {@code row}, as logged for and accepted by the keyed replay methods.
+     */
+    List<Object> primaryKey(Map<String, Object> row) {
+        return buildKey(schema.getPrimaryKey(), row);
+    }
+
+    private RowVersion requireByKey(List<Object> rawKey) {
+        RowVersion head = findByKey(rawKey);
+        if (head == null) {
+            throw new IllegalStateException("No row with primary key " + rawKey + " in " + schema.getName());
+        }
+        return head;
+    }
+
+    // latest version of the live row with primary key values {@code rawKey}, coerced to the key's types
+    private RowVersion findByKey(List<Object> rawKey) {
+        List<String> pk = schema.getPrimaryKey();
+        List<Object> key = new ArrayList<>(pk.size());
+        for (int i = 0; i < pk.size(); i++) {
+            key.add(schema.getColumns().get(pk.get(i)).getType().coerce(rawKey.get(i)));
+        }
+        Long id = uniqueIndexes.get("pk").get(key);
+        RowVersion head = id == null ? null : rows.get(id);
+        if (head == null || head.isDeleted() || !buildKey(pk, store.read(head.slot)).equals(key)) {
+            return null;
+        }
+        return head;
+    }
+
+    public List<Map<String, Object>> select(List<String> columns, RowPredicate predicate) {
+        return select(columns, predicate, ScanMode.AUTO);
+    }
+
+    public List<Map<String, Object>> select(List<String> columns, RowPredicate predicate, ScanMode mode) {
+        try (ReadView view = openView()) {
+            return view.select(columns, predicate, mode);
+        }
+    }
+
+    public Long select(List<String> columns, RowPredicate predicate, Page page, Consumer<Map<String, Object>> sink) {
+        try (ReadView view = openView()) {
+            return view.select(columns, predicate, page, sink);
         }
-        return matched.size();
     }
 
-    public synchronized List<Map<String, Object>> select(List<String> columns, RowPredicate predicate) {
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (RowRecord record : rows.values()) {
-            if (predicate == null || predicate.test(record.getValues())) {
-                if (columns == null || columns.isEmpty()) {
-                    result.add(Collections.unmodifiableMap(record.getValues()));
+    public void select(List<String> columns, RowPredicate predicate, List<OrderBy> orderBy, Page page, ScanMode mode,
+                       Consumer<Map<String, Object>> sink) {
+        try (ReadView view = openView()) {
+            view.select(columns, predicate, orderBy, page, mode, sink);
+        }
+    }
+
+    public List<Map<String, Object>> aggregate(List<String> groupBy, List<Aggregate> aggregates,
+                                               RowPredicate predicate, ScanMode mode) {
+        try (ReadView view = openView()) {
+            return view.aggregate(groupBy, aggregates, predicate, mode);
+        }
+    }
+
+    public List<Map<String, Object>> queryView(String name, Map<String, Object> filter) {
+        try (ReadView view = openView()) {
+            return view.queryView(name, filter);
+        }
+    }
+
+    /**
+     * Point lookup by primary key through the PK index. The key must bind every primary key column.
+     */
+    public Map<String, Object> getByKey(Map<String, Object> key) {
+        try (ReadView view = openView()) {
+            return view.getByKey(key);
+        }
+    }
+
+    /**
+     * Consistent, lock-free read access to the table as of one commit. Must be closed so that the
+     * versions it pins can be collected.
+     */
+    final class ReadView implements AutoCloseable {
+        private final long ts;
+        private final boolean pinned;
+        private boolean closed;
+
+        private ReadView() {
+            this.ts = pin();
+            this.pinned = true;
+        }
+
+        // nothing staged is collected before the transaction ends, so there is nothing to pin
+        private ReadView(long ts) {
+            this.ts = ts;
+            this.pinned = false;
+        }
+
+        TableSchema getSchema() {
+            return schema;
+        }
+
+        List<Map<String, Object>> select(List<String> columns, RowPredicate predicate, ScanMode mode) {
+            return collect(predicate, ts, mode, (version, row) -> project(columns, row));
+        }
+
+        /**
+         * The ids an index yields for {@code predicate}, in row order, or null when it takes a full scan.
+         */
+        List<Long> candidates(RowPredicate predicate) {
+            return indexedIds(CompiledPredicate.compile(predicate, store), ts);
+        }
+
+        /**
+         * Feeds one page of matching rows to {@code sink} in row order, ending the scan at the first
+         * match past the page. Returns the cursor to resume after, or null when no match follows.
+         */
+        Long select(List<String> columns, RowPredicate predicate, Page page, Consumer<Map<String, Object>> sink) {
+            CompiledPredicate compiled = CompiledPredicate.compile(predicate, store);
+            if (compiled.matchesNothing()) {
+                return null;
+            }
+            PageVisitor visitor = new PageVisitor(columns, page, sink);
+            long after = page.getAfter() == null ? -1 : page.getAfter();
+            scan(compiled, indexedIds(compiled, ts), ts, after, visitor);
+            return visitor.hasMore ? visitor.lastRowId : null;
+        }
+
+        /**
+         * Groups the rows matching {@code predicate} by {@code groupBy} and computes {@code aggregates}
+         * per group in one pass, reading candidates through an index when the filters allow it.
+         * Large full scans follow {@code mode} like selects, each range aggregating on its own.
+         */
+        List<Map<String, Object>> aggregate(List<String> groupBy, List<Aggregate> aggregates, RowPredicate predicate,
+                                            ScanMode mode) {
+            Aggregator aggregator = Aggregator.compile(groupBy, aggregates, store);
+            CompiledPredicate compiled = CompiledPredicate.compile(predicate, store);
+            Aggregator.Groups groups = aggregator.newGroups();
+            if (compiled.matchesNothing()) {
+                return groups.results();
+            }
+            List<Long> ids = indexedIds(compiled, ts);
+            if (ids == null && scansInParallel(mode)) {
+                for (Aggregator.Groups part : parallelScan(compiled, ts, aggregator::newGroups,
+                        (part, v) -> part.add(v.slot))) {
+                    groups.merge(part);
+                }
+            } else {
+                scan(compiled, ids, ts, (version, row) -> groups.add(version.slot));
+            }
+            return groups.results();
+        }
+
+        /**
+         * Groups of materialized view {@code name} as of this view whose grouping values equal
+         * {@code filter}; binding every grouping column makes it a single lookup.
+         */
+        List<Map<String, Object>> queryView(String name, Map<String, Object> filter) {
+            MaterializedView view = views.get(name);
+            if (view == null) {
+                throw new IllegalArgumentException("View not found: " + name);
+            }
+            return view.query(filter == null ? Map.of() : filter, ts);
+        }
+
+        /**
+         * Feeds the matching rows to {@code sink} sorted by {@code orderBy}, skipping the page offset
+         * and stopping at its limit. With a limit only the first offset + limit rows are kept, in a
+         * bounded heap; when the leading sort column has an ordered index and no index serves the
+         * filters, the index is walked in sort order and the scan ends once the page is certain.
+         */
+        void select(List<String> columns, RowPredicate predicate, List<OrderBy> orderBy, Page page, ScanMode mode,
+                    Consumer<Map<String, Object>> sink) {
+            if (page.getAfter() != null) {
+                throw new IllegalArgumentException("A cursor cannot be combined with orderBy; use offset");
+            }
+            RowOrdering ordering = RowOrdering.compile(orderBy, store);
+            CompiledPredicate compiled = CompiledPredicate.compile(predicate, store);
+            if (compiled.matchesNothing()) {
+                return;
+            }
+            Integer k = page.getLimit() == null ? null : (int) Math.min(Integer.MAX_VALUE, (long) page.getOffset() + page.getLimit());
+            List<Long> ids = indexedIds(compiled, ts);
+            List<RowVersion> sorted = ids == null && k != null ? firstByIndex(ordering, compiled, ts, k) : null;
+            if (sorted == null) {
+                RowOrdering.TopK top = ordering.topK(k);
+                if (ids == null && scansInParallel(mode)) {
+                    for (RowOrdering.TopK part : parallelScan(compiled, ts, () -> ordering.topK(k), RowOrdering.TopK::offer)) {
+                        top.addAll(part);
+                    }
                 } else {
-                    Map<String, Object> projected = new LinkedHashMap<>();
-                    for (String col : columns) {
-                        projected.put(col, record.getValues().get(col));
+                    scan(compiled, ids, ts, (version, row) -> top.offer(version));
+                }
+                sorted = top.sorted();
+            }
+            int end = k == null ? sorted.size() : Math.min(sorted.size(), k);
+            for (int i = page.getOffset(); i < end; i++) {
+                sink.accept(project(columns, new StoredRow(store, sorted.get(i).slot)));
+            }
+        }
+
+        Map<String, Object> getByKey(Map<String, Object> key) {
+            List<String> pk = schema.getPrimaryKey();
+            if (key.size() != pk.size() || !key.keySet().containsAll(pk)) {
+                throw new IllegalArgumentException("Key must bind primary key columns " + pk);
+            }
+            Map<String, Object> bound = new HashMap<>();
+            for (String col : pk) {
+                bound.put(col, schema.getColumns().get(col).getType().coerce(key.get(col)));
+            }
+            if (ts >= uniqueReassignedTs) {
+                Long id = uniqueIndexes.get("pk").get(buildKey(pk, bound));
+                RowVersion version = id == null ? null : visible(id, ts);
+                if (version == null) {
+                    return null;
+                }
+                StoredRow row = new StoredRow(store, version.slot);
+                return buildKey(pk, row).equals(buildKey(pk, bound)) ? row.copy() : null;
+            }
+            List<Map<String, Object>> found = new ArrayList<>(1);
+            RowPredicate predicate = new RowPredicate(bound.entrySet().stream()
+                    .map(e -> new Condition(e.getKey(), ConditionOperator.EQ, e.getValue()))
+                    .toList());
+            scan(predicate, ts, (version, row) -> found.add(row.copy()));
+            return found.isEmpty() ? null : found.get(0);
+        }
+
+        /**
+         * Live row count of the table; may run slightly ahead of this view.
+         */
+        int size() {
+            return liveRows;
+        }
+
+        /**
+         * Rows handed to {@code action} read through to storage and must not be used after the view is closed.
+         */
+        void forEachRow(Consumer<RowRecord> action) {
+            rows.forEach(head -> {
+                RowVersion v = head.visibleAt(ts);
+                if (v != null && !v.isDeleted()) {
+                    action.accept(new RowRecord(v.rowId, new StoredRow(store, v.slot)));
+                }
+            });
+        }
+
+        /**
+         * Dictionary of a STRING column as of this view, or null if the column is not dictionary-encoded.
+         */
+        ColumnStore.Dictionary dictionary(String column) {
+            int ordinal = store.ordinal(column);
+            return ordinal < 0 ? null : store.dictionary(ordinal);
+        }
+
+        /**
+         * Like {@link #forEachRow(Consumer)}, also passing each row's code in {@code dictionary}.
+         */
+        void forEachRow(ColumnStore.Dictionary dictionary, ObjIntConsumer<RowRecord> action) {
+            rows.forEach(head -> {
+                RowVersion v = head.visibleAt(ts);
+                if (v != null && !v.isDeleted()) {
+                    action.accept(new RowRecord(v.rowId, new StoredRow(store, v.slot)), dictionary.codeAt(v.slot));
+                }
+            });
+        }
+
+        /**
+         * Whether rows holding a given value in {@code column} can be found without a scan.
+         */
+        boolean hasEqualityIndex(String column) {
+            List<String> key = List.of(column);
+            if (schema.getPrimaryKey().equals(key) || schema.getUniqueConstraints().contains(key)) {
+                return true;
+            }
+            for (LiveIndex live : secondaryIndexes.values()) {
+                // a partial index misses rows outside its filter, so it cannot stand in for a scan
+                if (live.createdTs() <= ts && live.index().isPointLookup() && !(live.index() instanceof PartialIndex)
+                        && live.index().columns().equals(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Rows whose {@code column} equals {@code value}, in row order, resolved through an index when possible.
+         */
+        List<RowRecord> rowsWithValue(String column, Object value) {
+            RowPredicate predicate = new RowPredicate(List.of(new Condition(column, ConditionOperator.EQ, value)));
+            List<RowRecord> out = new ArrayList<>();
+            scan(predicate, ts, (version, row) -> out.add(new RowRecord(version.rowId, row)));
+            return out;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                if (pinned) {
+                    unpin(ts);
+                }
+            }
+        }
+    }
+
+    private long pin() {
+        synchronized (openViews) {
+            long ts = committedTs;
+            openViews.merge(ts, 1, Integer::sum);
+            return ts;
+        }
+    }
+
+    private void unpin(long ts) {
+        boolean idle;
+        synchronized (openViews) {
+            openViews.computeIfPresent(ts, (k, n) -> n == 1 ? null : n - 1);
+            idle = openViews.isEmpty();
+        }
+        // without a writer coming along, the last reader out collects what it was holding back
+        if (idle && lock.tryLock()) {
+            try {
+                collectGarbage();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Stages a row change in every materialized view; if any view rejects it, none keeps it.
+     */
+    private void stageViews(Object[] before, Object[] after) {
+        Collection<MaterializedView> all = views.values();
+        try {
+            for (MaterializedView view : all) {
+                view.stage(before, after);
+            }
+        } catch (RuntimeException ex) {
+            all.forEach(MaterializedView::discard);
+            throw ex;
+        }
+    }
+
+    // a statement inside a transaction is published with the rest of it
+    private void statementDone(long ts) {
+        if (staging == null) {
+            commit(ts);
+        }
+    }
+
+    private void commit(long ts) {
+        // view totals for ts are in place before any reader can pin it
+        for (MaterializedView view : views.values()) {
+            view.publish(ts);
+        }
+        committedTs = ts;
+        collectGarbage();
+    }
+
+    /**
+     * Drops versions superseded at or before the oldest open view, together with index entries
+     * that no remaining version needs. Runs under the table lock.
+     */
+    private void collectGarbage() {
+        if (garbage.isEmpty() && views.isEmpty()) {
+            return;
+        }
+        long horizon;
+        synchronized (openViews) {
+            horizon = openViews.isEmpty() ? committedTs : openViews.firstKey();
+        }
+        for (MaterializedView view : views.values()) {
+            view.collectGarbage(horizon);
+        }
+        while (!garbage.isEmpty() && garbage.peekFirst().ts() <= horizon) {
+            Garbage g = garbage.pollFirst();
+            RowVersion head = rows.get(g.rowId());
+            if (head != null) {
+                RowVersion oldest = head.visibleAt(horizon);
+                if (oldest != null) {
+                    oldest.previous = null;
+                    if (oldest == head && head.isDeleted()) {
+                        rows.remove(g.rowId(), head);
+                        head = null;
                     }
-                    result.add(projected);
                 }
             }
+            // the superseded version is older than anything still reachable, so its slot can go
+            dropIndexEntries(g.rowId(), new StoredRow(store, g.superseded().slot), head);
+            store.free(g.superseded().slot);
         }
-        return result;
     }
 
-    public synchronized List<RowRecord> rowsSnapshot() {
-        return new ArrayList<>(rows.values());
+    private void dropIndexEntries(long id, StoredRow superseded, RowVersion remaining) {
+        dropUnique("pk", schema.getPrimaryKey(), id, superseded, remaining);
+        int uIndex = 0;
+        for (List<String> unique : schema.getUniqueConstraints()) {
+            dropUnique("u" + uIndex, unique, id, superseded, remaining);
+            uIndex++;
+        }
+        for (LiveIndex live : secondaryIndexes.values()) {
+            SecondaryIndex index = live.index();
+            // a partial index only keeps the entry for a version that is still inside its filter
+            if (index.covers(superseded) && !holdsKey(remaining, index, superseded)) {
+                index.remove(id, superseded);
+            }
+        }
+    }
+
+    private void dropUnique(String indexName, List<String> cols, long id, StoredRow superseded, RowVersion remaining) {
+        if (!holdsKey(remaining, cols, superseded)) {
+            uniqueIndexes.get(indexName).remove(buildKey(cols, superseded), id);
+        }
+    }
+
+    private boolean holdsKey(RowVersion chain, List<String> cols, StoredRow superseded) {
+        List<Object> key = buildKey(cols, superseded);
+        for (RowVersion v = chain; v != null; v = v.previous) {
+            if (!v.isDeleted() && buildKey(cols, new StoredRow(store, v.slot)).equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean holdsKey(RowVersion chain, SecondaryIndex index, StoredRow superseded) {
+        List<Object> key = buildKey(index.columns(), superseded);
+        for (RowVersion v = chain; v != null; v = v.previous) {
+            StoredRow row = new StoredRow(store, v.slot);
+            if (!v.isDeleted() && index.covers(row) && buildKey(index.columns(), row).equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The version of row {@code id} visible at {@code ts}, or null if the row is absent or deleted there.
+     */
+    private RowVersion visible(long id, long ts) {
+        RowVersion head = rows.get(id);
+        RowVersion v = head == null ? null : head.visibleAt(ts);
+        return v == null || v.isDeleted() ? null : v;
     }
 
     private Map<String, Object> coerceAndValidate(Map<String, Object> values, boolean requireAllColumns) {
@@ -141,13 +1147,17 @@ public class Table {
             ColumnDefinition colDef = entry.getValue();
             Object raw = values.get(colName);
             if (raw == null) {
+                if (!requireAllColumns && !values.containsKey(colName)) {
+                    // partial update: leave columns that were not provided untouched
+                    continue;
+                }
                 if (requireAllColumns && !colDef.isNullable()) {
                     throw new IllegalArgumentException("Column " + colName + " is required");
                 }
                 out.put(colName, null);
                 continue;
             }
-            Object coerced = coerceValue(colDef.getType(), raw);
+            Object coerced = colDef.getType().coerce(raw);
             out.put(colName, coerced);
         }
         if (requireAllColumns) {
@@ -156,16 +1166,6 @@ public class Table {
         return out;
     }
 
-    private Object coerceValue(DataType type, Object raw) {
-        if (raw == null) {
-            return null;
-        }
-        if (raw instanceof String s) {
-            return type.parse(s);
-        }
-        return raw;
-    }
-
     private void validateNullability(Map<String, Object> values) {
         for (Map.Entry<String, ColumnDefinition> entry : schema.getColumns().entrySet()) {
             if (!entry.getValue().isNullable() && values.get(entry.getKey()) == null) {
@@ -174,6 +1174,14 @@ public class Table {
         }
     }
 
+    private void validateNullability(Object[] row) {
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] == null && !schema.getColumns().get(store.name(i)).isNullable()) {
+                throw new IllegalArgumentException("Column " + store.name(i) + " cannot be null");
+            }
+        }
+    }
+
     private List<Object> buildKey(List<String> cols, Map<String, Object> values) {
         List<Object> key = new ArrayList<>(cols.size());
         for (String col : cols) {
@@ -182,21 +1190,360 @@ public class Table {
         return key;
     }
 
+    private List<Object> buildKey(List<String> cols, Object[] row) {
+        List<Object> key = new ArrayList<>(cols.size());
+        for (String col : cols) {
+            key.add(row[store.ordinal(col)]);
+        }
+        return key;
+    }
+
+    /**
+     * Unique entries of superseded versions linger until collected, so an entry only conflicts
+     * while the row it points at still holds the key.
+     */
     private void ensureUnique(String indexName, List<String> cols, List<Object> key, Long selfId) {
-        Map<List<Object>, Long> index = uniqueIndexes.get(indexName);
-        Long existingId = index.get(key);
-        if (existingId != null && (selfId == null || !existingId.equals(selfId))) {
+        Long existingId = uniqueIndexes.get(indexName).get(key);
+        if (existingId == null || existingId.equals(selfId)) {
+            return;
+        }
+        RowVersion head = rows.get(existingId);
+        if (head != null && !head.isDeleted() && buildKey(cols, new StoredRow(store, head.slot)).equals(key)) {
             throw new IllegalArgumentException("Unique constraint violation on " + cols);
         }
     }
 
-    private List<Long> findMatchingIds(RowPredicate predicate) {
-        List<Long> ids = new ArrayList<>();
-        for (RowRecord record : rows.values()) {
-            if (predicate == null || predicate.test(record.getValues())) {
-                ids.add(record.getId());
+    private void checkUnique(String indexName, List<String> cols, Object[] merged, Long selfId,
+                             Map<String, Set<List<Object>>> claimed) {
+        List<Object> key = buildKey(cols, merged);
+        ensureUnique(indexName, cols, key, selfId);
+        if (!claimed.computeIfAbsent(indexName, k -> new HashSet<>()).add(key)) {
+            throw new IllegalArgumentException("Unique constraint violation on " + cols);
+        }
+    }
+
+    private void putUnique(String indexName, List<Object> key, long id, long ts) {
+        Long previous = uniqueIndexes.get(indexName).put(key, id);
+        if (staging != null) {
+            staging.uniqueUndo.add(new UniqueUndo(indexName, key, id, previous));
+        }
+        if (previous != null && previous != id) {
+            uniqueReassignedTs = ts;
+        }
+    }
+
+    private static Map<String, Object> project(List<String> columns, StoredRow row) {
+        if (columns == null || columns.isEmpty()) {
+            return row.copy();
+        }
+        Map<String, Object> projected = new LinkedHashMap<>();
+        for (String col : columns) {
+            projected.put(col, row.get(col));
+        }
+        return projected;
+    }
+
+    private static final class PageVisitor implements RowVisitor {
+        private final List<String> columns;
+        private final Consumer<Map<String, Object>> sink;
+        private final Integer limit;
+        private int toSkip;
+        private int emitted;
+        private long lastRowId;
+        private boolean hasMore;
+
+        PageVisitor(List<String> columns, Page page, Consumer<Map<String, Object>> sink) {
+            this.columns = columns;
+            this.sink = sink;
+            this.limit = page.getLimit();
+            this.toSkip = page.getOffset();
+        }
+
+        @Override
+        public boolean visit(RowVersion version, StoredRow row) {
+            if (toSkip > 0) {
+                toSkip--;
+                return true;
+            }
+            if (limit != null && emitted == limit) {
+                hasMore = true;
+                return false;
+            }
+            sink.accept(project(columns, row));
+            emitted++;
+            lastRowId = version.rowId;
+            return true;
+        }
+    }
+
+    /**
+     * The first {@code k} matching versions in {@code ordering}, read by walking an ordered index on
+     * the leading sort column bucket by bucket, or null when no such index can produce them. The
+     * last bucket is always taken whole, so ties on the leading key are settled by the other keys.
+     */
+    private List<RowVersion> firstByIndex(RowOrdering ordering, CompiledPredicate compiled, long ts, int k) {
+        OrderBy leading = ordering.leadingKey();
+        if (leading == null) {
+            return null;
+        }
+        boolean descending = leading.getDirection() == SortDirection.DESC;
+        // null keys are not indexed and sort first ascending: only a NOT NULL column can be walked upwards
+        boolean nullable = schema.getColumns().get(leading.getColumn()).isNullable();
+        if (!descending && nullable) {
+            return null;
+        }
+        OrderedIndex index = null;
+        for (LiveIndex live : secondaryIndexes.values()) {
+            if (live.createdTs() <= ts && live.index() instanceof OrderedIndex ordered
+                    && ordered.columns().get(0).equals(leading.getColumn())) {
+                index = ordered;
+                break;
+            }
+        }
+        if (index == null) {
+            return null;
+        }
+        int ordinal = store.ordinal(leading.getColumn());
+        List<RowVersion> found = new ArrayList<>();
+        for (Map.Entry<Long, long[]> bucket : index.buckets(descending)) {
+            if (found.size() >= k) {
+                found.sort(ordering.comparator());
+                return found.subList(0, k);
+            }
+            for (long id : bucket.getValue()) {
+                RowVersion v = visible(id, ts);
+                // the bucket may list a row under a key its visible version no longer holds
+                if (v != null && bucket.getKey().equals(store.value(v.slot, ordinal)) && compiled.test(v.slot)) {
+                    found.add(v);
+                }
+            }
+        }
+        // ran out of keys: complete unless rows with a null key still sort after them
+        if (nullable) {
+            return null;
+        }
+        found.sort(ordering.comparator());
+        return found.size() > k ? found.subList(0, k) : found;
+    }
+
+    private List<RowVersion> findMatching(RowPredicate predicate) {
+        return collect(predicate, staging == null ? committedTs : staging.ts, ScanMode.AUTO, (version, row) -> version);
+    }
+
+    /**
+     * Maps the row versions visible at {@code ts} that satisfy {@code predicate}, in row order.
+     * A full scan may be split into page ranges scanned on the common fork-join pool, each mapped
+     * by one worker; the ranges are concatenated in page order, so the result is exactly what a
+     * sequential scan of the same snapshot returns.
+     */
+    private <T> List<T> collect(RowPredicate predicate, long ts, ScanMode mode,
+                                BiFunction<RowVersion, StoredRow, T> mapper) {
+        CompiledPredicate compiled = CompiledPredicate.compile(predicate, store);
+        if (compiled.matchesNothing()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = indexedIds(compiled, ts);
+        if (ids == null && scansInParallel(mode)) {
+            List<List<T>> parts = parallelScan(compiled, ts, ArrayList::new,
+                    (part, v) -> part.add(mapper.apply(v, new StoredRow(store, v.slot))));
+            int size = 0;
+            for (List<T> part : parts) {
+                size += part.size();
+            }
+            List<T> out = new ArrayList<>(size);
+            for (List<T> part : parts) {
+                out.addAll(part);
+            }
+            return out;
+        }
+        List<T> out = new ArrayList<>();
+        scan(compiled, ids, ts, (version, row) -> out.add(mapper.apply(version, row)));
+        return out;
+    }
+
+    private boolean scansInParallel(ScanMode mode) {
+        return switch (mode) {
+            case PARALLEL -> true;
+            case SEQUENTIAL -> false;
+            case AUTO -> parallelScanThreshold > 0
+                    && liveRows >= parallelScanThreshold
+                    && ForkJoinPool.getCommonPoolParallelism() > 1;
+        };
+    }
+
+    /**
+     * Scans page ranges on the common fork-join pool, folding the matches of each range into a
+     * fresh part from {@code newPart}. Returns the parts in page order.
+     */
+    private <A> List<A> parallelScan(CompiledPredicate compiled, long ts, Supplier<A> newPart,
+                                     BiConsumer<A, RowVersion> accumulator) {
+        // rows visible at ts were all added before it was read, so they lie within these pages
+        int pages = rows.pageCount();
+        // several ranges per worker so that ranges with fewer matches even out
+        int ranges = Math.max(1, Math.min(pages, ForkJoinPool.getCommonPoolParallelism() * 4));
+        int pagesPerRange = (pages + ranges - 1) / ranges;
+        try {
+            return IntStream.range(0, ranges).parallel()
+                    .mapToObj(range -> {
+                        A part = newPart.get();
+                        rows.forEach(range * pagesPerRange, (range + 1) * pagesPerRange, head -> {
+                            RowVersion v = head.visibleAt(ts);
+                            if (v != null && !v.isDeleted() && compiled.test(v.slot)) {
+                                accumulator.accept(part, v);
+                            }
+                        });
+                        return part;
+                    })
+                    .toList();
+        } catch (RuntimeException ex) {
+            // the pool rethrows a worker's exception as a copy wrapping it, message included; report the original
+            if (ex.getCause() instanceof RuntimeException cause && cause.getClass() == ex.getClass()) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Feeds the row versions visible at {@code ts} that satisfy {@code predicate} to {@code action},
+     * in row order, together with a view of their values.
+     */
+    private void scan(RowPredicate predicate, long ts, BiConsumer<RowVersion, StoredRow> action) {
+        CompiledPredicate compiled = CompiledPredicate.compile(predicate, store);
+        if (!compiled.matchesNothing()) {
+            scan(compiled, indexedIds(compiled, ts), ts, action);
+        }
+    }
+
+    /**
+     * Sequential scan over the candidate {@code ids} from an index, or over every row when null.
+     */
+    private void scan(CompiledPredicate compiled, List<Long> ids, long ts, BiConsumer<RowVersion, StoredRow> action) {
+        scan(compiled, ids, ts, -1, (version, row) -> {
+            action.accept(version, row);
+            return true;
+        });
+    }
+
+    /**
+     * Like {@link #scan(CompiledPredicate, List, long, BiConsumer)}, limited to row ids above
+     * {@code afterId} and stopping as soon as {@code visitor} returns false.
+     */
+    private void scan(CompiledPredicate compiled, List<Long> ids, long ts, long afterId, RowVisitor visitor) {
+        if (ids == null) {
+            rows.forEachAfter(afterId, head -> {
+                RowVersion v = head.visibleAt(ts);
+                if (v != null && !v.isDeleted() && compiled.test(v.slot)) {
+                    return visitor.visit(v, new StoredRow(store, v.slot));
+                }
+                return true;
+            });
+            return;
+        }
+        for (Long id : ids) {
+            if (id <= afterId) {
+                continue;
+            }
+            RowVersion v = visible(id, ts);
+            if (v != null && compiled.test(v.slot) && !visitor.visit(v, new StoredRow(store, v.slot))) {
+                return;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowVisitor {
+        /**
+         * @return whether the scan should go on
+         */
+        boolean visit(RowVersion version, StoredRow row);
+    }
+
+    /**
+     * Resolves EQ conditions through the primary key or a unique constraint when they bind it fully,
+     * otherwise through the secondary index (hash bucket or ordered range) yielding the fewest rows.
+     * Returns candidate ids in row order, or null when no index applies and the caller has to scan.
+     */
+    private List<Long> indexedIds(CompiledPredicate predicate, long ts) {
+        Map<String, Object> bound = new HashMap<>();
+        Map<String, KeyRange> ranges = new HashMap<>();
+        bindConditions(predicate, bound, ranges);
+        if (bound.isEmpty() && ranges.isEmpty()) {
+            return null;
+        }
+        if (ts >= uniqueReassignedTs) {
+            if (bound.keySet().containsAll(schema.getPrimaryKey())) {
+                return uniqueLookup("pk", schema.getPrimaryKey(), bound);
+            }
+            int uIndex = 0;
+            for (List<String> unique : schema.getUniqueConstraints()) {
+                if (bound.keySet().containsAll(unique)) {
+                    return uniqueLookup("u" + uIndex, unique, bound);
+                }
+                uIndex++;
+            }
+        }
+        // probe O(1) hash buckets first so range walks can stop once they are no better;
+        // a range covering half the table is not worth materializing over a plain scan
+        Collection<Long> best = null;
+        for (boolean pointPass : new boolean[]{true, false}) {
+            for (LiveIndex live : secondaryIndexes.values()) {
+                SecondaryIndex index = live.index();
+                if (live.createdTs() > ts || index.isPointLookup() != pointPass) {
+                    continue;
+                }
+                int limit = best == null ? Math.max(liveRows / 2, 1) : best.size() - 1;
+                Collection<Long> ids = index.candidates(bound, ranges, limit);
+                if (ids != null) {
+                    best = ids;
+                }
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        Long[] sorted = best.toArray(new Long[0]);
+        Arrays.sort(sorted);
+        List<Long> ids = new ArrayList<>(sorted.length);
+        for (Long id : sorted) {
+            // a row can be listed under its old and new key until the old version is collected
+            if (ids.isEmpty() || !ids.get(ids.size() - 1).equals(id)) {
+                ids.add(id);
             }
         }
         return ids;
     }
+
+    private List<Long> uniqueLookup(String indexName, List<String> cols, Map<String, Object> bound) {
+        Long id = uniqueIndexes.get(indexName).get(buildKey(cols, bound));
+        return id == null ? List.of() : List.of(id);
+    }
+
+    private void bindConditions(CompiledPredicate predicate, Map<String, Object> bound, Map<String, KeyRange> ranges) {
+        // values are already coerced to the column type; IS_NULL/IS_NOT_NULL carry none
+        for (Condition condition : predicate.conditions()) {
+            Object value = condition.getValue();
+            if (value == null) {
+                continue;
+            }
+            if (condition.getOperator() == ConditionOperator.EQ) {
+                bound.putIfAbsent(condition.getColumn(), value);
+            }
+            if (!(value instanceof Long v)) {
+                continue;
+            }
+            KeyRange range = ranges.getOrDefault(condition.getColumn(), KeyRange.ALL);
+            range = switch (condition.getOperator()) {
+                case EQ -> range.withLower(v, true).withUpper(v, true);
+                case GT -> range.withLower(v, false);
+                case GTE -> range.withLower(v, true);
+                case LT -> range.withUpper(v, false);
+                case LTE -> range.withUpper(v, true);
+                default -> null;
+            };
+            if (range != null) {
+                ranges.put(condition.getColumn(), range);
+            }
+        }
+    }
 }
@@ -0,0 +1,389 @@
+package com.ledgerly.engine.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ledgerly.engine.ColumnDefinition;
+import com.ledgerly.engine.ConditionOperator;
+import com.ledgerly.engine.DataType;
+import com.ledgerly.engine.IndexDefinition;
+import com.ledgerly.engine.MaterializedViewDefinition;
+import com.ledgerly.engine.TableSchema;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact encoding of a single WAL event. Row values of known columns are written as
+ * {@code (ordinal + 1) << 1 | isNull} followed by the value in the column's {@link DataType}
+ * (zigzag varint for INT and TIMESTAMP, length-prefixed UTF-8 for STRING). Anything else, and
+ * predicate values, falls back to the column name and a self-describing tagged value. Schemas,
+ * index and view definitions are rare and are embedded as JSON.
+ */
+final class BinaryEventCodec {
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte STRING = 2;
+    private static final byte TRUE = 3;
+    private static final byte FALSE = 4;
+    private static final byte JSON = 5;
+
+    private static final PersistenceEvent.EventType[] EVENT_TYPES = PersistenceEvent.EventType.values();
+    private static final ConditionOperator[] OPERATORS = ConditionOperator.values();
+
+    private final ObjectMapper mapper;
+    private final Map<String, List<ColumnDefinition>> columnsByTable = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Integer>> ordinalsByTable = new ConcurrentHashMap<>();
+
+    BinaryEventCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    void learn(TableSchema schema) {
+        List<ColumnDefinition> columns = List.copyOf(schema.getColumns().values());
+        Map<String, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            ordinals.put(columns.get(i).getName(), i);
+        }
+        columnsByTable.put(schema.getName(), columns);
+        ordinalsByTable.put(schema.getName(), ordinals);
+    }
+
+    byte[] encode(PersistenceEvent event) {
+        Output out = new Output();
+        out.write(event.type().ordinal());
+        out.writeString(event.tableName());
+        Map<String, Integer> ordinals = ordinalsByTable.getOrDefault(event.tableName(), Map.of());
+        List<ColumnDefinition> columns = columnsByTable.getOrDefault(event.tableName(), List.of());
+        switch (event.type()) {
+            case CREATE_TABLE -> {
+                out.writeJson(mapper, event.schema());
+                learn(event.schema());
+            }
+            case CREATE_INDEX -> out.writeJson(mapper, event.index());
+            case CREATE_VIEW -> out.writeJson(mapper, event.view());
+            case INSERT -> writeValues(out, ordinals, columns, event.values());
+            case UPDATE -> {
+                writePredicate(out, ordinals, event.predicate());
+                writeValues(out, ordinals, columns, event.values());
+            }
+            case DELETE -> writePredicate(out, ordinals, event.predicate());
+            case INSERT_BATCH -> {
+                out.writeVarLong(event.rows().size());
+                for (Map<String, Object> row : event.rows()) {
+                    writeValues(out, ordinals, columns, row);
+                }
+            }
+            case UPDATE_ROWS -> {
+                out.writeVarLong(event.keys().size());
+                for (int i = 0; i < event.keys().size(); i++) {
+                    writeKey(out, event.keys().get(i));
+                    writeValues(out, ordinals, columns, event.rows().get(i));
+                }
+            }
+            case DELETE_ROWS -> {
+                out.writeVarLong(event.keys().size());
+                for (List<Object> key : event.keys()) {
+                    writeKey(out, key);
+                }
+            }
+            case TRANSACTION -> {
+                out.writeVarLong(event.statements().size());
+                for (PersistenceEvent statement : event.statements()) {
+                    byte[] bytes = encode(statement);
+                    out.writeVarLong(bytes.length);
+                    out.write(bytes, 0, bytes.length);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    PersistenceEvent decode(ByteBuffer in) {
+        PersistenceEvent.EventType type = EVENT_TYPES[in.get()];
+        String table = readString(in);
+        List<ColumnDefinition> columns = columnsByTable.getOrDefault(table, List.of());
+        return switch (type) {
+            case CREATE_TABLE -> {
+                TableSchema schema = readJson(in, TableSchema.class);
+                learn(schema);
+                yield PersistenceEvent.createTable(schema);
+            }
+            case CREATE_INDEX -> PersistenceEvent.createIndex(table, readJson(in, IndexDefinition.class));
+            case CREATE_VIEW -> PersistenceEvent.createView(table, readJson(in, MaterializedViewDefinition.class));
+            case INSERT -> PersistenceEvent.insert(table, readValues(in, columns));
+            case UPDATE -> {
+                PredicateSpec predicate = readPredicate(in, columns);
+                yield new PersistenceEvent(type, table, null, predicate, readValues(in, columns), null, null, null, null, null);
+            }
+            case INSERT_BATCH -> {
+                int count = (int) readVarLong(in);
+                List<Map<String, Object>> rows = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    rows.add(readValues(in, columns));
+                }
+                yield PersistenceEvent.insertBatch(table, rows);
+            }
+            case DELETE -> new PersistenceEvent(type, table, null, readPredicate(in, columns), null, null, null, null, null, null);
+            case UPDATE_ROWS -> {
+                int count = (int) readVarLong(in);
+                List<List<Object>> keys = new ArrayList<>(count);
+                List<Map<String, Object>> afterImages = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    keys.add(readKey(in));
+                    afterImages.add(readValues(in, columns));
+                }
+                yield PersistenceEvent.updateRows(table, keys, afterImages);
+            }
+            case DELETE_ROWS -> {
+                int count = (int) readVarLong(in);
+                List<List<Object>> keys = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    keys.add(readKey(in));
+                }
+                yield PersistenceEvent.deleteRows(table, keys);
+            }
+            case TRANSACTION -> {
+                int count = (int) readVarLong(in);
+                List<PersistenceEvent> statements = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    int length = (int) readVarLong(in);
+                    ByteBuffer statement = in.slice(in.position(), length);
+                    statements.add(decode(statement));
+                    in.position(in.position() + length);
+                }
+                yield PersistenceEvent.transaction(statements);
+            }
+        };
+    }
+
+    private void writeValues(Output out, Map<String, Integer> ordinals, List<ColumnDefinition> columns,
+                             Map<String, Object> values) {
+        out.writeVarLong(values.size());
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            Integer ordinal = ordinals.get(entry.getKey());
+            Object value = ordinal == null ? null : coerce(columns.get(ordinal).getType(), entry.getValue());
+            if (ordinal == null || (value == null && entry.getValue() != null)) {
+                out.writeVarLong(0);
+                out.writeString(entry.getKey());
+                writeValue(out, entry.getValue());
+            } else if (value == null) {
+                out.writeVarLong(((ordinal + 1L) << 1) | 1);
+            } else {
+                out.writeVarLong((ordinal + 1L) << 1);
+                if (value instanceof Long l) {
+                    out.writeZigZag(l);
+                } else {
+                    out.writeString((String) value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the value in the column's storage type, or null when it is not representable and has
+     * to be written self-describing instead.
+     */
+    private static Object coerce(DataType type, Object raw) {
+        if (raw == null) {
+            return null;
+        }
+        try {
+            Object value = type.coerce(raw);
+            boolean fits = type == DataType.STRING ? value instanceof String : value instanceof Long;
+            return fits ? value : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void writePredicate(Output out, Map<String, Integer> ordinals, PredicateSpec predicate) {
+        List<ConditionSpec> conditions = predicate == null ? List.of() : predicate.conditions();
+        out.writeVarLong(conditions.size());
+        for (ConditionSpec c : conditions) {
+            writeColumn(out, ordinals, c.column());
+            out.write(c.operator().ordinal());
+            writeValue(out, c.value());
+        }
+    }
+
+    private void writeColumn(Output out, Map<String, Integer> ordinals, String column) {
+        Integer ordinal = ordinals.get(column);
+        if (ordinal != null) {
+            out.writeVarLong(ordinal + 1);
+        } else {
+            out.writeVarLong(0);
+            out.writeString(column);
+        }
+    }
+
+    private void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.write(NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.write(LONG);
+            out.writeZigZag(((Number) value).longValue());
+        } else if (value instanceof String s) {
+            out.write(STRING);
+            out.writeString(s);
+        } else if (value instanceof Boolean b) {
+            out.write(b ? TRUE : FALSE);
+        } else {
+            out.write(JSON);
+            out.writeJson(mapper, value);
+        }
+    }
+
+    private void writeKey(Output out, List<Object> key) {
+        out.writeVarLong(key.size());
+        for (Object part : key) {
+            writeValue(out, part);
+        }
+    }
+
+    private List<Object> readKey(ByteBuffer in) {
+        int size = (int) readVarLong(in);
+        List<Object> key = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            key.add(readValue(in));
+        }
+        return key;
+    }
+
+    private Map<String, Object> readValues(ByteBuffer in, List<ColumnDefinition> columns) {
+        int count = (int) readVarLong(in);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            long key = readVarLong(in);
+            if (key == 0) {
+                String name = readString(in);
+                values.put(name, readValue(in));
+                continue;
+            }
+            ColumnDefinition column = column(columns, (int) (key >>> 1));
+            if ((key & 1) != 0) {
+                values.put(column.getName(), null);
+            } else if (column.getType() == DataType.STRING) {
+                values.put(column.getName(), readString(in));
+            } else {
+                values.put(column.getName(), readZigZag(in));
+            }
+        }
+        return values;
+    }
+
+    private PredicateSpec readPredicate(ByteBuffer in, List<ColumnDefinition> columns) {
+        int count = (int) readVarLong(in);
+        List<ConditionSpec> conditions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String column = readColumn(in, columns);
+            ConditionOperator operator = OPERATORS[in.get()];
+            conditions.add(new ConditionSpec(column, operator, readValue(in)));
+        }
+        return new PredicateSpec(conditions);
+    }
+
+    private String readColumn(ByteBuffer in, List<ColumnDefinition> columns) {
+        int ordinal = (int) readVarLong(in);
+        if (ordinal == 0) {
+            return readString(in);
+        }
+        return column(columns, ordinal).getName();
+    }
+
+    private static ColumnDefinition column(List<ColumnDefinition> columns, int ordinal) {
+        if (ordinal < 1 || ordinal > columns.size()) {
+            throw new IllegalStateException("Column ordinal " + ordinal + " out of range");
+        }
+        return columns.get(ordinal - 1);
+    }
+
+    private Object readValue(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case NULL -> null;
+            case LONG -> readZigZag(in);
+            case STRING -> readString(in);
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case JSON -> readJson(in, Object.class);
+            default -> throw new IllegalStateException("Unknown value tag " + tag);
+        };
+    }
+
+    private <T> T readJson(ByteBuffer in, Class<T> type) {
+        int length = (int) readVarLong(in);
+        try {
+            T value = mapper.readValue(in.array(), in.arrayOffset() + in.position(), length, type);
+            in.position(in.position() + length);
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return s;
+    }
+
+    private static long readZigZag(ByteBuffer in) {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+        Output() {
+            super(64);
+        }
+
+        void writeVarLong(long v) {
+            while ((v & ~0x7FL) != 0) {
+                write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            write((int) v);
+        }
+
+        void writeZigZag(long v) {
+            writeVarLong((v << 1) ^ (v >> 63));
+        }
+
+        void writeString(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeJson(ObjectMapper mapper, Object value) {
+            try {
+                byte[] bytes = mapper.writeValueAsBytes(value);
+                writeVarLong(bytes.length);
+                write(bytes, 0, bytes.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
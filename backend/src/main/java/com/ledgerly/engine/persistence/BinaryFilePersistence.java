@@ -0,0 +1,152 @@
+package com.ledgerly.engine.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary write-ahead log in {@code ledgerly-wal.bin}. Each record is framed as
+ * {@code [int length][int crc32c][payload]}. A short or corrupt last frame of the active log is a
+ * write torn by a crash: replay truncates the file there and carries on. A damaged frame anywhere
+ * else, or in a sealed segment, fails startup with the file and offset.
+ */
+public class BinaryFilePersistence extends SegmentedLogPersistence {
+    private static final Logger log = LoggerFactory.getLogger(BinaryFilePersistence.class);
+    static final String EXTENSION = "bin";
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 << 20;
+
+    private final BinaryEventCodec codec;
+
+    public BinaryFilePersistence(Path dataDir) {
+        this(dataDir, FsyncPolicy.INTERVAL, DEFAULT_FSYNC_INTERVAL_MILLIS);
+    }
+
+    public BinaryFilePersistence(Path dataDir, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        super(dataDir, EXTENSION, fsyncPolicy, fsyncIntervalMillis);
+        this.codec = new BinaryEventCodec(mapper);
+    }
+
+    @Override
+    protected void snapshotLoaded(Snapshot snapshot) {
+        for (Snapshot.TableState table : snapshot.tables()) {
+            codec.learn(table.schema());
+        }
+    }
+
+    @Override
+    protected byte[] encode(PersistenceEvent event) {
+        byte[] payload = codec.encode(event);
+        // replay rejects longer frames as corrupt, so such a record must never reach the log
+        if (payload.length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("WAL record of " + payload.length + " bytes exceeds the limit of "
+                    + MAX_RECORD_BYTES + " bytes");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        frame.putInt(payload.length);
+        frame.putInt((int) crc.getValue());
+        frame.put(payload);
+        return frame.array();
+    }
+
+    @Override
+    protected void replayFile(Path file, boolean active, Consumer<PersistenceEvent> consumer) throws IOException {
+        long size = Files.size(file);
+        long goodBytes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            CRC32C crc = new CRC32C();
+            byte[] payload = new byte[256];
+            while (goodBytes < size) {
+                if (size - goodBytes < HEADER_BYTES) {
+                    damaged(file, active, goodBytes, size, "short frame header");
+                    return;
+                }
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    damaged(file, active, goodBytes, size, "invalid frame length " + length);
+                    return;
+                }
+                if (goodBytes + HEADER_BYTES + length > size) {
+                    damaged(file, active, goodBytes, size, "short frame payload");
+                    return;
+                }
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                in.readFully(payload, 0, length);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    damaged(file, active, goodBytes, size, "checksum mismatch");
+                    return;
+                }
+                PersistenceEvent event;
+                try {
+                    event = codec.decode(ByteBuffer.wrap(payload, 0, length));
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException("Undecodable WAL record in " + file + " at byte " + goodBytes, e);
+                }
+                consumer.accept(event);
+                goodBytes += HEADER_BYTES + length;
+            }
+        }
+    }
+
+    /**
+     * Handles a damaged frame at {@code offset}. Only the last frame of the active log may be torn by
+     * a crash, so that alone is cut off; damage anywhere else means acknowledged history is unreadable
+     * and startup fails rather than rebuilding state with a hole in it.
+     */
+    private void damaged(Path file, boolean active, long offset, long size, String reason) throws IOException {
+        if (!active || !isTornTail(file, offset, size)) {
+            throw new IllegalStateException("Corrupt WAL record in " + file + " at byte " + offset + ": " + reason);
+        }
+        log.warn("Truncating torn WAL tail of {} at byte {} ({})", file, offset, reason);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(offset);
+            channel.force(true);
+        }
+    }
+
+    // the damaged frame is the last one in the file, or only zeros follow it (space allocated, never written)
+    private static boolean isTornTail(Path file, long offset, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (size - offset >= HEADER_BYTES) {
+                channel.read(buffer, offset);
+                buffer.flip();
+                int length = buffer.getInt();
+                if (length > 0 && length <= MAX_RECORD_BYTES && offset + HEADER_BYTES + length >= size) {
+                    return true;
+                }
+            }
+            for (long pos = offset; pos < size; pos += buffer.limit()) {
+                buffer.clear();
+                if (channel.read(buffer, pos) <= 0) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    if (buffer.get() != 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,55 +1,105 @@
 package com.ledgerly.engine.persistence;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
 
-public class FilePersistence implements Persistence {
-    private final Path walPath;
-    private final ObjectMapper mapper;
+/**
+ * JSONL write-ahead log: one JSON document per event and line in {@code ledgerly-wal.jsonl}. An
+ * unreadable last line of the active log is a write torn by a crash and is cut off on replay;
+ * anywhere else it fails startup.
+ */
+public class FilePersistence extends SegmentedLogPersistence {
+    private static final Logger log = LoggerFactory.getLogger(FilePersistence.class);
+
+    private final ObjectReader eventReader;
 
     public FilePersistence(Path dataDir) {
-        try {
-            Files.createDirectories(dataDir);
-        } catch (IOException e) {
-            throw new IllegalStateException("Failed to create data dir: " + dataDir, e);
-        }
-        this.walPath = dataDir.resolve("ledgerly-wal.jsonl");
-        this.mapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this(dataDir, FsyncPolicy.INTERVAL, DEFAULT_FSYNC_INTERVAL_MILLIS);
+    }
+
+    public FilePersistence(Path dataDir, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        super(dataDir, "jsonl", fsyncPolicy, fsyncIntervalMillis);
+        this.eventReader = mapper.readerFor(PersistenceEvent.class);
     }
 
     @Override
-    public List<PersistenceEvent> loadEvents() {
-        if (!Files.exists(walPath)) {
-            return List.of();
+    protected void replayFile(Path file, boolean active, Consumer<PersistenceEvent> consumer) throws IOException {
+        // the streaming parser hands documents over as they are read
+        long goodBytes = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+             MappingIterator<PersistenceEvent> events = eventReader.readValues(in)) {
+            while (events.hasNextValue()) {
+                consumer.accept(events.nextValue());
+                goodBytes = events.getParser().currentLocation().getByteOffset();
+            }
+        } catch (JsonProcessingException | RuntimeJsonMappingException e) {
+            damaged(file, active, goodBytes, e);
         }
-        List<PersistenceEvent> events = new ArrayList<>();
-        try {
-            for (String line : Files.readAllLines(walPath, StandardCharsets.UTF_8)) {
-                if (line.isBlank()) continue;
-                events.add(mapper.readValue(line, PersistenceEvent.class));
+    }
+
+    /**
+     * Handles an unreadable record following the last good one, which ends at {@code goodBytes}. Only
+     * the last line of the active log may be torn by a crash, so that alone is cut off.
+     */
+    private static void damaged(Path file, boolean active, long goodBytes, Exception e) throws IOException {
+        long tail = active ? tornTailStart(file, goodBytes) : -1;
+        if (tail < 0) {
+            throw new IllegalStateException("Corrupt WAL record in " + file + " after byte " + goodBytes, e);
+        }
+        log.warn("Truncating torn WAL tail of {} at byte {} ({})", file, tail, e.getMessage());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(tail);
+            channel.force(true);
+        }
+    }
+
+    // where the record after goodBytes starts, if it is the last line of the file; -1 if a line follows it
+    private static long tornTailStart(Path file, long goodBytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        long start = -1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long pos = goodBytes;
+            for (int read; (read = channel.read(buffer, pos)) > 0; pos += read) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer.get(i);
+                    if (start < 0) {
+                        // the newline ending the last good record belongs to it
+                        if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                            start = pos + i;
+                        }
+                    } else if (b == '\n') {
+                        return -1;
+                    }
+                }
+                buffer.clear();
             }
-        } catch (IOException e) {
-            throw new IllegalStateException("Failed to load WAL from " + walPath, e);
         }
-        return events;
+        return start;
     }
 
     @Override
-    public synchronized void appendEvent(PersistenceEvent event) {
-        try (BufferedWriter writer = Files.newBufferedWriter(walPath,
-                StandardCharsets.UTF_8,
-                Files.exists(walPath) ? java.nio.file.StandardOpenOption.APPEND : java.nio.file.StandardOpenOption.CREATE)) {
-            writer.write(mapper.writeValueAsString(event));
-            writer.newLine();
-        } catch (IOException e) {
+    protected byte[] encode(PersistenceEvent event) {
+        try {
+            byte[] json = mapper.writeValueAsBytes(event);
+            byte[] line = new byte[json.length + 1];
+            System.arraycopy(json, 0, line, 0, json.length);
+            line[json.length] = '\n';
+            return line;
+        } catch (JsonProcessingException e) {
             throw new IllegalStateException("Failed to append WAL event", e);
         }
     }
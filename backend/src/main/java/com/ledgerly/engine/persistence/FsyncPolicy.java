@@ -0,0 +1,10 @@
+package com.ledgerly.engine.persistence;
+
+public enum FsyncPolicy {
+    // force the WAL to disk before acknowledging each group commit
+    COMMIT,
+    // acknowledge once written, force at most every fsync interval
+    INTERVAL,
+    // acknowledge once written, leave flushing to the OS
+    OS
+}
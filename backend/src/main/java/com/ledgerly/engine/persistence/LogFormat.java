@@ -0,0 +1,6 @@
+package com.ledgerly.engine.persistence;
+
+public enum LogFormat {
+    JSON,
+    BINARY
+}
@@ -1,9 +1,38 @@
 package com.ledgerly.engine.persistence;
 
-import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
-public interface Persistence {
-    List<PersistenceEvent> loadEvents();
+public interface Persistence extends AutoCloseable {
 
+    /**
+     * Latest checkpoint snapshot, if any. Replay starts from it.
+     */
+    Optional<Snapshot> loadSnapshot();
+
+    /**
+     * Feeds the events logged after the latest snapshot to {@code consumer}, in order, one at a
+     * time, without holding the log in memory.
+     */
+    void replay(Consumer<PersistenceEvent> consumer);
+
+    /**
+     * Appends an event and returns once it is durable under the implementation's fsync policy.
+     */
     void appendEvent(PersistenceEvent event);
+
+    /**
+     * Seals the events logged so far into a segment and returns the id of the checkpoint that
+     * will cover them. Must be called while no events are being appended.
+     */
+    long sealSegment();
+
+    /**
+     * Durably stores a snapshot taken right after {@link #sealSegment()} and drops the segments it covers.
+     */
+    void writeSnapshot(Snapshot snapshot);
+
+    @Override
+    default void close() {
+    }
 }
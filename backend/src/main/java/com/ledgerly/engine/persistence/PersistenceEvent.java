@@ -1,5 +1,7 @@
 package com.ledgerly.engine.persistence;
 
+import com.ledgerly.engine.IndexDefinition;
+import com.ledgerly.engine.MaterializedViewDefinition;
 import com.ledgerly.engine.RowPredicate;
 import com.ledgerly.engine.TableSchema;
 
@@ -11,29 +13,68 @@ public record PersistenceEvent(EventType type,
                                String tableName,
                                TableSchema schema,
                                PredicateSpec predicate,
-                               Map<String, Object> values) {
+                               Map<String, Object> values,
+                               IndexDefinition index,
+                               MaterializedViewDefinition view,
+                               List<Map<String, Object>> rows,
+                               List<List<Object>> keys,
+                               List<PersistenceEvent> statements) {
 
     public enum EventType {
         CREATE_TABLE,
         INSERT,
         UPDATE,
-        DELETE
+        DELETE,
+        CREATE_INDEX,
+        CREATE_VIEW,
+        // rows inserted by one statement, replayed all or nothing
+        INSERT_BATCH,
+        // after-images of the rows one statement changed, found by their primary keys before it
+        UPDATE_ROWS,
+        // primary keys of the rows one statement deleted
+        DELETE_ROWS,
+        // statements of one engine transaction, replayed all or nothing in order
+        TRANSACTION
     }
 
     public static PersistenceEvent createTable(TableSchema schema) {
-        return new PersistenceEvent(EventType.CREATE_TABLE, schema.getName(), schema, null, null);
+        return new PersistenceEvent(EventType.CREATE_TABLE, schema.getName(), schema, null, null, null, null, null, null, null);
     }
 
     public static PersistenceEvent insert(String table, Map<String, Object> values) {
-        return new PersistenceEvent(EventType.INSERT, table, null, null, values);
+        return new PersistenceEvent(EventType.INSERT, table, null, null, values, null, null, null, null, null);
     }
 
     public static PersistenceEvent update(String table, RowPredicate predicate, Map<String, Object> values) {
-        return new PersistenceEvent(EventType.UPDATE, table, null, toSpec(predicate), values);
+        return new PersistenceEvent(EventType.UPDATE, table, null, toSpec(predicate), values, null, null, null, null, null);
     }
 
     public static PersistenceEvent delete(String table, RowPredicate predicate) {
-        return new PersistenceEvent(EventType.DELETE, table, null, toSpec(predicate), null);
+        return new PersistenceEvent(EventType.DELETE, table, null, toSpec(predicate), null, null, null, null, null, null);
+    }
+
+    public static PersistenceEvent createIndex(String table, IndexDefinition index) {
+        return new PersistenceEvent(EventType.CREATE_INDEX, table, null, null, null, index, null, null, null, null);
+    }
+
+    public static PersistenceEvent createView(String table, MaterializedViewDefinition view) {
+        return new PersistenceEvent(EventType.CREATE_VIEW, table, null, null, null, null, view, null, null, null);
+    }
+
+    public static PersistenceEvent insertBatch(String table, List<Map<String, Object>> rows) {
+        return new PersistenceEvent(EventType.INSERT_BATCH, table, null, null, null, null, null, rows, null, null);
+    }
+
+    public static PersistenceEvent updateRows(String table, List<List<Object>> keys, List<Map<String, Object>> afterImages) {
+        return new PersistenceEvent(EventType.UPDATE_ROWS, table, null, null, null, null, null, afterImages, keys, null);
+    }
+
+    public static PersistenceEvent deleteRows(String table, List<List<Object>> keys) {
+        return new PersistenceEvent(EventType.DELETE_ROWS, table, null, null, null, null, null, null, keys, null);
+    }
+
+    public static PersistenceEvent transaction(List<PersistenceEvent> statements) {
+        return new PersistenceEvent(EventType.TRANSACTION, "", null, null, null, null, null, null, null, statements);
     }
 
     private static PredicateSpec toSpec(RowPredicate predicate) {
@@ -0,0 +1,174 @@
+package com.ledgerly.engine.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log kept as an active file plus sealed segments. The active log is
+ * {@code ledgerly-wal.<ext>}; a checkpoint seals it as {@code ledgerly-wal-<id>.<ext>} and then
+ * writes {@code ledgerly-snapshot-<id>.json}, after which sealed segments up to that id are deleted.
+ * Subclasses only decide how events are encoded in the log.
+ */
+public abstract class SegmentedLogPersistence implements Persistence {
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedLogPersistence.class);
+    private static final Pattern SNAPSHOT = Pattern.compile("ledgerly-snapshot-(\\d+)\\.json");
+
+    protected final Path dataDir;
+    protected final Path walPath;
+    protected final ObjectMapper mapper;
+    private final String extension;
+    private final Pattern segmentPattern;
+    private final WalWriter writer;
+    private long lastCheckpointId;
+
+    protected SegmentedLogPersistence(Path dataDir, String extension, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis) {
+        try {
+            Files.createDirectories(dataDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create data dir: " + dataDir, e);
+        }
+        this.dataDir = dataDir;
+        this.extension = extension;
+        this.walPath = dataDir.resolve("ledgerly-wal." + extension);
+        this.segmentPattern = Pattern.compile("ledgerly-wal-(\\d+)\\." + Pattern.quote(extension));
+        this.mapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.writer = new WalWriter(walPath, fsyncPolicy, fsyncIntervalMillis);
+        TreeMap<Long, Path> segments = list(segmentPattern);
+        TreeMap<Long, Path> snapshots = list(SNAPSHOT);
+        this.lastCheckpointId = Math.max(
+                segments.isEmpty() ? 0 : segments.lastKey(),
+                snapshots.isEmpty() ? 0 : snapshots.lastKey());
+    }
+
+    /**
+     * Encodes one event as it is appended to the log, including any record delimiter or framing.
+     */
+    protected abstract byte[] encode(PersistenceEvent event);
+
+    /**
+     * Decodes the events of one log file in order. {@code active} is true only for the log still being
+     * appended to, the one file whose last record a crash may have torn.
+     */
+    protected abstract void replayFile(Path file, boolean active, Consumer<PersistenceEvent> consumer) throws IOException;
+
+    /**
+     * Hook for codecs that need the tables known at the snapshot to decode later events.
+     */
+    protected void snapshotLoaded(Snapshot snapshot) {
+    }
+
+    @Override
+    public Optional<Snapshot> loadSnapshot() {
+        TreeMap<Long, Path> snapshots = list(SNAPSHOT);
+        if (snapshots.isEmpty()) {
+            return Optional.empty();
+        }
+        Path latest = snapshots.lastEntry().getValue();
+        try {
+            Snapshot snapshot = mapper.readValue(latest.toFile(), Snapshot.class);
+            snapshotLoaded(snapshot);
+            return Optional.of(snapshot);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load snapshot from " + latest, e);
+        }
+    }
+
+    @Override
+    public void replay(Consumer<PersistenceEvent> consumer) {
+        TreeMap<Long, Path> snapshots = list(SNAPSHOT);
+        long fromId = snapshots.isEmpty() ? 0 : snapshots.lastKey();
+        for (Path segment : list(segmentPattern).tailMap(fromId, false).values()) {
+            replayExisting(segment, false, consumer);
+        }
+        replayExisting(walPath, true, consumer);
+    }
+
+    @Override
+    public void appendEvent(PersistenceEvent event) {
+        writer.write(encode(event));
+    }
+
+    @Override
+    public synchronized long sealSegment() {
+        long id = ++lastCheckpointId;
+        writer.rotate(dataDir.resolve("ledgerly-wal-" + id + "." + extension));
+        return id;
+    }
+
+    @Override
+    public void writeSnapshot(Snapshot snapshot) {
+        long id = snapshot.checkpointId();
+        Path target = dataDir.resolve("ledgerly-snapshot-" + id + ".json");
+        Path tmp = dataDir.resolve("ledgerly-snapshot-" + id + ".json.tmp");
+        try {
+            mapper.writeValue(tmp.toFile(), snapshot);
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write snapshot " + target, e);
+        }
+        // everything up to this checkpoint is now covered by the snapshot
+        deleteUpTo(list(SNAPSHOT), id - 1);
+        deleteUpTo(list(segmentPattern), id);
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+    }
+
+    private void replayExisting(Path file, boolean active, Consumer<PersistenceEvent> consumer) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            replayFile(file, active, consumer);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load WAL from " + file, e);
+        }
+    }
+
+    private TreeMap<Long, Path> list(Pattern pattern) {
+        TreeMap<Long, Path> out = new TreeMap<>();
+        try (Stream<Path> files = Files.list(dataDir)) {
+            files.forEach(file -> {
+                Matcher m = pattern.matcher(file.getFileName().toString());
+                if (m.matches()) {
+                    out.put(Long.parseLong(m.group(1)), file);
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to list data dir: " + dataDir, e);
+        }
+        return out;
+    }
+
+    private void deleteUpTo(TreeMap<Long, Path> files, long id) {
+        for (Path file : files.headMap(id, true).values()) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Failed to delete {}", file, e);
+            }
+        }
+    }
+}
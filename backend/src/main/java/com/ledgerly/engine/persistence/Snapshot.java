@@ -0,0 +1,26 @@
+package com.ledgerly.engine.persistence;
+
+import com.ledgerly.engine.IndexDefinition;
+import com.ledgerly.engine.MaterializedViewDefinition;
+import com.ledgerly.engine.TableSchema;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time image of every table written by a checkpoint. Replay starts from the latest
+ * snapshot and only applies WAL segments sealed after it.
+ */
+public record Snapshot(long checkpointId, List<TableState> tables) {
+
+    public record TableState(TableSchema schema,
+                             List<IndexDefinition> indexes,
+                             long nextRowId,
+                             List<Row> rows,
+                             // absent from snapshots written before views existed
+                             List<MaterializedViewDefinition> views) {
+    }
+
+    public record Row(long id, Map<String, Object> values) {
+    }
+}
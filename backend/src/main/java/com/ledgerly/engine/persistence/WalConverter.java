@@ -0,0 +1,83 @@
+package com.ledgerly.engine.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * One-shot conversion of a JSONL write-ahead log into the binary format. Events after the latest
+ * snapshot are re-encoded into a scratch directory and the result is moved into place before the
+ * JSONL files are renamed to {@code *.migrated}, so an interrupted conversion simply runs again.
+ */
+public final class WalConverter {
+    private static final String SCRATCH_DIR = "wal-convert.tmp";
+    private static final long DEFAULT_INTERVAL = SegmentedLogPersistence.DEFAULT_FSYNC_INTERVAL_MILLIS;
+
+    private WalConverter() {
+    }
+
+    public static boolean needsConversion(Path dataDir) {
+        return !Files.exists(dataDir.resolve("ledgerly-wal." + BinaryFilePersistence.EXTENSION))
+                && !jsonLogs(dataDir).isEmpty();
+    }
+
+    /**
+     * Returns the number of events converted.
+     */
+    public static long jsonToBinary(Path dataDir) {
+        Path scratch = dataDir.resolve(SCRATCH_DIR);
+        long[] count = {0};
+        try {
+            deleteRecursively(scratch);
+            try (FilePersistence json = new FilePersistence(dataDir, FsyncPolicy.OS, DEFAULT_INTERVAL);
+                 BinaryFilePersistence binary = new BinaryFilePersistence(scratch, FsyncPolicy.OS, DEFAULT_INTERVAL)) {
+                json.loadSnapshot().ifPresent(binary::snapshotLoaded);
+                json.replay(event -> {
+                    binary.appendEvent(event);
+                    count[0]++;
+                });
+            }
+            Path converted = scratch.resolve("ledgerly-wal." + BinaryFilePersistence.EXTENSION);
+            if (Files.exists(converted)) {
+                Files.move(converted, dataDir.resolve(converted.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.createFile(dataDir.resolve(converted.getFileName()));
+            }
+            for (Path log : jsonLogs(dataDir)) {
+                Files.move(log, log.resolveSibling(log.getFileName() + ".migrated"));
+            }
+            deleteRecursively(scratch);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to convert WAL in " + dataDir, e);
+        }
+        return count[0];
+    }
+
+    private static List<Path> jsonLogs(Path dataDir) {
+        if (!Files.isDirectory(dataDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dataDir)) {
+            return files.filter(f -> f.getFileName().toString().matches("ledgerly-wal(-\\d+)?\\.jsonl"))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to list data dir: " + dataDir, e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}
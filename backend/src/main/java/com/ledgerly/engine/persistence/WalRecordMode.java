@@ -0,0 +1,8 @@
+package com.ledgerly.engine.persistence;
+
+public enum WalRecordMode {
+    // log each update and delete as its predicate, re-evaluated by a scan on replay
+    LOGICAL,
+    // log the primary keys and after-images of the rows each statement changed, replayed by key
+    PHYSICAL
+}
@@ -0,0 +1,299 @@
+package com.ledgerly.engine.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single writer thread that owns the WAL file channel. Callers hand over encoded
+ * records and wait on a future; everything queued while a write is in flight is
+ * flushed together as one group commit. A write or fsync failure that may have lost
+ * acknowledged data fails every later submit rather than letting appends continue.
+ */
+final class WalWriter implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(WalWriter.class);
+    private static final int MAX_BATCH = 4096;
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final Path path;
+    private final FsyncPolicy policy;
+    private final ChannelOpener opener;
+    private final long fsyncIntervalNanos;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    // guards closed against submits, so nothing is queued after the flusher decided to stop
+    private final Object submitLock = new Object();
+    private volatile boolean closed;
+    // first failure after which the file can no longer be trusted to hold what was acknowledged
+    private volatile IllegalStateException failure;
+
+    // owned by the flusher thread
+    private FileChannel channel;
+    private boolean dirty;
+    private long lastSyncNanos = System.nanoTime();
+
+    @FunctionalInterface
+    interface ChannelOpener {
+        FileChannel open(Path path) throws IOException;
+    }
+
+    WalWriter(Path path, FsyncPolicy policy, long fsyncIntervalMillis) {
+        this(path, policy, fsyncIntervalMillis, file -> FileChannel.open(file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND));
+    }
+
+    WalWriter(Path path, FsyncPolicy policy, long fsyncIntervalMillis, ChannelOpener opener) {
+        this.path = Objects.requireNonNull(path, "path");
+        this.policy = Objects.requireNonNull(policy, "policy");
+        this.opener = Objects.requireNonNull(opener, "opener");
+        if (fsyncIntervalMillis <= 0) {
+            throw new IllegalArgumentException("fsync interval must be positive");
+        }
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.flusher = new Thread(this::runLoop, "ledgerly-wal-writer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues a record and blocks until it is durable under the configured policy.
+     */
+    void write(byte[] record) {
+        submitAndWait(new PendingWrite(record, null, new CompletableFuture<>()));
+    }
+
+    /**
+     * Flushes everything queued before this call, then moves the WAL file to {@code sealed}.
+     * The next write starts a fresh file.
+     */
+    void rotate(Path sealed) {
+        submitAndWait(new PendingWrite(null, Objects.requireNonNull(sealed, "sealed"), new CompletableFuture<>()));
+    }
+
+    private void submitAndWait(PendingWrite pending) {
+        CompletableFuture<Void> done = pending.done();
+        synchronized (submitLock) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (closed) {
+                throw new IllegalStateException("WAL writer is closed: " + path);
+            }
+            queue.add(pending);
+        }
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (submitLock) {
+            closed = true;
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            PendingWrite first;
+            try {
+                first = queue.poll(pollMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) {
+                syncIfDue();
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, MAX_BATCH - 1);
+            int start = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.get(i).rotateTo() != null) {
+                    flush(batch.subList(start, i));
+                    seal(batch.get(i));
+                    start = i + 1;
+                }
+            }
+            flush(batch.subList(start, batch.size()));
+            batch.clear();
+        }
+        shutdown();
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (failure != null) {
+            fail(batch, failure);
+            return;
+        }
+        long goodSize = -1;
+        try {
+            ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i] = ByteBuffer.wrap(batch.get(i).record());
+            }
+            FileChannel ch = channel();
+            goodSize = ch.size();
+            while (hasRemaining(buffers)) {
+                ch.write(buffers);
+            }
+            dirty = true;
+            if (policy == FsyncPolicy.COMMIT) {
+                sync();
+            } else {
+                syncIfDue();
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // none of the batch is acknowledged, so none of it may stay in the file for replay to pick up
+            truncateTo(goodSize, e);
+            fail(batch, new IllegalStateException("Failed to append WAL event", e));
+            return;
+        }
+        for (PendingWrite w : batch) {
+            w.done().complete(null);
+        }
+    }
+
+    private void truncateTo(long goodSize, Exception cause) {
+        if (goodSize < 0 || channel == null) {
+            return;
+        }
+        try {
+            channel.truncate(goodSize);
+            channel.force(false);
+        } catch (IOException e) {
+            e.addSuppressed(cause);
+            latch(new IllegalStateException("Failed to truncate torn WAL batch in " + path + " at byte " + goodSize, e));
+        }
+    }
+
+    private void latch(IllegalStateException error) {
+        if (failure == null) {
+            failure = error;
+            log.error("WAL {} is no longer writable", path, error);
+        }
+    }
+
+    private static void fail(List<PendingWrite> batch, IllegalStateException error) {
+        for (PendingWrite w : batch) {
+            w.done().completeExceptionally(error);
+        }
+    }
+
+    private void seal(PendingWrite rotation) {
+        if (failure != null) {
+            rotation.done().completeExceptionally(failure);
+            return;
+        }
+        try {
+            if (channel != null) {
+                sync();
+                channel.close();
+                channel = null;
+            }
+            if (Files.exists(path)) {
+                Files.move(path, rotation.rotateTo(), StandardCopyOption.ATOMIC_MOVE);
+            }
+            rotation.done().complete(null);
+        } catch (IOException | RuntimeException e) {
+            rotation.done().completeExceptionally(new IllegalStateException("Failed to rotate WAL " + path, e));
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        // opened lazily so an unused WAL does not leave an empty file behind
+        if (channel == null) {
+            channel = opener.open(path);
+        }
+        return channel;
+    }
+
+    private void syncIfDue() {
+        if (policy != FsyncPolicy.INTERVAL || !dirty) {
+            return;
+        }
+        if (System.nanoTime() - lastSyncNanos >= fsyncIntervalNanos) {
+            try {
+                sync();
+            } catch (IOException e) {
+                // records acknowledged since the last sync may be lost: refuse to acknowledge any more
+                latch(new IllegalStateException("WAL fsync failed for " + path, e));
+            }
+        }
+    }
+
+    private void sync() throws IOException {
+        channel.force(false);
+        dirty = false;
+        lastSyncNanos = System.nanoTime();
+    }
+
+    private void shutdown() {
+        List<PendingWrite> orphaned = new ArrayList<>();
+        queue.drainTo(orphaned);
+        fail(orphaned, new IllegalStateException("WAL writer is closed: " + path));
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (dirty && failure == null) {
+                sync();
+            }
+            channel.close();
+        } catch (IOException e) {
+            log.error("Failed to close WAL {}", path, e);
+        }
+    }
+
+    private long pollMillis() {
+        return policy == FsyncPolicy.INTERVAL
+                ? Math.max(1, TimeUnit.NANOSECONDS.toMillis(fsyncIntervalNanos))
+                : IDLE_POLL_MILLIS;
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // either a record to append or, when rotateTo is set, a rotation marker
+    private record PendingWrite(byte[] record, Path rotateTo, CompletableFuture<Void> done) {}
+}
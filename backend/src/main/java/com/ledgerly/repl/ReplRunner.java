@@ -8,26 +8,43 @@ import com.ledgerly.engine.ColumnDefinition;
 import com.ledgerly.engine.Condition;
 import com.ledgerly.engine.ConditionOperator;
 import com.ledgerly.engine.DataType;
+import com.ledgerly.engine.IndexDefinition;
+import com.ledgerly.engine.ImportFormat;
+import com.ledgerly.engine.IndexType;
 import com.ledgerly.engine.LedgerEngine;
+import com.ledgerly.engine.OrderBy;
+import com.ledgerly.engine.Page;
 import com.ledgerly.engine.RowPredicate;
+import com.ledgerly.engine.SortDirection;
 import com.ledgerly.engine.TableSchema;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Component
 @ConditionalOnProperty(value = "ledgerly.repl.enabled", havingValue = "true")
 public class ReplRunner implements CommandLineRunner {
 
+    private static final Pattern ORDER_CLAUSE = Pattern.compile("(?i)(.*?)\\s+order\\s+by\\s+(.+)");
+    private static final Pattern LIMIT_CLAUSE = Pattern.compile("(?i)(.*?)\\s+limit\\s+(\\d+)\\s*");
+    private static final Pattern WHERE_CLAUSE = Pattern.compile("(?i)(.*?)\\s+where\\s+(\\S+)\\s*");
+
     private final LedgerEngine engine;
     private final DomainService domain;
     private final ObjectMapper mapper = new ObjectMapper();
@@ -72,11 +89,15 @@ public class ReplRunner implements CommandLineRunner {
                 case "tables" -> engine.listTables().forEach(System.out::println);
                 case "describe" -> handleDescribe(rest);
                 case "create" -> handleCreate(rest);
+                case "index" -> handleIndex(rest);
+                case "indexes" -> handleIndexes(rest);
                 case "insert" -> handleInsert(rest);
+                case "load" -> handleLoad(rest);
                 case "select" -> handleSelect(rest);
                 case "update" -> handleUpdate(rest);
                 case "delete" -> handleDelete(rest);
                 case "join" -> handleJoin(rest);
+                case "checkpoint" -> System.out.println(engine.checkpoint() ? "Checkpoint written" : "Nothing to checkpoint");
                 case "merchant:create" -> handleMerchantCreate(rest);
                 case "tx:create" -> handleTxCreate(rest);
                 case "tx:get" -> handleTxGet(rest);
@@ -97,11 +118,15 @@ public class ReplRunner implements CommandLineRunner {
                 tables                     List tables
                 describe <table>           Show schema
                 create <table> <schema>    Create table
+                index <table> <name> <cols>  Create secondary index
+                indexes <table>            List secondary indexes
                 insert <table> <json>      Insert row
-                select <table> [cols] [filters]  Select rows
+                load <table> <file> [fmt]  Bulk load CSV/NDJSON file
+                select <table> [cols] [filters] [order by ..] [limit n]  Select rows
                 update <table> filters <json>    Update rows
                 delete <table> col=val     Delete rows
                 join <left> <right> <lCol> <rCol> [proj]  Join tables
+                checkpoint                 Snapshot tables and truncate WAL
 
                 \u001B[1m=== Domain ===\u001B[0m
                 merchant:create <json>     Create merchant
@@ -122,11 +147,15 @@ public class ReplRunner implements CommandLineRunner {
             case "tables" -> System.out.println("tables — list tables.");
             case "describe" -> System.out.println("describe <table> — show schema. Ex: describe customers");
             case "create" -> System.out.println("create <table> <schemaJson> — define table.\nEx: create demo {\"columns\":[{\"name\":\"id\",\"type\":\"INT\"},{\"name\":\"name\",\"type\":\"STRING\"}],\"primaryKey\":[\"id\"],\"unique\":[[\"name\"]]}");
+            case "index" -> System.out.println("index <table> <name> <col1,col2> [hash|ordered] [where col=val,...] — create a secondary index. Hash indexes serve equality filters; ordered indexes (one INT/TIMESTAMP column) also serve range filters. A where clause indexes only the matching rows, and the index serves queries that filter on the same values.\nEx: index transactions tx_merchant merchant_id\nEx: index transactions tx_created created_at ordered\nEx: index transactions tx_pending_merchant merchant_id where state=PENDING");
+            case "indexes" -> System.out.println("indexes <table> — list secondary indexes. Ex: indexes transactions");
             case "insert" -> System.out.println("insert <table> <json> — insert row.\nEx: insert customers {\"id\":1,\"name\":\"Alice\",\"created_at\":\"2024-01-01T00:00:00Z\"}");
-            case "select" -> System.out.println("select <table> [col1,col2] [col=val,...] — optional projection and filters.\nEx: select customers id,name id=1,state=ACTIVE");
+            case "load" -> System.out.println("load <table> <file> [csv|ndjson] — bulk insert a CSV file (header line of column names; empty field = null) or one JSON object per line, in batches of one commit each. The format defaults from the file extension.\nEx: load transactions /data/settlement.csv");
+            case "select" -> System.out.println("select <table> [col1,col2] [col=val,...] [order by col [asc|desc],...] [limit n] — optional projection, filters, sort and limit. Nulls sort first ascending and last descending.\nEx: select customers id,name id=1,state=ACTIVE\nEx: select transactions id,amount state=PENDING order by created_at desc limit 10");
             case "update" -> System.out.println("update <table> col=val,... <json> — update rows matching filters.\nEx: update customers id=1 {\"name\":\"Bob\"}");
             case "delete" -> System.out.println("delete <table> col=val — delete matching rows.\nEx: delete customers id=1");
             case "join" -> System.out.println("join <left> <right> <lCol> <rCol> [proj] — inner join.\nEx: join customers orders id customer_id customers.id,orders.amount");
+            case "checkpoint" -> System.out.println("checkpoint — write a snapshot of all tables and drop the WAL it covers, so the next start replays only newer events.");
             case "merchant:create" -> System.out.println("merchant:create <json> — create merchant.\nEx: merchant:create {\"id\":\"m1\",\"name\":\"Shop\",\"status\":\"ACTIVE\"}");
             case "tx:create" -> System.out.println("tx:create <json> — create transaction.\nEx: tx:create {\"id\":\"t1\",\"merchant_id\":\"m1\",\"amount\":1200,\"currency\":\"USD\"}");
             case "tx:get" -> System.out.println("tx:get <id> — fetch transaction.");
@@ -154,6 +183,32 @@ public class ReplRunner implements CommandLineRunner {
         System.out.println("Created table: " + table);
     }
 
+    private void handleIndex(String rest) {
+        String usage = "Usage: index <table> <name> <col1,col2> [hash|ordered] [where col=val,...]";
+        List<Condition> where = List.of();
+        Matcher whereClause = WHERE_CLAUSE.matcher(rest);
+        if (whereClause.matches()) {
+            where = parseFilters(whereClause.group(2)).conditions();
+            rest = whereClause.group(1).trim();
+        }
+        String[] parts = rest.isEmpty() ? new String[]{} : rest.split("\\s+");
+        if (parts.length != 3 && parts.length != 4) {
+            throw new IllegalArgumentException(usage);
+        }
+        List<String> cols = parseCsv(parts[2]);
+        if (cols == null) {
+            throw new IllegalArgumentException(usage);
+        }
+        IndexType type = parts.length == 4 ? IndexType.valueOf(parts[3].toUpperCase(Locale.ROOT)) : IndexType.HASH;
+        engine.createIndex(parts[0], new IndexDefinition(parts[1], cols, type, where));
+        System.out.println("Created index: " + parts[1]);
+    }
+
+    private void handleIndexes(String rest) {
+        String table = requireToken(rest, "indexes <table>");
+        printJson(engine.listIndexes(table));
+    }
+
     private void handleInsert(String rest) throws Exception {
         String table = requireToken(rest, "insert <table> <json>");
         String json = requireRemainder(afterFirst(rest), "insert <table> <json>");
@@ -164,8 +219,27 @@ public class ReplRunner implements CommandLineRunner {
 
     private void handleSelect(String rest) {
         SelectArgs args = parseSelect(rest);
-        var rows = engine.select(args.table(), args.columns(), args.predicate());
-        printJson(rows);
+        if (args.orderBy() == null && args.limit() == null) {
+            printJson(engine.select(args.table(), args.columns(), args.predicate()));
+            return;
+        }
+        List<OrderBy> orderBy = args.orderBy() == null ? List.of() : args.orderBy();
+        printJson(engine.select(args.table(), args.columns(), args.predicate(), orderBy,
+                new Page(0, args.limit(), null)));
+    }
+
+    private void handleLoad(String rest) throws IOException {
+        String usage = "load <table> <file> [csv|ndjson]";
+        String table = requireToken(rest, usage);
+        String[] args = requireRemainder(afterFirst(rest), usage).split("\\s+");
+        Path file = Path.of(args[0]);
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("File not found: " + file);
+        }
+        ImportFormat format = ImportFormat.resolve(args.length > 1 ? args[1] : null, file.getFileName().toString());
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            System.out.println("Loaded: " + engine.load(table, format, in));
+        }
     }
 
     private void handleUpdate(String rest) {
@@ -204,7 +278,7 @@ public class ReplRunner implements CommandLineRunner {
         domain.createTransaction(
                 (String) m.get("id"),
                 (String) m.get("merchant_id"),
-                ((Number) m.get("amount")).longValue(),
+                (Long) DataType.INT.coerce(m.get("amount")),
                 (String) m.get("currency"),
                 m.containsKey("expires_at") ? java.time.Instant.parse((String) m.get("expires_at")) : null,
                 (String) m.get("metadata"));
@@ -304,6 +378,18 @@ public class ReplRunner implements CommandLineRunner {
     }
 
     private SelectArgs parseSelect(String rest) {
+        Integer limit = null;
+        Matcher limitClause = LIMIT_CLAUSE.matcher(rest);
+        if (limitClause.matches()) {
+            rest = limitClause.group(1);
+            limit = Integer.parseInt(limitClause.group(2));
+        }
+        List<OrderBy> orderBy = null;
+        Matcher orderClause = ORDER_CLAUSE.matcher(rest);
+        if (orderClause.matches()) {
+            rest = orderClause.group(1);
+            orderBy = parseOrderBy(orderClause.group(2));
+        }
         String[] parts = rest.isEmpty() ? new String[]{} : rest.split("\\s+", 3);
         if (parts.length == 0) {
             throw new IllegalArgumentException("select <table> [cols] [col=val,...]");
@@ -317,7 +403,27 @@ public class ReplRunner implements CommandLineRunner {
         if (parts.length == 3 && !parts[2].isBlank()) {
             predicate = parseFilters(parts[2]);
         }
-        return new SelectArgs(table, cols, predicate);
+        return new SelectArgs(table, cols, predicate, orderBy, limit);
+    }
+
+    private List<OrderBy> parseOrderBy(String clause) {
+        List<OrderBy> orderBy = new ArrayList<>();
+        for (String key : clause.split(",")) {
+            String[] words = key.trim().split("\\s+");
+            if (words[0].isEmpty() || words.length > 2) {
+                throw new IllegalArgumentException("order by col [asc|desc],...");
+            }
+            SortDirection direction = SortDirection.ASC;
+            if (words.length == 2) {
+                try {
+                    direction = SortDirection.valueOf(words[1].toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException ex) {
+                    throw new IllegalArgumentException("Unsupported sort direction: " + words[1]);
+                }
+            }
+            orderBy.add(new OrderBy(words[0], direction));
+        }
+        return orderBy;
     }
 
     private UpdateArgs parseUpdate(String rest) {
@@ -424,15 +530,16 @@ public class ReplRunner implements CommandLineRunner {
         }
     }
 
-    private record SelectArgs(String table, List<String> columns, RowPredicate predicate) {}
+    private record SelectArgs(String table, List<String> columns, RowPredicate predicate, List<OrderBy> orderBy,
+                              Integer limit) {}
 
     private record UpdateArgs(String table, RowPredicate predicate, Map<String, Object> newValues) {}
 
     private record JoinArgs(String left, String right, String leftCol, String rightCol, List<String> projection) {}
 
     private void suggest(String raw) {
-        List<String> commands = List.of("help", "tables", "describe", "create", "insert", "select", "update", "delete",
-                "join", "merchant:create", "tx:create", "tx:get", "tx:list", "tx:outcome", "tx:expire", "quit");
+        List<String> commands = List.of("help", "tables", "describe", "create", "index", "indexes", "insert", "load", "select", "update", "delete",
+                "join", "checkpoint", "merchant:create", "tx:create", "tx:get", "tx:list", "tx:outcome", "tx:expire", "quit");
         String lower = raw.toLowerCase(Locale.ROOT);
         String best = null;
         int bestDist = Integer.MAX_VALUE;
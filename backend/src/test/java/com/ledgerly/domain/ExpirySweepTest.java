@@ -0,0 +1,107 @@
+package com.ledgerly.domain;
+
+import com.ledgerly.engine.LedgerEngine;
+import com.ledgerly.engine.persistence.FilePersistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExpirySweepTest {
+
+    @TempDir
+    Path dir;
+
+    private FilePersistence persistence;
+    private LedgerEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        persistence = new FilePersistence(dir);
+        engine = new LedgerEngine(persistence);
+    }
+
+    @AfterEach
+    void tearDown() {
+        persistence.close();
+    }
+
+    @Test
+    void overdueRowWrittenAroundTheServiceIsSweptAndExpired() throws InterruptedException {
+        DomainService domain = start(1);
+        Instant now = Instant.now();
+        insertPending("untracked-overdue", now.minusSeconds(60));
+        insertPending("untracked-future", now.plusSeconds(3_600));
+        // tracked by the service and overdue as well: swept again, but expired once
+        domain.createTransaction("tracked-overdue", "m1", 100, "KES", now.minusSeconds(60), null);
+        assertEquals(1, domain.expiryStats().get("tracked"));
+
+        Thread.sleep(5);
+        assertEquals(2, domain.expirePending());
+        assertEquals("EXPIRED", domain.getTransaction("untracked-overdue").get("state"));
+        assertEquals("EXPIRED", domain.getTransaction("tracked-overdue").get("state"));
+        assertEquals("PENDING", domain.getTransaction("untracked-future").get("state"));
+        assertEquals(2L, domain.expiryStats().get("swept_total"));
+        assertEquals(0, domain.expiryStats().get("tracked"));
+    }
+
+    @Test
+    void noSweepLeavesUntrackedRowsPending() throws InterruptedException {
+        DomainService domain = start(0);
+        insertPending("untracked-overdue", Instant.now().minusSeconds(60));
+
+        Thread.sleep(5);
+        assertEquals(0, domain.expirePending());
+        assertEquals("PENDING", domain.getTransaction("untracked-overdue").get("state"));
+
+        // until pending rows are tracked again, as at startup
+        domain.trackPendingExpiries();
+        assertEquals(1, domain.expirePending());
+        assertEquals("EXPIRED", domain.getTransaction("untracked-overdue").get("state"));
+    }
+
+    @Test
+    void startupPublishesOnlyOnceReplayedRowsAreTracked() {
+        DomainService domain = new DomainService(engine, 10, 0);
+        new DomainSchemaInitializer(engine, domain, event -> { }, false).ensureSchemas();
+        engine.insert("merchants", Map.of("id", "m1", "name", "m", "status", "ACTIVE", "created_at", Instant.now().toString()));
+        insertPending("replayed", Instant.now().plusSeconds(60));
+
+        List<Object> tracked = new ArrayList<>();
+        new DomainSchemaInitializer(engine, domain, event -> {
+            if (event instanceof PendingExpiriesTracked) {
+                tracked.add(domain.expiryStats().get("tracked"));
+            }
+        }, false).ensureSchemas();
+        assertEquals(List.of(1), tracked);
+    }
+
+    private DomainService start(long sweepMillis) {
+        DomainService domain = new DomainService(engine, 10, sweepMillis);
+        new DomainSchemaInitializer(engine, domain, event -> { }, false).ensureSchemas();
+        domain.createMerchant("m1", "Merchant", null);
+        return domain;
+    }
+
+    // as the table API, the REPL or a bulk load would write it: the expiry wheel is not told
+    private void insertPending(String id, Instant expiresAt) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("merchant_id", "m1");
+        row.put("amount", 100L);
+        row.put("currency", "KES");
+        row.put("state", TransactionState.PENDING.name());
+        row.put("created_at", Instant.now().toString());
+        row.put("expires_at", expiresAt.toString());
+        engine.insert("transactions", row);
+    }
+}
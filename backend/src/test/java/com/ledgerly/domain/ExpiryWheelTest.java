@@ -0,0 +1,75 @@
+package com.ledgerly.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExpiryWheelTest {
+
+    @Test
+    void overflowEntriesArePromotedAndPolledAtTheirDeadline() {
+        // ticks of 10 ms, a window of four ticks starting at tick 0
+        ExpiryWheel wheel = new ExpiryWheel(10, 4, 0);
+        wheel.add("a", 35);
+        // tick 4 is just past the window, tick 9 well past it; both park in the overflow
+        wheel.add("b", 45);
+        wheel.add("c", 95);
+        wheel.add("d", 96);
+        assertEquals(4, wheel.size());
+
+        // moving to tick 3 promotes tick 4 into the bucket tick 0 used, which must not be drained again early
+        assertEquals(List.of("a"), ids(wheel.pollDue(39)));
+        assertEquals(List.of(), ids(wheel.pollDue(44)));
+        assertEquals(List.of("b"), ids(wheel.pollDue(45)));
+        assertEquals(List.of(), ids(wheel.pollDue(94)));
+        // promoted together, polled by their own deadlines within the tick
+        assertEquals(List.of("c"), ids(wheel.pollDue(95)));
+        assertEquals(List.of("d"), ids(wheel.pollDue(99)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void idleLongerThanTheWindowReturnsEverythingDueAndKeepsTheRest() {
+        ExpiryWheel wheel = new ExpiryWheel(10, 4, 0);
+        wheel.add("in-window", 25);
+        wheel.add("overflow", 200);
+        wheel.add("at-now", 1_000);
+        wheel.add("in-now-tick", 1_005);
+        wheel.add("later", 1_500);
+
+        assertEquals(List.of("in-window", "overflow", "at-now"), ids(wheel.pollDue(1_000)));
+        assertEquals(2, wheel.size());
+        assertEquals(List.of("in-now-tick"), ids(wheel.pollDue(1_005)));
+        // promoted from the overflow on the way, not dropped
+        assertEquals(List.of("later"), ids(wheel.pollDue(1_500)));
+    }
+
+    @Test
+    void passedDeadlineIsDueOnTheNextPoll() {
+        ExpiryWheel wheel = new ExpiryWheel(10, 4, 1_000);
+        wheel.add("late", 500);
+        wheel.add("soon", 1_009);
+
+        assertEquals(List.of("late"), ids(wheel.pollDue(1_000)));
+        assertEquals(List.of("soon"), ids(wheel.pollDue(1_009)));
+    }
+
+    @Test
+    void clearDropsTrackedEntries() {
+        ExpiryWheel wheel = new ExpiryWheel(10, 4, 0);
+        wheel.add("a", 5);
+        wheel.add("b", 500);
+        wheel.clear();
+
+        assertEquals(0, wheel.size());
+        assertEquals(List.of(), ids(wheel.pollDue(1_000)));
+        assertThrows(IllegalArgumentException.class, () -> new ExpiryWheel(0, 4, 0));
+    }
+
+    private static List<String> ids(List<ExpiryWheel.Entry> entries) {
+        return entries.stream().map(ExpiryWheel.Entry::txId).toList();
+    }
+}
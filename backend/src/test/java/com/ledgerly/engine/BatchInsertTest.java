@@ -0,0 +1,143 @@
+package com.ledgerly.engine;
+
+import com.ledgerly.engine.persistence.FilePersistence;
+import com.ledgerly.engine.persistence.PersistenceEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchInsertTest {
+    private static final TableSchema SCHEMA = new TableSchema("payments",
+            List.of(new ColumnDefinition("id", DataType.INT, false),
+                    new ColumnDefinition("reference", DataType.STRING, false),
+                    new ColumnDefinition("merchant", DataType.STRING, false),
+                    new ColumnDefinition("amount", DataType.INT, false)),
+            List.of("id"), List.of(List.of("reference")));
+    private static final RowPredicate M2 = new RowPredicate(List.of(new Condition("merchant", ConditionOperator.EQ, "m2")));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void violationAnywhereInTheBatchRejectsAllOfIt() {
+        List<Map<String, Object>> before;
+        List<Map<String, Object>> totalsBefore;
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence);
+            Table table = engine.getTable("payments");
+            before = engine.select("payments", null, null);
+            totalsBefore = engine.queryView("payments", "totals", Map.of());
+            long nextRowId = table.nextRowId();
+
+            // primary key held by an existing row
+            assertRejected(engine, "Row 2: ", batch(row(10, "r10", "m1", 5), row(11, "r11", "m1", 5), row(1, "r12", "m1", 5)));
+            // primary key repeated within the batch
+            assertRejected(engine, "Row 3: ", batch(row(10, "r10", "m1", 5), row(11, "r11", "m2", 5),
+                    row(12, "r12", "m1", 5), row(10, "r13", "m1", 5)));
+            // unique reference, against the table and within the batch
+            assertRejected(engine, "Row 1: ", batch(row(10, "r10", "m1", 5), row(11, "r2", "m1", 5)));
+            assertRejected(engine, "Row 1: ", batch(row(10, "r10", "m1", 5), row(11, "r10", "m1", 5)));
+            // a missing required value and a value of the wrong type in the last row
+            Map<String, Object> missing = row(12, "r12", "m1", 5);
+            missing.remove("amount");
+            assertRejected(engine, "Row 2: ", batch(row(10, "r10", "m1", 5), row(11, "r11", "m1", 5), missing));
+            assertRejected(engine, "Row 1: ", batch(row(10, "r10", "m1", 5), row(11, "r11", "m1", "lots")));
+            // the view's SUM would overflow
+            assertRejected(engine, "", batch(row(10, "r10", "m1", Long.MAX_VALUE), row(11, "r11", "m1", 5)));
+
+            assertEquals(before, engine.select("payments", null, null));
+            assertEquals(totalsBefore, engine.queryView("payments", "totals", Map.of()));
+            try (Table.ReadView view = table.openView()) {
+                assertEquals(List.of(2L), view.candidates(M2));
+            }
+            // rejected batches took no row ids
+            assertEquals(nextRowId, table.nextRowId());
+            assertEquals(0, table.retainedVersions());
+        }
+        // and nothing of them reached the log
+        assertEquals(List.of(PersistenceEvent.EventType.CREATE_TABLE, PersistenceEvent.EventType.CREATE_INDEX,
+                PersistenceEvent.EventType.CREATE_VIEW, PersistenceEvent.EventType.INSERT_BATCH), loggedTypes());
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine replayed = new LedgerEngine(persistence);
+            assertEquals(before, replayed.select("payments", null, null));
+            assertEquals(totalsBefore, replayed.queryView("payments", "totals", Map.of()));
+        }
+    }
+
+    @Test
+    void acceptedBatchCommitsOnceAndIsLoggedAsOneRecord() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (long i = 10; i < 60; i++) {
+            rows.add(row(i, "r" + i, "m" + (i % 3 + 2), i));
+        }
+        List<Map<String, Object>> after;
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence);
+            Table table = engine.getTable("payments");
+            try (Table.ReadView view = table.openView()) {
+                engine.insertAll("payments", rows);
+
+                assertEquals(3, view.select(null, null, ScanMode.SEQUENTIAL).size());
+                assertEquals(53, engine.select("payments", null, null).size());
+            }
+            try (Table.ReadView view = table.openView()) {
+                // the batch's rows reached the secondary index too
+                assertEquals(17, view.candidates(M2).size());
+            }
+            after = engine.select("payments", null, null);
+        }
+        List<PersistenceEvent.EventType> types = loggedTypes();
+        assertEquals(PersistenceEvent.EventType.INSERT_BATCH, types.get(types.size() - 1));
+        assertEquals(PersistenceEvent.EventType.INSERT_BATCH, types.get(types.size() - 2));
+        assertEquals(5, types.size());
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            assertEquals(after, new LedgerEngine(persistence).select("payments", null, null));
+        }
+    }
+
+    private static LedgerEngine open(FilePersistence persistence) {
+        LedgerEngine engine = new LedgerEngine(persistence);
+        engine.createTable(SCHEMA);
+        engine.createIndex("payments", new IndexDefinition("by_merchant", List.of("merchant")));
+        engine.createView("payments", new MaterializedViewDefinition("totals", List.of("merchant"),
+                List.of(new Aggregate(AggregateFunction.SUM, "amount"))));
+        engine.insertAll("payments", batch(row(1, "r1", "m1", 100), row(2, "r2", "m2", 200), row(3, "r3", "m1", 300)));
+        return engine;
+    }
+
+    private static void assertRejected(LedgerEngine engine, String rowPrefix, List<Map<String, Object>> rows) {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> engine.insertAll("payments", rows));
+        assertTrue(error.getMessage().startsWith(rowPrefix), error.getMessage());
+    }
+
+    private List<PersistenceEvent.EventType> loggedTypes() {
+        List<PersistenceEvent.EventType> types = new ArrayList<>();
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            persistence.replay(event -> types.add(event.type()));
+        }
+        return types;
+    }
+
+    @SafeVarargs
+    private static List<Map<String, Object>> batch(Map<String, Object>... rows) {
+        return List.of(rows);
+    }
+
+    private static Map<String, Object> row(long id, String reference, String merchant, Object amount) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("reference", reference);
+        row.put("merchant", merchant);
+        row.put("amount", amount instanceof Integer i ? (long) i : amount);
+        return row;
+    }
+}
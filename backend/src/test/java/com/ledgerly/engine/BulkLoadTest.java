@@ -0,0 +1,179 @@
+package com.ledgerly.engine;
+
+import com.ledgerly.engine.persistence.FilePersistence;
+import com.ledgerly.engine.persistence.PersistenceEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkLoadTest {
+    private static final TableSchema SCHEMA = new TableSchema("payments",
+            List.of(new ColumnDefinition("id", DataType.INT, false),
+                    new ColumnDefinition("note", DataType.STRING, true),
+                    new ColumnDefinition("amount", DataType.INT, false)),
+            List.of("id"), List.of());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void csvQuotingNullsAndBlankLines() {
+        String csv = "id,note,amount\r\n"
+                + "1,plain,10\r\n"
+                + "\r\n"
+                + "2,\"a, b\",20\n"
+                + "3,\"two\nlines\",30\n"
+                + "4,\"say \"\"hi\"\"\",40\n"
+                + "5,,50\n"
+                + "6,\"\",60";
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence);
+
+            assertEquals(6, engine.load("payments", ImportFormat.CSV, new StringReader(csv)));
+            assertEquals(List.of("plain", "a, b", "two\nlines", "say \"hi\""), notes(engine).subList(0, 4));
+            // an empty unquoted field is null, an empty quoted one the empty string
+            assertNull(notes(engine).get(4));
+            assertEquals("", notes(engine).get(5));
+            // CSV text is coerced like any inserted value
+            assertEquals(60L, engine.getByKey("payments", Map.of("id", 6L)).orElseThrow().get("amount"));
+        }
+    }
+
+    @Test
+    void ndjsonSkipsBlankLines() {
+        String ndjson = "{\"id\": 1, \"note\": \"x\", \"amount\": 10}\n"
+                + "\n"
+                + "{\"id\": 2, \"note\": null, \"amount\": 20}\n"
+                + "{\"id\": 3, \"amount\": \"30\"}\n";
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence);
+
+            assertEquals(3, engine.load("payments", ImportFormat.NDJSON, new StringReader(ndjson)));
+            assertEquals(Arrays.asList("x", null, null), notes(engine));
+            assertEquals(30L, engine.getByKey("payments", Map.of("id", 3L)).orElseThrow().get("amount"));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 9_999, 10_000, 10_001, 25_000})
+    void eachFullBatchAndTheRemainderIsOneLogRecord(int rows) {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence);
+
+            assertEquals(rows, engine.load("payments", ImportFormat.CSV, new StringReader(csv(rows, -1))));
+            assertEquals(rows, engine.select("payments", null, null).size());
+        }
+        List<Integer> batches = new ArrayList<>();
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            persistence.replay(event -> {
+                if (event.type() == PersistenceEvent.EventType.INSERT_BATCH) {
+                    batches.add(event.rows().size());
+                }
+            });
+        }
+        List<Integer> expected = new ArrayList<>();
+        for (int left = rows; left > 0; left -= 10_000) {
+            expected.add(Math.min(left, 10_000));
+        }
+        assertEquals(expected, batches);
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            assertEquals(rows, new LedgerEngine(persistence).select("payments", null, null).size());
+        }
+    }
+
+    @Test
+    void badRowStopsTheLoadKeepingEarlierBatches() {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence);
+
+            // row 20005, counted from 0, repeats the key of row 0
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                    () -> engine.load("payments", ImportFormat.CSV, new StringReader(csv(25_000, 20_005))));
+            assertEquals("Row 20005: Unique constraint violation on [id] (20000 rows loaded before it)", error.getMessage());
+            // the third batch went nowhere
+            assertEquals(20_000, engine.select("payments", null, null).size());
+            assertEquals(20_001, engine.getTable("payments").nextRowId());
+        }
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            assertEquals(20_000, new LedgerEngine(persistence).select("payments", null, null).size());
+        }
+    }
+
+    @Test
+    void malformedInputReportsItsLine() {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence);
+
+            IllegalArgumentException fields = assertThrows(IllegalArgumentException.class, () -> engine.load("payments",
+                    ImportFormat.CSV, new StringReader("id,note,amount\n1,a,10\n2,b\n")));
+            assertEquals("Line 3: expected 3 fields but found 2 (0 rows loaded before it)", fields.getMessage());
+            IllegalArgumentException quote = assertThrows(IllegalArgumentException.class, () -> engine.load("payments",
+                    ImportFormat.CSV, new StringReader("id,note,amount\n1,\"open,10\n2,b,20\n")));
+            // reported where the quote opened, however much input it swallowed
+            assertEquals("Line 2: unterminated quoted field (0 rows loaded before it)", quote.getMessage());
+            IllegalArgumentException array = assertThrows(IllegalArgumentException.class, () -> engine.load("payments",
+                    ImportFormat.NDJSON, new StringReader("{\"id\": 1, \"amount\": 1}\n\n[1]\n")));
+            assertEquals("Line 3: expected a JSON object (0 rows loaded before it)", array.getMessage());
+            assertEquals(List.of(), engine.select("payments", null, null));
+        }
+    }
+
+    @Test
+    void failingReaderIsAnIllegalState() {
+        Reader broken = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("Connection reset");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence);
+
+            IllegalStateException error = assertThrows(IllegalStateException.class,
+                    () -> engine.load("payments", ImportFormat.NDJSON, broken));
+            assertEquals("Failed to read rows for payments after 0 rows", error.getMessage());
+            assertEquals("Connection reset", error.getCause().getMessage());
+        }
+    }
+
+    private static LedgerEngine open(FilePersistence persistence) {
+        LedgerEngine engine = new LedgerEngine(persistence);
+        engine.createTable(SCHEMA);
+        return engine;
+    }
+
+    // ids 0 to rows - 1, except that row {@code duplicate} reuses id 0
+    private static String csv(int rows, int duplicate) {
+        StringBuilder out = new StringBuilder("id,note,amount\n");
+        for (int i = 0; i < rows; i++) {
+            out.append(i == duplicate ? 0 : i).append(",n").append(i % 7).append(',').append(i).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static List<Object> notes(LedgerEngine engine) {
+        List<Object> notes = new ArrayList<>();
+        for (Map<String, Object> row : engine.select("payments", null, null)) {
+            notes.add(row.get("note"));
+        }
+        return notes;
+    }
+}
@@ -0,0 +1,148 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnStoreTest {
+    private ColumnStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ColumnStore(new TableSchema("payments",
+                List.of(new ColumnDefinition("id", DataType.INT, false),
+                        new ColumnDefinition("amount", DataType.INT, true),
+                        new ColumnDefinition("settled_at", DataType.TIMESTAMP, true),
+                        new ColumnDefinition("note", DataType.STRING, true)),
+                List.of("id"), List.of()));
+    }
+
+    @Test
+    void freedSlotsAreHandedOutAgainBeforeNewOnes() {
+        for (long i = 0; i < 4; i++) {
+            assertEquals(i, store.insert(row(i, i * 10, 1_000L + i, "n" + i)));
+        }
+        store.free(1);
+        store.free(3);
+
+        // last freed, first reused
+        assertEquals(3, store.insert(row(7L, null, null, null)));
+        assertEquals(1, store.insert(row(8L, 80L, 1_008L, "n8")));
+        assertEquals(4, store.insert(row(9L, 90L, 1_009L, "n9")));
+        assertArrayEquals(row(7L, null, null, null), store.read(3));
+        assertArrayEquals(row(8L, 80L, 1_008L, "n8"), store.read(1));
+        // slots that were never freed keep their values
+        assertArrayEquals(row(2L, 20L, 1_002L, "n2"), store.read(2));
+    }
+
+    @Test
+    void recycledSlotDropsTheNullsOfItsPreviousRow() {
+        int slot = store.insert(row(1L, null, null, null));
+        store.free(slot);
+        assertEquals(slot, store.insert(row(2L, 0L, 0L, "")));
+
+        assertArrayEquals(row(2L, 0L, 0L, ""), store.read(slot));
+        ColumnStore.LongVector amounts = (ColumnStore.LongVector) store.vector(store.ordinal("amount"));
+        assertFalse(amounts.isNull(slot));
+        assertEquals(0L, amounts.longAt(slot));
+    }
+
+    @Test
+    void nullBitmapKeepsNeighbouringSlotsApartAcrossWordsAndGrowth() {
+        // 2500 slots outgrow the initial 1024 twice; every third amount is null
+        for (long i = 0; i < 2500; i++) {
+            store.insert(row(i, i % 3 == 0 ? null : i, null, null));
+        }
+        ColumnStore.LongVector amounts = (ColumnStore.LongVector) store.vector(store.ordinal("amount"));
+        for (int slot = 0; slot < 2500; slot++) {
+            assertEquals(slot % 3 == 0, amounts.isNull(slot), "slot " + slot);
+            assertEquals(slot % 3 == 0 ? null : (long) slot, store.value(slot, store.ordinal("amount")));
+        }
+        // the bits on either side of a word boundary belong to different slots
+        for (int slot : new int[]{31, 32, 63, 64, 1023, 1024}) {
+            boolean wasNull = amounts.isNull(slot);
+            store.free(slot);
+            store.insert(row((long) slot, wasNull ? (long) slot : null, null, null));
+            assertEquals(!wasNull, amounts.isNull(slot), "slot " + slot);
+            assertEquals((slot - 1) % 3 == 0, amounts.isNull(slot - 1), "slot " + (slot - 1));
+            assertEquals((slot + 1) % 3 == 0, amounts.isNull(slot + 1), "slot " + (slot + 1));
+            store.free(slot);
+            store.insert(row((long) slot, wasNull ? null : (long) slot, null, null));
+        }
+    }
+
+    @Test
+    void zeroIsAValueNotANull() {
+        int zero = store.insert(row(0L, 0L, 0L, null));
+        int empty = store.insert(row(1L, null, null, null));
+
+        assertEquals(0L, store.value(zero, store.ordinal("amount")));
+        assertEquals(0L, store.value(zero, store.ordinal("settled_at")));
+        assertNull(store.value(empty, store.ordinal("amount")));
+        assertNull(store.value(empty, store.ordinal("settled_at")));
+        assertTrue(((ColumnStore.LongVector) store.vector(store.ordinal("settled_at"))).isNull(empty));
+    }
+
+    @Test
+    void dictionaryHoldsUpToItsLimitOfDistinctValues() {
+        int note = store.ordinal("note");
+        for (long i = 0; i < ColumnStore.MAX_DICTIONARY_SIZE; i++) {
+            store.insert(row(i, null, null, "note" + i));
+        }
+        ColumnStore.Dictionary dictionary = store.dictionary(note);
+        assertEquals(ColumnStore.MAX_DICTIONARY_SIZE, dictionary.size());
+
+        // nulls and values it already holds do not count against the limit
+        store.insert(row(-1L, null, null, null));
+        store.insert(row(-2L, null, null, "note0"));
+        assertSame(dictionary, store.dictionary(note));
+        assertEquals(ColumnStore.MAX_DICTIONARY_SIZE, dictionary.size());
+    }
+
+    @Test
+    void oneDistinctValueTooManySwitchesToPlainStringsForGood() {
+        int note = store.ordinal("note");
+        List<Integer> slots = new ArrayList<>();
+        // slot 0 holds a null, the rest one distinct value each
+        for (long i = 0; i <= ColumnStore.MAX_DICTIONARY_SIZE; i++) {
+            slots.add(store.insert(row(i, null, null, i == 0 ? null : "note" + i)));
+        }
+        ColumnStore.Dictionary captured = store.dictionary(note);
+        assertNotNull(captured);
+
+        long over = ColumnStore.MAX_DICTIONARY_SIZE + 1L;
+        slots.add(store.insert(row(over, null, null, "note" + over)));
+        assertNull(store.dictionary(note));
+        assertEquals(ColumnStore.MAX_DICTIONARY_SIZE, captured.size());
+
+        for (int i = 0; i < slots.size(); i++) {
+            assertEquals(i == 0 ? null : "note" + i, store.value(slots.get(i), note), "slot " + slots.get(i));
+        }
+        // a dictionary captured before the switch still answers for every slot it held
+        assertNull(captured.get(slots.get(0)));
+        assertEquals("note1", captured.get(slots.get(1)));
+
+        // a column that fell back stays plain even once it holds few values again
+        for (int slot : slots) {
+            store.free(slot);
+        }
+        int slot = store.insert(row(0L, null, null, "note1"));
+        assertNull(store.dictionary(note));
+        assertEquals("note1", store.value(slot, note));
+    }
+
+    private static Object[] row(Long id, Long amount, Long settledAt, String note) {
+        return Arrays.asList(id, amount, settledAt, note).toArray();
+    }
+}
@@ -0,0 +1,200 @@
+package com.ledgerly.engine;
+
+import com.ledgerly.engine.persistence.FilePersistence;
+import com.ledgerly.engine.persistence.PersistenceEvent;
+import com.ledgerly.engine.persistence.WalRecordMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompareAndSetTest {
+    private static final TableSchema PAYMENTS = new TableSchema("payments",
+            List.of(new ColumnDefinition("id", DataType.INT, false),
+                    new ColumnDefinition("state", DataType.STRING, false),
+                    new ColumnDefinition("amount", DataType.INT, false)),
+            List.of("id"), List.of());
+    private static final TableSchema OUTCOMES = new TableSchema("outcomes",
+            List.of(new ColumnDefinition("payment_id", DataType.INT, false),
+                    new ColumnDefinition("reporter", DataType.STRING, false)),
+            List.of("payment_id", "reporter"), List.of());
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 200;
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(WalRecordMode.class)
+    void racingSwapsOnOneRowHaveOneWinnerAndLosersSeeItsRow(WalRecordMode mode) throws Exception {
+        List<Map<String, Object>> rows;
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence, mode);
+            for (long round = 0; round < ROUNDS; round++) {
+                long id = round;
+                engine.insert("payments", Map.of("id", id, "state", "PENDING", "amount", 0L));
+                List<CompareAndSetResult> results = race(thread -> engine.compareAndSet("payments", Map.of("id", id),
+                        Map.of("state", "PENDING"), Map.of("state", "S" + thread)));
+
+                List<CompareAndSetResult> winners = results.stream().filter(CompareAndSetResult::isMatched).toList();
+                assertEquals(1, winners.size(), "round " + round);
+                Object state = engine.getByKey("payments", Map.of("id", id)).orElseThrow().get("state");
+                assertEquals(state, winners.get(0).getRow().get("state"));
+                for (CompareAndSetResult result : results) {
+                    // a loser gets the row as the winner left it, to decide whether to retry
+                    assertEquals(state, result.getRow().get("state"));
+                }
+                assertEquals(1, engine.getTable("payments").versionCount(engine.getTable("payments").nextRowId() - 1));
+            }
+            rows = engine.select("payments", null, null);
+        }
+        // only the winners were logged, so replay lands on the same states
+        List<PersistenceEvent> logged = logged();
+        assertEquals(ROUNDS, logged.stream().filter(event -> event.type() == PersistenceEvent.EventType.UPDATE
+                || event.type() == PersistenceEvent.EventType.UPDATE_ROWS).count());
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            assertEquals(rows, new LedgerEngine(persistence, 0, mode).select("payments", null, null));
+        }
+    }
+
+    @Test
+    void loserRetryingFromTheRowItGotLosesNoIncrement() throws Exception {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence, WalRecordMode.PHYSICAL);
+            engine.insert("payments", Map.of("id", 1L, "state", "PENDING", "amount", 0L));
+            race(thread -> {
+                Map<String, Object> row = engine.getByKey("payments", Map.of("id", 1L)).orElseThrow();
+                for (int i = 0; i < ROUNDS; i++) {
+                    while (true) {
+                        long amount = (Long) row.get("amount");
+                        CompareAndSetResult result = engine.compareAndSet("payments", Map.of("id", 1L),
+                                Map.of("amount", amount), Map.of("amount", amount + 1));
+                        row = result.getRow();
+                        if (result.isMatched()) {
+                            break;
+                        }
+                    }
+                }
+                return null;
+            });
+
+            assertEquals((long) THREADS * ROUNDS, engine.getByKey("payments", Map.of("id", 1L)).orElseThrow().get("amount"));
+            assertEquals(1, engine.getTable("payments").versionCount(1));
+        }
+    }
+
+    @Test
+    void losingSwapInATransactionDiscardsItsOtherWrites() throws Exception {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence, WalRecordMode.PHYSICAL);
+            for (long id = 0; id < ROUNDS; id++) {
+                engine.insert("payments", Map.of("id", id, "state", "PENDING", "amount", 0L));
+            }
+            for (long round = 0; round < ROUNDS; round++) {
+                long id = round;
+                // the transition and the reporter's outcome row commit together or not at all
+                List<Boolean> reported = race(thread -> {
+                    try {
+                        engine.inTransaction(List.of("outcomes", "payments"), tx -> {
+                            tx.insert("outcomes", Map.of("payment_id", id, "reporter", "r" + thread));
+                            CompareAndSetResult transition = tx.compareAndSet("payments", Map.of("id", id),
+                                    Map.of("state", "PENDING"), Map.of("state", "SUCCESS"));
+                            if (!transition.isMatched()) {
+                                throw new IllegalArgumentException("Transaction not pending");
+                            }
+                            return null;
+                        });
+                        return true;
+                    } catch (IllegalArgumentException ex) {
+                        assertEquals("Transaction not pending", ex.getMessage());
+                        return false;
+                    }
+                });
+                assertEquals(1, reported.stream().filter(Boolean::booleanValue).count(), "round " + round);
+            }
+            assertEquals(ROUNDS, engine.select("outcomes", null, null).size());
+            assertEquals(0, engine.getTable("outcomes").retainedVersions());
+            assertEquals(0, engine.getTable("payments").retainedVersions());
+        }
+        // one record per winning transaction and none for the losers
+        assertEquals(ROUNDS, logged().stream().filter(event -> event.type() == PersistenceEvent.EventType.TRANSACTION).count());
+    }
+
+    @Test
+    void missingKeyOrStaleExpectationChangesAndLogsNothing() {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence, WalRecordMode.PHYSICAL);
+            engine.insert("payments", Map.of("id", 1L, "state", "SUCCESS", "amount", 5L));
+
+            CompareAndSetResult missing = engine.compareAndSet("payments", Map.of("id", 2L),
+                    Map.of("state", "PENDING"), Map.of("state", "FAILED"));
+            assertFalse(missing.isMatched());
+            assertNull(missing.getRow());
+            CompareAndSetResult stale = engine.compareAndSet("payments", Map.of("id", 1L),
+                    Map.of("state", "PENDING"), Map.of("state", "FAILED"));
+            assertFalse(stale.isMatched());
+            assertEquals(Map.of("id", 1L, "state", "SUCCESS", "amount", 5L), stale.getRow());
+            assertEquals(1, engine.getTable("payments").versionCount(1));
+        }
+        assertTrue(logged().stream().noneMatch(event -> event.type() == PersistenceEvent.EventType.UPDATE_ROWS));
+    }
+
+    private static LedgerEngine open(FilePersistence persistence, WalRecordMode mode) {
+        LedgerEngine engine = new LedgerEngine(persistence, 0, mode);
+        engine.createTable(PAYMENTS);
+        engine.createTable(OUTCOMES);
+        return engine;
+    }
+
+    // runs task(thread) on THREADS threads released together and returns their results
+    private static <T> List<T> race(ThreadTask<T> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int n = thread;
+                Callable<T> call = () -> {
+                    start.await();
+                    return task.run(n);
+                };
+                futures.add(pool.submit(call));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<PersistenceEvent> logged() {
+        List<PersistenceEvent> events = new ArrayList<>();
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            persistence.replay(events::add);
+        }
+        return events;
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask<T> {
+        T run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,94 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledPredicateTest {
+    private static final TableSchema SCHEMA = new TableSchema("payments",
+            List.of(new ColumnDefinition("id", DataType.INT, false),
+                    new ColumnDefinition("amount", DataType.INT, true),
+                    new ColumnDefinition("state", DataType.STRING, true),
+                    new ColumnDefinition("paid_at", DataType.TIMESTAMP, true)),
+            List.of("id"), List.of());
+
+    private ColumnStore store;
+    private int filled;
+    private int empty;
+
+    @BeforeEach
+    void setUp() {
+        store = new ColumnStore(SCHEMA);
+        filled = store.insert(store.toArray(Map.of("id", 1L, "amount", 500L, "state", "PENDING",
+                "paid_at", DataType.TIMESTAMP.coerce("2026-01-01T00:00:00Z"))));
+        Map<String, Object> nulls = new HashMap<>();
+        nulls.put("id", 2L);
+        empty = store.insert(store.toArray(nulls));
+    }
+
+    @Test
+    void unknownColumnIsRejectedBeforeAnyRowIsRead() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> compile(new Condition("amout", ConditionOperator.EQ, 1L)));
+        assertEquals("Unknown column: amout", ex.getMessage());
+    }
+
+    @Test
+    void valuesThatDoNotFitTheColumnAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> compile(new Condition("amount", ConditionOperator.GT, "ten")));
+        assertThrows(IllegalArgumentException.class, () -> compile(new Condition("amount", ConditionOperator.EQ, 12.5)));
+        assertThrows(IllegalArgumentException.class, () -> compile(new Condition("paid_at", ConditionOperator.LT, "yesterday")));
+        assertThrows(IllegalArgumentException.class, () -> compile(new Condition("amount", ConditionOperator.EQ, null)));
+    }
+
+    @Test
+    void timestampFiltersAcceptIsoStrings() {
+        CompiledPredicate before = compile(new Condition("paid_at", ConditionOperator.LT, "2026-01-02T00:00:00Z"));
+        assertTrue(before.test(filled));
+        assertEquals(1767312000000L, before.conditions().get(0).getValue());
+    }
+
+    @Test
+    void nullValuesNeverMatchAComparison() {
+        for (ConditionOperator op : List.of(ConditionOperator.EQ, ConditionOperator.NEQ, ConditionOperator.LT,
+                ConditionOperator.LTE, ConditionOperator.GT, ConditionOperator.GTE)) {
+            assertFalse(compile(new Condition("amount", op, 500L)).test(empty), "amount " + op);
+            assertFalse(compile(new Condition("state", op, "PENDING")).test(empty), "state " + op);
+            assertFalse(compile(new Condition("paid_at", op, 0L)).test(empty), "paid_at " + op);
+        }
+        assertTrue(compile(new Condition("amount", ConditionOperator.IS_NULL, null)).test(empty));
+        assertTrue(compile(new Condition("state", ConditionOperator.IS_NULL, null)).test(empty));
+        assertFalse(compile(new Condition("state", ConditionOperator.IS_NOT_NULL, null)).test(empty));
+        assertTrue(compile(new Condition("state", ConditionOperator.IS_NOT_NULL, null)).test(filled));
+    }
+
+    @Test
+    void typedComparisonsMatchLikeTheValues() {
+        assertTrue(compile(new Condition("amount", ConditionOperator.GTE, 500L)).test(filled));
+        assertFalse(compile(new Condition("amount", ConditionOperator.GT, 500L)).test(filled));
+        assertTrue(compile(new Condition("state", ConditionOperator.NEQ, "SUCCESS")).test(filled));
+        assertTrue(compile(new Condition("state", ConditionOperator.LT, "SUCCESS")).test(filled));
+        assertTrue(compile(new Condition("amount", ConditionOperator.EQ, 500L),
+                new Condition("state", ConditionOperator.EQ, "PENDING")).test(filled));
+    }
+
+    @Test
+    void equalityWithAValueNoRowHeldMatchesNothing() {
+        CompiledPredicate absent = compile(new Condition("state", ConditionOperator.EQ, "REFUNDED"));
+        assertTrue(absent.matchesNothing());
+        assertFalse(absent.test(filled));
+        assertFalse(compile(new Condition("state", ConditionOperator.NEQ, "REFUNDED")).matchesNothing());
+    }
+
+    private CompiledPredicate compile(Condition... conditions) {
+        return CompiledPredicate.compile(new RowPredicate(List.of(conditions)), store);
+    }
+}
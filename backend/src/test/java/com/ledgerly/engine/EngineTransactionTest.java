@@ -0,0 +1,154 @@
+package com.ledgerly.engine;
+
+import com.ledgerly.engine.persistence.Persistence;
+import com.ledgerly.engine.persistence.PersistenceEvent;
+import com.ledgerly.engine.persistence.Snapshot;
+import com.ledgerly.engine.persistence.WalRecordMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EngineTransactionTest {
+    private static final TableSchema SCHEMA = new TableSchema("accounts",
+            List.of(new ColumnDefinition("id", DataType.INT, false), new ColumnDefinition("balance", DataType.INT, false)),
+            List.of("id"), List.of());
+    private static final RowPredicate FIRST = new RowPredicate(List.of(new Condition("id", ConditionOperator.EQ, 1L)));
+
+    private final MemoryLog log = new MemoryLog();
+    private LedgerEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new LedgerEngine(log, 0, WalRecordMode.PHYSICAL);
+        engine.createTable(SCHEMA);
+        engine.insert("accounts", Map.of("id", 1L, "balance", 100L));
+        engine.insert("accounts", Map.of("id", 2L, "balance", 50L));
+    }
+
+    @Test
+    void readersSeeNoStatementBeforeCommit() {
+        engine.inTransaction(List.of("accounts"), tx -> {
+            tx.update("accounts", FIRST, Map.of("balance", 70L));
+            tx.insert("accounts", Map.of("id", 3L, "balance", 30L));
+
+            assertEquals(70L, tx.getByKey("accounts", Map.of("id", 1L)).get("balance"));
+            assertEquals(3, tx.select("accounts", null, null).size());
+            assertEquals(100L, engine.getByKey("accounts", Map.of("id", 1L)).orElseThrow().get("balance"));
+            assertEquals(2, engine.select("accounts", null, null).size());
+            return null;
+        });
+        assertEquals(70L, engine.getByKey("accounts", Map.of("id", 1L)).orElseThrow().get("balance"));
+        assertEquals(3, engine.select("accounts", null, null).size());
+        assertEquals(PersistenceEvent.EventType.TRANSACTION, log.events.get(log.events.size() - 1).type());
+    }
+
+    @Test
+    void rollbackLeavesTheTableAsItWas() {
+        Table table = engine.getTable("accounts");
+        List<Map<String, Object>> before = engine.select("accounts", null, null);
+        long nextRowId = table.nextRowId();
+        int logged = log.events.size();
+
+        assertThrows(IllegalArgumentException.class, () -> engine.inTransaction(List.of("accounts"), tx -> {
+            tx.delete("accounts", FIRST);
+            tx.insert("accounts", Map.of("id", 1L, "balance", 1L));
+            tx.update("accounts", new RowPredicate(List.of(new Condition("id", ConditionOperator.EQ, 2L))),
+                    Map.of("balance", 0L));
+            throw new IllegalArgumentException("abort");
+        }));
+
+        assertEquals(before, engine.select("accounts", null, null));
+        assertEquals(nextRowId, table.nextRowId());
+        assertEquals(logged, log.events.size());
+        // the deleted row kept its id and version, and nothing staged is left to collect
+        assertEquals(1, table.versionCount(1));
+        assertEquals(1, table.versionCount(2));
+        assertEquals(0, table.versionCount(nextRowId));
+        assertEquals(0, table.retainedVersions());
+
+        engine.insert("accounts", Map.of("id", 3L, "balance", 30L));
+        assertEquals(1, table.versionCount(nextRowId));
+    }
+
+    @Test
+    void failedStatementPreventsCommit() {
+        assertThrows(IllegalStateException.class, () -> engine.inTransaction(List.of("accounts"), tx -> {
+            tx.update("accounts", FIRST, Map.of("balance", 70L));
+            try {
+                tx.insert("accounts", Map.of("id", 2L, "balance", 0L));
+            } catch (IllegalArgumentException duplicate) {
+                // swallowing the failure does not let the rest of the transaction commit
+            }
+            return null;
+        }));
+        assertEquals(100L, engine.getByKey("accounts", Map.of("id", 1L)).orElseThrow().get("balance"));
+    }
+
+    @Test
+    void directWriteToATableInTheTransactionIsRejected() {
+        assertThrows(IllegalStateException.class, () -> engine.inTransaction(List.of("accounts"), tx -> {
+            engine.insert("accounts", Map.of("id", 3L, "balance", 30L));
+            return null;
+        }));
+        assertTrue(engine.getByKey("accounts", Map.of("id", 3L)).isEmpty());
+    }
+
+    @Test
+    void replayAppliesTheTransactionWhole() {
+        engine.inTransaction(List.of("accounts"), tx -> {
+            tx.delete("accounts", FIRST);
+            tx.insert("accounts", Map.of("id", 1L, "balance", 5L));
+            return null;
+        });
+        LedgerEngine replayed = new LedgerEngine(new MemoryLog(log.events), 0, WalRecordMode.PHYSICAL);
+
+        assertEquals(engine.select("accounts", null, null), replayed.select("accounts", null, null));
+        assertEquals(engine.getTable("accounts").nextRowId(), replayed.getTable("accounts").nextRowId());
+    }
+
+    private static final class MemoryLog implements Persistence {
+        final List<PersistenceEvent> events;
+
+        MemoryLog() {
+            this(List.of());
+        }
+
+        MemoryLog(List<PersistenceEvent> events) {
+            this.events = new ArrayList<>(events);
+        }
+
+        @Override
+        public Optional<Snapshot> loadSnapshot() {
+            return Optional.empty();
+        }
+
+        @Override
+        public void replay(Consumer<PersistenceEvent> consumer) {
+            List.copyOf(events).forEach(consumer);
+        }
+
+        @Override
+        public void appendEvent(PersistenceEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public long sealSegment() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void writeSnapshot(Snapshot snapshot) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
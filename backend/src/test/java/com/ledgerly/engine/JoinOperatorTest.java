@@ -0,0 +1,152 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JoinOperatorTest {
+    private Table payments;
+    private Table merchants;
+
+    @BeforeEach
+    void setUp() {
+        payments = new Table(new TableSchema("payments",
+                List.of(new ColumnDefinition("id", DataType.INT, false),
+                        new ColumnDefinition("merchant", DataType.STRING, true),
+                        new ColumnDefinition("merchant_no", DataType.INT, true)),
+                List.of("id"), List.of()));
+        merchants = new Table(new TableSchema("merchants",
+                List.of(new ColumnDefinition("id", DataType.INT, false),
+                        new ColumnDefinition("code", DataType.STRING, true),
+                        new ColumnDefinition("number", DataType.INT, true)),
+                List.of("id"), List.of()));
+        for (long i = 0; i < 200; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            // every 7th merchant and every 5th number is null; m12 and number 10 have no merchant row
+            row.put("merchant", i % 7 == 0 ? null : "m" + i % 13);
+            row.put("merchant_no", i % 5 == 0 ? null : i % 11);
+            payments.insert(row);
+        }
+        for (long i = 0; i < 12; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            // m3 and number 3 are listed twice, and one merchant has neither
+            row.put("code", i == 11 ? null : "m" + (i == 10 ? 3 : i));
+            row.put("number", i == 11 ? null : i == 10 ? 3L : i);
+            merchants.insert(row);
+        }
+    }
+
+    @Test
+    void hashJoinOnLongKeysMatchesNestedLoop() {
+        try (Table.ReadView p = payments.openView(); Table.ReadView m = merchants.openView()) {
+            assertFalse(m.hasEqualityIndex("number") || p.hasEqualityIndex("merchant_no"));
+            assertNull(p.dictionary("merchant_no"));
+        }
+        assertJoinMatchesOracle("merchant_no", "number");
+        assertJoinMatchesOracle("merchant_no", "number", "merchants.code", "payments.id");
+    }
+
+    @Test
+    void codedHashJoinMatchesNestedLoop() {
+        try (Table.ReadView p = payments.openView(); Table.ReadView m = merchants.openView()) {
+            assertNotNull(p.dictionary("merchant"));
+            assertNotNull(m.dictionary("code"));
+        }
+        assertJoinMatchesOracle("merchant", "code");
+        // a value only one side holds has a code there and none in the other dictionary
+        payments.insert(Map.of("id", 500L, "merchant", "m99"));
+        merchants.insert(Map.of("id", 500L, "code", "m98"));
+        assertJoinMatchesOracle("merchant", "code");
+    }
+
+    @Test
+    void stringHashJoinWithoutDictionaryMatchesNestedLoop() {
+        // past 1024 distinct values the column falls back to plain strings for good
+        for (long i = 1000; i < 2100; i++) {
+            merchants.insert(Map.of("id", i, "code", "filler" + i));
+        }
+        merchants.delete(new RowPredicate(List.of(new Condition("id", ConditionOperator.GTE, 1000L))));
+        try (Table.ReadView m = merchants.openView()) {
+            assertNull(m.dictionary("code"));
+        }
+        assertJoinMatchesOracle("merchant", "code");
+    }
+
+    @Test
+    void indexNestedLoopJoinMatchesNestedLoopFromEitherSide() {
+        merchants.createIndex(new IndexDefinition("by_code", List.of("code")));
+        try (Table.ReadView m = merchants.openView()) {
+            assertTrue(m.hasEqualityIndex("code"));
+        }
+        assertJoinMatchesOracle("merchant", "code");
+
+        payments.createIndex(new IndexDefinition("by_merchant_no", List.of("merchant_no")));
+        assertJoinMatchesOracle("merchant_no", "number");
+        // the primary key index serves a probe too
+        assertJoinMatchesOracle("merchant_no", "id");
+    }
+
+    @Test
+    void stringAndNumberKeysNeverMatch() {
+        merchants.createIndex(new IndexDefinition("by_number", List.of("number")));
+        assertEquals(List.of(), join("merchant", "number"));
+        assertEquals(List.of(), join("merchant_no", "code"));
+    }
+
+    private void assertJoinMatchesOracle(String leftColumn, String rightColumn, String... projection) {
+        List<Map<String, Object>> expected = nestedLoop(leftColumn, rightColumn, List.of(projection));
+        assertFalse(expected.isEmpty());
+        assertEquals(sorted(expected), sorted(join(leftColumn, rightColumn, projection)));
+    }
+
+    private List<Map<String, Object>> join(String leftColumn, String rightColumn, String... projection) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        try (Table.ReadView p = payments.openView(); Table.ReadView m = merchants.openView()) {
+            new JoinOperator(p, "payments", leftColumn, m, "merchants", rightColumn, List.of(projection)).run(out::add);
+        }
+        return out;
+    }
+
+    private List<Map<String, Object>> nestedLoop(String leftColumn, String rightColumn, List<String> projection) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Map<String, Object> l : payments.select(null, null)) {
+            for (Map<String, Object> r : merchants.select(null, null)) {
+                Object key = l.get(leftColumn);
+                if (key == null || !key.equals(r.get(rightColumn))) {
+                    continue;
+                }
+                Map<String, Object> merged = new LinkedHashMap<>();
+                l.forEach((k, v) -> merged.put("payments." + k, v));
+                r.forEach((k, v) -> merged.put("merchants." + k, v));
+                if (projection.isEmpty()) {
+                    out.add(merged);
+                } else {
+                    Map<String, Object> projected = new LinkedHashMap<>();
+                    projection.forEach(col -> projected.put(col, merged.get(col)));
+                    out.add(projected);
+                }
+            }
+        }
+        return out;
+    }
+
+    private static List<Map<String, Object>> sorted(List<Map<String, Object>> rows) {
+        return rows.stream().sorted(Comparator.comparing(row -> Objects.toString(new TreeMap<>(row)))).toList();
+    }
+}
@@ -0,0 +1,200 @@
+package com.ledgerly.engine;
+
+import com.ledgerly.engine.persistence.FilePersistence;
+import com.ledgerly.engine.persistence.WalRecordMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MaterializedViewTest {
+    private static final TableSchema SCHEMA = new TableSchema("payments",
+            List.of(new ColumnDefinition("id", DataType.INT, false),
+                    new ColumnDefinition("merchant", DataType.STRING, false),
+                    new ColumnDefinition("state", DataType.STRING, true),
+                    new ColumnDefinition("amount", DataType.INT, true)),
+            List.of("id"), List.of());
+    private static final List<String> GROUP_BY = List.of("merchant", "state");
+    private static final List<Aggregate> AGGREGATES = List.of(
+            new Aggregate(AggregateFunction.COUNT, null),
+            new Aggregate(AggregateFunction.COUNT, "amount"),
+            new Aggregate(AggregateFunction.SUM, "amount"),
+            new Aggregate(AggregateFunction.AVG, "amount", "mean"));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void updatesAndDeletesKeepTotalsEqualToAFreshAggregate() {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence, WalRecordMode.LOGICAL);
+            populate(engine);
+            assertTotalsMatchRows(engine);
+
+            // moves rows between groups, into a null state and out of one
+            engine.update("payments", where(new Condition("id", ConditionOperator.LTE, 3L)), Map.of("state", "SUCCESS"));
+            assertTotalsMatchRows(engine);
+            engine.update("payments", where(new Condition("state", ConditionOperator.IS_NULL, null)), Map.of("state", "FAILED"));
+            assertTotalsMatchRows(engine);
+            // changes the summed value inside a group, including to and from null
+            engine.update("payments", where(new Condition("merchant", ConditionOperator.EQ, "m1")), Map.of("amount", 7L));
+            engine.update("payments", where(new Condition("id", ConditionOperator.EQ, 8L)), nullAmount());
+            assertTotalsMatchRows(engine);
+
+            engine.delete("payments", where(new Condition("merchant", ConditionOperator.EQ, "m2")));
+            assertTotalsMatchRows(engine);
+            assertEquals(List.of(), engine.queryView("payments", "totals", Map.of("merchant", "m2")));
+            assertEquals(List.of(), engine.queryView("payments", "totals", Map.of("merchant", "m2", "state", "PENDING")));
+        }
+    }
+
+    @Test
+    void readViewKeepsTheTotalsOfItsSnapshot() {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence, WalRecordMode.LOGICAL);
+            populate(engine);
+            Table table = engine.getTable("payments");
+            List<Map<String, Object>> before = totals(engine);
+
+            try (Table.ReadView view = table.openView()) {
+                engine.update("payments", where(new Condition("merchant", ConditionOperator.EQ, "m0")), Map.of("state", "EXPIRED"));
+                engine.delete("payments", where(new Condition("merchant", ConditionOperator.EQ, "m1")));
+                engine.insert("payments", Map.of("id", 100L, "merchant", "m9", "state", "PENDING", "amount", 1L));
+
+                assertEquals(before, view.queryView("totals", Map.of()));
+                assertTotalsMatchRows(engine);
+            }
+            // emptied groups and superseded totals go once no view can see them
+            assertEquals(0, table.retainedVersions());
+            assertTotalsMatchRows(engine);
+        }
+    }
+
+    @Test
+    void rejectedStatementLeavesTheTotalsUntouched() {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence, WalRecordMode.LOGICAL);
+            populate(engine);
+            List<Map<String, Object>> before = totals(engine);
+
+            // SUM of m0/PENDING would overflow
+            IllegalArgumentException overflow = assertThrows(IllegalArgumentException.class, () -> engine.update("payments",
+                    where(new Condition("id", ConditionOperator.EQ, 0L)), Map.of("amount", Long.MAX_VALUE)));
+            assertEquals("SUM of view totals overflows", overflow.getMessage());
+            // the key is taken, so no row changes
+            assertThrows(IllegalArgumentException.class, () -> engine.update("payments",
+                    where(new Condition("merchant", ConditionOperator.EQ, "m1")), Map.of("id", 0L)));
+
+            assertEquals(before, totals(engine));
+            assertTotalsMatchRows(engine);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalRecordMode.class)
+    void replayRebuildsTheSameTotals(WalRecordMode mode) {
+        List<Map<String, Object>> expected;
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence, mode);
+            populate(engine);
+            churn(engine);
+            expected = totals(engine);
+        }
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine replayed = new LedgerEngine(persistence, 0, mode);
+
+            assertEquals(expected, totals(replayed));
+            assertTotalsMatchRows(replayed);
+        }
+    }
+
+    @Test
+    void snapshotRestoreRebuildsTotalsAndReplaysTheRest() {
+        List<Map<String, Object>> expected;
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence, WalRecordMode.PHYSICAL);
+            populate(engine);
+            assertTrue(engine.checkpoint());
+            churn(engine);
+            expected = totals(engine);
+        }
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            assertTrue(persistence.loadSnapshot().isPresent());
+            LedgerEngine restored = new LedgerEngine(persistence, 0, WalRecordMode.PHYSICAL);
+
+            assertEquals(List.of("totals"), restored.listViews("payments").stream()
+                    .map(MaterializedViewDefinition::getName).toList());
+            assertEquals(expected, totals(restored));
+            assertTotalsMatchRows(restored);
+
+            // the restored view goes on following writes
+            restored.delete("payments", where(new Condition("state", ConditionOperator.EQ, "SUCCESS")));
+            assertFalse(totals(restored).stream().anyMatch(group -> "SUCCESS".equals(group.get("state"))));
+            assertTotalsMatchRows(restored);
+        }
+    }
+
+    private static LedgerEngine open(FilePersistence persistence, WalRecordMode mode) {
+        LedgerEngine engine = new LedgerEngine(persistence, 0, mode);
+        engine.createTable(SCHEMA);
+        engine.createView("payments", new MaterializedViewDefinition("totals", GROUP_BY, AGGREGATES));
+        return engine;
+    }
+
+    // row i: merchant m(i % 3), state PENDING or null alternating, amount i * 10 or null every fifth row
+    private static void populate(LedgerEngine engine) {
+        for (long i = 0; i < 30; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("merchant", "m" + i % 3);
+            row.put("state", i % 2 == 0 ? "PENDING" : null);
+            row.put("amount", i % 5 == 0 ? null : i * 10);
+            engine.insert("payments", row);
+        }
+    }
+
+    private static void churn(LedgerEngine engine) {
+        engine.update("payments", where(new Condition("id", ConditionOperator.LT, 10L)), Map.of("state", "SUCCESS"));
+        engine.update("payments", where(new Condition("merchant", ConditionOperator.EQ, "m2")), Map.of("amount", 3L));
+        engine.update("payments", where(new Condition("id", ConditionOperator.EQ, 12L)), nullAmount());
+        engine.delete("payments", where(new Condition("merchant", ConditionOperator.EQ, "m1"),
+                new Condition("state", ConditionOperator.IS_NULL, null)));
+        engine.insert("payments", Map.of("id", 50L, "merchant", "m5", "state", "FAILED", "amount", 500L));
+    }
+
+    private static List<Map<String, Object>> totals(LedgerEngine engine) {
+        return engine.queryView("payments", "totals", Map.of());
+    }
+
+    private static void assertTotalsMatchRows(LedgerEngine engine) {
+        List<Map<String, Object>> fresh = engine.aggregate("payments", GROUP_BY, AGGREGATES, null);
+        assertEquals(fresh, totals(engine));
+        for (Map<String, Object> group : fresh) {
+            Map<String, Object> key = new HashMap<>();
+            GROUP_BY.forEach(col -> key.put(col, group.get(col)));
+            if (!key.containsValue(null)) {
+                assertEquals(List.of(group), engine.queryView("payments", "totals", key));
+            }
+        }
+    }
+
+    private static Map<String, Object> nullAmount() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("amount", null);
+        return values;
+    }
+
+    private static RowPredicate where(Condition... conditions) {
+        return new RowPredicate(List.of(conditions));
+    }
+}
@@ -0,0 +1,205 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartialIndexTest {
+    private static final Condition PENDING = new Condition("state", ConditionOperator.EQ, "PENDING");
+
+    private static final TableSchema SCHEMA = new TableSchema("payments",
+            List.of(new ColumnDefinition("id", DataType.INT, false),
+                    new ColumnDefinition("merchant", DataType.STRING, false),
+                    new ColumnDefinition("state", DataType.STRING, false),
+                    new ColumnDefinition("amount", DataType.INT, true)),
+            List.of("id"), List.of());
+
+    private Table table;
+    // the same writes without secondary indexes, so every select on it is a scan
+    private Table plain;
+
+    @BeforeEach
+    void setUp() {
+        table = new Table(SCHEMA);
+        plain = new Table(SCHEMA);
+        // row i: merchant m(i % 10), PENDING every fifth row and SUCCESS otherwise, amount i or null every seventh row
+        for (long i = 0; i < 1_000; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("merchant", "m" + i % 10);
+            row.put("state", i % 5 == 0 ? "PENDING" : "SUCCESS");
+            row.put("amount", i % 7 == 0 ? null : i);
+            table.insert(row);
+            plain.insert(row);
+        }
+        table.createIndex(new IndexDefinition("pending_by_merchant", List.of("merchant"), IndexType.HASH, List.of(PENDING)));
+    }
+
+    @Test
+    void updatesMoveRowsIntoAndOutOfTheIndex() {
+        // ids 0, 10, 20, ... are m0 and PENDING
+        assertIndexed("m0", 100);
+
+        // leaving the filter: m0 rows below 100 settle
+        update(where(new Condition("id", ConditionOperator.LT, 100L), PENDING), Map.of("state", "SUCCESS"));
+        assertIndexed("m0", 90);
+        // entering it: m0 rows that were never pending
+        update(where(new Condition("merchant", ConditionOperator.EQ, "m0"),
+                new Condition("id", ConditionOperator.LT, 50L)), Map.of("state", "PENDING"));
+        assertIndexed("m0", 95);
+        // moving key inside the filter: the entry follows the row to m1
+        update(where(new Condition("id", ConditionOperator.EQ, 500L)), Map.of("merchant", "m1"));
+        assertIndexed("m0", 94);
+        assertIndexed("m1", 1);
+        // leaving the filter and changing key at once: in neither bucket
+        update(where(new Condition("id", ConditionOperator.EQ, 510L)), Map.of("merchant", "m1", "state", "FAILED"));
+        assertIndexed("m0", 93);
+        assertIndexed("m1", 1);
+        // a column outside the key and the filter leaves the entry alone
+        update(where(new Condition("id", ConditionOperator.EQ, 520L)), Map.of("amount", 1L));
+        assertIndexed("m0", 93);
+        delete(where(new Condition("id", ConditionOperator.EQ, 530L)));
+        assertIndexed("m0", 92);
+        assertEquals(0, table.retainedVersions());
+    }
+
+    @Test
+    void readViewKeepsTheEntriesOfItsSnapshot() {
+        RowPredicate m0 = where(new Condition("merchant", ConditionOperator.EQ, "m0"), PENDING);
+        try (Table.ReadView view = table.openView()) {
+            update(m0, Map.of("state", "SUCCESS"));
+            update(where(new Condition("id", ConditionOperator.EQ, 1L)), Map.of("state", "PENDING"));
+
+            // the old view still reaches the rows that left through the index, the current one does not
+            assertEquals(100, view.select(null, m0, ScanMode.SEQUENTIAL).size());
+            assertEquals(100, view.candidates(m0).size());
+            assertEquals(List.of(), table.select(null, m0, ScanMode.SEQUENTIAL));
+            assertIndexed("m1", 1);
+        }
+        // once the view is gone, so are their entries
+        assertEquals(0, table.retainedVersions());
+        assertIndexed("m0", 0);
+    }
+
+    @Test
+    void rejectedUpdateLeavesTheIndexAsItWas() {
+        update(where(new Condition("id", ConditionOperator.EQ, 7L)), Map.of("id", 2_000L));
+        // the key is taken once, so the statement, which would move rows into the filter, changes nothing
+        assertThrows(IllegalArgumentException.class, () -> update(
+                where(new Condition("merchant", ConditionOperator.EQ, "m1")), Map.of("state", "PENDING", "id", 2_000L)));
+
+        assertIndexed("m1", 0);
+        assertIndexed("m0", 100);
+    }
+
+    @Test
+    void equalityFilterIsUsedOnlyWhenTheQueryImpliesIt() {
+        try (Table.ReadView view = table.openView()) {
+            Condition m3 = new Condition("merchant", ConditionOperator.EQ, "m3");
+            assertNotNull(view.candidates(where(m3, PENDING)));
+            // without the filter's own condition, or against it, rows would be missing from the index
+            assertNull(view.candidates(where(m3)));
+            assertNull(view.candidates(where(m3, new Condition("state", ConditionOperator.EQ, "SUCCESS"))));
+            assertNull(view.candidates(where(m3, new Condition("state", ConditionOperator.NEQ, "SUCCESS"))));
+            // nor can the index answer "every row with this value" for a join
+            assertFalse(view.hasEqualityIndex("merchant"));
+        }
+    }
+
+    @Test
+    void rangeFilterIsImpliedByNarrowerRanges() {
+        table.createIndex(new IndexDefinition("large_by_merchant", List.of("merchant"), IndexType.HASH,
+                List.of(new Condition("amount", ConditionOperator.GT, 900L))));
+        Condition m3 = new Condition("merchant", ConditionOperator.EQ, "m3");
+        try (Table.ReadView view = table.openView()) {
+            assertImplied(view, true, m3, new Condition("amount", ConditionOperator.GT, 950L));
+            assertImplied(view, true, m3, new Condition("amount", ConditionOperator.GT, 900L));
+            assertImplied(view, true, m3, new Condition("amount", ConditionOperator.GTE, 901L));
+            assertImplied(view, true, m3, new Condition("amount", ConditionOperator.EQ, 903L));
+            assertImplied(view, false, m3, new Condition("amount", ConditionOperator.GTE, 900L));
+            assertImplied(view, false, m3, new Condition("amount", ConditionOperator.EQ, 900L));
+            assertImplied(view, false, m3, new Condition("amount", ConditionOperator.LT, 950L));
+            assertImplied(view, false, m3, new Condition("amount", ConditionOperator.IS_NOT_NULL, null));
+            // an empty range matches nothing, so nothing can be missing
+            assertImplied(view, true, m3, new Condition("amount", ConditionOperator.GT, 10L),
+                    new Condition("amount", ConditionOperator.LT, 5L));
+        }
+        // 903 and 973 have a null amount
+        assertEquals(List.of(913L, 923L, 933L, 943L, 953L, 963L, 983L, 993L),
+                table.select(List.of("id"), where(m3, new Condition("amount", ConditionOperator.GT, 900L)), ScanMode.SEQUENTIAL)
+                        .stream().map(row -> row.get("id")).toList());
+    }
+
+    @Test
+    void notEqualAndNotNullFiltersAreImpliedByRangesExcludingThem() {
+        table.createIndex(new IndexDefinition("nonzero_by_merchant", List.of("merchant"), IndexType.HASH,
+                List.of(new Condition("amount", ConditionOperator.NEQ, 500L))));
+        table.createIndex(new IndexDefinition("priced_by_merchant", List.of("merchant"), IndexType.HASH,
+                List.of(new Condition("amount", ConditionOperator.IS_NOT_NULL, null))));
+        Condition m3 = new Condition("merchant", ConditionOperator.EQ, "m3");
+        try (Table.ReadView view = table.openView()) {
+            // any bound value or range on amount excludes null, so the IS_NOT_NULL index applies
+            assertImplied(view, true, m3, new Condition("amount", ConditionOperator.LT, 400L));
+            assertImplied(view, true, m3, new Condition("amount", ConditionOperator.EQ, 500L));
+            assertImplied(view, false, m3, new Condition("amount", ConditionOperator.IS_NOT_NULL, null));
+        }
+        // the index chosen for each answers as a scan would
+        for (Condition amount : List.of(new Condition("amount", ConditionOperator.LT, 400L),
+                new Condition("amount", ConditionOperator.GT, 500L), new Condition("amount", ConditionOperator.EQ, 503L))) {
+            assertEquals(plain.select(null, where(m3, amount), ScanMode.SEQUENTIAL), table.select(null, where(m3, amount), ScanMode.SEQUENTIAL));
+        }
+    }
+
+    @Test
+    void nullFilterMeansAFullIndex() {
+        IndexDefinition full = new IndexDefinition("by_state", List.of("state"), IndexType.HASH, null);
+        assertTrue(full.getWhere().isEmpty());
+        table.createIndex(full);
+        try (Table.ReadView view = table.openView()) {
+            assertTrue(view.hasEqualityIndex("state"));
+            assertEquals(200, view.candidates(where(PENDING)).size());
+        }
+        assertThrows(IllegalArgumentException.class, () -> table.createIndex(new IndexDefinition("unpriced", List.of("merchant"),
+                IndexType.HASH, List.of(new Condition("amount", ConditionOperator.IS_NULL, null)))));
+    }
+
+    // the index answers for merchant's PENDING rows and lists exactly those a scan finds
+    private void assertIndexed(String merchant, int expected) {
+        RowPredicate predicate = where(new Condition("merchant", ConditionOperator.EQ, merchant), PENDING);
+        List<Map<String, Object>> scanned = plain.select(null, predicate, ScanMode.SEQUENTIAL);
+        assertEquals(expected, scanned.size());
+        try (Table.ReadView view = table.openView()) {
+            // row ids count from 1, one past the id column each row was inserted with
+            assertEquals(scanned.stream().map(row -> (Long) row.get("id") + 1).toList(), view.candidates(predicate));
+        }
+        assertEquals(scanned, table.select(null, predicate, ScanMode.SEQUENTIAL));
+    }
+
+    private static void assertImplied(Table.ReadView view, boolean implied, Condition... conditions) {
+        assertEquals(implied, view.candidates(where(conditions)) != null, List.of(conditions).toString());
+    }
+
+    private void update(RowPredicate predicate, Map<String, Object> values) {
+        table.update(predicate, values);
+        plain.update(predicate, values);
+    }
+
+    private void delete(RowPredicate predicate) {
+        table.delete(predicate);
+        plain.delete(predicate);
+    }
+
+    private static RowPredicate where(Condition... conditions) {
+        return new RowPredicate(List.of(conditions));
+    }
+}
@@ -0,0 +1,140 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TableAggregateTest {
+    private static final List<Aggregate> ALL = List.of(
+            new Aggregate(AggregateFunction.COUNT, null),
+            new Aggregate(AggregateFunction.COUNT, "amount"),
+            new Aggregate(AggregateFunction.SUM, "amount"),
+            new Aggregate(AggregateFunction.MIN, "amount"),
+            new Aggregate(AggregateFunction.MAX, "amount"),
+            new Aggregate(AggregateFunction.AVG, "amount"));
+
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        table = new Table(new TableSchema("payments",
+                List.of(new ColumnDefinition("id", DataType.INT, false),
+                        new ColumnDefinition("merchant", DataType.STRING, true),
+                        new ColumnDefinition("region", DataType.INT, true),
+                        new ColumnDefinition("amount", DataType.INT, true)),
+                List.of("id"), List.of()), 1_000);
+    }
+
+    @Test
+    void nullGroupingValuesFormTheirOwnGroupSortedFirst() {
+        insert(1, "m1", 2L, 10L);
+        insert(2, null, 1L, 20L);
+        insert(3, "m0", null, 30L);
+        insert(4, null, null, 40L);
+        insert(5, "m1", 2L, 50L);
+
+        List<Aggregate> sum = List.of(new Aggregate(AggregateFunction.SUM, "amount"));
+        // one dictionary-encoded column groups by code
+        assertEquals(List.of(group("merchant", null, "sum_amount", 60L), group("merchant", "m0", "sum_amount", 30L),
+                group("merchant", "m1", "sum_amount", 60L)), aggregate(List.of("merchant"), sum, ScanMode.SEQUENTIAL));
+        // one INT column groups by value
+        assertEquals(List.of(group("region", null, "sum_amount", 70L), group("region", 1L, "sum_amount", 20L),
+                group("region", 2L, "sum_amount", 60L)), aggregate(List.of("region"), sum, ScanMode.SEQUENTIAL));
+        // several columns group by the tuple, nulls first in each position
+        assertEquals(List.of(
+                group("merchant", null, "region", null, "sum_amount", 40L),
+                group("merchant", null, "region", 1L, "sum_amount", 20L),
+                group("merchant", "m0", "region", null, "sum_amount", 30L),
+                group("merchant", "m1", "region", 2L, "sum_amount", 60L)),
+                aggregate(List.of("merchant", "region"), sum, ScanMode.SEQUENTIAL));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ScanMode.class, names = {"SEQUENTIAL", "PARALLEL"})
+    void nullInputsAreSkippedButRowsStillCount(ScanMode mode) {
+        insert(1, "m1", null, 10L);
+        insert(2, "m1", null, null);
+        insert(3, "m1", null, -30L);
+        insert(4, "m2", null, null);
+
+        assertEquals(List.of(
+                group("merchant", "m1", "count", 3L, "count_amount", 2L, "sum_amount", -20L, "min_amount", -30L,
+                        "max_amount", 10L, "avg_amount", -10.0),
+                // a group whose inputs are all null still counts its rows
+                group("merchant", "m2", "count", 1L, "count_amount", 0L, "sum_amount", null, "min_amount", null,
+                        "max_amount", null, "avg_amount", null)),
+                aggregate(List.of("merchant"), ALL, mode));
+    }
+
+    @Test
+    void noMatchGivesOneRowWithoutGroupingAndNoneWithIt() {
+        insert(1, "m1", null, 10L);
+        RowPredicate none = new RowPredicate(List.of(new Condition("amount", ConditionOperator.GT, 100L)));
+
+        assertEquals(List.of(group("count", 0L, "count_amount", 0L, "sum_amount", null, "min_amount", null,
+                "max_amount", null, "avg_amount", null)), table.aggregate(null, ALL, none, ScanMode.SEQUENTIAL));
+        assertEquals(List.of(), table.aggregate(List.of("merchant"), ALL, none, ScanMode.SEQUENTIAL));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ScanMode.class, names = {"SEQUENTIAL", "PARALLEL"})
+    void sumOverflowIsRejectedRatherThanWrapped(ScanMode mode) {
+        insert(1, "m1", null, Long.MAX_VALUE / 2 + 1);
+        // m2 overflows downwards within the first page
+        insert(2, "m2", null, Long.MIN_VALUE);
+        insert(3, "m2", null, -1L);
+        // m1 overflows once its second value, two pages on, is added; a parallel scan only adds them in the merge
+        for (long i = 4; i < 2_500; i++) {
+            insert(i, "m1", null, null);
+        }
+        insert(2_500, "m1", null, Long.MAX_VALUE / 2 + 1);
+
+        IllegalArgumentException sum = assertThrows(IllegalArgumentException.class,
+                () -> aggregate(List.of("merchant"), List.of(new Aggregate(AggregateFunction.SUM, "amount")), mode));
+        assertEquals("SUM overflows for sum_amount", sum.getMessage());
+        table.update(new RowPredicate(List.of(new Condition("id", ConditionOperator.EQ, 3L))), Map.of("amount", 0L));
+        IllegalArgumentException avg = assertThrows(IllegalArgumentException.class,
+                () -> aggregate(List.of("merchant"), List.of(new Aggregate(AggregateFunction.AVG, "amount", "mean")), mode));
+        assertEquals("AVG overflows for mean", avg.getMessage());
+
+        // MIN and MAX never add values up
+        assertEquals(List.of(group("merchant", "m1", "min_amount", Long.MAX_VALUE / 2 + 1, "max_amount", Long.MAX_VALUE / 2 + 1),
+                group("merchant", "m2", "min_amount", Long.MIN_VALUE, "max_amount", 0L)),
+                aggregate(List.of("merchant"), List.of(new Aggregate(AggregateFunction.MIN, "amount"),
+                        new Aggregate(AggregateFunction.MAX, "amount")), mode));
+        // a failed aggregate leaves no view behind
+        table.update(new RowPredicate(List.of(new Condition("id", ConditionOperator.EQ, 3L))), Map.of("amount", 1L));
+        assertEquals(0, table.retainedVersions());
+    }
+
+    private List<Map<String, Object>> aggregate(List<String> groupBy, List<Aggregate> aggregates, ScanMode mode) {
+        return table.aggregate(groupBy, aggregates, null, mode);
+    }
+
+    private void insert(long id, String merchant, Long region, Long amount) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("merchant", merchant);
+        row.put("region", region);
+        row.put("amount", amount);
+        table.insert(row);
+    }
+
+    // alternating column names and values, in result order; unlike Map.of it takes nulls
+    private static Map<String, Object> group(Object... entries) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            row.put((String) entries[i], entries[i + 1]);
+        }
+        return row;
+    }
+}
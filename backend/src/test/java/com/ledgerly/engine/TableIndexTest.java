@@ -0,0 +1,132 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TableIndexTest {
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        table = new Table(new TableSchema("payments",
+                List.of(new ColumnDefinition("id", DataType.INT, false),
+                        new ColumnDefinition("merchant", DataType.STRING, false),
+                        new ColumnDefinition("state", DataType.STRING, false),
+                        new ColumnDefinition("amount", DataType.INT, false)),
+                List.of("id"), List.of()));
+        // row id i holds id i, merchant m(i % 3), state PENDING/SUCCESS alternating, amount i * 10
+        for (long i = 1; i <= 12; i++) {
+            table.insert(Map.of("id", i, "merchant", "m" + i % 3, "state", i % 2 == 0 ? "SUCCESS" : "PENDING",
+                    "amount", i * 10));
+        }
+    }
+
+    @Test
+    void equalityOnAnIndexedColumnReadsOnlyItsBucket() {
+        table.createIndex(new IndexDefinition("by_merchant", List.of("merchant")));
+        RowPredicate m1 = where(new Condition("merchant", ConditionOperator.EQ, "m1"),
+                new Condition("amount", ConditionOperator.GT, 40L));
+
+        assertEquals(List.of(1L, 4L, 7L, 10L), candidates(m1));
+        assertEquals(List.of(7L, 10L), ids(table.select(null, m1, ScanMode.SEQUENTIAL)));
+        assertNull(candidates(where(new Condition("state", ConditionOperator.EQ, "PENDING"))));
+        assertNull(candidates(where(new Condition("merchant", ConditionOperator.NEQ, "m1"))));
+    }
+
+    @Test
+    void compositeIndexNeedsEveryColumnBound() {
+        table.createIndex(new IndexDefinition("by_merchant_state", List.of("merchant", "state")));
+
+        assertEquals(List.of(4L, 10L), candidates(where(new Condition("state", ConditionOperator.EQ, "SUCCESS"),
+                new Condition("merchant", ConditionOperator.EQ, "m1"))));
+        assertNull(candidates(where(new Condition("merchant", ConditionOperator.EQ, "m1"))));
+        assertEquals(List.of(), candidates(where(new Condition("merchant", ConditionOperator.EQ, "m1"),
+                new Condition("state", ConditionOperator.EQ, "FAILED"))));
+    }
+
+    @Test
+    void updatesAndDeletesKeepTheIndexInStep() {
+        table.createIndex(new IndexDefinition("by_merchant", List.of("merchant")));
+        table.createIndex(new IndexDefinition("by_merchant_state", List.of("merchant", "state")));
+        RowPredicate m1 = where(new Condition("merchant", ConditionOperator.EQ, "m1"));
+        RowPredicate m2 = where(new Condition("merchant", ConditionOperator.EQ, "m2"));
+
+        table.update(where(new Condition("id", ConditionOperator.EQ, 4L)), Map.of("merchant", "m2"));
+        table.update(where(new Condition("id", ConditionOperator.EQ, 10L)), Map.of("state", "FAILED"));
+        table.delete(where(new Condition("id", ConditionOperator.EQ, 7L)));
+
+        assertEquals(List.of(1L, 10L), candidates(m1));
+        assertEquals(List.of(2L, 4L, 5L, 8L, 11L), candidates(m2));
+        assertEquals(List.of(1L, 10L), ids(table.select(null, m1, ScanMode.SEQUENTIAL)));
+        assertEquals(List.of(10L), candidates(where(new Condition("merchant", ConditionOperator.EQ, "m1"),
+                new Condition("state", ConditionOperator.EQ, "FAILED"))));
+        assertEquals(List.of(2L, 4L, 8L), candidates(where(new Condition("merchant", ConditionOperator.EQ, "m2"),
+                new Condition("state", ConditionOperator.EQ, "SUCCESS"), new Condition("amount", ConditionOperator.LT, 50L))));
+
+        // rows inserted after the index was built land in it too
+        table.insert(Map.of("id", 13L, "merchant", "m1", "state", "PENDING", "amount", 130L));
+        assertEquals(List.of(1L, 10L, 13L), candidates(m1));
+    }
+
+    @Test
+    void rangeFiltersSeekTheOrderedIndex() {
+        table.createIndex(new IndexDefinition("by_amount", List.of("amount"), IndexType.ORDERED));
+
+        assertEquals(List.of(10L, 11L, 12L), candidates(where(new Condition("amount", ConditionOperator.GT, 90L))));
+        assertEquals(List.of(9L, 10L), candidates(where(new Condition("amount", ConditionOperator.GTE, 90L),
+                new Condition("amount", ConditionOperator.LT, 110L))));
+        assertEquals(List.of(1L, 2L, 3L), candidates(where(new Condition("amount", ConditionOperator.LTE, 30L))));
+        assertEquals(List.of(4L), candidates(where(new Condition("amount", ConditionOperator.EQ, 40L))));
+        assertEquals(List.of(), candidates(where(new Condition("amount", ConditionOperator.GT, 120L))));
+        assertEquals(List.of(), candidates(where(new Condition("amount", ConditionOperator.GT, 100L),
+                new Condition("amount", ConditionOperator.LT, 50L))));
+        // more than half the table is not worth reading through the index
+        assertNull(candidates(where(new Condition("amount", ConditionOperator.GT, 50L))));
+        assertEquals(7, table.select(null, where(new Condition("amount", ConditionOperator.GT, 50L))).size());
+    }
+
+    @Test
+    void plannerReadsTheIndexYieldingFewestRows() {
+        table.createIndex(new IndexDefinition("by_merchant", List.of("merchant")));
+        table.createIndex(new IndexDefinition("by_amount", List.of("amount"), IndexType.ORDERED));
+
+        assertEquals(List.of(10L, 11L, 12L), candidates(where(new Condition("merchant", ConditionOperator.EQ, "m1"),
+                new Condition("amount", ConditionOperator.GT, 90L))));
+        assertEquals(List.of(1L, 4L, 7L, 10L), candidates(where(new Condition("merchant", ConditionOperator.EQ, "m1"),
+                new Condition("amount", ConditionOperator.GT, 10L))));
+    }
+
+    @Test
+    void orderedIndexFollowsUpdatesAndDeletes() {
+        table.createIndex(new IndexDefinition("by_amount", List.of("amount"), IndexType.ORDERED));
+        RowPredicate over90 = where(new Condition("amount", ConditionOperator.GT, 90L));
+
+        table.update(where(new Condition("id", ConditionOperator.EQ, 1L)), Map.of("amount", 500L));
+        table.update(where(new Condition("id", ConditionOperator.EQ, 12L)), Map.of("amount", 5L));
+        table.delete(where(new Condition("id", ConditionOperator.EQ, 11L)));
+
+        assertEquals(List.of(1L, 10L), candidates(over90));
+        assertEquals(List.of(1L, 10L), ids(table.select(null, over90, ScanMode.SEQUENTIAL)));
+        assertEquals(List.of(12L), candidates(where(new Condition("amount", ConditionOperator.LT, 10L))));
+    }
+
+    private List<Long> candidates(RowPredicate predicate) {
+        try (Table.ReadView view = table.openView()) {
+            return view.candidates(predicate);
+        }
+    }
+
+    private static List<Long> ids(List<Map<String, Object>> rows) {
+        return rows.stream().map(row -> (Long) row.get("id")).toList();
+    }
+
+    private static RowPredicate where(Condition... conditions) {
+        return new RowPredicate(List.of(conditions));
+    }
+}
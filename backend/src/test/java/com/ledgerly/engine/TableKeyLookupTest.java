@@ -0,0 +1,81 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TableKeyLookupTest {
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        table = new Table(new TableSchema("accounts",
+                List.of(new ColumnDefinition("id", DataType.INT, false),
+                        new ColumnDefinition("email", DataType.STRING, false),
+                        new ColumnDefinition("balance", DataType.INT, false)),
+                List.of("id"), List.of(List.of("email"))));
+        table.insert(Map.of("id", 1L, "email", "a@x", "balance", 100L));
+        table.insert(Map.of("id", 2L, "email", "b@x", "balance", 200L));
+    }
+
+    @Test
+    void primaryKeyEqualityIsAnsweredFromTheKeyIndex() {
+        assertEquals(List.of(2L), candidates(where(new Condition("id", ConditionOperator.EQ, 2L),
+                new Condition("balance", ConditionOperator.GT, 0L))));
+        assertEquals(List.of(), candidates(where(new Condition("id", ConditionOperator.EQ, 9L))));
+        assertEquals(List.of(1L), candidates(where(new Condition("email", ConditionOperator.EQ, "a@x"))));
+        assertEquals(200L, table.getByKey(Map.of("id", 2)).get("balance"));
+    }
+
+    @Test
+    void keyTakenOverByANewRowIsFoundUnderItsNewOwner() {
+        try (Table.ReadView before = table.openView()) {
+            table.delete(where(new Condition("id", ConditionOperator.EQ, 1L)));
+            table.insert(Map.of("id", 1L, "email", "a@x", "balance", 7L));
+
+            assertEquals(7L, table.getByKey(Map.of("id", 1L)).get("balance"));
+            assertEquals(List.of(3L), candidates(where(new Condition("id", ConditionOperator.EQ, 1L))));
+            assertEquals(List.of(3L), candidates(where(new Condition("email", ConditionOperator.EQ, "a@x"))));
+            // the key index now names a row this view cannot see, so it falls back to a scan
+            assertEquals(100L, before.getByKey(Map.of("id", 1L)).get("balance"));
+            assertNull(before.candidates(where(new Condition("id", ConditionOperator.EQ, 1L))));
+            assertEquals(List.of(Map.of("id", 1L, "email", "a@x", "balance", 100L)),
+                    before.select(null, where(new Condition("email", ConditionOperator.EQ, "a@x")), ScanMode.SEQUENTIAL));
+        }
+    }
+
+    @Test
+    void keysMovedBetweenRowsResolveToTheirCurrentRows() {
+        try (Table.ReadView before = table.openView()) {
+            table.update(where(new Condition("id", ConditionOperator.EQ, 1L)), Map.of("id", 3L, "email", "c@x"));
+            table.update(where(new Condition("id", ConditionOperator.EQ, 2L)), Map.of("id", 1L, "email", "a@x"));
+
+            assertEquals(200L, table.getByKey(Map.of("id", 1L)).get("balance"));
+            assertEquals(100L, table.getByKey(Map.of("id", 3L)).get("balance"));
+            assertNull(table.getByKey(Map.of("id", 2L)));
+            assertEquals(List.of(2L), candidates(where(new Condition("email", ConditionOperator.EQ, "a@x"))));
+            // the old key stays listed while the open view can still see the row holding it
+            assertEquals(List.of(2L), candidates(where(new Condition("email", ConditionOperator.EQ, "b@x"))));
+            assertEquals(List.of(), table.select(null, where(new Condition("email", ConditionOperator.EQ, "b@x"))));
+
+            assertEquals(100L, before.getByKey(Map.of("id", 1L)).get("balance"));
+            assertEquals(200L, before.getByKey(Map.of("id", 2L)).get("balance"));
+            assertNull(before.getByKey(Map.of("id", 3L)));
+        }
+    }
+
+    private List<Long> candidates(RowPredicate predicate) {
+        try (Table.ReadView view = table.openView()) {
+            return view.candidates(predicate);
+        }
+    }
+
+    private static RowPredicate where(Condition... conditions) {
+        return new RowPredicate(List.of(conditions));
+    }
+}
@@ -0,0 +1,88 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TableMvccTest {
+    private static final Map<String, Object> KEY = Map.of("id", 1L);
+
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        table = new Table(new TableSchema("accounts",
+                List.of(new ColumnDefinition("id", DataType.INT, false), new ColumnDefinition("balance", DataType.INT, false)),
+                List.of("id"), List.of()));
+        table.insert(Map.of("id", 1L, "balance", 100L));
+    }
+
+    @Test
+    void pinnedViewKeepsSeeingItsSnapshot() {
+        try (Table.ReadView before = table.openView()) {
+            setBalance(200);
+            table.insert(Map.of("id", 2L, "balance", 5L));
+            table.delete(new RowPredicate(List.of(new Condition("id", ConditionOperator.EQ, 1L))));
+
+            assertEquals(100L, before.getByKey(KEY).get("balance"));
+            assertEquals(1, before.select(null, null, ScanMode.SEQUENTIAL).size());
+            try (Table.ReadView after = table.openView()) {
+                assertNull(after.getByKey(KEY));
+                assertEquals(List.of(Map.of("id", 2L, "balance", 5L)), after.select(null, null, ScanMode.SEQUENTIAL));
+            }
+        }
+        assertNull(table.getByKey(KEY));
+    }
+
+    @Test
+    void versionsAreKeptOnlyWhileAnOpenViewCanSeeThem() {
+        // no reader: a superseded version is collected by the commit that supersedes it
+        setBalance(150);
+        assertEquals(0, table.retainedVersions());
+        assertEquals(1, table.versionCount(1));
+
+        Table.ReadView oldest = table.openView();
+        setBalance(200);
+        Table.ReadView middle = table.openView();
+        setBalance(300);
+        assertEquals(2, table.retainedVersions());
+        assertEquals(3, table.versionCount(1));
+
+        oldest.close();
+        // the next commit collects below the oldest remaining view, keeping what that view still reads
+        table.insert(Map.of("id", 2L, "balance", 0L));
+        assertEquals(1, table.retainedVersions());
+        assertEquals(2, table.versionCount(1));
+        assertEquals(200L, middle.getByKey(KEY).get("balance"));
+        assertEquals(300L, table.getByKey(KEY).get("balance"));
+
+        // the last reader out collects the rest without waiting for a writer
+        middle.close();
+        assertEquals(0, table.retainedVersions());
+        assertEquals(1, table.versionCount(1));
+    }
+
+    @Test
+    void deletedRowIsRemovedOnceNoViewCanSeeIt() {
+        Table.ReadView view = table.openView();
+        table.delete(new RowPredicate(List.of(new Condition("id", ConditionOperator.EQ, 1L))));
+        assertEquals(2, table.versionCount(1));
+        assertEquals(100L, view.getByKey(KEY).get("balance"));
+
+        view.close();
+        assertEquals(0, table.versionCount(1));
+        assertEquals(0, table.retainedVersions());
+        // the primary key is free again once the old version is gone
+        table.insert(Map.of("id", 1L, "balance", 7L));
+        assertEquals(7L, table.getByKey(KEY).get("balance"));
+    }
+
+    private void setBalance(long balance) {
+        table.update(new RowPredicate(List.of(new Condition("id", ConditionOperator.EQ, 1L))), Map.of("balance", balance));
+    }
+}
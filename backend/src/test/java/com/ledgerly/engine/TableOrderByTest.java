@@ -0,0 +1,132 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TableOrderByTest {
+    private static final int ROWS = 3_000;
+    private static final Integer[] LIMITS = {1, 3, 7, 50, 1_000, null};
+
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        table = new Table(new TableSchema("payments",
+                List.of(new ColumnDefinition("id", DataType.INT, false),
+                        new ColumnDefinition("merchant", DataType.STRING, true),
+                        new ColumnDefinition("reference", DataType.STRING, false),
+                        new ColumnDefinition("amount", DataType.INT, true),
+                        new ColumnDefinition("fee", DataType.INT, false)),
+                List.of("id"), List.of()), 1_000);
+        // few distinct values, so most rows tie with many others on any one key
+        for (long i = 0; i < ROWS; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("merchant", i % 6 == 0 ? null : "m" + i % 4);
+            // 2000 distinct references, each on at most two rows: stored as plain strings, not dictionary codes
+            row.put("reference", "r" + (ROWS - i) % 2_000);
+            row.put("amount", i % 5 == 0 ? null : i % 7);
+            row.put("fee", i % 3);
+            table.insert(row);
+        }
+        // newer versions of early rows and holes, so slot order and row order differ
+        table.update(where(new Condition("id", ConditionOperator.LT, 40L)), Map.of("fee", 1L));
+        table.delete(where(new Condition("amount", ConditionOperator.EQ, 3L), new Condition("fee", ConditionOperator.EQ, 0L)));
+        try (Table.ReadView view = table.openView()) {
+            assertNull(view.dictionary("reference"));
+        }
+    }
+
+    @Test
+    void descendingPutsNullsLastAndAscendingFirst() {
+        List<Map<String, Object>> desc = select(List.of(new OrderBy("amount", SortDirection.DESC)), null, ScanMode.SEQUENTIAL);
+        assertEquals(6L, desc.get(0).get("amount"));
+        assertNull(desc.get(desc.size() - 1).get("amount"));
+
+        List<Map<String, Object>> asc = select(List.of(new OrderBy("merchant", SortDirection.ASC)), null, ScanMode.SEQUENTIAL);
+        assertNull(asc.get(0).get("merchant"));
+        assertEquals("m3", asc.get(asc.size() - 1).get("merchant"));
+    }
+
+    @Test
+    void topKKeepsRowOrderAmongTiesAtEveryLimit() {
+        for (List<OrderBy> orderBy : List.of(
+                List.of(new OrderBy("amount", SortDirection.DESC)),
+                List.of(new OrderBy("amount", SortDirection.ASC)),
+                List.of(new OrderBy("merchant", SortDirection.DESC), new OrderBy("fee", SortDirection.ASC)),
+                List.of(new OrderBy("merchant", SortDirection.ASC), new OrderBy("amount", SortDirection.DESC)),
+                List.of(new OrderBy("reference", SortDirection.DESC)),
+                List.of(new OrderBy("fee", SortDirection.DESC)))) {
+            assertMatchesFullSort(orderBy, null);
+            assertMatchesFullSort(orderBy, where(new Condition("fee", ConditionOperator.NEQ, 2L)));
+        }
+    }
+
+    @Test
+    void orderedIndexWalkMatchesTheScanForTiesAndNulls() {
+        table.createIndex(new IndexDefinition("by_amount", List.of("amount"), IndexType.ORDERED));
+        table.createIndex(new IndexDefinition("by_fee", List.of("fee"), IndexType.ORDERED));
+
+        // a nullable key can be walked downwards only: nulls come after every indexed value
+        assertMatchesFullSort(List.of(new OrderBy("amount", SortDirection.DESC)), null);
+        assertMatchesFullSort(List.of(new OrderBy("amount", SortDirection.DESC), new OrderBy("merchant", SortDirection.DESC)), null);
+        assertMatchesFullSort(List.of(new OrderBy("amount", SortDirection.ASC)), null);
+        // a NOT NULL key either way, its last bucket taken whole so the second key settles the ties
+        assertMatchesFullSort(List.of(new OrderBy("fee", SortDirection.ASC), new OrderBy("reference", SortDirection.ASC)), null);
+        assertMatchesFullSort(List.of(new OrderBy("fee", SortDirection.DESC)),
+                where(new Condition("merchant", ConditionOperator.IS_NULL, null)));
+    }
+
+    private void assertMatchesFullSort(List<OrderBy> orderBy, RowPredicate predicate) {
+        List<Map<String, Object>> expected = new ArrayList<>(table.select(null, predicate, ScanMode.SEQUENTIAL));
+        // stable, so rows that tie on every key stay in row order
+        expected.sort(comparator(orderBy));
+        for (Integer limit : LIMITS) {
+            for (int offset : new int[]{0, 2}) {
+                int end = limit == null ? expected.size() : Math.min(expected.size(), offset + limit);
+                List<Map<String, Object>> page = expected.subList(Math.min(offset, end), end);
+                String label = orderBy.stream().map(o -> o.getColumn() + " " + o.getDirection()).toList()
+                        + " offset " + offset + " limit " + limit;
+                for (ScanMode mode : new ScanMode[]{ScanMode.SEQUENTIAL, ScanMode.PARALLEL}) {
+                    List<Map<String, Object>> out = new ArrayList<>();
+                    table.select(null, predicate, orderBy, new Page(offset, limit, null), mode, out::add);
+                    assertEquals(ids(page), ids(out), label + " " + mode);
+                }
+            }
+        }
+    }
+
+    private List<Map<String, Object>> select(List<OrderBy> orderBy, RowPredicate predicate, ScanMode mode) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        table.select(null, predicate, orderBy, Page.ALL, mode, out::add);
+        return out;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Map<String, Object>> comparator(List<OrderBy> orderBy) {
+        Comparator<Map<String, Object>> out = (a, b) -> 0;
+        for (OrderBy key : orderBy) {
+            Comparator<Map<String, Object>> ascending = Comparator.comparing(row -> (Comparable) row.get(key.getColumn()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            out = out.thenComparing(key.getDirection() == SortDirection.DESC ? ascending.reversed() : ascending);
+        }
+        return out;
+    }
+
+    private static List<Object> ids(List<Map<String, Object>> rows) {
+        return rows.stream().map(row -> row.get("id")).toList();
+    }
+
+    private static RowPredicate where(Condition... conditions) {
+        return new RowPredicate(List.of(conditions));
+    }
+}
@@ -0,0 +1,169 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TablePagingTest {
+    private static final RowPredicate PENDING = where(new Condition("state", ConditionOperator.EQ, "PENDING"));
+
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        table = new Table(new TableSchema("payments",
+                List.of(new ColumnDefinition("id", DataType.INT, false),
+                        new ColumnDefinition("state", DataType.STRING, false)),
+                List.of("id"), List.of()));
+        // row id i holds id i; every third row is SUCCESS, the rest PENDING
+        for (long i = 1; i <= 3_000; i++) {
+            table.insert(Map.of("id", i, "state", i % 3 == 0 ? "SUCCESS" : "PENDING"));
+        }
+    }
+
+    @Test
+    void cursorWalksEveryMatchOnceInRowOrder() {
+        List<Long> expected = ids(table.select(null, PENDING, ScanMode.SEQUENTIAL));
+
+        assertEquals(expected, walk(PENDING, 7));
+        // 2000 matches in pages of 500: the last full page already knows nothing follows
+        assertEquals(expected, walk(PENDING, 500));
+    }
+
+    @Test
+    void cursorWalksIndexCandidatesTheSameWay() {
+        table.createIndex(new IndexDefinition("by_state", List.of("state")));
+        RowPredicate success = where(new Condition("state", ConditionOperator.EQ, "SUCCESS"));
+        try (Table.ReadView view = table.openView()) {
+            assertEquals(1_000, view.candidates(success).size());
+        }
+
+        assertEquals(ids(table.select(null, success, ScanMode.SEQUENTIAL)), walk(success, 64));
+    }
+
+    @Test
+    void lastPageCarriesNoCursor() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Long cursor = table.select(null, PENDING, new Page(0, 5, 2_990L), rows::add);
+
+        assertEquals(List.of(2_992L, 2_993L, 2_995L, 2_996L, 2_998L), ids(rows));
+        assertEquals(2_998L, cursor);
+
+        rows.clear();
+        assertNull(table.select(null, PENDING, new Page(0, 5, cursor), rows::add));
+        assertEquals(List.of(2_999L), ids(rows));
+
+        // a page that is exactly filled by the last matches has no cursor either
+        rows.clear();
+        assertNull(table.select(null, PENDING, new Page(0, 4, 2_994L), rows::add));
+        assertEquals(List.of(2_995L, 2_996L, 2_998L, 2_999L), ids(rows));
+    }
+
+    @Test
+    void offsetIsCountedFromTheCursor() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Long cursor = table.select(null, PENDING, new Page(2, 2, 10L), rows::add);
+
+        // matches after row 10 are 11, 13, 14, 16, ...
+        assertEquals(List.of(14L, 16L), ids(rows));
+        assertEquals(16L, cursor);
+    }
+
+    @Test
+    void cursorOutlivesWritesBetweenPages() {
+        List<Map<String, Object>> first = new ArrayList<>();
+        Long cursor = table.select(null, PENDING, new Page(0, 4, null), first::add);
+        assertEquals(List.of(1L, 2L, 4L, 5L), ids(first));
+
+        // the cursor row itself goes away, an earlier row changes and a new match is added at the end
+        table.delete(where(new Condition("id", ConditionOperator.EQ, 5L)));
+        table.update(where(new Condition("id", ConditionOperator.EQ, 1L)), Map.of("state", "SUCCESS"));
+        table.update(where(new Condition("id", ConditionOperator.EQ, 6L)), Map.of("state", "PENDING"));
+        table.insert(Map.of("id", 3_001L, "state", "PENDING"));
+
+        List<Map<String, Object>> second = new ArrayList<>();
+        table.select(null, PENDING, new Page(0, 3, cursor), second::add);
+        assertEquals(List.of(6L, 7L, 8L), ids(second));
+
+        List<Long> rest = new ArrayList<>(ids(second));
+        rest.addAll(walkFrom(PENDING, 500, 8L));
+        assertEquals(3_001L, rest.get(rest.size() - 1));
+    }
+
+    @Test
+    void scanStopsAtTheFirstMatchPastTheLimit() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        table.select(null, PENDING, new Page(0, 10, null), row -> {
+            rows.add(row);
+            // a sink only ever sees the page, never the match that tells the scan to stop
+            assertTrue(rows.size() <= 10);
+        });
+        assertEquals(10, rows.size());
+
+        // the walk under a paged scan ends as soon as it is told to, mid-page
+        RowStore store = new RowStore();
+        for (long id = 0; id < 3_000; id++) {
+            store.put(id, new RowVersion(id, 0, 1, null));
+        }
+        List<Long> visited = new ArrayList<>();
+        store.forEachAfter(1_020, version -> {
+            visited.add(version.rowId);
+            return visited.size() < 5;
+        });
+        assertEquals(List.of(1_021L, 1_022L, 1_023L, 1_024L, 1_025L), visited);
+    }
+
+    @Test
+    void failingSinkEndsTheScanAndReleasesTheView() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        UncheckedIOException error = assertThrows(UncheckedIOException.class,
+                () -> table.select(null, PENDING, Page.ALL, row -> {
+                    rows.add(row);
+                    if (rows.size() == 3) {
+                        throw new UncheckedIOException(new IOException("Broken pipe"));
+                    }
+                }));
+        assertEquals("Broken pipe", error.getCause().getMessage());
+        assertEquals(3, rows.size());
+
+        // no view is left pinning old versions, so an update's old version is collected at once
+        table.update(where(new Condition("id", ConditionOperator.EQ, 1L)), Map.of("state", "SUCCESS"));
+        assertEquals(0, table.retainedVersions());
+        assertEquals(1, table.versionCount(1));
+    }
+
+    private List<Long> walk(RowPredicate predicate, int limit) {
+        return walkFrom(predicate, limit, null);
+    }
+
+    private List<Long> walkFrom(RowPredicate predicate, int limit, Long after) {
+        List<Long> seen = new ArrayList<>();
+        Long cursor = after;
+        do {
+            List<Map<String, Object>> page = new ArrayList<>();
+            cursor = table.select(null, predicate, new Page(0, limit, cursor), page::add);
+            assertTrue(!page.isEmpty() || seen.isEmpty(), "empty page after cursor");
+            assertTrue(page.size() == limit || cursor == null, "short page with a cursor");
+            seen.addAll(ids(page));
+        } while (cursor != null);
+        return seen;
+    }
+
+    private static List<Long> ids(List<Map<String, Object>> rows) {
+        return rows.stream().map(row -> (Long) row.get("id")).toList();
+    }
+
+    private static RowPredicate where(Condition... conditions) {
+        return new RowPredicate(List.of(conditions));
+    }
+}
@@ -0,0 +1,103 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableParallelScanTest {
+    private static final int ROWS = 10_000;
+
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        table = new Table(new TableSchema("payments",
+                List.of(new ColumnDefinition("id", DataType.INT, false),
+                        new ColumnDefinition("merchant", DataType.STRING, false),
+                        new ColumnDefinition("amount", DataType.INT, true)),
+                List.of("id"), List.of()), 1_000);
+        for (long i = 0; i < ROWS; i++) {
+            table.insert(Map.of("id", i, "merchant", "m" + i % 13, "amount", i * 7 % 1_000));
+        }
+        // leave holes and newer versions scattered over every page
+        table.delete(where(new Condition("amount", ConditionOperator.LT, 50L)));
+        table.update(where(new Condition("merchant", ConditionOperator.EQ, "m3")), Map.of("amount", 999L));
+    }
+
+    @Test
+    void parallelScanReturnsRowsInSequentialOrder() {
+        for (RowPredicate predicate : List.of(
+                where(new Condition("amount", ConditionOperator.GT, 900L)),
+                where(new Condition("merchant", ConditionOperator.NEQ, "m5")),
+                where(new Condition("id", ConditionOperator.GTE, 0L)))) {
+            List<Map<String, Object>> sequential = table.select(null, predicate, ScanMode.SEQUENTIAL);
+            assertTrue(sequential.size() > 1_000, "scan must span several pages");
+            assertAscendingIds(sequential);
+
+            assertEquals(sequential, table.select(null, predicate, ScanMode.PARALLEL));
+            assertEquals(sequential, table.select(null, predicate, ScanMode.AUTO));
+        }
+    }
+
+    @Test
+    void parallelScanOfAPinnedViewIgnoresLaterWrites() {
+        RowPredicate over900 = where(new Condition("amount", ConditionOperator.GT, 900L));
+        List<Map<String, Object>> before = table.select(List.of("id", "amount"), over900, ScanMode.SEQUENTIAL);
+        try (Table.ReadView view = table.openView()) {
+            table.update(where(new Condition("merchant", ConditionOperator.EQ, "m7")), Map.of("amount", 950L));
+            table.delete(where(new Condition("merchant", ConditionOperator.EQ, "m3")));
+            for (long i = ROWS; i < ROWS + 2_000; i++) {
+                table.insert(Map.of("id", i, "merchant", "m1", "amount", 990L));
+            }
+
+            assertEquals(before, view.select(List.of("id", "amount"), over900, ScanMode.PARALLEL));
+        }
+        List<Map<String, Object>> after = table.select(List.of("id", "amount"), over900, ScanMode.SEQUENTIAL);
+        assertEquals(after, table.select(List.of("id", "amount"), over900, ScanMode.PARALLEL));
+    }
+
+    @Test
+    void parallelAggregationAndTopKMatchSequential() {
+        List<Aggregate> aggregates = List.of(new Aggregate(AggregateFunction.COUNT, null),
+                new Aggregate(AggregateFunction.SUM, "amount"));
+        RowPredicate filter = where(new Condition("amount", ConditionOperator.GTE, 500L));
+        assertEquals(table.aggregate(List.of("merchant"), aggregates, filter, ScanMode.SEQUENTIAL),
+                table.aggregate(List.of("merchant"), aggregates, filter, ScanMode.PARALLEL));
+
+        // amount repeats every 1000 ids, so ties are left to row order
+        List<OrderBy> byAmount = List.of(new OrderBy("amount", SortDirection.DESC));
+        assertEquals(sorted(byAmount, ScanMode.SEQUENTIAL), sorted(byAmount, ScanMode.PARALLEL));
+    }
+
+    @Test
+    void writesAboveTheThresholdMatchEverySequentiallyFoundRow() {
+        RowPredicate m5 = where(new Condition("merchant", ConditionOperator.EQ, "m5"));
+        int expected = table.select(null, m5, ScanMode.SEQUENTIAL).size();
+
+        assertEquals(expected, table.update(m5, Map.of("merchant", "m5x")));
+        assertEquals(expected, table.delete(where(new Condition("merchant", ConditionOperator.EQ, "m5x"))));
+        assertEquals(List.of(), table.select(null, m5, ScanMode.PARALLEL));
+    }
+
+    private List<Map<String, Object>> sorted(List<OrderBy> orderBy, ScanMode mode) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        table.select(List.of("id", "amount"), null, orderBy, new Page(0, 500, null), mode, out::add);
+        return out;
+    }
+
+    private static void assertAscendingIds(List<Map<String, Object>> rows) {
+        for (int i = 1; i < rows.size(); i++) {
+            assertTrue((Long) rows.get(i - 1).get("id") < (Long) rows.get(i).get("id"), "row " + i);
+        }
+    }
+
+    private static RowPredicate where(Condition... conditions) {
+        return new RowPredicate(List.of(conditions));
+    }
+}
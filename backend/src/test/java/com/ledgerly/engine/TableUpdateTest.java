@@ -0,0 +1,56 @@
+package com.ledgerly.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TableUpdateTest {
+    private static final RowPredicate FIRST = new RowPredicate(List.of(new Condition("id", ConditionOperator.EQ, 1L)));
+
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        table = new Table(new TableSchema("payments",
+                List.of(new ColumnDefinition("id", DataType.INT, false),
+                        new ColumnDefinition("state", DataType.STRING, false),
+                        new ColumnDefinition("amount", DataType.INT, false),
+                        new ColumnDefinition("note", DataType.STRING, true)),
+                List.of("id"), List.of()));
+        table.insert(Map.of("id", 1L, "state", "PENDING", "amount", 500L, "note", "first"));
+    }
+
+    @Test
+    void columnsLeftOutKeepTheirValue() {
+        assertEquals(1, table.update(FIRST, Map.of("state", "SUCCESS")));
+
+        assertEquals(Map.of("id", 1L, "state", "SUCCESS", "amount", 500L, "note", "first"), table.getByKey(Map.of("id", 1L)));
+    }
+
+    @Test
+    void explicitNullClearsANullableColumn() {
+        Map<String, Object> clear = new HashMap<>();
+        clear.put("note", null);
+        table.update(FIRST, clear);
+
+        Map<String, Object> expected = new HashMap<>(Map.of("id", 1L, "state", "PENDING", "amount", 500L));
+        expected.put("note", null);
+        assertEquals(expected, table.getByKey(Map.of("id", 1L)));
+    }
+
+    @Test
+    void explicitNullOnARequiredColumnIsRejected() {
+        Map<String, Object> clear = new HashMap<>();
+        clear.put("amount", null);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> table.update(FIRST, clear));
+        assertEquals("Column amount cannot be null", error.getMessage());
+        assertEquals(500L, table.getByKey(Map.of("id", 1L)).get("amount"));
+    }
+}
@@ -0,0 +1,201 @@
+package com.ledgerly.engine;
+
+import com.ledgerly.engine.persistence.BinaryFilePersistence;
+import com.ledgerly.engine.persistence.FilePersistence;
+import com.ledgerly.engine.persistence.PersistenceEvent;
+import com.ledgerly.engine.persistence.SegmentedLogPersistence;
+import com.ledgerly.engine.persistence.WalRecordMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class WalRecordModeReplayTest {
+    private static final TableSchema PAYMENTS = new TableSchema("payments",
+            List.of(new ColumnDefinition("id", DataType.INT, false),
+                    new ColumnDefinition("reference", DataType.STRING, false),
+                    new ColumnDefinition("state", DataType.STRING, false),
+                    new ColumnDefinition("amount", DataType.INT, true)),
+            List.of("id"), List.of(List.of("reference")));
+    private static final TableSchema BALANCES = new TableSchema("balances",
+            List.of(new ColumnDefinition("merchant", DataType.STRING, false),
+                    new ColumnDefinition("total", DataType.INT, false)),
+            List.of("merchant"), List.of());
+
+    @TempDir
+    Path dir;
+
+    static Stream<Arguments> modesAndFormats() {
+        List<Arguments> out = new ArrayList<>();
+        for (WalRecordMode mode : WalRecordMode.values()) {
+            out.add(Arguments.of(mode, false));
+            out.add(Arguments.of(mode, true));
+        }
+        return out.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("modesAndFormats")
+    void replayRebuildsTheSameRowsIndexesAndViews(WalRecordMode mode, boolean binary) {
+        Map<String, List<Map<String, Object>>> expected;
+        try (SegmentedLogPersistence persistence = persistence(binary)) {
+            LedgerEngine engine = open(persistence, mode);
+            churn(engine);
+            expected = contents(engine);
+        }
+        try (SegmentedLogPersistence persistence = persistence(binary)) {
+            LedgerEngine replayed = new LedgerEngine(persistence, 0, mode);
+
+            assertEquals(expected, contents(replayed));
+            // the unique index was rebuilt under the keys the rows hold now
+            assertEquals(105L, replayed.getByKey("payments", Map.of("id", 105L)).orElseThrow().get("id"));
+            assertEquals("r5-again", replayed.getByKey("payments", Map.of("id", 5L)).orElseThrow().get("reference"));
+            assertEquals(105L, replayed.select("payments", null, where(new Condition("reference", ConditionOperator.EQ, "r5")))
+                    .get(0).get("id"));
+        }
+    }
+
+    @Test
+    void physicalRecordsCarryTheKeysRowsHadBeforeTheStatement() {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence, WalRecordMode.PHYSICAL);
+            churn(engine);
+        }
+        List<PersistenceEvent> logged = new ArrayList<>();
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            persistence.replay(logged::add);
+        }
+        // no record holds a predicate to re-evaluate, and statements matching no row log nothing
+        assertFalse(logged.stream().anyMatch(event -> event.type() == PersistenceEvent.EventType.UPDATE
+                || event.type() == PersistenceEvent.EventType.DELETE));
+        PersistenceEvent renumber = logged.stream()
+                .filter(event -> event.type() == PersistenceEvent.EventType.UPDATE_ROWS
+                        && ((Number) event.rows().get(0).get("id")).longValue() == 105L)
+                .findFirst().orElseThrow();
+        assertEquals(List.of(List.of(5L)), keys(renumber));
+        // the losing compare-and-set on row 7 logged nothing
+        assertEquals(1, logged.stream().filter(event -> event.type() == PersistenceEvent.EventType.UPDATE_ROWS
+                && keys(event).equals(List.of(List.of(7L)))).count());
+        PersistenceEvent deleted = logged.stream()
+                .filter(event -> event.type() == PersistenceEvent.EventType.DELETE_ROWS)
+                .findFirst().orElseThrow();
+        assertEquals(List.of(List.of(2L), List.of(3L), List.of(4L)), keys(deleted));
+        PersistenceEvent transaction = logged.stream()
+                .filter(event -> event.type() == PersistenceEvent.EventType.TRANSACTION)
+                .findFirst().orElseThrow();
+        assertEquals(List.of(PersistenceEvent.EventType.UPDATE_ROWS, PersistenceEvent.EventType.UPDATE_ROWS,
+                PersistenceEvent.EventType.DELETE_ROWS), transaction.statements().stream().map(PersistenceEvent::type).toList());
+    }
+
+    @ParameterizedTest
+    @EnumSource(WalRecordMode.class)
+    void logWrittenInOneModeReplaysAndGrowsInTheOther(WalRecordMode first) {
+        WalRecordMode second = first == WalRecordMode.LOGICAL ? WalRecordMode.PHYSICAL : WalRecordMode.LOGICAL;
+        Map<String, List<Map<String, Object>>> expected;
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            churn(open(persistence, first));
+        }
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = new LedgerEngine(persistence, 0, second);
+            engine.update("payments", where(new Condition("state", ConditionOperator.EQ, "SUCCESS")), Map.of("amount", 1L));
+            engine.delete("payments", where(new Condition("id", ConditionOperator.EQ, 105L)));
+            expected = contents(engine);
+        }
+        for (WalRecordMode mode : WalRecordMode.values()) {
+            try (FilePersistence persistence = new FilePersistence(dir)) {
+                assertEquals(expected, contents(new LedgerEngine(persistence, 0, mode)));
+            }
+        }
+    }
+
+    @Test
+    void physicalRecordsAfterACheckpointReplayOverTheSnapshot() {
+        Map<String, List<Map<String, Object>>> expected;
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            LedgerEngine engine = open(persistence, WalRecordMode.PHYSICAL);
+            engine.checkpoint();
+            churn(engine);
+            expected = contents(engine);
+        }
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            assertEquals(expected, contents(new LedgerEngine(persistence, 0, WalRecordMode.PHYSICAL)));
+        }
+    }
+
+    private SegmentedLogPersistence persistence(boolean binary) {
+        return binary ? new BinaryFilePersistence(dir) : new FilePersistence(dir);
+    }
+
+    private static LedgerEngine open(SegmentedLogPersistence persistence, WalRecordMode mode) {
+        LedgerEngine engine = new LedgerEngine(persistence, 0, mode);
+        engine.createTable(PAYMENTS);
+        engine.createTable(BALANCES);
+        engine.createIndex("payments", new IndexDefinition("by_state", List.of("state")));
+        engine.createView("payments", new MaterializedViewDefinition("by_state", List.of("state"),
+                List.of(new Aggregate(AggregateFunction.COUNT, null), new Aggregate(AggregateFunction.SUM, "amount"))));
+        for (long i = 1; i <= 12; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("reference", "r" + i);
+            row.put("state", "PENDING");
+            row.put("amount", i % 4 == 0 ? null : i * 10);
+            engine.insert("payments", row);
+        }
+        engine.insert("balances", Map.of("merchant", "m1", "total", 0L));
+        return engine;
+    }
+
+    // every kind of write a log records: by predicate, by key, renumbering a key, none matched, transactions
+    private static void churn(LedgerEngine engine) {
+        engine.update("payments", where(new Condition("id", ConditionOperator.LTE, 6L)), Map.of("state", "SUCCESS"));
+        engine.update("payments", where(new Condition("id", ConditionOperator.EQ, 5L)), Map.of("id", 105L));
+        engine.update("payments", where(new Condition("id", ConditionOperator.EQ, 999L)), Map.of("state", "FAILED"));
+        engine.compareAndSet("payments", Map.of("id", 7L), Map.of("state", "PENDING"), Map.of("state", "FAILED"));
+        engine.compareAndSet("payments", Map.of("id", 7L), Map.of("state", "PENDING"), Map.of("state", "SUCCESS"));
+        engine.delete("payments", where(new Condition("id", ConditionOperator.GTE, 2L), new Condition("id", ConditionOperator.LTE, 4L)));
+        engine.delete("payments", where(new Condition("state", ConditionOperator.EQ, "EXPIRED")));
+        engine.inTransaction(List.of("payments", "balances"), tx -> {
+            tx.update("payments", where(new Condition("id", ConditionOperator.EQ, 9L)), Map.of("state", "SUCCESS"));
+            tx.update("balances", where(new Condition("merchant", ConditionOperator.EQ, "m1")), Map.of("total", 90L));
+            tx.delete("payments", where(new Condition("id", ConditionOperator.EQ, 10L)));
+            return null;
+        });
+        engine.insert("payments", Map.of("id", 5L, "reference", "r5-again", "state", "PENDING", "amount", 1L));
+    }
+
+    private static Map<String, List<Map<String, Object>>> contents(LedgerEngine engine) {
+        Map<String, List<Map<String, Object>>> out = new HashMap<>();
+        out.put("payments", engine.select("payments", null, null));
+        out.put("balances", engine.select("balances", null, null));
+        out.put("by_state", engine.queryView("payments", "by_state", Map.of()));
+        List<Map<String, Object>> indexed = new ArrayList<>();
+        for (String state : List.of("PENDING", "SUCCESS", "FAILED")) {
+            indexed.addAll(engine.select("payments", null, where(new Condition("state", ConditionOperator.EQ, state))));
+        }
+        out.put("by_state index", indexed);
+        return out;
+    }
+
+    // logged key values come back as whatever number type the format decodes
+    private static List<List<Long>> keys(PersistenceEvent event) {
+        return event.keys().stream()
+                .map(key -> key.stream().map(value -> ((Number) value).longValue()).toList())
+                .toList();
+    }
+
+    private static RowPredicate where(Condition... conditions) {
+        return new RowPredicate(List.of(conditions));
+    }
+}
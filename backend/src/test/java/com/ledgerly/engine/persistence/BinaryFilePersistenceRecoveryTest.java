@@ -0,0 +1,149 @@
+package com.ledgerly.engine.persistence;
+
+import com.ledgerly.engine.ColumnDefinition;
+import com.ledgerly.engine.DataType;
+import com.ledgerly.engine.TableSchema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryFilePersistenceRecoveryTest {
+    private static final TableSchema SCHEMA = new TableSchema("t",
+            List.of(new ColumnDefinition("id", DataType.INT, false), new ColumnDefinition("name", DataType.STRING, true)),
+            List.of("id"), List.of());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tornTailOfActiveLogIsTruncated() throws IOException {
+        write(PersistenceEvent.createTable(SCHEMA), insert(1), insert(2));
+        Path wal = dir.resolve("ledgerly-wal.bin");
+        long intact = Files.size(wal);
+        byte[] frame = new BinaryFilePersistence(dir).encode(insert(3));
+        Files.write(wal, Arrays.copyOf(frame, frame.length - 3), StandardOpenOption.APPEND);
+
+        assertEquals(3, replay().size());
+        assertEquals(intact, Files.size(wal));
+        // the truncated log takes new records where the torn one was
+        write(insert(4));
+        assertEquals(4, replay().size());
+    }
+
+    @Test
+    void zeroFilledTailOfActiveLogIsTruncated() throws IOException {
+        write(PersistenceEvent.createTable(SCHEMA), insert(1));
+        Path wal = dir.resolve("ledgerly-wal.bin");
+        long intact = Files.size(wal);
+        Files.write(wal, new byte[4096], StandardOpenOption.APPEND);
+
+        assertEquals(2, replay().size());
+        assertEquals(intact, Files.size(wal));
+    }
+
+    @Test
+    void checksumMismatchInTheMiddleFailsStartup() throws IOException {
+        write(PersistenceEvent.createTable(SCHEMA), insert(1), insert(2), insert(3));
+        Path wal = dir.resolve("ledgerly-wal.bin");
+        long offset = frameOffset(wal, 2);
+        byte[] corrupted = flipPayloadBit(wal, offset);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, this::replay);
+        assertTrue(error.getMessage().contains(wal.toString()), error.getMessage());
+        assertTrue(error.getMessage().contains("at byte " + offset), error.getMessage());
+        // nothing after the damage is cut off
+        assertArrayEquals(corrupted, Files.readAllBytes(wal));
+    }
+
+    @Test
+    void corruptSealedSegmentFailsStartup() throws IOException {
+        try (BinaryFilePersistence persistence = new BinaryFilePersistence(dir)) {
+            persistence.appendEvent(PersistenceEvent.createTable(SCHEMA));
+            persistence.appendEvent(insert(1));
+            persistence.sealSegment();
+            persistence.appendEvent(insert(2));
+        }
+        Path segment = dir.resolve("ledgerly-wal-1.bin");
+        long offset = frameOffset(segment, 1);
+        // the last frame of a sealed segment was synced before the seal, so even there damage is not a torn write
+        byte[] corrupted = flipPayloadBit(segment, offset);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, this::replay);
+        assertTrue(error.getMessage().contains(segment.toString()), error.getMessage());
+        assertTrue(error.getMessage().contains("at byte " + offset), error.getMessage());
+        assertArrayEquals(corrupted, Files.readAllBytes(segment));
+    }
+
+    @Test
+    void recordTooLongToReplayIsRejectedBeforeItIsAppended() throws IOException {
+        write(PersistenceEvent.createTable(SCHEMA), insert(1));
+        Path wal = dir.resolve("ledgerly-wal.bin");
+        byte[] intact = Files.readAllBytes(wal);
+        PersistenceEvent oversized = PersistenceEvent.insert("t", Map.of("id", 2L, "name", "x".repeat(64 << 20)));
+
+        try (BinaryFilePersistence persistence = new BinaryFilePersistence(dir)) {
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                    () -> persistence.appendEvent(oversized));
+            assertTrue(error.getMessage().contains("exceeds the limit"), error.getMessage());
+            assertArrayEquals(intact, Files.readAllBytes(wal));
+            persistence.appendEvent(insert(3));
+        }
+        List<PersistenceEvent> replayed = replay();
+        assertEquals(3, replayed.size());
+        assertEquals(3L, replayed.get(2).values().get("id"));
+    }
+
+    private void write(PersistenceEvent... events) {
+        try (BinaryFilePersistence persistence = new BinaryFilePersistence(dir)) {
+            for (PersistenceEvent event : events) {
+                persistence.appendEvent(event);
+            }
+        }
+    }
+
+    private List<PersistenceEvent> replay() {
+        List<PersistenceEvent> events = new ArrayList<>();
+        try (BinaryFilePersistence persistence = new BinaryFilePersistence(dir)) {
+            persistence.replay(events::add);
+        }
+        return events;
+    }
+
+    private static PersistenceEvent insert(int id) {
+        return PersistenceEvent.insert("t", Map.of("id", (long) id, "name", "row" + id));
+    }
+
+    // byte offset of frame number {@code index}, walking the length prefixes
+    private static long frameOffset(Path file, int index) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        long offset = 0;
+        for (int i = 0; i < index; i++) {
+            int length = ((bytes[(int) offset] & 0xff) << 24) | ((bytes[(int) offset + 1] & 0xff) << 16)
+                    | ((bytes[(int) offset + 2] & 0xff) << 8) | (bytes[(int) offset + 3] & 0xff);
+            offset += 8 + length;
+        }
+        return offset;
+    }
+
+    // flips one payload bit of the frame at offset and returns the file as written
+    private static byte[] flipPayloadBit(Path file, long offset) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] corrupted = bytes.clone();
+        corrupted[(int) offset + 8] ^= 0x01;
+        Files.write(file, corrupted);
+        return corrupted;
+    }
+}
@@ -0,0 +1,117 @@
+package com.ledgerly.engine.persistence;
+
+import com.ledgerly.engine.ColumnDefinition;
+import com.ledgerly.engine.DataType;
+import com.ledgerly.engine.TableSchema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilePersistenceRecoveryTest {
+    private static final TableSchema SCHEMA = new TableSchema("t",
+            List.of(new ColumnDefinition("id", DataType.INT, false), new ColumnDefinition("name", DataType.STRING, true)),
+            List.of("id"), List.of());
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tornLastLineOfActiveLogIsTruncated() throws IOException {
+        write(PersistenceEvent.createTable(SCHEMA), insert(1), insert(2));
+        Path wal = dir.resolve("ledgerly-wal.jsonl");
+        long intact = Files.size(wal);
+        byte[] line = new FilePersistence(dir).encode(insert(3));
+        Files.write(wal, Arrays.copyOf(line, line.length - 5), StandardOpenOption.APPEND);
+
+        assertEquals(3, replay().size());
+        assertEquals(intact, Files.size(wal));
+        // the truncated log takes new records where the torn one was
+        write(insert(4));
+        assertEquals(4, replay().size());
+    }
+
+    @Test
+    void zeroFilledTailOfActiveLogIsTruncated() throws IOException {
+        write(PersistenceEvent.createTable(SCHEMA), insert(1));
+        Path wal = dir.resolve("ledgerly-wal.jsonl");
+        long intact = Files.size(wal);
+        Files.write(wal, new byte[4096], StandardOpenOption.APPEND);
+
+        assertEquals(2, replay().size());
+        assertEquals(intact, Files.size(wal));
+    }
+
+    @Test
+    void unreadableLineInTheMiddleFailsStartup() throws IOException {
+        write(PersistenceEvent.createTable(SCHEMA), insert(1), insert(2), insert(3));
+        Path wal = dir.resolve("ledgerly-wal.jsonl");
+        byte[] corrupted = breakLine(wal, 2);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, this::replay);
+        assertTrue(error.getMessage().contains(wal.toString()), error.getMessage());
+        // nothing after the damage is cut off
+        assertArrayEquals(corrupted, Files.readAllBytes(wal));
+    }
+
+    @Test
+    void tornLastLineOfSealedSegmentFailsStartup() throws IOException {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            persistence.appendEvent(PersistenceEvent.createTable(SCHEMA));
+            persistence.appendEvent(insert(1));
+            persistence.sealSegment();
+            persistence.appendEvent(insert(2));
+        }
+        Path segment = dir.resolve("ledgerly-wal-1.jsonl");
+        // a sealed segment was synced before the seal, so even its last line cannot be a torn write
+        byte[] bytes = Files.readAllBytes(segment);
+        byte[] corrupted = Arrays.copyOf(bytes, bytes.length - 5);
+        Files.write(segment, corrupted);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, this::replay);
+        assertTrue(error.getMessage().contains(segment.toString()), error.getMessage());
+        assertArrayEquals(corrupted, Files.readAllBytes(segment));
+    }
+
+    private void write(PersistenceEvent... events) {
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            for (PersistenceEvent event : events) {
+                persistence.appendEvent(event);
+            }
+        }
+    }
+
+    private List<PersistenceEvent> replay() {
+        List<PersistenceEvent> events = new ArrayList<>();
+        try (FilePersistence persistence = new FilePersistence(dir)) {
+            persistence.replay(events::add);
+        }
+        return events;
+    }
+
+    private static PersistenceEvent insert(int id) {
+        return PersistenceEvent.insert("t", Map.of("id", (long) id, "name", "row" + id));
+    }
+
+    // drops the closing brace of line number {@code index} and returns the file as written
+    private static byte[] breakLine(Path file, int index) throws IOException {
+        List<String> lines = new ArrayList<>(Files.readAllLines(file, StandardCharsets.UTF_8));
+        String line = lines.get(index);
+        lines.set(index, line.substring(0, line.length() - 1));
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return Files.readAllBytes(file);
+    }
+}
@@ -0,0 +1,258 @@
+package com.ledgerly.engine.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WalWriterTest {
+    private static final int THREADS = 8;
+    private static final int WRITES = 200;
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(FsyncPolicy.class)
+    void everyCallerReturnsOnlyOnceItsOwnRecordIsDurable(FsyncPolicy policy) throws Exception {
+        Path wal = dir.resolve("wal");
+        List<RecordingChannel> opened = new CopyOnWriteArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try (WalWriter writer = new WalWriter(wal, policy, 50, file -> {
+            RecordingChannel channel = new RecordingChannel(file);
+            opened.add(channel);
+            return channel;
+        })) {
+            List<Future<?>> callers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                callers.add(pool.submit(() -> {
+                    for (int i = 0; i < WRITES; i++) {
+                        String record = "r" + thread + "-" + i + "\n";
+                        writer.write(record.getBytes(StandardCharsets.UTF_8));
+                        // COMMIT acknowledges once forced to disk, the others once handed to the OS
+                        String durable = policy == FsyncPolicy.COMMIT ? opened.get(0).forced() : contents(wal);
+                        assertTrue(durable.contains(record), policy + " acknowledged " + record.trim() + " early");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> caller : callers) {
+                caller.get();
+            }
+            RecordingChannel channel = opened.get(0);
+            if (policy == FsyncPolicy.INTERVAL) {
+                // an idle writer still forces what it acknowledged within the interval
+                long deadline = System.nanoTime() + 5_000_000_000L;
+                while (channel.forced().length() < Files.size(wal) && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertEquals(Files.size(wal), channel.forced().length());
+            }
+            if (policy == FsyncPolicy.OS) {
+                assertEquals(0, channel.forces);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, opened.size());
+        assertEquals(THREADS * WRITES, contents(wal).lines().count());
+        // closing forces whatever the OS policy left unsynced
+        assertEquals(Files.size(wal), opened.get(0).forced().length());
+    }
+
+    @Test
+    void failedBatchIsTruncatedAndLaterWritesCarryOn() throws IOException {
+        Path wal = dir.resolve("wal");
+        RecordingChannel[] channel = new RecordingChannel[1];
+        try (WalWriter writer = new WalWriter(wal, FsyncPolicy.COMMIT, 50,
+                file -> channel[0] = new RecordingChannel(file))) {
+            writer.write(bytes("first\n"));
+            channel[0].failNextWrite = true;
+
+            IllegalStateException error = assertThrows(IllegalStateException.class, () -> writer.write(bytes("torn\n")));
+            assertEquals("Failed to append WAL event", error.getMessage());
+            // the half-written record was cut off, so replay will not pick up an unacknowledged event
+            assertEquals("first\n", contents(wal));
+
+            writer.write(bytes("second\n"));
+        }
+        assertEquals("first\nsecond\n", contents(wal));
+    }
+
+    @Test
+    void failedTruncationRefusesEveryLaterWrite() throws IOException {
+        Path wal = dir.resolve("wal");
+        RecordingChannel[] channel = new RecordingChannel[1];
+        try (WalWriter writer = new WalWriter(wal, FsyncPolicy.COMMIT, 50,
+                file -> channel[0] = new RecordingChannel(file))) {
+            writer.write(bytes("first\n"));
+            channel[0].failNextWrite = true;
+            channel[0].failTruncate = true;
+
+            assertThrows(IllegalStateException.class, () -> writer.write(bytes("torn\n")));
+            IllegalStateException latched = assertThrows(IllegalStateException.class, () -> writer.write(bytes("second\n")));
+            assertTrue(latched.getMessage().startsWith("Failed to truncate torn WAL batch"), latched.getMessage());
+            assertSame(latched, assertThrows(IllegalStateException.class, () -> writer.write(bytes("third\n"))));
+        }
+        assertTrue(contents(wal).startsWith("first\n"));
+        assertFalse(contents(wal).contains("second"));
+    }
+
+    private static byte[] bytes(String record) {
+        return record.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String contents(Path file) {
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Append channel that remembers what it held at its last force and can fail a write halfway.
+     */
+    private static final class RecordingChannel extends FileChannel {
+        private final Path file;
+        private final FileChannel delegate;
+        private volatile String forced = "";
+        volatile int forces;
+        volatile boolean failNextWrite;
+        volatile boolean failTruncate;
+
+        RecordingChannel(Path file) throws IOException {
+            this.file = file;
+            this.delegate = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+
+        String forced() {
+            return forced;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            if (failNextWrite) {
+                failNextWrite = false;
+                ByteBuffer half = srcs[offset].duplicate();
+                half.limit(half.position() + half.remaining() / 2);
+                delegate.write(half);
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+            forced = contents(file);
+            forces++;
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (failTruncate) {
+                throw new IOException("Input/output error");
+            }
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.ledgerly.engine;
+
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Retained heap per row of a {@value TransactionsFixture#ROWS}-row transactions table after a
+ * full GC. {@code map} holds every row as the {@code HashMap} the table kept per row before
+ * columnar storage, keyed by row id, plus the primary key index; {@code columnar} is the table
+ * and {@code plain} the table with every STRING column stored as plain strings instead of
+ * dictionary codes.
+ * Not a JMH benchmark; run it on its own:
+ * {@code java -Xmx2g -cp target/benchmarks.jar com.ledgerly.engine.HeapFootprint [layout] [rows]}
+ */
+public final class HeapFootprint {
+
+    private HeapFootprint() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        List<String> layouts = args.length > 0 ? List.of(args[0]) : List.of("map", "columnar", "plain");
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : TransactionsFixture.ROWS;
+        for (String layout : layouts) {
+            long before = usedAfterGc();
+            Object held = build(layout, rows);
+            long after = usedAfterGc();
+            System.out.printf("%-9s %d rows: %d bytes/row%n", layout, rows, (after - before) / rows);
+            Reference.reachabilityFence(held);
+        }
+    }
+
+    private static Object build(String layout, int rows) {
+        return switch (layout) {
+            case "map" -> mapRows(rows);
+            case "columnar" -> TransactionsFixture.table(rows);
+            case "plain" -> TransactionsFixture.table(rows, true);
+            default -> throw new IllegalArgumentException("Unknown layout: " + layout);
+        };
+    }
+
+    private static Object[] mapRows(int rows) {
+        Map<Long, Map<String, Object>> byId = new HashMap<>();
+        Map<List<Object>, Long> primaryKey = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = TransactionsFixture.row(i, random);
+            long id = i + 1L;
+            byId.put(id, row);
+            primaryKey.put(List.of(row.get("id")), id);
+        }
+        return new Object[]{byId, primaryKey};
+    }
+
+    private static long usedAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,60 @@
+package com.ledgerly.engine;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The per-row evaluator {@link CompiledPredicate} replaced, kept as the baseline: every condition
+ * looks its column up by name, switches on the operator and compares through {@code Comparable}.
+ */
+final class InterpretedPredicate {
+    private final List<Condition> conditions;
+
+    InterpretedPredicate(RowPredicate predicate) {
+        this.conditions = predicate == null ? List.of() : predicate.conditions();
+    }
+
+    boolean test(Map<String, Object> row) {
+        for (Condition condition : conditions) {
+            if (!evaluate(condition, row.get(condition.getColumn()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean evaluate(Condition condition, Object value) {
+        ConditionOperator op = condition.getOperator();
+        Object rhs = condition.getValue();
+        if (value == null && op != ConditionOperator.IS_NULL && op != ConditionOperator.IS_NOT_NULL) {
+            if (rhs == null) {
+                throw new IllegalArgumentException("Cannot compare null values");
+            }
+            return false;
+        }
+        return switch (op) {
+            case IS_NULL -> value == null;
+            case IS_NOT_NULL -> value != null;
+            case EQ -> compare(value, rhs) == 0;
+            case NEQ -> compare(value, rhs) != 0;
+            case LT -> compare(value, rhs) < 0;
+            case LTE -> compare(value, rhs) <= 0;
+            case GT -> compare(value, rhs) > 0;
+            case GTE -> compare(value, rhs) >= 0;
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private int compare(Object left, Object right) {
+        if (left == null || right == null) {
+            throw new IllegalArgumentException("Cannot compare null values");
+        }
+        if (left instanceof Number l && right instanceof Number r) {
+            return Long.compare(l.longValue(), r.longValue());
+        }
+        if (!(left instanceof Comparable<?> l) || !(right instanceof Comparable<?> r)) {
+            throw new IllegalArgumentException("Values are not comparable");
+        }
+        return ((Comparable) l).compareTo(r);
+    }
+}
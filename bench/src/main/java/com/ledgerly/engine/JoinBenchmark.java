@@ -0,0 +1,73 @@
+package com.ledgerly.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unindexed hash join of 100k transactions with 400 merchant rows on a 300-value string column.
+ * With {@code strings=dictionary} both columns are dictionary-encoded and the join runs over
+ * codes; with {@code strings=plain} both store plain strings and the join hashes them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class JoinBenchmark {
+    private static final int TRANSACTIONS = 100_000;
+    private static final int MERCHANT_ROWS = 400;
+
+    @Param({"dictionary", "plain"})
+    public String strings;
+
+    private Table transactions;
+    private Table merchants;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean plain = strings.equals("plain");
+        transactions = TransactionsFixture.table(TRANSACTIONS, plain);
+        merchants = new Table(new TableSchema("merchants",
+                List.of(new ColumnDefinition("id", DataType.INT, false),
+                        new ColumnDefinition("merchant", DataType.STRING, false),
+                        new ColumnDefinition("region", DataType.STRING, false)),
+                List.of("id"), List.of()));
+        if (plain) {
+            TransactionsFixture.dropDictionaries(merchants);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < MERCHANT_ROWS; i++) {
+            merchants.insert(Map.of("id", (long) i,
+                    "merchant", "m_" + random.nextInt(TransactionsFixture.MERCHANTS),
+                    "region", "r_" + i % 8));
+        }
+    }
+
+    @Benchmark
+    public long hashJoin() {
+        long[] joined = new long[1];
+        try (Table.ReadView left = transactions.openView();
+             Table.ReadView right = merchants.openView()) {
+            new JoinOperator(left, "transactions", "merchant_id", right, "merchants", "merchant",
+                    List.of("transactions.id", "merchants.region"))
+                    .run(row -> joined[0]++);
+        }
+        return joined[0];
+    }
+}
@@ -0,0 +1,65 @@
+package com.ledgerly.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.ledgerly.engine.TransactionsFixture.condition;
+import static com.ledgerly.engine.TransactionsFixture.where;
+
+/**
+ * Unindexed scans of a {@value TransactionsFixture#ROWS}-row transactions table, in ns per row,
+ * walked by one thread ({@code scanMode=SEQUENTIAL}) or split across the common fork-join pool
+ * ({@code scanMode=PARALLEL}). Set the pool size with
+ * {@code -jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=N} and the number
+ * of concurrent queries with {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class ParallelScanBenchmark {
+
+    @Param({"SEQUENTIAL", "PARALLEL"})
+    public ScanMode scanMode;
+
+    @Param({"amount_gt", "state_eq_failed"})
+    public String query;
+
+    private Table table;
+    private RowPredicate predicate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = TransactionsFixture.table(TransactionsFixture.ROWS);
+        predicate = switch (query) {
+            // 1% of rows
+            case "amount_gt" -> where(condition("amount", ConditionOperator.GT, 98_999L));
+            // a quarter of the rows
+            case "state_eq_failed" -> where(condition("state", ConditionOperator.EQ, "FAILED"));
+            default -> throw new IllegalArgumentException("Unknown query: " + query);
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TransactionsFixture.ROWS)
+    public List<Map<String, Object>> scan() {
+        return table.select(List.of("id"), predicate, scanMode);
+    }
+}
@@ -0,0 +1,102 @@
+package com.ledgerly.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.ledgerly.engine.TransactionsFixture.condition;
+import static com.ledgerly.engine.TransactionsFixture.where;
+
+/**
+ * Sequential full scans of a {@value TransactionsFixture#ROWS}-row transactions table, in ns per
+ * row, evaluating the filter with {@link CompiledPredicate} ({@code compiled}) or with the
+ * interpreted evaluator it replaced ({@code interpreted}). No filtered column is indexed. The
+ * interpreted evaluator cannot compare a TIMESTAMP with an ISO-8601 string at all (it throws
+ * ClassCastException), so that filter is left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class PredicateBenchmark {
+
+    @Param({"compiled", "interpreted"})
+    public String evaluator;
+
+    @Param({
+            "amount_gt",
+            "metadata_null_amount_gt",
+            "id_gte",
+            "state_neq_currency_eq_expires_gt",
+            "state_eq_amount_lt"
+    })
+    public String query;
+
+    private Table table;
+    private Table.ReadView view;
+    private RowPredicate predicate;
+    private InterpretedPredicate interpreted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = TransactionsFixture.table(TransactionsFixture.ROWS);
+        view = table.openView();
+        predicate = predicate(query);
+        interpreted = new InterpretedPredicate(predicate);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        view.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TransactionsFixture.ROWS)
+    public List<Object> scan() {
+        if (evaluator.equals("compiled")) {
+            return new ArrayList<>(view.select(List.of("id"), predicate, ScanMode.SEQUENTIAL));
+        }
+        List<Object> out = new ArrayList<>();
+        view.forEachRow(row -> {
+            if (interpreted.test(row.getValues())) {
+                out.add(row.getValues().get("id"));
+            }
+        });
+        return out;
+    }
+
+    static RowPredicate predicate(String query) {
+        long midpoint = TransactionsFixture.BASE_MILLIS + TransactionsFixture.ROWS / 2 * 1_000L;
+        return switch (query) {
+            // 1% of rows
+            case "amount_gt" -> where(condition("amount", ConditionOperator.GT, 98_999L));
+            case "metadata_null_amount_gt" -> where(condition("metadata", ConditionOperator.IS_NULL, null),
+                    condition("amount", ConditionOperator.GT, 98_999L));
+            // 0.4% of rows
+            case "id_gte" -> where(condition("id", ConditionOperator.GTE, "tx298800"));
+            case "state_neq_currency_eq_expires_gt" -> where(condition("state", ConditionOperator.NEQ, "FAILED"),
+                    condition("currency", ConditionOperator.EQ, "KES"),
+                    condition("expires_at", ConditionOperator.GT, midpoint));
+            case "state_eq_amount_lt" -> where(condition("state", ConditionOperator.EQ, "PENDING"),
+                    condition("amount", ConditionOperator.LT, 1_000L));
+            default -> throw new IllegalArgumentException("Unknown query: " + query);
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.ledgerly.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.ledgerly.engine.TransactionsFixture.condition;
+import static com.ledgerly.engine.TransactionsFixture.where;
+
+/**
+ * Sequential scans of a {@value TransactionsFixture#ROWS}-row transactions table filtering STRING
+ * columns, in ns per row, with the columns dictionary-encoded ({@code strings=dictionary}) or
+ * stored as plain strings ({@code strings=plain}). No filtered column is indexed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class StringScanBenchmark {
+
+    @Param({"dictionary", "plain"})
+    public String strings;
+
+    @Param({"state_eq_failed", "currency_neq_kes", "merchant_eq", "currency_eq_usd"})
+    public String query;
+
+    private Table table;
+    private RowPredicate predicate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = TransactionsFixture.table(TransactionsFixture.ROWS, strings.equals("plain"));
+        predicate = switch (query) {
+            // a quarter of the rows
+            case "state_eq_failed" -> where(condition("state", ConditionOperator.EQ, "FAILED"));
+            // no row
+            case "currency_neq_kes" -> where(condition("currency", ConditionOperator.NEQ, "KES"));
+            // one merchant in 300
+            case "merchant_eq" -> where(condition("merchant_id", ConditionOperator.EQ, "m_17"));
+            // a value no row holds
+            case "currency_eq_usd" -> where(condition("currency", ConditionOperator.EQ, "USD"));
+            default -> throw new IllegalArgumentException("Unknown query: " + query);
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TransactionsFixture.ROWS)
+    public List<Map<String, Object>> scan() {
+        return table.select(List.of("id"), predicate, ScanMode.SEQUENTIAL);
+    }
+}
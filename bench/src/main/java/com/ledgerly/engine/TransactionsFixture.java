@@ -0,0 +1,92 @@
+package com.ledgerly.engine;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Rows of the domain transactions table for the table benchmarks: 8 columns, 300 merchants, four
+ * states in equal shares, one currency, amounts spread over 0..99,999 and metadata null on every
+ * other row. Every value is a fresh instance, as if it came off the wire.
+ */
+final class TransactionsFixture {
+    static final int ROWS = 300_000;
+    static final int MERCHANTS = 300;
+    static final long BASE_MILLIS = Instant.parse("2026-01-01T00:00:00Z").toEpochMilli();
+    static final List<String> STATES = List.of("PENDING", "SUCCESS", "FAILED", "EXPIRED");
+
+    static final TableSchema SCHEMA = new TableSchema("transactions",
+            List.of(
+                    new ColumnDefinition("id", DataType.STRING, false),
+                    new ColumnDefinition("merchant_id", DataType.STRING, false),
+                    new ColumnDefinition("amount", DataType.INT, false),
+                    new ColumnDefinition("currency", DataType.STRING, false),
+                    new ColumnDefinition("state", DataType.STRING, false),
+                    new ColumnDefinition("created_at", DataType.TIMESTAMP, false),
+                    new ColumnDefinition("expires_at", DataType.TIMESTAMP, false),
+                    new ColumnDefinition("metadata", DataType.STRING, true)),
+            List.of("id"),
+            List.of());
+
+    private TransactionsFixture() {
+    }
+
+    static Table table(int rows) {
+        return table(rows, false);
+    }
+
+    /**
+     * With {@code plainStrings}, every STRING column is pushed past the dictionary size limit
+     * before the rows go in, so it stores plain strings as a column with too many distinct values
+     * would.
+     */
+    static Table table(int rows, boolean plainStrings) {
+        Table table = new Table(SCHEMA);
+        if (plainStrings) {
+            dropDictionaries(table);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            table.insert(row(i, random));
+        }
+        return table;
+    }
+
+    /**
+     * Inserts and deletes enough distinct filler values to turn every STRING column of the empty
+     * {@code table} into plain strings for good.
+     */
+    static void dropDictionaries(Table table) {
+        for (int i = 0; i <= ColumnStore.MAX_DICTIONARY_SIZE; i++) {
+            Map<String, Object> filler = new HashMap<>();
+            for (ColumnDefinition column : table.getSchema().getColumns().values()) {
+                filler.put(column.getName(), column.getType() == DataType.STRING ? "~filler" + i : -1L - i);
+            }
+            table.insert(filler);
+        }
+        table.delete(null);
+    }
+
+    static Map<String, Object> row(int i, Random random) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", new String(String.format("tx%06d", i)));
+        row.put("merchant_id", new String("m_" + random.nextInt(MERCHANTS)));
+        row.put("amount", (long) random.nextInt(100_000));
+        row.put("currency", new String("KES"));
+        row.put("state", new String(STATES.get(i % STATES.size())));
+        row.put("created_at", BASE_MILLIS + i * 1_000L);
+        row.put("expires_at", BASE_MILLIS + i * 1_000L + 3_600_000L);
+        row.put("metadata", i % 2 == 0 ? null : new String("order " + i));
+        return row;
+    }
+
+    static RowPredicate where(Condition... conditions) {
+        return new RowPredicate(List.of(conditions));
+    }
+
+    static Condition condition(String column, ConditionOperator operator, Object value) {
+        return new Condition(column, operator, value);
+    }
+}
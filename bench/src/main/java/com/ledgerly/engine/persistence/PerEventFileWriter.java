@@ -0,0 +1,35 @@
+package com.ledgerly.engine.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The JSONL appender FilePersistence had before the WAL writer: one synchronized open, write and
+ * close of the log per event, with no fsync. Kept as the baseline for {@link WalAppendBenchmark}.
+ */
+final class PerEventFileWriter {
+    private final Path walPath;
+    private final ObjectMapper mapper = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    PerEventFileWriter(Path dataDir) {
+        this.walPath = dataDir.resolve("ledgerly-wal.jsonl");
+    }
+
+    synchronized void appendEvent(PersistenceEvent event) {
+        try (BufferedWriter writer = Files.newBufferedWriter(walPath,
+                StandardCharsets.UTF_8,
+                Files.exists(walPath) ? StandardOpenOption.APPEND : StandardOpenOption.CREATE)) {
+            writer.write(mapper.writeValueAsString(event));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to append WAL event", e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ledgerly.engine.persistence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends of transaction INSERT events, in events per second: the per-event open/write/close
+ * appender FilePersistence used to have ({@code baseline}) against the WAL writer under each
+ * fsync policy. Run with {@code -t 1} and {@code -t 8}, and with {@code -p format=BINARY} for the
+ * binary log; the baseline always writes JSONL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalAppendBenchmark {
+
+    @Param({"baseline", "COMMIT", "INTERVAL", "OS"})
+    public String writer;
+
+    @Param({"JSON"})
+    public LogFormat format;
+
+    private final AtomicLong seq = new AtomicLong();
+    private Path dir;
+    private PerEventFileWriter baseline;
+    private Persistence persistence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("ledgerly-wal-bench");
+        if (writer.equals("baseline")) {
+            baseline = new PerEventFileWriter(dir);
+            baseline.appendEvent(PersistenceEvent.createTable(WalEvents.SCHEMA));
+        } else {
+            persistence = WalEvents.open(dir, format, FsyncPolicy.valueOf(writer));
+            persistence.appendEvent(PersistenceEvent.createTable(WalEvents.SCHEMA));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (persistence != null) {
+            persistence.close();
+        }
+        WalEvents.delete(dir);
+    }
+
+    @Benchmark
+    public void append() {
+        PersistenceEvent event = WalEvents.insert(seq.getAndIncrement());
+        if (baseline != null) {
+            baseline.appendEvent(event);
+        } else {
+            persistence.appendEvent(event);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.ledgerly.engine.persistence;
+
+import com.ledgerly.engine.ColumnDefinition;
+import com.ledgerly.engine.Condition;
+import com.ledgerly.engine.ConditionOperator;
+import com.ledgerly.engine.DataType;
+import com.ledgerly.engine.RowPredicate;
+import com.ledgerly.engine.TableSchema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Transaction events as the domain service logs them, for the WAL benchmarks.
+ */
+final class WalEvents {
+    static final TableSchema SCHEMA = new TableSchema("transactions",
+            List.of(
+                    new ColumnDefinition("id", DataType.STRING, false),
+                    new ColumnDefinition("merchant_id", DataType.STRING, false),
+                    new ColumnDefinition("amount", DataType.INT, false),
+                    new ColumnDefinition("currency", DataType.STRING, false),
+                    new ColumnDefinition("state", DataType.STRING, false),
+                    new ColumnDefinition("created_at", DataType.TIMESTAMP, false),
+                    new ColumnDefinition("expires_at", DataType.TIMESTAMP, false),
+                    new ColumnDefinition("metadata", DataType.STRING, true)),
+            List.of("id"),
+            List.of());
+    private static final long BASE_MILLIS = 1_767_225_600_000L;
+
+    private WalEvents() {
+    }
+
+    static Persistence open(Path dir, LogFormat format, FsyncPolicy fsyncPolicy) {
+        return format == LogFormat.JSON
+                ? new FilePersistence(dir, fsyncPolicy, 100)
+                : new BinaryFilePersistence(dir, fsyncPolicy, 100);
+    }
+
+    static PersistenceEvent insert(long i) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", "tx" + i);
+        values.put("merchant_id", "m_" + i % 300);
+        values.put("amount", 1_000L + i % 99_000);
+        values.put("currency", "KES");
+        values.put("state", "PENDING");
+        values.put("created_at", BASE_MILLIS + i);
+        values.put("expires_at", BASE_MILLIS + i + 3_600_000L);
+        values.put("metadata", i % 2 == 0 ? null : "order " + i);
+        return PersistenceEvent.insert(SCHEMA.getName(), values);
+    }
+
+    static PersistenceEvent settle(long i) {
+        RowPredicate byId = new RowPredicate(List.of(new Condition("id", ConditionOperator.EQ, "tx" + i)));
+        return PersistenceEvent.update(SCHEMA.getName(), byId, Map.of("state", "SUCCESS"));
+    }
+
+    static long size(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ledgerly.engine.persistence;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replay of a log of 200k transaction inserts and 50k updates, in events per second, for each
+ * log format: the replay and bytes/event figures of the binary format commit. The log size is
+ * printed once it is written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalReplayBenchmark {
+    private static final int INSERTS = 200_000;
+    private static final int UPDATES = 50_000;
+
+    @Param({"JSON", "BINARY"})
+    public LogFormat format;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("ledgerly-replay-bench");
+        try (Persistence persistence = WalEvents.open(dir, format, FsyncPolicy.OS)) {
+            persistence.appendEvent(PersistenceEvent.createTable(WalEvents.SCHEMA));
+            for (int i = 0; i < INSERTS; i++) {
+                persistence.appendEvent(WalEvents.insert(i));
+            }
+            for (int i = 0; i < UPDATES; i++) {
+                persistence.appendEvent(WalEvents.settle(i * 4L));
+            }
+        }
+        System.out.printf("%n%s log: %d bytes/event%n", format, WalEvents.size(dir) / (INSERTS + UPDATES + 1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        WalEvents.delete(dir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSERTS + UPDATES + 1)
+    public long replay() {
+        long[] events = new long[1];
+        try (Persistence persistence = WalEvents.open(dir, format, FsyncPolicy.OS)) {
+            persistence.replay(event -> events[0]++);
+        }
+        return events[0];
+    }
+}